@@ -3,30 +3,37 @@
 
 package com.azure.android.core.http.httpurlconnection;
 
+import com.azure.android.core.http.HttpCallDeadline;
 import com.azure.android.core.http.HttpCallDispatcher;
 import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpClient;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.util.ByteArrayPool;
+import com.azure.android.core.http.util.LazyHttpHeaders;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.HttpRetryException;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.UnsupportedCharsetException;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -36,10 +43,25 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
     private static final Pattern CHARSET_PATTERN
         = Pattern.compile("charset=([\\S]+)\\b", Pattern.CASE_INSENSITIVE);
 
-    private final HttpCallDispatcher httpCallDispatcher;
+    // Checks the writes of request contents against the write timeout, its thread is released once idle.
+    private static final ScheduledThreadPoolExecutor WRITE_WATCHDOG = createWriteWatchdog();
 
-    HttpUrlConnectionAsyncHttpClient(HttpCallDispatcher httpCallDispatcher) {
+    private final HttpCallDispatcher httpCallDispatcher;
+    private final int connectTimeoutMillis;
+    private final int readTimeoutMillis;
+    private final int writeTimeoutMillis;
+    private final boolean keepAlive;
+
+    HttpUrlConnectionAsyncHttpClient(HttpCallDispatcher httpCallDispatcher,
+                                     int connectTimeoutMillis,
+                                     int readTimeoutMillis,
+                                     int writeTimeoutMillis,
+                                     boolean keepAlive) {
         this.httpCallDispatcher = httpCallDispatcher;
+        this.connectTimeoutMillis = connectTimeoutMillis;
+        this.readTimeoutMillis = readTimeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.keepAlive = keepAlive;
     }
 
     @Override
@@ -63,7 +85,7 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
 
     private void sendIntern(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
         if (cancellationToken.isCancellationRequested()) {
-            httpCallback.onError(new IOException("Canceled."));
+            httpCallback.onError(new CanceledException(null));
             return;
         }
 
@@ -76,80 +98,80 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
             return;
         }
 
+        // Disconnects the connection if the call is cancelled while in flight, which aborts a blocked write or read.
+        // Disconnecting before the connection is established has no effect, so the cancellation is also checked
+        // once the request is written and once the response headers are read. It stays registered until the
+        // response content is closed.
+        final OnCancelDisconnect onCancel = (cancellationToken == CancellationToken.NONE)
+            ? null
+            : new OnCancelDisconnect(connection, cancellationToken);
+
         connection.setDoInput(true);
+        connection.setConnectTimeout(this.connectTimeoutMillis);
+        connection.setReadTimeout(this.readTimeoutMillis);
+
+        final Object deadline = httpRequest.getTags().get(HttpCallDeadline.KEY);
+        if (deadline instanceof HttpCallDeadline) {
+            // Bound each blocking phase of the exchange by the time remaining until the deadline of the call,
+            // a zero timeout means infinite for HttpUrlConnection hence at least 1ms.
+            final int remainingMillis = (int) Math.min(Integer.MAX_VALUE,
+                Math.max(1, ((HttpCallDeadline) deadline).getRemaining(TimeUnit.MILLISECONDS)));
+            connection.setConnectTimeout(minTimeout(connection.getConnectTimeout(), remainingMillis));
+            connection.setReadTimeout(minTimeout(connection.getReadTimeout(), remainingMillis));
+        }
 
         Throwable error = null;
         HttpResponse httpResponse = null;
         boolean hasResponseContent = false;
+        boolean mustDisconnect = false;
         try {
             // Request: headers
             for (HttpHeader header : httpRequest.getHeaders()) {
                 connection.addRequestProperty(header.getName(), header.getValue());
             }
+            if (!this.keepAlive) {
+                connection.setRequestProperty("Connection", "close");
+            }
 
             // Request: method and content.
-            switch (httpRequest.getHttpMethod()) {
-                case GET:
-                case HEAD:
-                case OPTIONS:
-                case TRACE:
-                    connection.setRequestMethod(httpRequest.getHttpMethod().toString());
-                    break;
-                case PUT:
-                case POST:
-                case PATCH:
-                case DELETE:
-                    connection.setRequestMethod(httpRequest.getHttpMethod().toString());
-                    final byte[] requestContent = httpRequest.getBody();
-                    if (requestContent != null) {
-                        connection.setDoOutput(true);
-                        final OutputStream requestContentStream = connection.getOutputStream();
-                        try {
-                            requestContentStream.write(requestContent);
-                        } finally {
-                            requestContentStream.close();
-                        }
-                    }
-                    break;
-                default:
-                    throw logger.logExceptionAsError(new IllegalStateException("Unknown HTTP Method:"
-                        + httpRequest.getHttpMethod()));
+            int statusCode;
+            HttpRetryException retryException = null;
+            try {
+                writeRequest(httpRequest, connection);
+                throwIfCancelled(onCancel);
+                statusCode = connection.getResponseCode();
+                throwIfCancelled(onCancel);
+            } catch (HttpRetryException e) {
+                // In streaming mode the connection cannot replay the content to answer an authentication
+                // challenge or to follow a redirect, it throws instead; surface the response as is.
+                retryException = e;
+                statusCode = e.responseCode();
             }
-
-            // Response: StatusCode
-            final int statusCode = connection.getResponseCode();
             if (statusCode == -1) {
                 final IOException ioException = new IOException("Retrieval of HTTP response code failed. "
                     + "HttpUrlConnection::getResponseCode() returned -1");
                 throw logger.logExceptionAsError(new RuntimeException(ioException));
             }
 
-            // Response: headers
-            final Map<String, List<String>> connHeaderMap = connection.getHeaderFields();
-            final HttpHeaders headers = new HttpHeaders();
-            for (Map.Entry<String, List<String>> entry : connHeaderMap.entrySet()) {
-                if (entry.getKey() == null) {
-                    continue;
+            // Response: headers, read from the map the connection already holds.
+            final HttpHeaders headers = new UrlConnectionResponseHeaders(connection.getHeaderFields());
+            if (retryException != null) {
+                if (retryException.getLocation() != null && headers.getValue("Location") == null) {
+                    headers.put("Location", retryException.getLocation());
                 }
-                final String headerName = entry.getKey();
-                final String headerValue;
-                Iterator<String> hdrValueItr = entry.getValue().iterator();
-                if (hdrValueItr.hasNext()) {
-                    headerValue = hdrValueItr.next();
-                } else {
-                    headerValue = null;
-                }
-                headers.put(headerName, headerValue);
+                // The exchange cannot go on, the connection is not reusable.
+                mustDisconnect = true;
             }
 
             // Response: Content
-            hasResponseContent = statusCode != HttpURLConnection.HTTP_NO_CONTENT
+            hasResponseContent = retryException == null
+                && statusCode != HttpURLConnection.HTTP_NO_CONTENT
                 && statusCode != HttpURLConnection.HTTP_NOT_MODIFIED
                 && statusCode >= HttpURLConnection.HTTP_OK
                 && httpRequest.getHttpMethod() != HttpMethod.HEAD;
 
             final InputStream responseContentStream = hasResponseContent
-                ? new ResponseContentStream(connection)
+                ? new ResponseContentStream(connection, this.keepAlive, onCancel)
                 : new ByteArrayInputStream(new byte[0]);
 
             httpResponse = new UrlConnectionResponse(logger,
@@ -158,10 +180,17 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
                 headers,
                 responseContentStream);
         } catch (Throwable e) {
-            error = e;
+            error = (onCancel != null && onCancel.isCancelled() && !(e instanceof CanceledException))
+                ? new CanceledException(e)
+                : e;
         } finally {
-            if (error != null || !hasResponseContent) {
+            if (error != null || mustDisconnect || (!hasResponseContent && !this.keepAlive)) {
                 connection.disconnect();
+            } else if (!hasResponseContent) {
+                releaseConnection(connection);
+            }
+            if (onCancel != null && (error != null || !hasResponseContent)) {
+                onCancel.unregister();
             }
         }
 
@@ -173,18 +202,317 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
         }
     }
 
+    /**
+     * Writes the method and the content of the request to the connection.
+     */
+    private void writeRequest(HttpRequest httpRequest, HttpURLConnection connection) throws IOException {
+        switch (httpRequest.getHttpMethod()) {
+            case GET:
+            case HEAD:
+            case OPTIONS:
+            case TRACE:
+                connection.setRequestMethod(httpRequest.getHttpMethod().toString());
+                break;
+            case PUT:
+            case POST:
+            case PATCH:
+            case DELETE:
+                connection.setRequestMethod(httpRequest.getHttpMethod().toString());
+                final HttpRequestBody requestContent = httpRequest.getRequestBody();
+                if (requestContent != null) {
+                    connection.setDoOutput(true);
+                    // Stream the content, by default HttpUrlConnection buffers all of it to compute
+                    // the Content-Length.
+                    final long contentLength = requestContent.getContentLength();
+                    if (contentLength >= 0 && contentLength <= Integer.MAX_VALUE) {
+                        // The long overload requires API level 19.
+                        connection.setFixedLengthStreamingMode((int) contentLength);
+                    } else {
+                        connection.setChunkedStreamingMode(0);
+                    }
+                    final OutputStream requestContentStream = this.writeTimeoutMillis == 0
+                        ? connection.getOutputStream()
+                        : new WriteTimeoutOutputStream(connection, this.writeTimeoutMillis);
+                    try {
+                        requestContent.writeTo(requestContentStream);
+                    } finally {
+                        requestContentStream.close();
+                    }
+                }
+                break;
+            default:
+                throw logger.logExceptionAsError(new IllegalStateException("Unknown HTTP Method:"
+                    + httpRequest.getHttpMethod()));
+        }
+    }
+
+    private static void throwIfCancelled(OnCancelDisconnect onCancel) throws CanceledException {
+        if (onCancel != null && onCancel.isCancelled()) {
+            throw new CanceledException(null);
+        }
+    }
+
+    /**
+     * Hands a connection whose response has no content back to the pool; disconnecting would close it.
+     */
+    private static void releaseConnection(HttpURLConnection connection) {
+        try {
+            final InputStream inputStream = ResponseContentStream.innerInputStream(connection);
+            if (inputStream != null) {
+                inputStream.close();
+            }
+        } catch (IOException ignored) {
+            connection.disconnect();
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createWriteWatchdog() {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "azure-http-write-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setKeepAliveTime(60, TimeUnit.SECONDS);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static int minTimeout(int timeoutMillis, int remainingMillis) {
+        // A zero timeout means infinite.
+        return timeoutMillis == 0 ? remainingMillis : Math.min(timeoutMillis, remainingMillis);
+    }
+
+    /**
+     * The response headers, read from the header fields of the connection until they are copied.
+     */
+    private static final class UrlConnectionResponseHeaders extends LazyHttpHeaders {
+        private final Map<String, List<String>> headerFields;
+
+        UrlConnectionResponseHeaders(Map<String, List<String>> headerFields) {
+            this.headerFields = headerFields;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            // The map is case-insensitive on Android, not necessarily on other platforms.
+            List<String> values = this.headerFields.get(name);
+            if (values == null) {
+                for (Map.Entry<String, List<String>> entry : this.headerFields.entrySet()) {
+                    if (entry.getKey() != null && entry.getKey().equalsIgnoreCase(name)) {
+                        values = entry.getValue();
+                        break;
+                    }
+                }
+            }
+            if (values == null || values.isEmpty()) {
+                return null;
+            } else if (values.size() == 1) {
+                return values.get(0);
+            }
+            final StringBuilder value = new StringBuilder(values.get(0));
+            for (int i = 1; i < values.size(); i++) {
+                value.append(',').append(values.get(i));
+            }
+            return value.toString();
+        }
+
+        @Override
+        protected void copyAll() {
+            for (Map.Entry<String, List<String>> entry : this.headerFields.entrySet()) {
+                // The null key holds the status line.
+                if (entry.getKey() == null) {
+                    continue;
+                }
+                if (entry.getValue().isEmpty()) {
+                    put(entry.getKey(), null);
+                }
+                for (String value : entry.getValue()) {
+                    add(entry.getKey(), value);
+                }
+            }
+        }
+    }
+
+    /**
+     * The stream writing the request content, closing the connection if a write blocks for longer than the
+     * write timeout; HttpUrlConnection itself has no write timeout.
+     *
+     * <p>
+     * A stream has at most one check scheduled on the watchdog rather than one per write: a check finding
+     * the write in progress not yet due is rescheduled for its deadline, a check finding no write in progress
+     * ends and the next write schedules a new one. Cancelled tasks stay in the queue of a
+     * ScheduledThreadPoolExecutor until due, scheduling one per write would pile them up.
+     * </p>
+     */
+    private static final class WriteTimeoutOutputStream extends FilterOutputStream {
+        private final HttpURLConnection connection;
+        private final int writeTimeoutMillis;
+        // The deadline of the write in progress, 0 if no write is in progress.
+        private volatile long writeDeadlineNanos;
+        private volatile boolean timedOut;
+        // Guarded by this.
+        private boolean checkScheduled;
+
+        WriteTimeoutOutputStream(HttpURLConnection connection, int writeTimeoutMillis) throws IOException {
+            super(connection.getOutputStream());
+            this.connection = connection;
+            this.writeTimeoutMillis = writeTimeoutMillis;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.startWrite();
+            try {
+                this.out.write(b, off, len);
+            } catch (IOException e) {
+                throw this.timedOut ? newTimeoutException(e) : e;
+            } finally {
+                this.writeDeadlineNanos = 0;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            this.startWrite();
+            try {
+                this.out.flush();
+            } catch (IOException e) {
+                throw this.timedOut ? newTimeoutException(e) : e;
+            } finally {
+                this.writeDeadlineNanos = 0;
+            }
+        }
+
+        private void startWrite() {
+            final long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.writeTimeoutMillis);
+            // 0 means no write in progress.
+            this.writeDeadlineNanos = deadlineNanos == 0 ? 1 : deadlineNanos;
+            synchronized (this) {
+                if (!this.checkScheduled) {
+                    this.checkScheduled = true;
+                    WRITE_WATCHDOG.schedule(this::check, this.writeTimeoutMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+
+        private void check() {
+            synchronized (this) {
+                final long deadlineNanos = this.writeDeadlineNanos;
+                if (deadlineNanos == 0) {
+                    this.checkScheduled = false;
+                    return;
+                }
+                final long remainingNanos = deadlineNanos - System.nanoTime();
+                if (remainingNanos > 0) {
+                    WRITE_WATCHDOG.schedule(this::check, remainingNanos, TimeUnit.NANOSECONDS);
+                    return;
+                }
+                this.checkScheduled = false;
+            }
+            this.timedOut = true;
+            // Closes the socket, which unblocks the write.
+            this.connection.disconnect();
+        }
+
+        private SocketTimeoutException newTimeoutException(IOException cause) {
+            final SocketTimeoutException exception = new SocketTimeoutException("Write timed out after "
+                + this.writeTimeoutMillis + "ms.");
+            exception.initCause(cause);
+            return exception;
+        }
+    }
+
+    /**
+     * The hook registered on the {@link CancellationToken} of a call, disconnecting its connection on cancel.
+     */
+    private static final class OnCancelDisconnect implements Runnable {
+        private final HttpURLConnection connection;
+        private final CancellationToken.Registration registration;
+        private volatile boolean cancelled;
+
+        OnCancelDisconnect(HttpURLConnection connection, CancellationToken cancellationToken) {
+            this.connection = connection;
+            // Runs right away if the token is already cancelled.
+            this.registration = cancellationToken.register(this);
+        }
+
+        @Override
+        public void run() {
+            this.cancelled = true;
+            this.connection.disconnect();
+        }
+
+        boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        void unregister() {
+            this.registration.close();
+        }
+    }
+
+    /**
+     * The error of a call cancelled while in flight, with the error the cancellation caused if any.
+     */
+    private static final class CanceledException extends IOException {
+        CanceledException(Throwable cause) {
+            super("Canceled.", cause);
+        }
+    }
+
     private static class ResponseContentStream extends FilterInputStream {
         private final HttpURLConnection innerConnection;
+        private final boolean keepAlive;
+        private final OnCancelDisconnect onCancel;
 
-        ResponseContentStream(HttpURLConnection connection) {
+        ResponseContentStream(HttpURLConnection connection, boolean keepAlive, OnCancelDisconnect onCancel) {
             super(innerInputStream(connection));
             this.innerConnection = connection;
+            this.keepAlive = keepAlive;
+            this.onCancel = onCancel;
+        }
+
+        @Override
+        public int read() throws IOException {
+            try {
+                return super.read();
+            } catch (IOException e) {
+                throw translate(e);
+            }
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            try {
+                return super.read(b, off, len);
+            } catch (IOException e) {
+                throw translate(e);
+            }
         }
 
         @Override
         public void close() throws IOException {
-            super.close();
-            this.innerConnection.disconnect();
+            try {
+                super.close();
+            } finally {
+                // Closing the stream returns a kept-alive connection to the pool, disconnecting would close it.
+                if (!this.keepAlive) {
+                    this.innerConnection.disconnect();
+                }
+                if (this.onCancel != null) {
+                    this.onCancel.unregister();
+                }
+            }
+        }
+
+        private IOException translate(IOException error) {
+            // A read aborted by the cancellation fails with whatever error closing the socket caused.
+            return (this.onCancel != null && this.onCancel.isCancelled()) ? new CanceledException(error) : error;
         }
 
         private static InputStream innerInputStream(HttpURLConnection connection) {
@@ -193,7 +521,10 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
                 return connection.getInputStream();
             } catch (IOException ioe) {
                 // input-stream read can throw IOE for responses with error HTTP code (e.g. 400), try error-stream..
-                return connection.getErrorStream();
+                final InputStream errorStream = connection.getErrorStream();
+                // There is none when the connection gave up on the exchange, e.g. HttpRetryException for
+                // a challenge to a streamed request.
+                return errorStream != null ? errorStream : new ByteArrayInputStream(new byte[0]);
             }
         }
     }
@@ -238,15 +569,10 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
 
         @Override
         public byte[] getBodyAsByteArray() {
-            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
-            int nRead;
-            byte[] data = new byte[1024];
             InputStream is = this.getBody();
             try {
-                while ((nRead = is.read(data, 0, data.length)) != -1) {
-                    buffer.write(data, 0, nRead);
-                }
-                buffer.flush();
+                return ByteArrayPool.getDefault().readAll(is,
+                    ByteArrayPool.parseContentLength(this.headers.getValue("Content-Length")));
             } catch (IOException ioe) {
                 throw logger.logExceptionAsError(new RuntimeException(ioe));
             } finally {
@@ -256,7 +582,6 @@ class HttpUrlConnectionAsyncHttpClient implements HttpClient {
                     throw logger.logExceptionAsError(new RuntimeException(ioe));
                 }
             }
-            return buffer.toByteArray();
         }
 
         @Override
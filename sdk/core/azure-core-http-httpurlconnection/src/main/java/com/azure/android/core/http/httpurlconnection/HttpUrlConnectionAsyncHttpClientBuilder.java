@@ -5,13 +5,33 @@ package com.azure.android.core.http.httpurlconnection;
 
 import com.azure.android.core.http.HttpCallDispatcher;
 import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.logging.ClientLogger;
+
+import org.threeten.bp.Duration;
 
 /**
  * Builder class responsible for creating instances of {@link com.azure.android.core.http.HttpClient}
  * backed by HttpUrlConnection.
+ *
+ * <p>
+ * Request contents are always streamed to the connection, with a fixed {@code Content-Length} when their length is
+ * known and chunked transfer encoding otherwise, so HttpUrlConnection never buffers them.
+ * </p>
+ *
+ * <p>
+ * HttpUrlConnection pools its connections per process rather than per client, so the pool is not configured by the
+ * builder; see {@link #configureProcessConnectionPool(int, Duration)}.
+ * </p>
  */
 public class HttpUrlConnectionAsyncHttpClientBuilder {
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(10);
+
+    private final ClientLogger logger = new ClientLogger(HttpUrlConnectionAsyncHttpClientBuilder.class);
     private HttpCallDispatcher httpCallDispatcher;
+    private Duration connectTimeout = DEFAULT_TIMEOUT;
+    private Duration readTimeout = DEFAULT_TIMEOUT;
+    private Duration writeTimeout = DEFAULT_TIMEOUT;
+    private boolean keepAlive = true;
 
     /**
      * Creates HttpUrlConnectionAsyncHttpClientBuilder.
@@ -34,6 +54,59 @@ public class HttpUrlConnectionAsyncHttpClientBuilder {
         return this;
     }
 
+    /**
+     * Sets the maximum time to establish a connection, 10 seconds by default.
+     *
+     * @param connectTimeout The connect timeout, {@link Duration#ZERO} for no timeout.
+     * @return The updated HttpUrlConnectionAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the connectTimeout parameter is null.
+     * @throws IllegalArgumentException if the connectTimeout parameter is negative.
+     */
+    public HttpUrlConnectionAsyncHttpClientBuilder setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = validateTimeout(connectTimeout, "connectTimeout");
+        return this;
+    }
+
+    /**
+     * Sets the maximum time to wait for the response data once connected, 10 seconds by default; it bounds each
+     * read from the socket, not the whole response.
+     *
+     * @param readTimeout The read timeout, {@link Duration#ZERO} for no timeout.
+     * @return The updated HttpUrlConnectionAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the readTimeout parameter is null.
+     * @throws IllegalArgumentException if the readTimeout parameter is negative.
+     */
+    public HttpUrlConnectionAsyncHttpClientBuilder setReadTimeout(Duration readTimeout) {
+        this.readTimeout = validateTimeout(readTimeout, "readTimeout");
+        return this;
+    }
+
+    /**
+     * Sets the maximum time a write of the request content may block, 10 seconds by default; the connection is
+     * closed when a write exceeds it.
+     *
+     * @param writeTimeout The write timeout, {@link Duration#ZERO} for no timeout.
+     * @return The updated HttpUrlConnectionAsyncHttpClientBuilder object.
+     * @throws NullPointerException if the writeTimeout parameter is null.
+     * @throws IllegalArgumentException if the writeTimeout parameter is negative.
+     */
+    public HttpUrlConnectionAsyncHttpClientBuilder setWriteTimeout(Duration writeTimeout) {
+        this.writeTimeout = validateTimeout(writeTimeout, "writeTimeout");
+        return this;
+    }
+
+    /**
+     * Sets whether connections are kept alive and reused once their response is read, true by default. When false,
+     * each request is sent with {@code Connection: close} and its connection is closed with the response.
+     *
+     * @param keepAlive true to reuse the connections, false otherwise.
+     * @return The updated HttpUrlConnectionAsyncHttpClientBuilder object.
+     */
+    public HttpUrlConnectionAsyncHttpClientBuilder setKeepAlive(boolean keepAlive) {
+        this.keepAlive = keepAlive;
+        return this;
+    }
+
     /**
      * Creates a new HttpUrlConnection-backed {@link com.azure.android.core.http.HttpClient} instance on every call,
      * using the configuration set in the builder at the time of the build method call.
@@ -44,6 +117,63 @@ public class HttpUrlConnectionAsyncHttpClientBuilder {
         final HttpCallDispatcher httpCallDispatcher = this.httpCallDispatcher == null
             ? new HttpCallDispatcher()
             : this.httpCallDispatcher;
-        return new HttpUrlConnectionAsyncHttpClient(httpCallDispatcher);
+        return new HttpUrlConnectionAsyncHttpClient(httpCallDispatcher,
+            toTimeoutMillis(this.connectTimeout),
+            toTimeoutMillis(this.readTimeout),
+            toTimeoutMillis(this.writeTimeout),
+            this.keepAlive);
+    }
+
+    /**
+     * Configures the connection pool HttpUrlConnection shares across the process, by setting the system properties
+     * it reads.
+     *
+     * <p>
+     * The platform reads these properties once, when it creates its pool, so this method must be called before any
+     * connection of the process is opened, by any client or library; it has no effect afterwards. The settings apply
+     * to every HttpUrlConnection of the process, not only to the clients built by this builder. The JDK only honours
+     * the maximum number of idle connections.
+     * </p>
+     *
+     * @param maxIdleConnections The maximum number of idle connections kept in the pool.
+     * @param keepAliveDuration The time an idle connection is kept in the pool.
+     * @throws NullPointerException if the keepAliveDuration parameter is null.
+     * @throws IllegalArgumentException if the maxIdleConnections parameter is less than 1 or the keepAliveDuration
+     * parameter is not positive.
+     */
+    public static void configureProcessConnectionPool(int maxIdleConnections, Duration keepAliveDuration) {
+        final ClientLogger logger = new ClientLogger(HttpUrlConnectionAsyncHttpClientBuilder.class);
+        if (maxIdleConnections < 1) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxIdleConnections' must be positive."));
+        }
+        if (keepAliveDuration == null) {
+            throw new NullPointerException("'keepAliveDuration' is required.");
+        }
+        if (keepAliveDuration.isNegative() || keepAliveDuration.isZero()) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'keepAliveDuration' must be positive."));
+        }
+        System.setProperty("http.maxConnections", String.valueOf(maxIdleConnections));
+        System.setProperty("http.keepAliveDuration", String.valueOf(keepAliveDuration.toMillis()));
+    }
+
+    private Duration validateTimeout(Duration timeout, String name) {
+        if (timeout == null) {
+            throw new NullPointerException("'" + name + "' is required.");
+        }
+        if (timeout.isNegative()) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'" + name + "' cannot be negative."));
+        }
+        return timeout;
+    }
+
+    private static int toTimeoutMillis(Duration timeout) {
+        if (timeout.isZero()) {
+            return 0;
+        }
+        if (timeout.getSeconds() >= Integer.MAX_VALUE / 1000) {
+            return Integer.MAX_VALUE;
+        }
+        // A zero timeout means no timeout for HttpUrlConnection, hence at least 1ms.
+        return (int) Math.max(1, timeout.toMillis());
     }
 }
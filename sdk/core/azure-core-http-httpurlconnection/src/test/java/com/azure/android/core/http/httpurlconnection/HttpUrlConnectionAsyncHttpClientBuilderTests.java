@@ -0,0 +1,195 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.httpurlconnection;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpClient;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.core.WireMockConfiguration;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpUrlConnectionAsyncHttpClientBuilderTests {
+    private static WireMockServer server;
+
+    @BeforeAll
+    public static void startWireMockServer() {
+        server = new WireMockServer(WireMockConfiguration.options().dynamicPort().disableRequestJournal());
+        server.stubFor(WireMock.get("/slow").willReturn(WireMock.aResponse().withFixedDelay(2000)));
+        // Any request without 'Connection: close' gets a 404.
+        server.stubFor(WireMock.get("/close").withHeader("Connection", WireMock.equalTo("close"))
+            .willReturn(WireMock.aResponse().withStatus(200)));
+        server.stubFor(WireMock.post("/challenge").willReturn(WireMock.aResponse().withStatus(401)
+            .withHeader("WWW-Authenticate", "Bearer")));
+        server.stubFor(WireMock.post("/redirect").willReturn(WireMock.aResponse().withStatus(307)
+            .withHeader("Location", "/elsewhere")));
+        server.stubFor(WireMock.post("/upload").willReturn(WireMock.aResponse().withStatus(200)));
+        server.start();
+    }
+
+    @AfterAll
+    public static void shutdownWireMockServer() {
+        if (server != null) {
+            server.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidSettingsAreRejected() {
+        final HttpUrlConnectionAsyncHttpClientBuilder builder = new HttpUrlConnectionAsyncHttpClientBuilder();
+        assertThrows(NullPointerException.class, () -> builder.setConnectTimeout(null));
+        assertThrows(IllegalArgumentException.class, () -> builder.setReadTimeout(Duration.ofMillis(-1)));
+        assertThrows(IllegalArgumentException.class, () -> builder.setWriteTimeout(Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> HttpUrlConnectionAsyncHttpClientBuilder.configureProcessConnectionPool(0, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class,
+            () -> HttpUrlConnectionAsyncHttpClientBuilder.configureProcessConnectionPool(5, Duration.ZERO));
+        assertThrows(NullPointerException.class,
+            () -> HttpUrlConnectionAsyncHttpClientBuilder.configureProcessConnectionPool(5, null));
+    }
+
+    @Test
+    public void readTimeoutFailsAStalledResponse() {
+        final HttpClient httpClient = new HttpUrlConnectionAsyncHttpClientBuilder()
+            .setReadTimeout(Duration.ofMillis(200))
+            .build();
+
+        final Throwable error = send(httpClient, "/slow").error;
+        assertTrue(error instanceof SocketTimeoutException, String.valueOf(error));
+    }
+
+    @Test
+    public void connectionIsClosedWithoutKeepAlive() {
+        final HttpClient httpClient = new HttpUrlConnectionAsyncHttpClientBuilder()
+            .setKeepAlive(false)
+            .build();
+
+        final HttpResponse response = send(httpClient, "/close").response;
+        assertEquals(200, response.getStatusCode());
+        response.close();
+    }
+
+    @Test
+    public void challengeToAStreamedRequestIsAResponse() {
+        final HttpClient httpClient = new HttpUrlConnectionAsyncHttpClientBuilder().build();
+
+        // The streamed content cannot be replayed, the 401 and the 307 reach the pipeline as responses.
+        final Result challenge = send(httpClient, post("/challenge"));
+        assertNull(challenge.error);
+        assertEquals(401, challenge.response.getStatusCode());
+        challenge.response.close();
+
+        final Result redirect = send(httpClient, post("/redirect"));
+        assertNull(redirect.error);
+        assertEquals(307, redirect.response.getStatusCode());
+        assertTrue(redirect.response.getHeaderValue("Location").endsWith("/elsewhere"));
+        redirect.response.close();
+    }
+
+    @Test
+    public void cancelBeforeTheConnectionIsEstablishedFailsTheCall() {
+        final HttpClient httpClient = new HttpUrlConnectionAsyncHttpClientBuilder().build();
+        final CancellationToken cancellationToken = new CancellationToken();
+        final byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+        final AtomicInteger lengthReads = new AtomicInteger();
+        // The client reads the length before opening the connection, cancelling there lands before any connect;
+        // the first read is the one of setBody.
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.POST, "http://localhost:" + server.port()
+            + "/upload").setBody(new HttpRequestBody() {
+                @Override
+                public long getContentLength() {
+                    if (lengthReads.incrementAndGet() == 2) {
+                        cancellationToken.cancel();
+                    }
+                    return content.length;
+                }
+
+                @Override
+                public boolean isReplayable() {
+                    return true;
+                }
+
+                @Override
+                public void writeTo(OutputStream outputStream) throws IOException {
+                    outputStream.write(content);
+                }
+            });
+
+        final Result result = send(httpClient, httpRequest, cancellationToken);
+        assertNull(result.response);
+        assertTrue(result.error instanceof IOException, String.valueOf(result.error));
+        assertEquals("Canceled.", result.error.getMessage());
+    }
+
+    private static HttpRequest post(String path) {
+        return new HttpRequest(HttpMethod.POST, "http://localhost:" + server.port() + path)
+            .setBody("content".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Result send(HttpClient httpClient, String path) {
+        return send(httpClient, new HttpRequest(HttpMethod.GET, "http://localhost:" + server.port() + path));
+    }
+
+    private static Result send(HttpClient httpClient, HttpRequest httpRequest) {
+        return send(httpClient, httpRequest, CancellationToken.NONE);
+    }
+
+    private static Result send(HttpClient httpClient, HttpRequest httpRequest, CancellationToken cancellationToken) {
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<HttpResponse> response = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        httpClient.send(httpRequest, cancellationToken, new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse httpResponse) {
+                response.set(httpResponse);
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                error.set(throwable);
+                latch.countDown();
+            }
+        });
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS), "The call did not complete.");
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        return new Result(response.get(), error.get());
+    }
+
+    private static final class Result {
+        private final HttpResponse response;
+        private final Throwable error;
+
+        Result(HttpResponse response, Throwable error) {
+            this.response = response;
+            this.error = error;
+        }
+    }
+}
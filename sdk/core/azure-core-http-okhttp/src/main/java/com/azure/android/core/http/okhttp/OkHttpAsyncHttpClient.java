@@ -3,27 +3,30 @@
 
 package com.azure.android.core.http.okhttp;
 
+import com.azure.android.core.http.HttpCallDeadline;
 import com.azure.android.core.http.HttpCallDispatcher;
 import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpClient;
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.util.LazyHttpHeaders;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.IllegalCharsetNameException;
 import java.nio.charset.StandardCharsets;
 import java.nio.charset.UnsupportedCharsetException;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,6 +36,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSink;
 
 class OkHttpAsyncHttpClient implements HttpClient {
     private final ClientLogger logger = new ClientLogger(OkHttpAsyncHttpClient.class);
@@ -59,16 +63,11 @@ class OkHttpAsyncHttpClient implements HttpClient {
 
         okhttpRequestBuilder.url(httpRequest.getUrl());
 
-        if (httpRequest.getHeaders() != null) {
-            Map<String, String> headers = new HashMap<>();
-            for (HttpHeader hdr : httpRequest.getHeaders()) {
-                if (hdr.getValue() != null) {
-                    headers.put(hdr.getName(), hdr.getValue());
-                }
+        // Added straight to the builder's own header list, one entry per value.
+        for (HttpHeader hdr : httpRequest.getHeaders()) {
+            for (String value : hdr.getValuesList()) {
+                okhttpRequestBuilder.addHeader(hdr.getName(), value);
             }
-            okhttpRequestBuilder.headers(okhttp3.Headers.of(headers));
-        } else {
-            okhttpRequestBuilder.headers(okhttp3.Headers.of(new HashMap<>()));
         }
 
         if (httpRequest.getHttpMethod() == HttpMethod.GET) {
@@ -76,50 +75,49 @@ class OkHttpAsyncHttpClient implements HttpClient {
         } else if (httpRequest.getHttpMethod() == HttpMethod.HEAD) {
             okhttpRequestBuilder.head();
         } else {
-            byte[] content = httpRequest.getBody();
-            content = content == null ? new byte[0] : content;
-
+            final HttpRequestBody content = httpRequest.getRequestBody();
             final String contentType = httpRequest.getHeaders().getValue("Content-Type");
-            if (contentType == null) {
+            final MediaType mediaType = contentType == null ? null : MediaType.parse(contentType);
+            if (content == null) {
                 okhttpRequestBuilder.method(httpRequest.getHttpMethod().toString(),
-                    RequestBody.create(null, content));
+                    RequestBody.create(mediaType, new byte[0]));
             } else {
                 okhttpRequestBuilder.method(httpRequest.getHttpMethod().toString(),
-                    RequestBody.create(MediaType.parse(contentType), content));
+                    new StreamingRequestBody(mediaType, content));
             }
         }
 
         final okhttp3.Request okHttpRequest = okhttpRequestBuilder.build();
         final okhttp3.Call call = httpClient.newCall(okHttpRequest);
-
-        final String onCancelId = (cancellationToken == CancellationToken.NONE) ? null : UUID.randomUUID().toString();
-        if (onCancelId != null) {
-            // Register an identifiable Runnable to run on cancellationToken.cancel().
-            //
-            // This Runnable unregistered once the 'call' completes.
-            //
-            // We don't want a cancel on cancellationToken to call call.cancel()
-            // after the call completion (though call.cancel() after it's completion is nop).
-            //
-            cancellationToken.registerOnCancel(onCancelId, () -> call.cancel());
+        final Object deadline = httpRequest.getTags().get(HttpCallDeadline.KEY);
+        if (deadline instanceof HttpCallDeadline) {
+            // Bound the whole exchange by the time remaining until the deadline of the call,
+            // a zero timeout means no timeout for OkHttp hence at least 1ns.
+            call.timeout().timeout(Math.max(1, ((HttpCallDeadline) deadline).getRemaining(TimeUnit.NANOSECONDS)),
+                TimeUnit.NANOSECONDS);
         }
 
+        // Register a Runnable to run on cancellationToken.cancel().
+        //
+        // This Runnable unregistered once the 'call' completes.
+        //
+        // We don't want a cancel on cancellationToken to call call.cancel()
+        // after the call completion (though call.cancel() after it's completion is nop).
+        //
+        final CancellationToken.Registration onCancelRegistration = cancellationToken.register(call::cancel);
+
         call.enqueue(new okhttp3.Callback() {
             @Override
             public void onFailure(okhttp3.Call call, IOException error) {
-                if (onCancelId != null) {
-                    cancellationToken.unregisterOnCancel(onCancelId);
-                }
+                onCancelRegistration.close();
                 httpCallback.onError(error);
             }
 
             @Override
             public void onResponse(okhttp3.Call call, Response response) {
-                if (onCancelId != null) {
-                    cancellationToken.unregisterOnCancel(onCancelId);
-                }
+                onCancelRegistration.close();
                 httpCallback.onSuccess(new HttpResponse(httpRequest) {
-                    private final HttpHeaders headers = fromOkHttpHeaders(response.headers());
+                    private final HttpHeaders headers = new OkHttpResponseHeaders(response.headers());
                     private final ResponseBody responseBody = response.body();
 
                     @Override
@@ -146,6 +144,16 @@ class OkHttpAsyncHttpClient implements HttpClient {
                         }
                     }
 
+                    @Override
+                    public ReadableByteChannel getBodyAsChannel() {
+                        if (this.responseBody == null) {
+                            return Channels.newChannel(new ByteArrayInputStream(new byte[0]));
+                        } else {
+                            // The Okio source copies its segments straight into the caller's buffers.
+                            return this.responseBody.source();
+                        }
+                    }
+
                     @Override
                     public byte[] getBodyAsByteArray() {
                         if (this.responseBody == null) {
@@ -176,14 +184,6 @@ class OkHttpAsyncHttpClient implements HttpClient {
                     public String getBodyAsString(Charset charset) {
                         return new String(this.getBodyAsByteArray(), charset);
                     }
-
-                    private HttpHeaders fromOkHttpHeaders(Headers headers) {
-                        HttpHeaders httpHeaders = new HttpHeaders();
-                        for (String headerName : headers.names()) {
-                            httpHeaders.put(headerName, headers.get(headerName));
-                        }
-                        return httpHeaders;
-                    }
                 });
             }
         });
@@ -254,4 +254,68 @@ class OkHttpAsyncHttpClient implements HttpClient {
             }
         }
     }
+
+    /**
+     * The response headers, read from the OkHttp {@link Headers} until they are copied.
+     */
+    private static final class OkHttpResponseHeaders extends LazyHttpHeaders {
+        private final Headers okHttpHeaders;
+
+        OkHttpResponseHeaders(Headers okHttpHeaders) {
+            this.okHttpHeaders = okHttpHeaders;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String value = null;
+            for (int i = 0; i < this.okHttpHeaders.size(); i++) {
+                if (this.okHttpHeaders.name(i).equalsIgnoreCase(name)) {
+                    value = value == null ? this.okHttpHeaders.value(i) : value + "," + this.okHttpHeaders.value(i);
+                }
+            }
+            return value;
+        }
+
+        @Override
+        protected void copyAll() {
+            for (int i = 0; i < this.okHttpHeaders.size(); i++) {
+                add(this.okHttpHeaders.name(i), this.okHttpHeaders.value(i));
+            }
+        }
+    }
+
+    /**
+     * The OkHttp request body writing an {@link HttpRequestBody} to the connection as it is sent.
+     */
+    private static final class StreamingRequestBody extends RequestBody {
+        private final MediaType mediaType;
+        private final HttpRequestBody content;
+
+        StreamingRequestBody(MediaType mediaType, HttpRequestBody content) {
+            this.mediaType = mediaType;
+            this.content = content;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return this.mediaType;
+        }
+
+        @Override
+        public long contentLength() {
+            // -1 makes OkHttp use chunked transfer encoding.
+            return this.content.getContentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            // Stops OkHttp from retrying the request on its own with a consumed body.
+            return !this.content.isReplayable();
+        }
+
+        @Override
+        public void writeTo(BufferedSink sink) throws IOException {
+            this.content.writeTo(sink.outputStream());
+        }
+    }
 }
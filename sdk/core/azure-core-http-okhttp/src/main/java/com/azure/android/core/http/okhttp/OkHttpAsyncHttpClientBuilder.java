@@ -47,6 +47,7 @@ public class OkHttpAsyncHttpClientBuilder {
         final HttpCallDispatcher httpCallDispatcher
             = new HttpCallDispatcher(okHttpClient.dispatcher().executorService());
         httpCallDispatcher.setMaxRunningCalls(okHttpClient.dispatcher().getMaxRequests());
+        httpCallDispatcher.setMaxRunningCallsPerHost(okHttpClient.dispatcher().getMaxRequestsPerHost());
 
         return new OkHttpAsyncHttpClient(okHttpClient, httpCallDispatcher);
     }
@@ -0,0 +1,80 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.logging.ClientLogger;
+
+/**
+ * The additive increase, multiplicative decrease (AIMD) {@link ConcurrencyLimit}.
+ *
+ * <p>
+ * The limit grows by one for each successful call made while the calls in flight use at least half of the
+ * limit, and is multiplied by the backoff ratio for each dropped call, i.e. a failed or throttled call.
+ * </p>
+ */
+public final class AimdConcurrencyLimit implements ConcurrencyLimit {
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 64;
+    private static final double DEFAULT_BACKOFF_RATIO = 0.9;
+
+    private final ClientLogger logger = new ClientLogger(AimdConcurrencyLimit.class);
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private volatile int limit;
+
+    /**
+     * Creates an {@link AimdConcurrencyLimit} with default settings.
+     *
+     * <p>
+     * The default limit starts at 20, stays between 1 and 64 and backs off by 10% on a dropped call.
+     * </p>
+     */
+    public AimdConcurrencyLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_BACKOFF_RATIO);
+    }
+
+    /**
+     * Creates an {@link AimdConcurrencyLimit}.
+     *
+     * @param initialLimit The limit to start with.
+     * @param minLimit The lowest limit.
+     * @param maxLimit The highest limit.
+     * @param backoffRatio The ratio the limit is multiplied by on a dropped call, between 0.5 and 1 (exclusive).
+     * @throws IllegalArgumentException If the {@code minLimit} is less than 1, the {@code initialLimit} is not
+     *     between {@code minLimit} and {@code maxLimit}, or the {@code backoffRatio} is out of range.
+     */
+    public AimdConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("The limits must satisfy "
+                + "1 <= minLimit <= initialLimit <= maxLimit, provided:" + minLimit + ", " + initialLimit
+                + ", " + maxLimit));
+        }
+        if (!(backoffRatio >= 0.5 && backoffRatio < 1)) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'backoffRatio' must be in [0.5, 1), provided:" + backoffRatio));
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    public int getLimit() {
+        return this.limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        final int currentLimit = this.limit;
+        if (dropped) {
+            this.limit = Math.max(this.minLimit, (int) (currentLimit * this.backoffRatio));
+        } else if (inFlight * 2 >= currentLimit) {
+            // Grow only if the limit is in use, an idle client tells nothing about a higher limit.
+            this.limit = Math.min(this.maxLimit, currentLimit + 1);
+        }
+    }
+}
@@ -0,0 +1,251 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An ExecutorService to run HTTP calls that creates threads on demand up to a maximum, retires the threads
+ * idle for longer than a keep-alive time, and holds the calls arriving while all threads are busy in a bounded
+ * waiting queue.
+ *
+ * <p>
+ * When both the threads and the waiting queue are full, the executor applies its {@link OverflowStrategy}:
+ * it runs the call in the submitting thread, rejects the call with an {@link HttpCallRejectedException},
+ * or blocks the submitting thread until the waiting queue has room or a timeout elapses.
+ * A traffic spike hence degrades by slowing down or failing the calls in excess instead of exhausting
+ * the threads and the memory.
+ * </p>
+ *
+ * <pre>
+ * HttpCallDispatcher dispatcher = new HttpCallDispatcher(new BoundedElasticExecutor.Builder()
+ *     .maxThreads(16)
+ *     .maxWaitingCalls(64)
+ *     .overflowStrategy(BoundedElasticExecutor.OverflowStrategy.BLOCK, 5, TimeUnit.SECONDS)
+ *     .build());
+ * </pre>
+ */
+public final class BoundedElasticExecutor extends ThreadPoolExecutor {
+    private final int maxWaitingCalls;
+    private final OverflowStrategy overflowStrategy;
+
+    private BoundedElasticExecutor(Builder builder) {
+        // The core threads are allowed to time out, so the pool grows on demand up to maxThreads
+        // and shrinks back to zero when idle, while the calls in excess wait in the bounded queue.
+        super(builder.maxThreads, builder.maxThreads, builder.keepAliveNanos, TimeUnit.NANOSECONDS,
+            new LinkedBlockingQueue<>(builder.maxWaitingCalls),
+            new OverflowHandler(builder.overflowStrategy, builder.blockTimeoutNanos));
+        this.allowCoreThreadTimeOut(true);
+        this.maxWaitingCalls = builder.maxWaitingCalls;
+        this.overflowStrategy = builder.overflowStrategy;
+    }
+
+    /**
+     * Gets the maximum number of calls that can wait for a thread.
+     *
+     * @return The maximum number of waiting calls.
+     */
+    public int getMaxWaitingCalls() {
+        return this.maxWaitingCalls;
+    }
+
+    /**
+     * Gets the strategy applied when both the threads and the waiting queue are full.
+     *
+     * @return The overflow strategy.
+     */
+    public OverflowStrategy getOverflowStrategy() {
+        return this.overflowStrategy;
+    }
+
+    /**
+     * The strategy a {@link BoundedElasticExecutor} applies to a call submitted when both its threads
+     * and its waiting queue are full.
+     */
+    public enum OverflowStrategy {
+        /**
+         * Run the call in the thread submitting it, which slows down the submitter.
+         */
+        CALLER_RUNS,
+
+        /**
+         * Reject the call with an {@link HttpCallRejectedException}.
+         */
+        REJECT,
+
+        /**
+         * Block the thread submitting the call until the waiting queue has room, rejecting the call with an
+         * {@link HttpCallRejectedException} if the block timeout elapses.
+         */
+        BLOCK
+    }
+
+    /**
+     * This class provides a fluent builder API to configure and create a {@link BoundedElasticExecutor}.
+     *
+     * <p>
+     * By default, the executor runs up to 64 threads, retires a thread idle for 60 seconds, holds up to
+     * 128 waiting calls and rejects the calls in excess.
+     * </p>
+     */
+    public static final class Builder {
+        private final ClientLogger logger = new ClientLogger(Builder.class);
+
+        private int maxThreads = 64;
+        private int maxWaitingCalls = 128;
+        private long keepAliveNanos = TimeUnit.SECONDS.toNanos(60);
+        private OverflowStrategy overflowStrategy = OverflowStrategy.REJECT;
+        private long blockTimeoutNanos = 0;
+
+        /**
+         * Creates a Builder with the default settings.
+         */
+        public Builder() {
+        }
+
+        /**
+         * Sets the maximum number of threads to run calls.
+         *
+         * @param maxThreads The maximum number of threads.
+         * @return The updated Builder object.
+         * @throws IllegalArgumentException if {@code maxThreads} is less than 1.
+         */
+        public Builder maxThreads(int maxThreads) {
+            if (maxThreads < 1) {
+                throw logger.logExceptionAsError(new IllegalArgumentException("maxThreads < 1: " + maxThreads));
+            }
+            this.maxThreads = maxThreads;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of calls that can wait for a thread.
+         *
+         * @param maxWaitingCalls The maximum number of waiting calls.
+         * @return The updated Builder object.
+         * @throws IllegalArgumentException if {@code maxWaitingCalls} is less than 1.
+         */
+        public Builder maxWaitingCalls(int maxWaitingCalls) {
+            if (maxWaitingCalls < 1) {
+                throw logger.logExceptionAsError(
+                    new IllegalArgumentException("maxWaitingCalls < 1: " + maxWaitingCalls));
+            }
+            this.maxWaitingCalls = maxWaitingCalls;
+            return this;
+        }
+
+        /**
+         * Sets the time a thread can stay idle before it is retired.
+         *
+         * @param keepAlive The keep-alive time.
+         * @param timeUnit The time unit of {@code keepAlive}.
+         * @return The updated Builder object.
+         * @throws IllegalArgumentException if {@code keepAlive} is less than 1.
+         */
+        public Builder keepAlive(long keepAlive, TimeUnit timeUnit) {
+            Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+            if (keepAlive < 1) {
+                throw logger.logExceptionAsError(new IllegalArgumentException("keepAlive < 1: " + keepAlive));
+            }
+            this.keepAliveNanos = timeUnit.toNanos(keepAlive);
+            return this;
+        }
+
+        /**
+         * Sets the strategy to apply when both the threads and the waiting queue are full.
+         *
+         * <p>
+         * For {@link OverflowStrategy#BLOCK} use {@link #overflowStrategy(OverflowStrategy, long, TimeUnit)}
+         * to set the block timeout, this method sets a zero timeout which rejects the call right away if the
+         * waiting queue is still full.
+         * </p>
+         *
+         * @param overflowStrategy The overflow strategy.
+         * @return The updated Builder object.
+         */
+        public Builder overflowStrategy(OverflowStrategy overflowStrategy) {
+            return this.overflowStrategy(overflowStrategy, 0, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Sets the strategy to apply when both the threads and the waiting queue are full, and the maximum time
+         * a submitting thread is blocked when the strategy is {@link OverflowStrategy#BLOCK}.
+         *
+         * @param overflowStrategy The overflow strategy.
+         * @param blockTimeout The maximum time to block, ignored by strategies other than
+         *     {@link OverflowStrategy#BLOCK}.
+         * @param timeUnit The time unit of {@code blockTimeout}.
+         * @return The updated Builder object.
+         * @throws IllegalArgumentException if {@code blockTimeout} is negative.
+         */
+        public Builder overflowStrategy(OverflowStrategy overflowStrategy, long blockTimeout, TimeUnit timeUnit) {
+            Util.requireNonNull(overflowStrategy, "'overflowStrategy' is required.");
+            Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+            if (blockTimeout < 0) {
+                throw logger.logExceptionAsError(new IllegalArgumentException("blockTimeout < 0: " + blockTimeout));
+            }
+            this.overflowStrategy = overflowStrategy;
+            this.blockTimeoutNanos = timeUnit.toNanos(blockTimeout);
+            return this;
+        }
+
+        /**
+         * Creates a {@link BoundedElasticExecutor} based on the options set in the Builder.
+         *
+         * @return A BoundedElasticExecutor with the options set from the builder.
+         */
+        public BoundedElasticExecutor build() {
+            return new BoundedElasticExecutor(this);
+        }
+    }
+
+    /**
+     * The handler applying the {@link OverflowStrategy} to the calls the executor can not accept.
+     */
+    private static final class OverflowHandler implements RejectedExecutionHandler {
+        private final OverflowStrategy overflowStrategy;
+        private final long blockTimeoutNanos;
+
+        OverflowHandler(OverflowStrategy overflowStrategy, long blockTimeoutNanos) {
+            this.overflowStrategy = overflowStrategy;
+            this.blockTimeoutNanos = blockTimeoutNanos;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable call, ThreadPoolExecutor executor) {
+            if (executor.isShutdown()) {
+                throw new HttpCallRejectedException("The executor is shut down.");
+            }
+            switch (this.overflowStrategy) {
+                case CALLER_RUNS:
+                    call.run();
+                    return;
+                case BLOCK:
+                    final boolean queued;
+                    try {
+                        queued = executor.getQueue().offer(call, this.blockTimeoutNanos, TimeUnit.NANOSECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new HttpCallRejectedException("Interrupted while waiting for the executor.", e);
+                    }
+                    if (!queued) {
+                        throw new HttpCallRejectedException("The executor is full and the block timeout elapsed.");
+                    }
+                    if (executor.getPoolSize() == 0) {
+                        // All threads retired while this thread was blocked, start one to run the queued call.
+                        executor.prestartCoreThread();
+                    }
+                    return;
+                default:
+                    throw new HttpCallRejectedException("The executor is full.");
+            }
+        }
+    }
+}
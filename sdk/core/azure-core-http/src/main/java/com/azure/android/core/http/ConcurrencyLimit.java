@@ -0,0 +1,36 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+/**
+ * The algorithm adjusting the number of HTTP calls the {@link HttpCallDispatcher} runs concurrently, from the
+ * round-trip time and the outcome of the completed calls.
+ *
+ * <p>
+ * Once set with {@link HttpCallDispatcher#setConcurrencyLimit(ConcurrencyLimit)}, the dispatcher runs up to
+ * {@link #getLimit()} calls, capped by {@link HttpCallDispatcher#getMaxRunningCalls()}, and reports every
+ * network call the pipelines complete to {@link #onSample(long, int, boolean)}. The implementations must be
+ * thread-safe, the samples are reported from the threads completing the calls.
+ * </p>
+ *
+ * @see AimdConcurrencyLimit
+ * @see GradientConcurrencyLimit
+ */
+public interface ConcurrencyLimit {
+    /**
+     * Gets the current limit.
+     *
+     * @return The number of HTTP calls to run concurrently, at least 1.
+     */
+    int getLimit();
+
+    /**
+     * Adjusts the limit from a completed network call.
+     *
+     * @param rttNanos The round-trip time of the call in nanoseconds.
+     * @param inFlight The number of network calls in flight when the call completed, including the call.
+     * @param dropped true if the call failed or the service throttled it (429 or 503), false otherwise.
+     */
+    void onSample(long rttNanos, int inFlight, boolean dropped);
+}
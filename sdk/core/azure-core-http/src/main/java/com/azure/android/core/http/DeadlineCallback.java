@@ -0,0 +1,121 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.HashedWheelTimer;
+import com.azure.android.core.util.CancellationToken;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * package-private.
+ *
+ * The callback enforcing the {@link HttpCallDeadline} of a pipeline run.
+ *
+ * <p>
+ * The pipeline run uses the {@link DeadlineCallback#getCancellationToken() cancellation token} of this callback,
+ * which is cancelled either when the caller cancels the run or when the deadline elapses. When the deadline
+ * elapses, the caller is notified right away with a {@link TimeoutException}, without waiting for the pipeline
+ * to observe the cancellation; the result the pipeline delivers afterwards is dropped. The shared timer thread
+ * only claims the completion, the cancellation and the caller notification run on the executor of the dispatcher.
+ * </p>
+ */
+final class DeadlineCallback extends AtomicBoolean implements HttpCallback {
+    private final HttpCallDeadline deadline;
+    private final HttpCallback callback;
+    private final Executor executor;
+    private final CancellationToken token = new CancellationToken();
+    private final CancellationToken.Registration onCancelRegistration;
+    // Set once the constructor registered the timeout, the deadline may elapse before that.
+    private volatile HashedWheelTimer.Timeout timeout;
+
+    /**
+     * Creates a DeadlineCallback and starts tracking the deadline.
+     *
+     * @param deadline The resolved deadline of the pipeline run.
+     * @param callerToken The cancellation token the caller gave for the pipeline run.
+     * @param callback The callback the caller gave for the pipeline run.
+     * @param executor The executor to notify the caller on when the deadline elapses.
+     */
+    DeadlineCallback(HttpCallDeadline deadline, CancellationToken callerToken, HttpCallback callback,
+                     Executor executor) {
+        this.deadline = deadline;
+        this.callback = callback;
+        this.executor = executor;
+        this.onCancelRegistration = callerToken.register(this.token::cancel);
+        this.timeout = HttpCallDispatcher.DEFAULT_TIMER.newTimeout(this::onDeadline,
+            deadline.getRemaining(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the cancellation token for the pipeline run.
+     *
+     * @return The cancellation token that is cancelled on the caller's cancel or on the deadline.
+     */
+    CancellationToken getCancellationToken() {
+        return this.token;
+    }
+
+    @Override
+    public void onSuccess(HttpResponse response) {
+        if (this.tryComplete()) {
+            this.callback.onSuccess(response);
+        } else {
+            response.close();
+        }
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        if (this.tryComplete()) {
+            if (this.deadline.isExpired()) {
+                // A component observed the deadline before the timer did, e.g. the HttpClient timed out.
+                this.callback.onError(newTimeoutException(error));
+            } else {
+                this.callback.onError(error);
+            }
+        }
+    }
+
+    private void onDeadline() {
+        // Runs on the shared timer thread, the cancel hooks and the caller's callback may block.
+        if (this.tryComplete()) {
+            try {
+                this.executor.execute(this::onExpired);
+            } catch (RejectedExecutionException e) {
+                // The executor is shut down, there is no other thread to notify the caller on.
+                this.onExpired();
+            }
+        }
+    }
+
+    private void onExpired() {
+        this.token.cancel();
+        this.callback.onError(newTimeoutException(null));
+    }
+
+    private boolean tryComplete() {
+        if (!this.compareAndSet(false, true)) {
+            return false;
+        }
+        final HashedWheelTimer.Timeout timeout = this.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        this.onCancelRegistration.close();
+        return true;
+    }
+
+    private static TimeoutException newTimeoutException(Throwable cause) {
+        final TimeoutException exception = new TimeoutException("The deadline of the HTTP call elapsed.");
+        if (cause != null) {
+            exception.initCause(cause);
+        }
+        return exception;
+    }
+}
@@ -0,0 +1,40 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+/**
+ * package-private.
+ *
+ * The pipeline step applying a run of consecutive {@link HttpRequestPolicy request policies} in order.
+ */
+final class FusedRequestPolicy implements HttpRequestPolicy {
+    private final HttpRequestPolicy[] policies;
+    private final LatencyHistogram[] latencies;
+
+    /**
+     * Creates a FusedRequestPolicy.
+     *
+     * @param policies The request policies to apply, in order.
+     * @param latencies The histograms to record the latency of each policy to, null to not record them.
+     */
+    FusedRequestPolicy(HttpRequestPolicy[] policies, LatencyHistogram[] latencies) {
+        this.policies = policies;
+        this.latencies = latencies;
+    }
+
+    @Override
+    public void processRequest(HttpRequest httpRequest) throws Exception {
+        if (this.latencies == null) {
+            for (HttpRequestPolicy policy : this.policies) {
+                policy.processRequest(httpRequest);
+            }
+        } else {
+            for (int i = 0; i < this.policies.length; i++) {
+                final long startNanos = System.nanoTime();
+                this.policies[i].processRequest(httpRequest);
+                this.latencies[i].record(System.nanoTime() - startNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.logging.ClientLogger;
+
+/**
+ * The latency gradient {@link ConcurrencyLimit}, in the spirit of TCP Vegas.
+ *
+ * <p>
+ * The limit follows the ratio between the long-term average round-trip time and the round-trip time of each
+ * call: while the calls are as fast as usual the limit grows by about its square root, the queue allowance;
+ * once the calls slow down, i.e. requests start queueing somewhere on the way, the limit shrinks in proportion,
+ * down to half of it per call. A dropped call, i.e. a failed or throttled call, halves the limit. The changes
+ * are smoothed, so a single outlier moves the limit only a little.
+ * </p>
+ */
+public final class GradientConcurrencyLimit implements ConcurrencyLimit {
+    private static final int DEFAULT_INITIAL_LIMIT = 20;
+    private static final int DEFAULT_MIN_LIMIT = 1;
+    private static final int DEFAULT_MAX_LIMIT = 64;
+    // The round-trip time can grow this much above the long-term average before the limit shrinks.
+    private static final double RTT_TOLERANCE = 1.5;
+    // The weight of a new limit estimate.
+    private static final double SMOOTHING = 0.2;
+    // The weight of a sample in the long-term average round-trip time, about the last 600 samples.
+    private static final double LONG_RTT_WEIGHT = 2.0 / 601;
+
+    private final ClientLogger logger = new ClientLogger(GradientConcurrencyLimit.class);
+    private final int minLimit;
+    private final int maxLimit;
+
+    // Guarded by 'this'.
+    private double estimatedLimit;
+    private double longRttNanos;
+    private volatile int limit;
+
+    /**
+     * Creates a {@link GradientConcurrencyLimit} with default settings.
+     *
+     * <p>
+     * The default limit starts at 20 and stays between 1 and 64.
+     * </p>
+     */
+    public GradientConcurrencyLimit() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Creates a {@link GradientConcurrencyLimit}.
+     *
+     * @param initialLimit The limit to start with.
+     * @param minLimit The lowest limit.
+     * @param maxLimit The highest limit.
+     * @throws IllegalArgumentException If the {@code minLimit} is less than 1 or the {@code initialLimit} is not
+     *     between {@code minLimit} and {@code maxLimit}.
+     */
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("The limits must satisfy "
+                + "1 <= minLimit <= initialLimit <= maxLimit, provided:" + minLimit + ", " + initialLimit
+                + ", " + maxLimit));
+        }
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+    }
+
+    @Override
+    public int getLimit() {
+        return this.limit;
+    }
+
+    @Override
+    public synchronized void onSample(long rttNanos, int inFlight, boolean dropped) {
+        final double rtt = Math.max(1, rttNanos);
+        if (this.longRttNanos == 0) {
+            this.longRttNanos = rtt;
+        } else {
+            this.longRttNanos += (rtt - this.longRttNanos) * LONG_RTT_WEIGHT;
+        }
+        if (this.longRttNanos > 2 * rtt) {
+            // The calls are much faster than the average, e.g. the average still remembers a slow period,
+            // let it catch up faster so the limit is not held back.
+            this.longRttNanos *= 0.95;
+        }
+
+        final double newLimit;
+        if (dropped) {
+            newLimit = this.estimatedLimit / 2;
+        } else if (inFlight * 2 < this.estimatedLimit) {
+            // An idle client tells nothing about the limit.
+            return;
+        } else {
+            final double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * this.longRttNanos / rtt));
+            newLimit = this.estimatedLimit * gradient + Math.sqrt(this.estimatedLimit);
+        }
+        this.estimatedLimit = Math.max(this.minLimit, Math.min(this.maxLimit,
+            this.estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+        this.limit = (int) this.estimatedLimit;
+    }
+}
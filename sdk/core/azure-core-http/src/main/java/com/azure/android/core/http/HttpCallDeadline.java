@@ -0,0 +1,136 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The deadline of an HTTP call sent through the {@link HttpPipeline}, covering the whole pipeline run including
+ * the time waiting in the {@link HttpCallDispatcher}, the retries and their delays.
+ *
+ * <p>
+ * The deadline is set in the {@link com.azure.android.core.util.RequestContext} given to
+ * {@link HttpPipeline#send(HttpRequest, com.azure.android.core.util.RequestContext,
+ * com.azure.android.core.util.CancellationToken, HttpCallback)}, using {@link HttpCallDeadline#KEY} as the key.
+ * When the deadline elapses, the pipeline run is cancelled and the callback is notified right away with a
+ * {@link java.util.concurrent.TimeoutException}, a response arriving later is closed and dropped.
+ * </p>
+ *
+ * <pre>
+ * RequestContext requestContext = new RequestContext(HttpCallDeadline.KEY,
+ *     HttpCallDeadline.after(10, TimeUnit.SECONDS));
+ * </pre>
+ *
+ * <p>
+ * While the pipeline runs, the policies can read the deadline, with the remaining time counted from the start
+ * of the run, from {@link HttpPipelinePolicyChain#getContext()}, and the HttpClients from the
+ * {@link HttpRequest#getTags() request tags}, both using {@link HttpCallDeadline#KEY} as the key.
+ * </p>
+ */
+public final class HttpCallDeadline {
+    /**
+     * The key to store the {@link HttpCallDeadline} in the request context or the request tags.
+     */
+    public static final String KEY = "http-call-deadline";
+
+    // The deadline is relative to the start of the pipeline run, 'value' is the timeout in nanoseconds.
+    private static final int KIND_RELATIVE = 0;
+    // The deadline is a wall-clock time, 'value' is the epoch time in milliseconds.
+    private static final int KIND_EPOCH = 1;
+    // The deadline is resolved for a pipeline run, 'value' is a System.nanoTime() based time.
+    private static final int KIND_RESOLVED = 2;
+    // The cap on the remaining time (about 146 years), so a resolved deadline minus System.nanoTime() never
+    // overflows; System.nanoTime() values are only comparable through their difference.
+    private static final long MAX_REMAINING_NANOS = Long.MAX_VALUE / 2;
+
+    private final int kind;
+    private final long value;
+
+    private HttpCallDeadline(int kind, long value) {
+        this.kind = kind;
+        this.value = value;
+    }
+
+    /**
+     * Creates a deadline that elapses after the given timeout, counted from the start of each pipeline run
+     * the deadline is used for.
+     *
+     * @param timeout The timeout.
+     * @param timeUnit The time unit of {@code timeout}.
+     * @return The deadline.
+     */
+    public static HttpCallDeadline after(long timeout, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return new HttpCallDeadline(KIND_RELATIVE, Math.max(0, timeUnit.toNanos(timeout)));
+    }
+
+    /**
+     * Creates a deadline that elapses at the given wall-clock time.
+     *
+     * @param epochMillis The time the deadline elapses, in milliseconds since the epoch.
+     * @return The deadline.
+     */
+    public static HttpCallDeadline at(long epochMillis) {
+        return new HttpCallDeadline(KIND_EPOCH, epochMillis);
+    }
+
+    /**
+     * Gets the time remaining until the deadline elapses.
+     *
+     * @param timeUnit The time unit of the returned value.
+     * @return The remaining time, zero if the deadline elapsed.
+     */
+    public long getRemaining(TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return timeUnit.convert(this.getRemainingNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Checks whether the deadline elapsed.
+     *
+     * @return true if the deadline elapsed, false otherwise.
+     */
+    public boolean isExpired() {
+        return this.getRemainingNanos() == 0;
+    }
+
+    /**
+     * package-private.
+     *
+     * Resolves the deadline for a pipeline run starting now.
+     *
+     * @return The deadline, counted on the System.nanoTime() clock.
+     */
+    HttpCallDeadline resolve() {
+        if (this.kind == KIND_RESOLVED) {
+            return this;
+        }
+        // May wrap around for a far deadline, which the difference in getRemainingNanos() tolerates.
+        return new HttpCallDeadline(KIND_RESOLVED, System.nanoTime() + this.getRemainingNanos());
+    }
+
+    private long getRemainingNanos() {
+        final long remainingNanos;
+        switch (this.kind) {
+            case KIND_RELATIVE:
+                remainingNanos = this.value;
+                break;
+            case KIND_EPOCH:
+                remainingNanos = remainingNanosUntilEpoch(this.value);
+                break;
+            default:
+                remainingNanos = this.value - System.nanoTime();
+                break;
+        }
+        return Math.min(MAX_REMAINING_NANOS, Math.max(0, remainingNanos));
+    }
+
+    private static long remainingNanosUntilEpoch(long epochMillis) {
+        final long nowMillis = System.currentTimeMillis();
+        // Compare first, the difference to a far past epoch time would overflow.
+        return epochMillis <= nowMillis ? 0 : TimeUnit.MILLISECONDS.toNanos(epochMillis - nowMillis);
+    }
+}
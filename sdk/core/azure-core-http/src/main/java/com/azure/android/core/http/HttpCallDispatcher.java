@@ -3,7 +3,9 @@
 
 package com.azure.android.core.http;
 
+import com.azure.android.core.http.implementation.HashedWheelTimer;
 import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.http.implementation.VirtualThreads;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
 import com.azure.android.core.logging.ClientLogger;
@@ -11,38 +13,86 @@ import com.azure.android.core.logging.ClientLogger;
 import java.io.IOException;
 import java.io.InterruptedIOException;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.SynchronousQueue;
-import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * The dispatcher to dispatch async HTTP calls send through the pipeline. Additionally, an HttpClient
  * that does not have native async support can also use the dispatcher to enable async HTTP calls.
  */
 public final class HttpCallDispatcher {
+    // The timer shared by the dispatchers without a user provided ScheduledExecutorService, to hand over
+    // the calls scheduled with delay, and by the pipeline runs to track their deadlines.
+    // The 10ms tick is the precision the hedge delays need, its thread only wakes up for a due timeout though,
+    // is started on demand and released once idle for a minute.
+    static final HashedWheelTimer DEFAULT_TIMER = new HashedWheelTimer("azure-http-call-timer",
+        10, 512, 60_000, TimeUnit.MILLISECONDS);
+
     private final ClientLogger logger = new ClientLogger(HttpCallDispatcher.class);
 
-    private int maxRunningCalls = 64;
+    private volatile int maxRunningCalls = 64;
+    // No per-host limit by default, only the limit across all the hosts applies.
+    private volatile int maxRunningCallsPerHost = Integer.MAX_VALUE;
+    private volatile long priorityAgingNanos = TimeUnit.SECONDS.toNanos(1);
+    private volatile ConcurrencyLimit concurrencyLimit;
+    // The number of network calls in flight, tracked only while a ConcurrencyLimit is set.
+    private final AtomicInteger networkCallsInFlight = new AtomicInteger();
     private final ExecutorService executorService;
-    private ScheduledExecutorService scheduledExecutorService;
-    private final Deque<RootDispatchableCall> waitingRootDispatchableCalls = new ArrayDeque<>();
-    private final Deque<RootDispatchableCall> runningRootDispatchableCalls = new ArrayDeque<>();
-    private final Deque<NestedDispatchableCall> waitingNestedDispatchableCalls = new ArrayDeque<>();
+    // The executor created by the dispatcher, null if the executor is provided by the user.
+    private final BoundedElasticExecutor defaultExecutor;
+    private final ScheduledExecutorService scheduledExecutorService;
+    // The calls that are enqueued or handed over by the scheduler, waiting for the drain loop
+    // to move them to the per-host queues.
+    private final Queue<DispatchableCall> incomingCalls = new ConcurrentLinkedQueue<>();
+    // The calls that are no longer running, waiting for the drain loop to release their slots.
+    private final Queue<RootDispatchableCall> notRunningCalls = new ConcurrentLinkedQueue<>();
+    // The number of drain requests, the thread that increments it from zero runs the drain loop.
+    private final AtomicInteger drainRequests = new AtomicInteger();
+
+    // The state below is confined to the drain loop, see dispatchCalls().
+    //
+    // The number of running calls, a root call paused and resumed by a nested call before the pause
+    // is accounted can be counted twice, which is same as a root call running twice.
+    private int runningCalls;
+    // The per-host bookkeeping of the waiting and running calls, an entry exists only as long as
+    // the host has at least one waiting or running call.
+    private final Map<String, HostCalls> hostCallsMap = new HashMap<>();
+    // The hosts with waiting calls, in the round-robin order the dispatcher visits them.
+    private final Deque<HostCalls> waitingHosts = new ArrayDeque<>();
+    // The calls collected by the current pass of the drain loop, reused across drains.
+    private final List<DispatchableCall> executableCalls = new ArrayList<>();
 
     /**
-     * Creates an HttpCallDispatcher with an ExecutorService with default settings to execute HTTP calls.
+     * Creates an HttpCallDispatcher with a {@link BoundedElasticExecutor} to execute HTTP calls.
+     *
+     * <p>
+     * The default executor runs up to {@link #getMaxRunningCalls()} threads and is resized along with that
+     * limit; the dispatcher bounds the number of calls it hands to the executor, hence the executor never
+     * rejects them, a call in excess (e.g. a hedged attempt) waits for a thread instead.
+     * </p>
      */
     public HttpCallDispatcher() {
-        // The ThreadPoolExecutor by design creates the core threads only when new tasks arrive,
+        // The BoundedElasticExecutor creates the threads only when new calls arrive,
         // essentially lazy by default.
-        this.executorService = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
-            new SynchronousQueue<>());
+        this.defaultExecutor = new BoundedElasticExecutor.Builder()
+            .maxThreads(this.maxRunningCalls)
+            .maxWaitingCalls(Integer.MAX_VALUE)
+            .build();
+        this.executorService = this.defaultExecutor;
         this.scheduledExecutorService = null;
     }
 
@@ -53,6 +103,7 @@ public final class HttpCallDispatcher {
      */
     public HttpCallDispatcher(ExecutorService executorService) {
         this.executorService = Util.requireNonNull(executorService, "'executorService' is required.");
+        this.defaultExecutor = null;
         this.scheduledExecutorService = null;
     }
 
@@ -67,10 +118,43 @@ public final class HttpCallDispatcher {
     public HttpCallDispatcher(ExecutorService executorService,
                               ScheduledExecutorService scheduledExecutorService) {
         this.executorService = Util.requireNonNull(executorService, "'executorService' is required.");
+        this.defaultExecutor = null;
         this.scheduledExecutorService = Util.requireNonNull(scheduledExecutorService,
             "'scheduledExecutorService' is required.");
     }
 
+    /**
+     * Creates an HttpCallDispatcher that executes each HTTP call on a virtual thread, if the runtime
+     * supports virtual threads (JDK 21+), otherwise an HttpCallDispatcher with default settings.
+     *
+     * <p>
+     * A virtual thread blocked on I/O does not hold an OS thread, so HttpClients performing blocking I/O
+     * on the dispatcher threads, such as the HttpUrlConnection-backed one, can run a large number of
+     * concurrent calls with a few OS threads. The limits set by {@link #setMaxRunningCalls(int)} and
+     * {@link #setMaxRunningCallsPerHost(int)} still apply and can be raised accordingly. Android does not
+     * support virtual threads, hence this method always falls back to the default settings on Android.
+     * </p>
+     *
+     * @return The HttpCallDispatcher.
+     * @see #isVirtualThreadSupported()
+     */
+    public static HttpCallDispatcher createWithVirtualThreads() {
+        final ExecutorService executorService = VirtualThreads.newVirtualThreadPerTaskExecutor();
+        return executorService == null
+            ? new HttpCallDispatcher()
+            : new HttpCallDispatcher(executorService);
+    }
+
+    /**
+     * Checks whether the runtime supports virtual threads, i.e. whether {@link #createWithVirtualThreads()}
+     * creates an HttpCallDispatcher executing HTTP calls on virtual threads.
+     *
+     * @return true if virtual threads are supported, false otherwise.
+     */
+    public static boolean isVirtualThreadSupported() {
+        return VirtualThreads.isSupported();
+    }
+
     /**
      * Sets the maximum number of HTTP calls to run concurrently.
      *
@@ -87,21 +171,144 @@ public final class HttpCallDispatcher {
                 new IllegalArgumentException("The maximum number of HTTP calls to execute concurrently "
                 + "must be greater than 1, provided:" + maxCalls));
         }
-        synchronized (this) {
-            this.maxRunningCalls = maxCalls;
+        this.maxRunningCalls = maxCalls;
+        if (this.defaultExecutor != null) {
+            this.resizeDefaultExecutor();
         }
         this.dispatchCalls();
     }
 
+    /**
+     * Resizes the default executor to run up to {@link #getMaxRunningCalls()} threads.
+     */
+    private void resizeDefaultExecutor() {
+        final BoundedElasticExecutor executor = this.defaultExecutor;
+        synchronized (executor) {
+            // Read under the lock, so concurrent setters leave the executor sized to the last value set.
+            final int maxThreads = this.maxRunningCalls;
+            // The core size can never exceed the maximum size, hence the order.
+            if (maxThreads > executor.getMaximumPoolSize()) {
+                executor.setMaximumPoolSize(maxThreads);
+                executor.setCorePoolSize(maxThreads);
+            } else {
+                executor.setCorePoolSize(maxThreads);
+                executor.setMaximumPoolSize(maxThreads);
+            }
+        }
+    }
+
     /**
      * Gets the maximum number of HTTP calls that can run concurrently in the dispatcher threads.
      *
      * @return The maximum number of HTTP calls that can run concurrently.
      */
     public int getMaxRunningCalls() {
-        synchronized (this) {
-            return this.maxRunningCalls;
+        return this.maxRunningCalls;
+    }
+
+    /**
+     * Sets the maximum number of HTTP calls to run concurrently for each host.
+     *
+     * <p>
+     * Calls to a host that reached this limit will wait in the in-memory queue, while calls to other
+     * hosts continue to dispatch; the waiting calls of different hosts are dispatched in round-robin
+     * order. The limit set by {@link #setMaxRunningCalls(int)} is still applied across all the hosts.
+     * The host of a call is identified by the host of the {@link HttpRequest} URL given to
+     * {@link #enqueue(HttpCallFunction, HttpRequest, CancellationToken, HttpCallback)}. By default there is
+     * no per-host limit.
+     * </p>
+     *
+     * @param maxCalls The maximum number of HTTP calls to run concurrently for each host.
+     * @throws IllegalArgumentException if value of {@code maxCalls} parameter is less than 1.
+     */
+    public void setMaxRunningCallsPerHost(int maxCalls) {
+        if (maxCalls < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("The maximum number of HTTP calls to execute concurrently per host "
+                    + "must be greater than 1, provided:" + maxCalls));
+        }
+        this.maxRunningCallsPerHost = maxCalls;
+        this.dispatchCalls();
+    }
+
+    /**
+     * Gets the maximum number of HTTP calls that can run concurrently for each host in the dispatcher threads.
+     *
+     * @return The maximum number of HTTP calls that can run concurrently for each host,
+     *     {@link Integer#MAX_VALUE} if no per-host limit is set.
+     */
+    public int getMaxRunningCallsPerHost() {
+        return this.maxRunningCallsPerHost;
+    }
+
+    /**
+     * Sets the algorithm adjusting the number of HTTP calls to run concurrently, or null to use the fixed
+     * limit set by {@link #setMaxRunningCalls(int)}.
+     *
+     * <p>
+     * A fixed limit is either too low for a fast network or too high for a throttling service, where the extra
+     * calls only queue up on the server. With a {@link ConcurrencyLimit}, the dispatcher reports the round-trip
+     * time and the outcome of every network call the pipelines complete to it, and runs up to
+     * {@link ConcurrencyLimit#getLimit()} calls. The limit set by {@link #setMaxRunningCalls(int)} still caps
+     * the number of running calls, as well as the limit set by {@link #setMaxRunningCallsPerHost(int)} for
+     * each host.
+     * </p>
+     *
+     * @param concurrencyLimit The algorithm adjusting the limit, e.g. {@link AimdConcurrencyLimit} or
+     *     {@link GradientConcurrencyLimit}, or null to disable the adaptive limit.
+     */
+    public void setConcurrencyLimit(ConcurrencyLimit concurrencyLimit) {
+        this.concurrencyLimit = concurrencyLimit;
+        this.dispatchCalls();
+    }
+
+    /**
+     * Gets the algorithm adjusting the number of HTTP calls to run concurrently.
+     *
+     * @return The algorithm, null if the dispatcher uses the fixed limit.
+     */
+    public ConcurrencyLimit getConcurrencyLimit() {
+        return this.concurrencyLimit;
+    }
+
+    /**
+     * Gets the number of HTTP calls the dispatcher currently runs concurrently at most, i.e. the adaptive limit
+     * capped by {@link #getMaxRunningCalls()} if a {@link ConcurrencyLimit} is set, otherwise the fixed limit.
+     *
+     * @return The current limit of running calls.
+     */
+    public int getCurrentMaxRunningCalls() {
+        final ConcurrencyLimit concurrencyLimit = this.concurrencyLimit;
+        final int maxRunningCalls = this.maxRunningCalls;
+        return concurrencyLimit == null
+            ? maxRunningCalls
+            : Math.max(1, Math.min(maxRunningCalls, concurrencyLimit.getLimit()));
+    }
+
+    /**
+     * Sets the time a waiting HTTP call has to wait to be raised to the next {@link HttpCallPriority}.
+     *
+     * <p>
+     * When the number of running calls reached the limit, the waiting calls with higher priority are
+     * dispatched first. To ensure that a lower priority call is not waiting forever, a waiting call is
+     * raised one priority level for every {@code agingInterval} it waited, e.g. with the default of
+     * one second, a {@link HttpCallPriority#LOW} call waited for two seconds competes with the
+     * {@link HttpCallPriority#HIGH} calls.
+     * </p>
+     *
+     * @param agingInterval The time a waiting call has to wait to be raised to the next priority.
+     * @param timeUnit The time unit of the {@code agingInterval}.
+     * @throws IllegalArgumentException if value of {@code agingInterval} parameter is less than 1.
+     */
+    public void setPriorityAgingInterval(long agingInterval, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (agingInterval < 1) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("The priority aging interval must be greater than 1, provided:"
+                    + agingInterval));
         }
+        this.priorityAgingNanos = Math.max(1, timeUnit.toNanos(agingInterval));
+        this.dispatchCalls();
     }
 
     /**
@@ -141,9 +348,8 @@ public final class HttpCallDispatcher {
             httpCallback);
 
         // Enqueue the 'RootDispatchableCall' for this.executorService to execute.
-        synchronized (this) {
-            this.waitingRootDispatchableCalls.add(rootDispatchableCall);
-        }
+        rootDispatchableCall.setWaitingSinceNanos(System.nanoTime());
+        this.incomingCalls.add(rootDispatchableCall);
         this.dispatchCalls();
     }
 
@@ -175,19 +381,26 @@ public final class HttpCallDispatcher {
      * @param chain The chain to invoke {@code processNextPolicy} call on.
      * @param httpRequest The HTTP request parameter for the scheduled {@code processNextPolicy} call.
      * @param requestContext The context parameter for the scheduled {@code processNextPolicy} call.
+     * @param cancellationToken The cancellation token parameter for the scheduled {@code processNextPolicy} call.
      * @param callback The HTTP callback parameter for the scheduled {@code processNextPolicy} call.
      * @param delay The time from now to delay the execution of the {@code processNextPolicy} call.
      * @param timeUnit The time unit of the {@code delay}.
+     * @param concurrent true if the scheduled call runs concurrently with the running pipeline, in which case
+     *     the pipeline stays in "running-mode" and the call runs right away once the delay elapsed, without
+     *     waiting for the dispatcher limits.
      */
     void scheduleProcessNextPolicy(HttpPipelinePolicyChainImpl chain,
                                    HttpRequest httpRequest,
                                    RequestContext requestContext,
+                                   CancellationToken cancellationToken,
                                    NextPolicyCallback callback,
                                    long delay,
-                                   TimeUnit timeUnit) {
+                                   TimeUnit timeUnit,
+                                   boolean concurrent) {
         Util.requireNonNull(chain, "'chain' is required.");
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(requestContext, "'context' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
         Util.requireNonNull(callback, "'httpCallback' is required.");
         Util.requireNonNull(timeUnit, "'timeUnit' is required.");
 
@@ -195,19 +408,22 @@ public final class HttpCallDispatcher {
         final NestedDispatchableCall nestedDispatchableCall = new NestedDispatchableCall(rootDispatchableCall,
             chain,
             httpRequest,
-            callback);
+            cancellationToken,
+            callback,
+            concurrent);
         boolean scheduled = false;
         try {
-            this.getScheduledExecutorService().schedule(() -> {
-                synchronized (HttpCallDispatcher.this) {
-                    // The HttpCallDispatcher::executorService executes both 'RootDispatchableCall'
-                    // and 'NestedDispatchableCall' calls.
-                    // Using HttpCallDispatcher::scheduledExecutorService to hand over
-                    // the 'NestedDispatchableCall' to HttpCallDispatcher::executorService.
-                    HttpCallDispatcher.this.waitingNestedDispatchableCalls.add(nestedDispatchableCall);
-                }
-                HttpCallDispatcher.this.dispatchCalls();
-            }, delay, timeUnit);
+            // The HttpCallDispatcher::executorService executes both 'RootDispatchableCall'
+            // and 'NestedDispatchableCall' calls.
+            // Using the timer (or the user provided HttpCallDispatcher::scheduledExecutorService)
+            // to hand over the 'NestedDispatchableCall' to HttpCallDispatcher::executorService.
+            final Runnable handOver = nestedDispatchableCall::handOver;
+            if (this.scheduledExecutorService == null) {
+                nestedDispatchableCall.setTimerTimeout(DEFAULT_TIMER.newTimeout(handOver, delay, timeUnit));
+            } else {
+                nestedDispatchableCall.setScheduledFuture(this.scheduledExecutorService.schedule(handOver,
+                    delay, timeUnit));
+            }
             scheduled = true;
         } catch (RejectedExecutionException e) {
             nestedDispatchableCall
@@ -216,90 +432,253 @@ public final class HttpCallDispatcher {
             // The ScheduledExecutorService::execute() is not supposed to throw any exception
             // other than RejectedExecutionException, but if it ever throws other exceptions,
             // let's do the cleanup and then rethrow.
-            rootDispatchableCall.markNotRunning(1);
+            if (!concurrent) {
+                rootDispatchableCall.markNotRunning(1);
+            }
             throw logger.logExceptionAsError(new RuntimeException("ScheduledExecutorService::schedule failed.", t));
         }
 
         if (scheduled) {
-            // Once scheduled successfully, pipeline is in "pause-mode", yield the thread to other
-            // executable calls waiting to run.
-            rootDispatchableCall.markNotRunning(2);
+            // Cancelling the pipeline run hands over the scheduled call right away, without waiting for
+            // the delay, the call then completes with the cancellation error.
+            nestedDispatchableCall.registerOnCancel(cancellationToken);
+            if (!concurrent) {
+                // Once scheduled successfully, pipeline is in "pause-mode", yield the thread to other
+                // executable calls waiting to run.
+                rootDispatchableCall.markNotRunning(2);
+            }
         }
     }
 
     /**
-     * Gets the ScheduledExecutorService to schedule HTTP calls to execute on {@code executorService}
-     * after a specific delay.
+     * package-private.
      *
-     * @return The ScheduledExecutorService for HTTP calls with delay.
+     * Gets the executor that executes the HTTP calls, to run work that must not block the shared timer.
+     *
+     * @return The executor.
      */
-    private ScheduledExecutorService getScheduledExecutorService() {
-        // DCL + volatile probably works on modern java's memory model but since we want to target
-        // very lower api levels (L14) we prefer 'synchronized' to avoid any race surprise.
-        //
-        synchronized (this) {
-            if (this.scheduledExecutorService == null) {
-                // If the user doesn't provide a ScheduledExecutorService, we create one with one thread.
-                // We use scheduledExecutorService only to handover a scheduled call for execution to
-                // executorService when the time is up. [https://stackoverflow.com/a/2336879/1473510].
-                //
-                // Thought: We could do some heuristic such as if the pipeline doesn't use
-                // the scheduledExecutorService for a certain period, we can shut down and
-                // release the one pooled thread, then recreate when needed and repeat the
-                // heuristic.
-                //
-                this.scheduledExecutorService = new ScheduledThreadPoolExecutor(1);
-            }
-            return this.scheduledExecutorService;
+    Executor getExecutor() {
+        return this.executorService;
+    }
+
+    /**
+     * package-private.
+     *
+     * Checks whether the network calls are to be reported to
+     * {@link #onNetworkCallCompleted(long, HttpResponse, CancellationToken)}.
+     *
+     * @return true if a {@link ConcurrencyLimit} is set, false otherwise.
+     */
+    boolean isSamplingNetworkCalls() {
+        return this.concurrencyLimit != null;
+    }
+
+    /**
+     * package-private.
+     *
+     * Records the start of a network call, when {@link #isSamplingNetworkCalls()} is true.
+     */
+    void onNetworkCallStarted() {
+        this.networkCallsInFlight.incrementAndGet();
+    }
+
+    /**
+     * package-private.
+     *
+     * Reports a network call started with {@link #onNetworkCallStarted()} to the {@link ConcurrencyLimit}.
+     *
+     * @param rttNanos The round-trip time of the call in nanoseconds.
+     * @param response The response, null if the call failed.
+     * @param cancellationToken The cancellation token of the call.
+     */
+    void onNetworkCallCompleted(long rttNanos, HttpResponse response, CancellationToken cancellationToken) {
+        final int inFlight = this.networkCallsInFlight.getAndDecrement();
+        final ConcurrencyLimit concurrencyLimit = this.concurrencyLimit;
+        if (concurrencyLimit == null || cancellationToken.isCancellationRequested()) {
+            // A cancelled call says nothing about the service.
+            return;
+        }
+        final boolean dropped = response == null
+            || response.getStatusCode() == 429
+            || response.getStatusCode() == 503;
+        final int limit = concurrencyLimit.getLimit();
+        concurrencyLimit.onSample(rttNanos, inFlight, dropped);
+        if (concurrencyLimit.getLimit() > limit) {
+            // The calls completing release their slots, a higher limit may let more waiting calls run.
+            this.dispatchCalls();
         }
     }
 
     /**
      * Attempt to dispatch calls on the dispatcher threads.
+     *
+     * <p>
+     * The dispatcher state is updated without holding a lock. A thread enqueuing a call or marking
+     * a call as no longer running publishes the change to a concurrent queue and requests a drain.
+     * Only one thread at a time runs the drain loop that applies the published changes and collects
+     * the executable calls; a drain requested while another thread is running the loop is served by
+     * that thread before it leaves the loop, hence no request is lost and no thread is blocked.
+     * The collected calls are handed to the executor once the loop is left, so an executor that runs
+     * a call in the submitting thread or blocks it does not hold up the dispatching of other calls.
+     * </p>
      */
     private void dispatchCalls() {
-        Deque<DispatchableCall> executableCalls = new ArrayDeque<>();
-        synchronized (this) {
-            // Collects the calls to dispatch.
-
-            // 1. Collects the executable NestedDispatchableCall calls.
-            //    Note: Collecting NestedDispatchableCall calls first to have them in front of executable queue.
-            while (this.runningRootDispatchableCalls.size() < this.maxRunningCalls
-                && !this.waitingNestedDispatchableCalls.isEmpty()) {
-                final NestedDispatchableCall nestedCall = this.waitingNestedDispatchableCalls.poll();
-                this.runningRootDispatchableCalls.add(nestedCall.rootDispatchableCall);
-                executableCalls.add(nestedCall);
+        if (this.drainRequests.getAndIncrement() != 0) {
+            // Another thread is running the drain loop, it will serve this request.
+            return;
+        }
+
+        // The collected calls, copied out of the drain-owned list before the loop is left; a drain
+        // that collects no call, e.g. a call completing with no call waiting, allocates nothing.
+        DispatchableCall[] callsToExecute = null;
+        int requests = 1;
+        do {
+            // 1. Release the slots of the calls that are no longer running.
+            RootDispatchableCall notRunningCall;
+            while ((notRunningCall = this.notRunningCalls.poll()) != null) {
+                this.runningCalls--;
+                final HostCalls hostCalls = this.hostCallsMap.get(notRunningCall.host);
+                assert hostCalls != null;
+                hostCalls.runningCalls--;
+                if (hostCalls.runningCalls == 0 && !hostCalls.hasWaitingCalls()) {
+                    this.hostCallsMap.remove(notRunningCall.host);
+                }
             }
 
-            // 2. Collects the executable RootDispatchableCall calls.
-            while (this.runningRootDispatchableCalls.size() < this.maxRunningCalls
-                && !this.waitingRootDispatchableCalls.isEmpty()) {
-                final RootDispatchableCall rootCall = this.waitingRootDispatchableCalls.poll();
-                this.runningRootDispatchableCalls.add(rootCall);
-                executableCalls.add(rootCall);
+            // 2. Move the incoming calls to the per-host queues.
+            DispatchableCall incomingCall;
+            while ((incomingCall = this.incomingCalls.poll()) != null) {
+                final HostCalls hostCalls = this.getOrCreateHostCalls(incomingCall.getRootDispatchableCall().host);
+                if (!hostCalls.hasWaitingCalls()) {
+                    this.waitingHosts.add(hostCalls);
+                }
+                if (incomingCall instanceof NestedDispatchableCall) {
+                    hostCalls.waitingNestedDispatchableCalls.add((NestedDispatchableCall) incomingCall);
+                } else {
+                    hostCalls.waitingRootDispatchableCalls.add((RootDispatchableCall) incomingCall);
+                }
             }
-        }
 
-        // Dispatch the collected calls on dispatcher threads.
-        // Dispatching must be done outside sync-block since calling into user-code while holding
-        // lock is prohibited.
-        while (!executableCalls.isEmpty()) {
-            final DispatchableCall call = executableCalls.poll();
-            assert call != null;
+            // 3. Collects the executable NestedDispatchableCall calls.
+            //    Note: Collecting NestedDispatchableCall calls first to have them in front of executable list.
+            this.collectExecutableCalls(true, this.executableCalls);
+
+            // 4. Collects the executable RootDispatchableCall calls.
+            this.collectExecutableCalls(false, this.executableCalls);
+
+            // The list is handed to the next drain along with the loop, take the collected calls first.
+            if (!this.executableCalls.isEmpty()) {
+                callsToExecute = takeExecutableCalls(callsToExecute);
+            }
+
+            requests = this.drainRequests.addAndGet(-requests);
+        } while (requests != 0);
+
+        // 5. Dispatch the collected calls on dispatcher threads, outside the drain loop.
+        //    An executor running the call in the calling thread may re-enter dispatchCalls(),
+        //    such a re-entrant call runs the drain loop itself.
+        if (callsToExecute == null) {
+            return;
+        }
+        for (DispatchableCall call : callsToExecute) {
             try {
                 this.executorService.execute(call);
             } catch (RejectedExecutionException e) {
                 call.onError(new InterruptedIOException("executor rejected").initCause(e));
             } catch (Throwable t) {
                 // The ExecutorService::execute() is not supposed to throw any exception other than
-                // RejectedExecutionException, but if it ever throws other exceptions, let's do the
-                // cleanup and then rethrow.
-                call.markNotRunning(1);
-                throw logger.logExceptionAsError(new RuntimeException("ExecutorService::schedule failed.", t));
+                // RejectedExecutionException, if it ever does, fail the call rather than the unrelated
+                // thread that happened to dispatch it.
+                call.onError(new InterruptedIOException("executor failed").initCause(logger.logThrowableAsError(t)));
+            }
+        }
+    }
+
+    /**
+     * Moves the calls collected in the drain-owned list to an array, appended to the calls taken by an earlier
+     * pass of the same drain if any. The caller must be the drain loop.
+     *
+     * @param takenCalls The calls taken by an earlier pass, null if none.
+     * @return The taken calls.
+     */
+    private DispatchableCall[] takeExecutableCalls(DispatchableCall[] takenCalls) {
+        final int takenCount = takenCalls == null ? 0 : takenCalls.length;
+        final DispatchableCall[] calls = new DispatchableCall[takenCount + this.executableCalls.size()];
+        if (takenCount > 0) {
+            System.arraycopy(takenCalls, 0, calls, 0, takenCount);
+        }
+        for (int i = 0; i < this.executableCalls.size(); i++) {
+            calls[takenCount + i] = this.executableCalls.get(i);
+        }
+        this.executableCalls.clear();
+        return calls;
+    }
+
+    /**
+     * Collects the calls that can be executed without exceeding the global and per-host limits.
+     *
+     * <p>
+     * The calls are collected in the order of their (aged) priority; the hosts with waiting calls
+     * of the same priority are visited in round-robin order, taking one call from each host per visit,
+     * so a host with a large backlog (e.g. a throttled host) cannot delay the calls to other hosts.
+     * The visit stops once the global limit is reached or a full round over the hosts collected no call.
+     * The caller must be the drain loop.
+     * </p>
+     *
+     * @param nested true to collect the waiting NestedDispatchableCall calls, false to collect
+     *     the waiting RootDispatchableCall calls.
+     * @param executableCalls The list to add the collected calls to.
+     */
+    private void collectExecutableCalls(boolean nested, List<DispatchableCall> executableCalls) {
+        final long nowNanos = System.nanoTime();
+        final int maxRunningCalls = this.getCurrentMaxRunningCalls();
+        for (int priority = 0; priority < WaitingCalls.PRIORITIES.length; priority++) {
+            int hostsVisitedWithoutCall = 0;
+            while (this.runningCalls < maxRunningCalls
+                && hostsVisitedWithoutCall < this.waitingHosts.size()) {
+                final HostCalls hostCalls = this.waitingHosts.poll();
+                assert hostCalls != null;
+                final WaitingCalls<? extends DispatchableCall> waitingCalls = nested
+                    ? hostCalls.waitingNestedDispatchableCalls
+                    : hostCalls.waitingRootDispatchableCalls;
+                DispatchableCall call = null;
+                if (hostCalls.runningCalls < this.maxRunningCallsPerHost
+                    && waitingCalls.peekPriority(nowNanos, this.priorityAgingNanos) <= priority) {
+                    call = waitingCalls.poll(nowNanos, this.priorityAgingNanos);
+                }
+                if (call == null) {
+                    hostsVisitedWithoutCall++;
+                } else {
+                    hostsVisitedWithoutCall = 0;
+                    call.getRootDispatchableCall().markRunning();
+                    this.runningCalls++;
+                    hostCalls.runningCalls++;
+                    executableCalls.add(call);
+                }
+                if (hostCalls.hasWaitingCalls()) {
+                    // Move the host to the end of the round-robin order.
+                    this.waitingHosts.add(hostCalls);
+                }
             }
         }
     }
 
+    /**
+     * Gets the bookkeeping of the waiting and running calls for the given host, creating one if
+     * the host has no waiting or running calls. The caller must be the drain loop.
+     *
+     * @param host The host.
+     * @return The per-host bookkeeping.
+     */
+    private HostCalls getOrCreateHostCalls(String host) {
+        HostCalls hostCalls = this.hostCallsMap.get(host);
+        if (hostCalls == null) {
+            hostCalls = new HostCalls();
+            this.hostCallsMap.put(host, hostCalls);
+        }
+        return hostCalls;
+    }
+
     /**
      * Given a chain instance of a pipeline run, return the RootDispatchableCall for the same pipeline run.
      *
@@ -319,6 +698,105 @@ public final class HttpCallDispatcher {
         return (RootDispatchableCall) rootCallback;
     }
 
+    /**
+     * The waiting and running calls of a host.
+     */
+    private static final class HostCalls {
+        private final WaitingCalls<RootDispatchableCall> waitingRootDispatchableCalls = new WaitingCalls<>();
+        private final WaitingCalls<NestedDispatchableCall> waitingNestedDispatchableCalls = new WaitingCalls<>();
+        private int runningCalls;
+
+        boolean hasWaitingCalls() {
+            return !this.waitingNestedDispatchableCalls.isEmpty() || !this.waitingRootDispatchableCalls.isEmpty();
+        }
+    }
+
+    /**
+     * The waiting calls, kept in one FIFO queue per {@link HttpCallPriority}.
+     *
+     * <p>
+     * The priority of a call raises by one level for every aging interval it waited. Since each queue
+     * is FIFO, the head of a queue is the longest waiting call in it, hence the call with highest aged
+     * priority among the calls in the queue.
+     * </p>
+     *
+     * @param <T> The type of the call.
+     */
+    private static final class WaitingCalls<T extends DispatchableCall> {
+        static final HttpCallPriority[] PRIORITIES = HttpCallPriority.values();
+        private final Deque<T>[] queues;
+
+        WaitingCalls() {
+            @SuppressWarnings("unchecked")
+            final Deque<T>[] queues = (Deque<T>[]) new Deque<?>[PRIORITIES.length];
+            for (int i = 0; i < queues.length; i++) {
+                queues[i] = new ArrayDeque<>();
+            }
+            this.queues = queues;
+        }
+
+        void add(T call) {
+            this.queues[call.getPriority().ordinal()].add(call);
+        }
+
+        boolean isEmpty() {
+            for (Deque<T> queue : this.queues) {
+                if (!queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Gets the highest aged priority (the smallest ordinal) of the waiting calls.
+         *
+         * @param nowNanos The current time.
+         * @param agingNanos The aging interval.
+         * @return The priority ordinal, {@link Integer#MAX_VALUE} if there are no waiting calls.
+         */
+        int peekPriority(long nowNanos, long agingNanos) {
+            final int index = this.indexOfNext(nowNanos, agingNanos);
+            return index == -1
+                ? Integer.MAX_VALUE
+                : agedPriority(index, this.queues[index].peek(), nowNanos, agingNanos);
+        }
+
+        /**
+         * Retrieves and removes the waiting call with the highest aged priority, the call with the higher
+         * original priority wins a tie.
+         *
+         * @param nowNanos The current time.
+         * @param agingNanos The aging interval.
+         * @return The call, null if there are no waiting calls.
+         */
+        T poll(long nowNanos, long agingNanos) {
+            final int index = this.indexOfNext(nowNanos, agingNanos);
+            return index == -1 ? null : this.queues[index].poll();
+        }
+
+        private int indexOfNext(long nowNanos, long agingNanos) {
+            int index = -1;
+            int bestPriority = Integer.MAX_VALUE;
+            for (int i = 0; i < this.queues.length; i++) {
+                final T head = this.queues[i].peek();
+                if (head != null) {
+                    final int priority = agedPriority(i, head, nowNanos, agingNanos);
+                    if (priority < bestPriority) {
+                        bestPriority = priority;
+                        index = i;
+                    }
+                }
+            }
+            return index;
+        }
+
+        private static int agedPriority(int priority, DispatchableCall call, long nowNanos, long agingNanos) {
+            final long levels = (nowNanos - call.getWaitingSinceNanos()) / agingNanos;
+            return (int) Math.max(0, priority - levels);
+        }
+    }
+
     /**
      * Contract representing an HTTP call to execute.
      */
@@ -358,12 +836,42 @@ public final class HttpCallDispatcher {
          * </ul>
          */
         void markNotRunning(int callerId);
+
+        /**
+         * Gets the RootDispatchableCall of the pipeline run this call belongs to.
+         *
+         * @return The RootDispatchableCall.
+         */
+        RootDispatchableCall getRootDispatchableCall();
+
+        /**
+         * Gets the priority of the call.
+         *
+         * @return The priority.
+         */
+        HttpCallPriority getPriority();
+
+        /**
+         * Sets the time the call started waiting in the dispatcher queue.
+         *
+         * @param nanos The time as given by {@link System#nanoTime()}.
+         */
+        void setWaitingSinceNanos(long nanos);
+
+        /**
+         * Gets the time the call started waiting in the dispatcher queue.
+         *
+         * @return The time as given by {@link System#nanoTime()}.
+         */
+        long getWaitingSinceNanos();
     }
 
     /**
      * The DispatchableCall that when executes puts the pipeline in "running-mode" for the first time.
      */
     private static final class RootDispatchableCall extends AtomicBoolean implements DispatchableCall {
+        private static final AtomicIntegerFieldUpdater<RootDispatchableCall> RUNNING_COUNT_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(RootDispatchableCall.class, "runningCount");
         private static final String INCORRECT_POLICY_IMPL_ERROR_STR = "Error potentially due to an incorrect"
             + " policy implementation - such as executing chain.processNextPolicy|finishedProcessing multiple"
             + " times or errors got escaped (directly thrown) from a policy along with "
@@ -376,6 +884,11 @@ public final class HttpCallDispatcher {
         private final HttpRequest httpRequest;
         private final CancellationToken cancellationToken;
         private final HttpCallback httpCallback;
+        private final String host;
+        private final HttpCallPriority priority;
+        private long waitingSinceNanos;
+        // The number of times the call is marked as running and not yet marked as not running.
+        private volatile int runningCount;
         private String callerIdTrace = "Code:";
 
         RootDispatchableCall(HttpCallDispatcher httpCallDispatcher,
@@ -388,10 +901,21 @@ public final class HttpCallDispatcher {
             this.httpRequest = httpRequest;
             this.cancellationToken = cancellationToken;
             this.httpCallback = httpCallback;
+            this.host = httpRequest.getUrl().getHost();
+            final Object priority = httpRequest.getTags().get(HttpCallPriority.KEY);
+            this.priority = priority instanceof HttpCallPriority
+                ? (HttpCallPriority) priority
+                : HttpCallPriority.NORMAL;
         }
 
         @Override
         public void run() {
+            if (this.httpCallFunction instanceof HttpPipelinePolicyChainImpl) {
+                final HttpPipelineMetrics metrics = ((HttpPipelinePolicyChainImpl) this.httpCallFunction).getMetrics();
+                if (metrics != null) {
+                    metrics.queueWaitLatency.record(System.nanoTime() - this.waitingSinceNanos);
+                }
+            }
             if (this.cancellationToken.isCancellationRequested()) {
                 this.onError(new IOException("Canceled."));
             } else {
@@ -435,29 +959,70 @@ public final class HttpCallDispatcher {
 
         @Override
         public void markNotRunning(int callerId) {
-            synchronized (this.httpCallDispatcher) {
+            final String trace;
+            synchronized (this) {
                 callerIdTrace += callerId;
-                boolean wasRunning = this.httpCallDispatcher.runningRootDispatchableCalls.remove(this);
-                if (!wasRunning) {
+                trace = callerIdTrace;
+            }
+            int count;
+            do {
+                count = this.runningCount;
+                if (count == 0) {
                     throw this.httpCallDispatcher
                         .logger.logExceptionAsError(
-                            new IllegalStateException(INCORRECT_POLICY_IMPL_ERROR_STR + callerIdTrace));
+                            new IllegalStateException(INCORRECT_POLICY_IMPL_ERROR_STR + trace));
                 }
-            }
+            } while (!RUNNING_COUNT_UPDATER.compareAndSet(this, count, count - 1));
             // Attempt to dispatch other waiting calls since this call is no-longer-running.
             // no-longer-running = executor-rejected-call-execution | call-paused | call-completed.
+            this.httpCallDispatcher.notRunningCalls.add(this);
             this.httpCallDispatcher.dispatchCalls();
         }
+
+        /**
+         * Signal that this call (or a nested call of it) is about to run.
+         */
+        void markRunning() {
+            RUNNING_COUNT_UPDATER.incrementAndGet(this);
+        }
+
+        @Override
+        public RootDispatchableCall getRootDispatchableCall() {
+            return this;
+        }
+
+        @Override
+        public HttpCallPriority getPriority() {
+            return this.priority;
+        }
+
+        @Override
+        public void setWaitingSinceNanos(long nanos) {
+            this.waitingSinceNanos = nanos;
+        }
+
+        @Override
+        public long getWaitingSinceNanos() {
+            return this.waitingSinceNanos;
+        }
     }
 
     /**
      * a DispatchableCall that when executes invokes a scheduled chain.processNextPolicy(..) call
      */
-    private static class NestedDispatchableCall implements DispatchableCall {
+    private static class NestedDispatchableCall extends AtomicBoolean implements DispatchableCall {
         private final RootDispatchableCall rootDispatchableCall;
         private final HttpPipelinePolicyChainImpl chain;
         private final HttpRequest httpRequest;
+        private final CancellationToken attemptToken;
         private final NextPolicyCallback callback;
+        private final boolean concurrent;
+        private final long scheduledAtNanos = System.nanoTime();
+        private long waitingSinceNanos;
+        // The handle to cancel the scheduled hand over, one of them is set once scheduled.
+        private volatile HashedWheelTimer.Timeout timerTimeout;
+        private volatile ScheduledFuture<?> scheduledFuture;
+        private volatile CancellationToken.Registration onCancelRegistration;
 
         /**
          * Creates a NestedDispatchableCall, a DispatchableCall that when executes invokes
@@ -473,36 +1038,137 @@ public final class HttpCallDispatcher {
          *     nested call belongs to.
          * @param chain The chain to invoke {@code processNextPolicy} call on.
          * @param httpRequest The HTTP request parameter for the scheduled {@code processNextPolicy} call.
+         * @param attemptToken The cancellation token parameter for the scheduled {@code processNextPolicy} call.
          * @param callback The callback parameter for the scheduled {@code processNextPolicy} call.
+         * @param concurrent true if the call runs concurrently with the running pipeline.
          */
         NestedDispatchableCall(RootDispatchableCall rootDispatchableCall,
                                HttpPipelinePolicyChainImpl chain,
                                HttpRequest httpRequest,
-                               NextPolicyCallback callback) {
+                               CancellationToken attemptToken,
+                               NextPolicyCallback callback,
+                               boolean concurrent) {
             this.rootDispatchableCall = rootDispatchableCall;
             this.chain = chain;
             this.httpRequest = httpRequest;
+            this.attemptToken = attemptToken;
             this.callback = callback;
+            this.concurrent = concurrent;
         }
 
         @Override
         public void run() {
-            this.chain.processNextPolicy(this.httpRequest, this.callback);
+            final HttpPipelineMetrics metrics = this.chain.getMetrics();
+            if (metrics != null) {
+                metrics.queueWaitLatency.record(System.nanoTime() - this.waitingSinceNanos);
+            }
+            if (this.attemptToken.isCancellationRequested()) {
+                this.onError(new IOException("Canceled."));
+            } else {
+                this.chain.processNextPolicy(this.httpRequest, this.attemptToken, this.callback);
+            }
+        }
+
+        void setTimerTimeout(HashedWheelTimer.Timeout timerTimeout) {
+            this.timerTimeout = timerTimeout;
+        }
+
+        void setScheduledFuture(ScheduledFuture<?> scheduledFuture) {
+            this.scheduledFuture = scheduledFuture;
+        }
+
+        /**
+         * Registers to hand over the call as soon as the pipeline run is cancelled.
+         *
+         * @param cancellationToken The cancellation token for the scheduled call.
+         */
+        void registerOnCancel(CancellationToken cancellationToken) {
+            if (cancellationToken == CancellationToken.NONE) {
+                return;
+            }
+            final CancellationToken.Registration registration = cancellationToken.register(() -> {
+                final HashedWheelTimer.Timeout timerTimeout = this.timerTimeout;
+                if (timerTimeout != null) {
+                    timerTimeout.cancel();
+                }
+                final ScheduledFuture<?> scheduledFuture = this.scheduledFuture;
+                if (scheduledFuture != null) {
+                    scheduledFuture.cancel(false);
+                }
+                this.handOver();
+            });
+            this.onCancelRegistration = registration;
+            if (this.get()) {
+                // Handed over while registering.
+                registration.close();
+            }
+        }
+
+        /**
+         * Hands over the call to the dispatcher to execute, either when the delay elapsed or when the pipeline
+         * run is cancelled, whichever happens first.
+         */
+        void handOver() {
+            if (!this.compareAndSet(false, true)) {
+                return;
+            }
+            final CancellationToken.Registration registration = this.onCancelRegistration;
+            if (registration != null) {
+                registration.close();
+            }
+            final HttpCallDispatcher httpCallDispatcher = this.rootDispatchableCall.httpCallDispatcher;
+            final long nowNanos = System.nanoTime();
+            final HttpPipelineMetrics metrics = this.chain.getMetrics();
+            if (metrics != null) {
+                metrics.delayLatency.record(nowNanos - this.scheduledAtNanos);
+            }
+            this.setWaitingSinceNanos(nowNanos);
+            if (this.concurrent) {
+                // The pipeline run holds its slot while running concurrently, run the call right away.
+                try {
+                    httpCallDispatcher.executorService.execute(this);
+                } catch (RejectedExecutionException e) {
+                    this.onError(new InterruptedIOException("executor rejected").initCause(e));
+                }
+                return;
+            }
+            httpCallDispatcher.incomingCalls.add(this);
+            httpCallDispatcher.dispatchCalls();
         }
 
         @Override
         public void onSuccess(HttpResponse response) {
-            this.callback.onSuccess(response, new PolicyCompleter(this.chain.prevChain));
+            this.callback.onSuccess(response, this.chain.getCompleter());
         }
 
         @Override
         public void onError(Throwable error) {
-            this.callback.onError(error, new PolicyCompleter(this.chain.prevChain));
+            this.callback.onError(error, this.chain.getCompleter());
         }
 
         @Override
         public void markNotRunning(int i) {
             // NOP
         }
+
+        @Override
+        public RootDispatchableCall getRootDispatchableCall() {
+            return this.rootDispatchableCall;
+        }
+
+        @Override
+        public HttpCallPriority getPriority() {
+            return this.rootDispatchableCall.priority;
+        }
+
+        @Override
+        public void setWaitingSinceNanos(long nanos) {
+            this.waitingSinceNanos = nanos;
+        }
+
+        @Override
+        public long getWaitingSinceNanos() {
+            return this.waitingSinceNanos;
+        }
     }
 }
@@ -0,0 +1,42 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+/**
+ * The priority of an HTTP call, used by the {@link HttpCallDispatcher} to pick the next call to run
+ * when the number of running calls reached the limit.
+ *
+ * <p>
+ * The priority of a call can be set by storing it in the {@link HttpRequest#getTags() request tags} or
+ * in the {@link com.azure.android.core.util.RequestContext} given to
+ * {@link HttpPipeline#send(HttpRequest, com.azure.android.core.util.RequestContext,
+ * com.azure.android.core.util.CancellationToken, HttpCallback)}, using {@link HttpCallPriority#KEY} as the key.
+ * A call without a priority has the {@link HttpCallPriority#NORMAL} priority.
+ * </p>
+ *
+ * <pre>
+ * RequestContext requestContext = new RequestContext(HttpCallPriority.KEY, HttpCallPriority.LOW);
+ * </pre>
+ */
+public enum HttpCallPriority {
+    /**
+     * The priority for user-visible calls that should run ahead of other calls.
+     */
+    HIGH,
+
+    /**
+     * The default priority.
+     */
+    NORMAL,
+
+    /**
+     * The priority for background calls that can wait for other calls.
+     */
+    LOW;
+
+    /**
+     * The key to store the {@link HttpCallPriority} in the request tags or in the request context.
+     */
+    public static final String KEY = "http-call-priority";
+}
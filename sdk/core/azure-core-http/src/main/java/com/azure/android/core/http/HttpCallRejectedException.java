@@ -0,0 +1,31 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * The exception thrown by a {@link BoundedElasticExecutor} when it can not accept an HTTP call, either because
+ * its threads and waiting queue are full or because it is shut down.
+ */
+public class HttpCallRejectedException extends RejectedExecutionException {
+    /**
+     * Creates an HttpCallRejectedException.
+     *
+     * @param message The exception message.
+     */
+    public HttpCallRejectedException(String message) {
+        super(message);
+    }
+
+    /**
+     * Creates an HttpCallRejectedException.
+     *
+     * @param message The exception message.
+     * @param cause The {@link Throwable} which caused the rejection.
+     */
+    public HttpCallRejectedException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -5,14 +5,21 @@ package com.azure.android.core.http;
 
 import com.azure.android.core.util.Header;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 /**
  * A single header within a HTTP request or response.
  *
  * If multiple header values are added to a HTTP request or response with
  * the same name (case-insensitive), then the values will be appended
- * to the end of the same Header with commas separating them.
+ * to the end of the same Header with commas separating them. Each value
+ * is also kept as it was added, see {@link #getValuesList()}.
  */
 public class HttpHeader extends Header {
+    // The values as added, null until a second value is added.
+    private List<String> values;
 
     /**
      * Create a HttpHeader instance using the provided name and value.
@@ -23,4 +30,31 @@ public class HttpHeader extends Header {
     public HttpHeader(String name, String value) {
         super(name, value);
     }
+
+    /**
+     * Gets the values of this header as they were added, without splitting them by comma; this is how headers
+     * such as {@code Set-Cookie}, whose values may contain commas, are read.
+     *
+     * @return the unmodifiable list of values, empty if the header has no value.
+     */
+    public List<String> getValuesList() {
+        if (this.values != null) {
+            return Collections.unmodifiableList(this.values);
+        }
+        final String value = getValue();
+        return value == null ? Collections.<String>emptyList() : Collections.singletonList(value);
+    }
+
+    @Override
+    public void addValue(String value) {
+        final String first = getValue();
+        if (first != null) {
+            if (this.values == null) {
+                this.values = new ArrayList<>(2);
+                this.values.add(first);
+            }
+            this.values.add(value);
+        }
+        super.addValue(value);
+    }
 }
@@ -3,16 +3,52 @@
 
 package com.azure.android.core.http;
 
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Locale;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * A collection of headers on an HTTP request or response.
+ *
+ * <p>
+ * Header names are case-insensitive. They are hashed and compared over their original characters, so looking up
+ * a header does not allocate; the hashes of common names such as {@code Content-Type} or {@code Authorization}
+ * are computed once. Headers are iterated in the order they were first set.
+ * </p>
  */
 public class HttpHeaders implements Iterable<HttpHeader> {
-    private final Map<String, HttpHeader> headers = new HashMap<>();
+    private static final int INITIAL_CAPACITY = 16;
+
+    // Common header names with their pre-computed case-insensitive hash, found by the (cached) String hash code.
+    private static final String[] KNOWN_NAMES = {
+        "Accept", "Accept-Encoding", "Authorization", "Content-Encoding", "Content-Length", "Content-Type", "Date",
+        "ETag", "If-Match", "If-None-Match", "Retry-After", "User-Agent", "retry-after-ms", "x-ms-client-request-id",
+        "x-ms-date", "x-ms-request-id", "x-ms-retry-after-ms", "x-ms-version",
+        "accept", "accept-encoding", "authorization", "content-encoding", "content-length", "content-type", "date",
+        "etag", "retry-after", "user-agent",
+    };
+    private static final String[] KNOWN_TABLE = new String[128];
+    private static final int[] KNOWN_HASHES = new int[KNOWN_TABLE.length];
+
+    static {
+        for (final String name : KNOWN_NAMES) {
+            int index = name.hashCode() & (KNOWN_TABLE.length - 1);
+            while (KNOWN_TABLE[index] != null) {
+                index = (index + 1) & (KNOWN_TABLE.length - 1);
+            }
+            KNOWN_TABLE[index] = name;
+            KNOWN_HASHES[index] = computeHash(name);
+        }
+    }
+
+    private Entry[] table = new Entry[INITIAL_CAPACITY];
+    // The entries in insertion order.
+    private Entry head;
+    private Entry tail;
+    private int size;
+    private int modCount;
 
     /**
      * Create an empty HttpHeaders instance.
@@ -40,7 +76,12 @@ public class HttpHeaders implements Iterable<HttpHeader> {
         this();
 
         for (final HttpHeader header : headers) {
-            this.put(header.getName(), header.getValue());
+            for (final String value : header.getValuesList()) {
+                this.add(header.getName(), value);
+            }
+            if (header.getValue() == null) {
+                this.put(header.getName(), null);
+            }
         }
     }
 
@@ -50,7 +91,7 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return the number of headers in this collection.
      */
     public int getSize() {
-        return headers.size();
+        return size;
     }
 
     /**
@@ -63,7 +104,34 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return The updated HttpHeaders object
      */
     public HttpHeaders put(String name, String value) {
-        headers.put(formatKey(name), new HttpHeader(name, value));
+        final int hash = hash(name);
+        final Entry entry = find(name, hash);
+        if (entry != null) {
+            entry.header = new HttpHeader(name, value);
+        } else {
+            insert(new HttpHeader(name, value), hash);
+        }
+        return this;
+    }
+
+    /**
+     * Adds a value to the {@link HttpHeader header} with the given name, creating the header if it does not exist.
+     *
+     * <p>Unlike {@link #put(String, String) put}, the existing values are kept; each value stays available through
+     * {@link HttpHeader#getValuesList()}.</p>
+     *
+     * @param name the name
+     * @param value the value to add
+     * @return The updated HttpHeaders object
+     */
+    public HttpHeaders add(String name, String value) {
+        final int hash = hash(name);
+        final Entry entry = find(name, hash);
+        if (entry != null) {
+            entry.header.addValue(value);
+        } else {
+            insert(new HttpHeader(name, value), hash);
+        }
         return this;
     }
 
@@ -75,7 +143,8 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return the header if found, null otherwise.
      */
     public HttpHeader get(String name) {
-        return headers.get(formatKey(name));
+        final Entry entry = find(name, hash(name));
+        return entry == null ? null : entry.header;
     }
 
     /**
@@ -86,7 +155,12 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      * @return the header if removed, null otherwise.
      */
     public HttpHeader remove(String name) {
-        return headers.remove(formatKey(name));
+        final Entry entry = find(name, hash(name));
+        if (entry == null) {
+            return null;
+        }
+        unlink(entry);
+        return entry.header;
     }
 
     /**
@@ -113,10 +187,6 @@ public class HttpHeaders implements Iterable<HttpHeader> {
         return header == null ? null : header.getValues();
     }
 
-    private String formatKey(final String key) {
-        return key.toLowerCase(Locale.ROOT);
-    }
-
     /**
      * Gets a {@link Map} representation of the HttpHeaders collection.
      *
@@ -124,8 +194,8 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      */
     public Map<String, String> toMap() {
         final Map<String, String> result = new HashMap<>();
-        for (final HttpHeader header : headers.values()) {
-            result.put(header.getName(), header.getValue());
+        for (Entry entry = head; entry != null; entry = entry.after) {
+            result.put(entry.header.getName(), entry.header.getValue());
         }
         return result;
     }
@@ -135,7 +205,7 @@ public class HttpHeaders implements Iterable<HttpHeader> {
      */
     @Override
     public Iterator<HttpHeader> iterator() {
-        return headers.values().iterator();
+        return new HeaderIterator();
     }
 
     @Override
@@ -151,4 +221,155 @@ public class HttpHeaders implements Iterable<HttpHeader> {
         }
         return stringBuilder.toString();
     }
+
+    /**
+     * Computes the case-insensitive hash of a header name, consistent with {@link String#equalsIgnoreCase(String)}.
+     *
+     * @param name the header name.
+     * @return the hash.
+     */
+    static int hash(String name) {
+        final int hashCode = name.hashCode();
+        int index = hashCode & (KNOWN_TABLE.length - 1);
+        String known;
+        while ((known = KNOWN_TABLE[index]) != null) {
+            // String literals are interned, so a known name is usually the very same instance.
+            if (known == name || (known.hashCode() == hashCode && known.equals(name))) {
+                return KNOWN_HASHES[index];
+            }
+            index = (index + 1) & (KNOWN_TABLE.length - 1);
+        }
+        return computeHash(name);
+    }
+
+    private static int computeHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c = (char) (c + ('a' - 'A'));
+            } else if (c >= 0x80) {
+                c = Character.toLowerCase(Character.toUpperCase(c));
+            }
+            hash = 31 * hash + c;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private Entry find(String name, int hash) {
+        for (Entry entry = table[hash & (table.length - 1)]; entry != null; entry = entry.next) {
+            if (entry.hash == hash) {
+                final String entryName = entry.header.getName();
+                if (entryName == name || entryName.equalsIgnoreCase(name)) {
+                    return entry;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void insert(HttpHeader header, int hash) {
+        if (size >= (table.length >> 1) + (table.length >> 2)) {
+            resize();
+        }
+        final Entry entry = new Entry(header, hash);
+        final int index = hash & (table.length - 1);
+        entry.next = table[index];
+        table[index] = entry;
+        if (tail == null) {
+            head = entry;
+        } else {
+            tail.after = entry;
+            entry.before = tail;
+        }
+        tail = entry;
+        size++;
+        modCount++;
+    }
+
+    private void unlink(Entry entry) {
+        final int index = entry.hash & (table.length - 1);
+        if (table[index] == entry) {
+            table[index] = entry.next;
+        } else {
+            Entry previous = table[index];
+            while (previous.next != entry) {
+                previous = previous.next;
+            }
+            previous.next = entry.next;
+        }
+        if (entry.before == null) {
+            head = entry.after;
+        } else {
+            entry.before.after = entry.after;
+        }
+        if (entry.after == null) {
+            tail = entry.before;
+        } else {
+            entry.after.before = entry.before;
+        }
+        size--;
+        modCount++;
+    }
+
+    private void resize() {
+        final Entry[] resized = new Entry[table.length << 1];
+        for (Entry entry = head; entry != null; entry = entry.after) {
+            final int index = entry.hash & (resized.length - 1);
+            entry.next = resized[index];
+            resized[index] = entry;
+        }
+        table = resized;
+    }
+
+    private static final class Entry {
+        private final int hash;
+        private HttpHeader header;
+        // The next entry in the same bucket.
+        private Entry next;
+        private Entry before;
+        private Entry after;
+
+        Entry(HttpHeader header, int hash) {
+            this.header = header;
+            this.hash = hash;
+        }
+    }
+
+    private final class HeaderIterator implements Iterator<HttpHeader> {
+        private Entry next = head;
+        private Entry current;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public HttpHeader next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = next.after;
+            return current.header;
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            unlink(current);
+            current = null;
+            expectedModCount = modCount;
+        }
+    }
 }
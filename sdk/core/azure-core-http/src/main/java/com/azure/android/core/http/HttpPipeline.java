@@ -7,6 +7,8 @@ import com.azure.android.core.http.implementation.Util;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
 
+import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -14,6 +16,9 @@ import java.util.List;
  * <p>
  * The HTTP pipeline may apply a set of {@link HttpPipelinePolicy HttpPipelinePolicies} to the request before it is
  * sent and on the response as it is being returned.
+ * <p>
+ * The pipeline compiles the policies when it is created: {@link HttpPipelinePolicy#isNoOp() no-op} policies are
+ * left out and each run of consecutive {@link HttpRequestPolicy request policies} is fused into a single step.
  *
  * @see HttpPipelinePolicy
  */
@@ -21,6 +26,14 @@ public final class HttpPipeline {
     private final HttpClient httpClient;
     private final HttpPipelinePolicy[] pipelinePolicies;
     // package-private final vars
+    // The policies the pipeline runs, no-op policies left out and request policies fused.
+    final HttpPipelinePolicy[] compiledPolicies;
+    // The metrics to record the latencies to, null if the instrumentation is not enabled.
+    final HttpPipelineMetrics metrics;
+    // The histograms for the request and response phase of each compiled policy, null if the instrumentation is
+    // not enabled. The entry for a fused step is null, the step records the latencies of each fused policy.
+    final LatencyHistogram[] requestPhaseLatencies;
+    final LatencyHistogram[] responsePhaseLatencies;
     final HttpPipelinePolicy networkPolicy;
     final HttpCallDispatcher httpCallDispatcher;
     final int size;
@@ -32,36 +45,121 @@ public final class HttpPipeline {
      * @param httpClient the http client to write request to wire and receive response from wire.
      * @param pipelinePolicies pipeline policies in the order they need to applied, a copy of this array will be made
      * hence changing the original array after the creation of pipeline will not  mutate the pipeline
+     * @param metrics the metrics to record the latencies of the pipeline runs to, null to not record them.
      */
-    HttpPipeline(HttpClient httpClient, List<HttpPipelinePolicy> pipelinePolicies) {
+    HttpPipeline(HttpClient httpClient, List<HttpPipelinePolicy> pipelinePolicies, HttpPipelineMetrics metrics) {
         Util.requireNonNull(httpClient, "'httpClient' cannot be null.");
         Util.requireNonNull(pipelinePolicies, "'pipelinePolicies' cannot be null.");
         this.httpClient = httpClient;
         this.httpCallDispatcher = this.httpClient.getHttpCallDispatcher();
         this.pipelinePolicies = pipelinePolicies.toArray(new HttpPipelinePolicy[0]);
-        this.size = this.pipelinePolicies.length;
+        this.metrics = metrics;
+        this.compiledPolicies = compile(this.pipelinePolicies, metrics);
+        this.size = this.compiledPolicies.length;
+        if (metrics == null) {
+            this.requestPhaseLatencies = null;
+            this.responsePhaseLatencies = null;
+        } else {
+            this.requestPhaseLatencies = new LatencyHistogram[this.size];
+            this.responsePhaseLatencies = new LatencyHistogram[this.size];
+            for (int i = 0; i < this.size; i++) {
+                final HttpPipelinePolicy policy = this.compiledPolicies[i];
+                if (!(policy instanceof FusedRequestPolicy)) {
+                    this.requestPhaseLatencies[i] = metrics.getRequestPhaseLatency(policy);
+                    this.responsePhaseLatencies[i] = metrics.getResponsePhaseLatency(policy);
+                }
+            }
+        }
         this.networkPolicy = new HttpPipelinePolicy() {
             @Override
             public void process(HttpPipelinePolicyChain chain) {
                 // Indicate the HttpClient to prefer the calling thread for sending request.
                 chain.getRequest().getTags().put("prefer-running-http-in-calling-thread", null);
 
+                // The network chain is the callback that completes the chain with the HttpClient result.
                 HttpPipeline.this.httpClient.send(chain.getRequest(), chain.getCancellationToken(),
-                    new HttpCallback() {
-                        @Override
-                        public void onSuccess(HttpResponse response) {
-                            chain.completed(response);
-                        }
-
-                        @Override
-                        public void onError(Throwable error) {
-                            chain.completedError(error);
-                        }
-                    });
+                    (HttpPipelinePolicyChainImpl) chain);
             }
         };
     }
 
+    /**
+     * Compiles the policies into the steps the pipeline runs.
+     *
+     * @param policies The policies in the order they need to be applied.
+     * @param metrics The metrics for the fused steps to record the latencies of the fused policies to, or null.
+     * @return The policies with no-op policies left out and consecutive request policies fused.
+     */
+    private static HttpPipelinePolicy[] compile(HttpPipelinePolicy[] policies, HttpPipelineMetrics metrics) {
+        final List<HttpPipelinePolicy> compiled = new ArrayList<>(policies.length);
+        final List<HttpRequestPolicy> requestPolicies = new ArrayList<>();
+        for (HttpPipelinePolicy policy : policies) {
+            if (policy.isNoOp()) {
+                continue;
+            }
+            if (policy instanceof HttpRequestPolicy && isFusible((HttpRequestPolicy) policy)) {
+                requestPolicies.add((HttpRequestPolicy) policy);
+            } else {
+                fuse(requestPolicies, compiled, metrics);
+                compiled.add(policy);
+            }
+        }
+        fuse(requestPolicies, compiled, metrics);
+        return compiled.toArray(new HttpPipelinePolicy[0]);
+    }
+
+    /**
+     * Checks whether a request policy can be fused, i.e. whether no class in its hierarchy overrides
+     * {@link HttpRequestPolicy#process(HttpPipelinePolicyChain)}. A fused policy only gets its
+     * {@link HttpRequestPolicy#processRequest(HttpRequest)} called, hence a policy overriding process, such as
+     * a subclass of a built-in request policy written before it became a request policy, runs as its own step.
+     *
+     * @param policy The request policy.
+     * @return true if the policy can be fused, false otherwise.
+     */
+    private static boolean isFusible(HttpRequestPolicy policy) {
+        for (Class<?> type = policy.getClass(); type != null && type != Object.class; type = type.getSuperclass()) {
+            final Method process;
+            try {
+                process = type.getDeclaredMethod("process", HttpPipelinePolicyChain.class);
+            } catch (NoSuchMethodException e) {
+                continue;
+            } catch (SecurityException e) {
+                return false;
+            }
+            if (!process.isSynthetic() && !process.isBridge()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a single step for the run of request policies, then clears the run.
+     *
+     * @param requestPolicies The run of consecutive request policies.
+     * @param compiled The compiled steps to add to.
+     * @param metrics The metrics for the fused step to record the latencies of the fused policies to, or null.
+     */
+    private static void fuse(List<HttpRequestPolicy> requestPolicies,
+                             List<HttpPipelinePolicy> compiled,
+                             HttpPipelineMetrics metrics) {
+        if (requestPolicies.size() == 1) {
+            compiled.add(requestPolicies.get(0));
+        } else if (requestPolicies.size() > 1) {
+            final HttpRequestPolicy[] fused = requestPolicies.toArray(new HttpRequestPolicy[0]);
+            LatencyHistogram[] latencies = null;
+            if (metrics != null) {
+                latencies = new LatencyHistogram[fused.length];
+                for (int i = 0; i < fused.length; i++) {
+                    latencies[i] = metrics.getRequestPhaseLatency(fused[i]);
+                }
+            }
+            compiled.add(new FusedRequestPolicy(fused, latencies));
+        }
+        requestPolicies.clear();
+    }
+
     /**
      * Execute an HTTP call by sending the {@code request} through the HTTP pipeline.
      *
@@ -96,6 +194,15 @@ public final class HttpPipeline {
         return this.pipelinePolicies[index];
     }
 
+    /**
+     * Get the {@link HttpPipelineMetrics} the pipeline records its latencies to.
+     *
+     * @return the metrics, null if the pipeline was built without metrics.
+     */
+    public HttpPipelineMetrics getMetrics() {
+        return this.metrics;
+    }
+
     /**
      * Get the {@link HttpClient} associated with the pipeline.
      *
@@ -36,6 +36,7 @@ import java.util.List;
 public class HttpPipelineBuilder {
     private HttpClient httpClient;
     private List<HttpPipelinePolicy> pipelinePolicies;
+    private HttpPipelineMetrics metrics;
 
     /**
      *  Creates a new instance of HttpPipelineBuilder that can configure options for
@@ -58,7 +59,7 @@ public class HttpPipelineBuilder {
         com.azure.android.core.http.HttpClient client = (httpClient == null)
             ? HttpClient.createDefault() : httpClient;
 
-        return new HttpPipeline(client, policies);
+        return new HttpPipeline(client, policies, metrics);
     }
 
     /**
@@ -87,4 +88,16 @@ public class HttpPipelineBuilder {
         this.pipelinePolicies.addAll(Arrays.asList(policies));
         return this;
     }
+
+    /**
+     * Sets the {@link HttpPipelineMetrics} that the pipeline will record the latencies of its policies,
+     * dispatcher queueing, delays and network calls to. By default the pipeline does not record latencies.
+     *
+     * @param metrics The metrics to record the latencies to, null to not record them.
+     * @return The updated HttpPipelineBuilder object.
+     */
+    public HttpPipelineBuilder metrics(HttpPipelineMetrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
 }
@@ -0,0 +1,186 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The latencies of the stages of {@link HttpPipeline} runs, to find where the time of slow HTTP calls goes
+ * without attaching a profiler.
+ *
+ * <p>
+ * The instrumentation is opt-in, a pipeline records its latencies only if it is built with
+ * {@link HttpPipelineBuilder#metrics(HttpPipelineMetrics)}; the same metrics can be given to more than one
+ * pipeline to aggregate their latencies. The latencies are recorded in lock-free histograms:
+ * </p>
+ * <ul>
+ *     <li>the request phase of each policy, from the time the policy is invoked until it proceeds to
+ *     the next policy,</li>
+ *     <li>the response phase of each policy, from the time its {@link NextPolicyCallback} is notified of
+ *     the result of the next policy until the policy completes or proceeds again, e.g. to retry,</li>
+ *     <li>the time the calls wait in the {@link HttpCallDispatcher} queue before running,</li>
+ *     <li>the time the calls are delayed by policies, e.g. the retry back-off,</li>
+ *     <li>the time the HttpClient takes to send the request and receive the response.</li>
+ * </ul>
+ *
+ * <pre>
+ * HttpPipelineMetrics metrics = new HttpPipelineMetrics();
+ * HttpPipeline pipeline = new HttpPipelineBuilder()
+ *     .policies(new UserAgentPolicy(), new RetryPolicy())
+ *     .metrics(metrics)
+ *     .build();
+ * ...
+ * HttpPipelineMetrics.Snapshot snapshot = metrics.getSnapshot();
+ * long p99Millis = snapshot.getNetworkLatency().getPercentile(99, TimeUnit.MILLISECONDS);
+ * </pre>
+ */
+public final class HttpPipelineMetrics {
+    // The histograms per policy class name, guarded by 'this', looked up only when a pipeline is built.
+    private final Map<String, LatencyHistogram> requestPhaseLatencies = new HashMap<>();
+    private final Map<String, LatencyHistogram> responsePhaseLatencies = new HashMap<>();
+    // package-private final vars
+    final LatencyHistogram queueWaitLatency = new LatencyHistogram();
+    final LatencyHistogram delayLatency = new LatencyHistogram();
+    final LatencyHistogram networkLatency = new LatencyHistogram();
+
+    /**
+     * Creates an HttpPipelineMetrics with no latency recorded.
+     */
+    public HttpPipelineMetrics() {
+    }
+
+    /**
+     * Takes a snapshot of the latencies recorded so far.
+     *
+     * @return The snapshot.
+     */
+    public Snapshot getSnapshot() {
+        final Map<String, LatencySnapshot> requestPhase;
+        final Map<String, LatencySnapshot> responsePhase;
+        synchronized (this) {
+            requestPhase = takeSnapshots(this.requestPhaseLatencies);
+            responsePhase = takeSnapshots(this.responsePhaseLatencies);
+        }
+        return new Snapshot(requestPhase,
+            responsePhase,
+            this.queueWaitLatency.getSnapshot(),
+            this.delayLatency.getSnapshot(),
+            this.networkLatency.getSnapshot());
+    }
+
+    /**
+     * package-private.
+     *
+     * Gets the histogram for the request phase of a policy.
+     *
+     * @param policy The policy.
+     * @return The histogram shared by the policies of the same class.
+     */
+    synchronized LatencyHistogram getRequestPhaseLatency(HttpPipelinePolicy policy) {
+        return getOrCreate(this.requestPhaseLatencies, policy);
+    }
+
+    /**
+     * package-private.
+     *
+     * Gets the histogram for the response phase of a policy.
+     *
+     * @param policy The policy.
+     * @return The histogram shared by the policies of the same class.
+     */
+    synchronized LatencyHistogram getResponsePhaseLatency(HttpPipelinePolicy policy) {
+        return getOrCreate(this.responsePhaseLatencies, policy);
+    }
+
+    private static LatencyHistogram getOrCreate(Map<String, LatencyHistogram> histograms,
+                                                HttpPipelinePolicy policy) {
+        final String key = policy.getClass().getName();
+        LatencyHistogram histogram = histograms.get(key);
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            histograms.put(key, histogram);
+        }
+        return histogram;
+    }
+
+    private static Map<String, LatencySnapshot> takeSnapshots(Map<String, LatencyHistogram> histograms) {
+        final Map<String, LatencySnapshot> snapshots = new HashMap<>(histograms.size());
+        for (Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().getSnapshot());
+        }
+        return Collections.unmodifiableMap(snapshots);
+    }
+
+    /**
+     * A point in time snapshot of {@link HttpPipelineMetrics}.
+     */
+    public static final class Snapshot {
+        private final Map<String, LatencySnapshot> requestPhaseLatencies;
+        private final Map<String, LatencySnapshot> responsePhaseLatencies;
+        private final LatencySnapshot queueWaitLatency;
+        private final LatencySnapshot delayLatency;
+        private final LatencySnapshot networkLatency;
+
+        private Snapshot(Map<String, LatencySnapshot> requestPhaseLatencies,
+                         Map<String, LatencySnapshot> responsePhaseLatencies,
+                         LatencySnapshot queueWaitLatency,
+                         LatencySnapshot delayLatency,
+                         LatencySnapshot networkLatency) {
+            this.requestPhaseLatencies = requestPhaseLatencies;
+            this.responsePhaseLatencies = responsePhaseLatencies;
+            this.queueWaitLatency = queueWaitLatency;
+            this.delayLatency = delayLatency;
+            this.networkLatency = networkLatency;
+        }
+
+        /**
+         * Gets the latencies of the request phase of the policies, from the time a policy is invoked until
+         * it proceeds to the next policy.
+         *
+         * @return The latencies keyed by the policy class name.
+         */
+        public Map<String, LatencySnapshot> getRequestPhaseLatencies() {
+            return this.requestPhaseLatencies;
+        }
+
+        /**
+         * Gets the latencies of the response phase of the policies, from the time a policy's
+         * {@link NextPolicyCallback} is notified until the policy completes or proceeds again.
+         *
+         * @return The latencies keyed by the policy class name.
+         */
+        public Map<String, LatencySnapshot> getResponsePhaseLatencies() {
+            return this.responsePhaseLatencies;
+        }
+
+        /**
+         * Gets the latencies of the calls waiting in the {@link HttpCallDispatcher} queue before running.
+         *
+         * @return The queue wait latencies.
+         */
+        public LatencySnapshot getQueueWaitLatency() {
+            return this.queueWaitLatency;
+        }
+
+        /**
+         * Gets the latencies of the calls delayed by policies, e.g. the retry back-off.
+         *
+         * @return The delay latencies.
+         */
+        public LatencySnapshot getDelayLatency() {
+            return this.delayLatency;
+        }
+
+        /**
+         * Gets the latencies of the HttpClient sending the request and receiving the response.
+         *
+         * @return The network latencies.
+         */
+        public LatencySnapshot getNetworkLatency() {
+            return this.networkLatency;
+        }
+    }
+}
@@ -29,4 +29,18 @@ public interface HttpPipelinePolicy {
      * @param chain The chain for the policy to access the request and response.
      */
     void process(HttpPipelinePolicyChain chain);
+
+    /**
+     * Checks whether the policy is a no-op, passing every request to the next policy unchanged and every
+     * response back unchanged.
+     *
+     * <p>
+     * The {@link HttpPipeline} leaves out the policies that are no-op, the default implementation returns false.
+     * </p>
+     *
+     * @return true if the policy is a no-op, false otherwise.
+     */
+    default boolean isNoOp() {
+        return false;
+    }
 }
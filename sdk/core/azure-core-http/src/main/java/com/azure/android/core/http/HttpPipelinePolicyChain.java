@@ -101,6 +101,67 @@ public interface HttpPipelinePolicyChain {
      */
     void processNextPolicy(HttpRequest request, NextPolicyCallback callback, long delay, TimeUnit timeUnit);
 
+    /**
+     * Signal that the pipeline can proceed with the execution of the next policy, using the given
+     * cancellation token for the execution of the next policies instead of the pipeline run's token.
+     *
+     * <p>
+     * A policy running more than one attempt of the next policies, e.g. a hedging policy, uses a token per
+     * attempt to cancel an attempt without cancelling the pipeline run. The policy is responsible to cancel
+     * the given token when the pipeline run's token is cancelled.
+     * </p>
+     *
+     * <p>
+     * The chains created by the {@link HttpPipeline} implement this method; the default implementation throws
+     * an {@link UnsupportedOperationException}, so existing implementations of this interface keep compiling.
+     * </p>
+     *
+     * @param request The HTTP Request.
+     * @param cancellationToken The cancellation token for the execution of the next policies.
+     * @param callback The callback to receive the {@link HttpResponse} or the error from
+     *     the next policy once its completes the execution.
+     * @throws UnsupportedOperationException if the chain does not support a per-attempt cancellation token.
+     */
+    default void processNextPolicy(HttpRequest request,
+                                   CancellationToken cancellationToken,
+                                   NextPolicyCallback callback) {
+        throw new UnsupportedOperationException("processNextPolicy with a cancellation token is not supported.");
+    }
+
+    /**
+     * Signal that, after the specified delay the pipeline can proceed with another execution of the next
+     * policy, concurrently with an execution in progress, using the given cancellation token for the execution
+     * of the next policies.
+     *
+     * <p>
+     * Unlike {@link HttpPipelinePolicyChain#processNextPolicy(HttpRequest, NextPolicyCallback, long, TimeUnit)},
+     * the pipeline run keeps running while waiting for the delay. Once the delay elapses, the execution starts
+     * right away without waiting for the {@link HttpCallDispatcher} limits, so it is meant for a bounded number
+     * of extra attempts, such as hedged requests. Cancelling the token before the delay elapses notifies
+     * the callback with the cancellation error right away.
+     * </p>
+     *
+     * <p>
+     * The chains created by the {@link HttpPipeline} implement this method; the default implementation throws
+     * an {@link UnsupportedOperationException}, so existing implementations of this interface keep compiling.
+     * </p>
+     *
+     * @param request The HTTP Request.
+     * @param cancellationToken The cancellation token for the execution of the next policies.
+     * @param callback The callback to receive the {@link HttpResponse} or the error from
+     *     the next policy once its completes the execution.
+     * @param delay The time from now to delay the execution of next policy.
+     * @param timeUnit The time unit of the {@code delay}.
+     * @throws UnsupportedOperationException if the chain does not support concurrent executions.
+     */
+    default void processNextPolicyConcurrently(HttpRequest request,
+                                               CancellationToken cancellationToken,
+                                               NextPolicyCallback callback,
+                                               long delay,
+                                               TimeUnit timeUnit) {
+        throw new UnsupportedOperationException("processNextPolicyConcurrently is not supported.");
+    }
+
     /**
      * Signal that the policy execution is successfully completed.
      *
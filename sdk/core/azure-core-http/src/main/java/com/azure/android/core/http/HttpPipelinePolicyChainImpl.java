@@ -7,27 +7,72 @@ import android.util.Log;
 
 import com.azure.android.core.http.implementation.Util;
 import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.Option;
 import com.azure.android.core.util.RequestContext;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * Default implementation of {@link HttpPipelinePolicyChain}.
+ *
+ * <p>
+ * A policy may keep its chain and use it after the next policies completed, e.g. to retry, hence each policy
+ * of a pipeline run needs its own chain. To avoid allocations on the hot path, a chain caches the chain it
+ * created for the next policy and reuses it once the next policy completed; so a pipeline run allocates one
+ * chain per policy and no more on retries, a new chain is allocated only if the cached one is still in use,
+ * e.g. a policy running the next policies concurrently. The chains also cache their {@link PolicyCompleter}.
+ * The root chain doubles as the function the dispatcher runs and the network chain as the callback the
+ * HttpClient notifies, so no per-call lambda or callback is allocated.
+ * </p>
  */
-final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
+final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain,
+    HttpCallDispatcher.HttpCallFunction, HttpCallback {
     private static final String TAG = HttpPipelinePolicyChainImpl.class.getName();
+    private static final AtomicIntegerFieldUpdater<HttpPipelinePolicyChainImpl> IN_USE_UPDATER
+        = AtomicIntegerFieldUpdater.newUpdater(HttpPipelinePolicyChainImpl.class, "inUse");
+    // The callback of the root chain, notifying the result of the pipeline run to the dispatcher.
+    private static final NextPolicyCallback ROOT_CALLBACK = new NextPolicyCallback() {
+        @Override
+        public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+            ((HttpPipelinePolicyChainImpl) completer.getChain()).rootHttpCallback.onSuccess(response);
+            return PolicyCompleter.CompletionState.INSTANCE;
+        }
+
+        @Override
+        public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+            ((HttpPipelinePolicyChainImpl) completer.getChain()).rootHttpCallback.onError(error);
+            return PolicyCompleter.CompletionState.INSTANCE;
+        }
+    };
+
     private final ClientLogger logger = new ClientLogger(HttpPipelinePolicyChainImpl.class);
 
     private final int index;
     private final HttpPipeline httpPipeline;
-    private final HttpRequest httpRequest;
     private final RequestContext context;
     private final CancellationToken cancellationToken;
-    private final NextPolicyCallback prevPolicyCallback;
+    // The request and the callback are set again when the chain is reused.
+    private HttpRequest httpRequest;
+    private NextPolicyCallback prevPolicyCallback;
+    // 1 from the time the chain is handed to the policy until the policy completes, 0 otherwise.
+    private volatile int inUse;
+    // The chain this chain created for the next policy, reused once that policy completed.
+    private volatile HttpPipelinePolicyChainImpl nextChain;
+    private volatile PolicyCompleter completer;
     private volatile boolean reportedBypassedError;
-    // package private final var.
-    final HttpCallback rootHttpCallback;
+    // The start of the current request phase and response phase of the policy, used only if the pipeline
+    // records its latencies. The phases are recorded on a best effort basis, they are not synchronized.
+    private long requestPhaseStartNanos;
+    private boolean inRequestPhase;
+    private long responsePhaseStartNanos;
+    private boolean inResponsePhase;
+    // The start of the network call, used only on the network chain if the dispatcher samples the calls.
+    private long networkCallStartNanos;
+    // package private vars.
+    // The Root HttpCallback from the dispatcher, set on the root chain when the dispatcher runs it.
+    HttpCallback rootHttpCallback;
     final HttpPipelinePolicyChainImpl prevChain;
 
     /**
@@ -52,35 +97,56 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
         Util.requireNonNull(pipelineSendCallback, "'pipelineSendCallback' is required.");
 
-        final HttpCallDispatcher.HttpCallFunction httpCallFunction = (request, rootHttpCallback) -> {
-            final HttpPipelinePolicyChainImpl rootChain = new HttpPipelinePolicyChainImpl(-1,
-                httpPipeline,
-                request,
-                rootHttpCallback,
+        final Option<Object> deadlineData = requestContext.getData(HttpCallDeadline.KEY);
+        if (deadlineData.isInitialized() && deadlineData.getValue() instanceof HttpCallDeadline) {
+            // Resolve the deadline for this run, expose it to the policies through the context and to
+            // the HttpClient through the request tags, then run the pipeline with a token cancelled on
+            // the deadline.
+            final HttpCallDeadline deadline = ((HttpCallDeadline) deadlineData.getValue()).resolve();
+            httpRequest.getTags().put(HttpCallDeadline.KEY, deadline);
+            final DeadlineCallback deadlineCallback = new DeadlineCallback(deadline,
+                cancellationToken,
+                pipelineSendCallback,
+                httpPipeline.httpCallDispatcher.getExecutor());
+            beginPipelineExecutionIntern(httpPipeline,
+                httpRequest,
+                requestContext.addData(HttpCallDeadline.KEY, deadline),
+                deadlineCallback.getCancellationToken(),
+                deadlineCallback);
+        } else {
+            beginPipelineExecutionIntern(httpPipeline,
+                httpRequest,
                 requestContext,
                 cancellationToken,
-                null,
-                new NextPolicyCallback() {
-                    @Override
-                    public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
-                        rootHttpCallback.onSuccess(response);
-                        return PolicyCompleter.CompletionState.INSTANCE;
-
-                    }
+                pipelineSendCallback);
+        }
+    }
 
-                    @Override
-                    public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
-                        rootHttpCallback.onError(error);
-                        return PolicyCompleter.CompletionState.INSTANCE;
-                    }
-                });
+    private static void beginPipelineExecutionIntern(HttpPipeline httpPipeline,
+                                                     HttpRequest httpRequest,
+                                                     RequestContext requestContext,
+                                                     CancellationToken cancellationToken,
+                                                     HttpCallback pipelineSendCallback) {
+        // The root chain is the function the dispatcher runs, see apply(..).
+        final HttpPipelinePolicyChainImpl rootChain = new HttpPipelinePolicyChainImpl(-1,
+            httpPipeline,
+            httpRequest,
+            null,
+            requestContext,
+            cancellationToken,
+            null,
+            ROOT_CALLBACK);
 
-            rootChain.processNextPolicyIntern(rootChain.httpRequest,
-                rootChain.context,
-                rootChain.prevPolicyCallback);
-        };
+        if (!httpRequest.getTags().containsKey(HttpCallPriority.KEY)) {
+            // The dispatcher reads the call priority from the request tags, carry over the priority
+            // if it is set in the context.
+            final Option<Object> priority = requestContext.getData(HttpCallPriority.KEY);
+            if (priority.isInitialized() && priority.getValue() instanceof HttpCallPriority) {
+                httpRequest.getTags().put(HttpCallPriority.KEY, priority.getValue());
+            }
+        }
 
-        httpPipeline.httpCallDispatcher.enqueue(httpCallFunction,
+        httpPipeline.httpCallDispatcher.enqueue(rootChain,
             httpRequest,
             cancellationToken,
             pipelineSendCallback);
@@ -117,7 +183,7 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         // Private Ctr, hence simple assertion.
         assert (httpPipeline != null
             && httpRequest != null
-            && rootHttpCallback != null
+            && (rootHttpCallback != null || index == -1)
             && requestContext != null
             && cancellationToken != null
             && (prevChain != null || prevPolicyCallback != null));
@@ -130,6 +196,59 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         this.cancellationToken = cancellationToken;
         this.prevChain = prevChain;
         this.prevPolicyCallback = prevPolicyCallback;
+        this.inUse = 1;
+    }
+
+    /**
+     * Runs the pipeline, the dispatcher calls this method on the root chain.
+     *
+     * @param httpRequest The HTTP request to flow through the pipeline.
+     * @param rootHttpCallback The Root HttpCallback from the dispatcher.
+     */
+    @Override
+    public void apply(HttpRequest httpRequest, HttpCallback rootHttpCallback) {
+        assert this.index == -1;
+        this.rootHttpCallback = rootHttpCallback;
+        this.processNextPolicyIntern(httpRequest, this.cancellationToken, this.prevPolicyCallback);
+    }
+
+    /**
+     * Notifies the response from the HttpClient, the network policy uses the network chain as
+     * the callback for the HttpClient.
+     *
+     * @param response The response.
+     */
+    @Override
+    public void onSuccess(HttpResponse response) {
+        this.completed(response);
+    }
+
+    /**
+     * Notifies the error from the HttpClient, the network policy uses the network chain as
+     * the callback for the HttpClient.
+     *
+     * @param error The error.
+     */
+    @Override
+    public void onError(Throwable error) {
+        this.completedError(error);
+    }
+
+    /**
+     * package-private.
+     *
+     * Gets the completer to notify the completion of this chain's policy.
+     *
+     * @return The completer.
+     */
+    PolicyCompleter getCompleter() {
+        PolicyCompleter completer = this.completer;
+        if (completer == null) {
+            // A race may create more than one completer, they are all equivalent.
+            completer = new PolicyCompleter(this);
+            this.completer = completer;
+        }
+        return completer;
     }
 
     @Override
@@ -150,14 +269,24 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
     @Override
     public void processNextPolicy(HttpRequest httpRequest) {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
-        this.processNextPolicyIntern(httpRequest, this.context, null);
+        this.processNextPolicyIntern(httpRequest, this.cancellationToken, null);
     }
 
     @Override
     public void processNextPolicy(HttpRequest httpRequest, NextPolicyCallback callback) {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(callback, "'callback' is required.");
-        this.processNextPolicyIntern(httpRequest, this.context, callback);
+        this.processNextPolicyIntern(httpRequest, this.cancellationToken, callback);
+    }
+
+    @Override
+    public void processNextPolicy(HttpRequest httpRequest,
+                                  CancellationToken cancellationToken,
+                                  NextPolicyCallback callback) {
+        Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
+        Util.requireNonNull(callback, "'callback' is required.");
+        this.processNextPolicyIntern(httpRequest, cancellationToken, callback);
     }
 
     @Override
@@ -166,22 +295,59 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         Util.requireNonNull(httpRequest, "'httpRequest' is required.");
         Util.requireNonNull(callback, "'callback' is required.");
         Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (this.httpPipeline.metrics != null) {
+            // The delay is recorded by the dispatcher, not as part of the policy's phases.
+            final long nowNanos = System.nanoTime();
+            this.endRequestPhase(nowNanos);
+            this.endResponsePhase(nowNanos);
+        }
+        this.httpPipeline.httpCallDispatcher.scheduleProcessNextPolicy(this,
+            httpRequest,
+            this.context,
+            this.cancellationToken,
+            callback,
+            delay,
+            timeUnit,
+            false);
+    }
+
+    @Override
+    public void processNextPolicyConcurrently(HttpRequest httpRequest,
+                                              CancellationToken cancellationToken,
+                                              NextPolicyCallback callback,
+                                              long delay,
+                                              TimeUnit timeUnit) {
+        Util.requireNonNull(httpRequest, "'httpRequest' is required.");
+        Util.requireNonNull(cancellationToken, "'cancellationToken' is required.");
+        Util.requireNonNull(callback, "'callback' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
         this.httpPipeline.httpCallDispatcher.scheduleProcessNextPolicy(this,
             httpRequest,
             this.context,
+            cancellationToken,
             callback,
             delay,
-            timeUnit);
+            timeUnit,
+            true);
     }
 
     @Override
     public void completed(HttpResponse httpResponse) {
         Util.requireNonNull(httpResponse, "'httpResponse' is required.");
         assert (this.prevChain != null);
-        if (this.prevPolicyCallback != null) {
+        final NextPolicyCallback prevPolicyCallback = this.prevPolicyCallback;
+        if (this.httpPipeline.metrics != null) {
+            this.recordCompletion();
+        }
+        if (this.networkCallStartNanos != 0) {
+            this.reportNetworkCall(httpResponse);
+        }
+        // The policy is done with the chain, the previous policy may reuse it from here, e.g. to retry.
+        this.inUse = 0;
+        if (prevPolicyCallback != null) {
             try {
-                this.prevPolicyCallback.onSuccess(httpResponse,
-                    new PolicyCompleter(this.prevChain));
+                this.prevChain.beginResponsePhase();
+                prevPolicyCallback.onSuccess(httpResponse, this.prevChain.getCompleter());
             } catch (Throwable t) {
                 this.reportBypassedError(t, true);
             }
@@ -197,10 +363,19 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
     @Override
     public void completedError(Throwable error) {
         Util.requireNonNull(error, "'throwable' is required.");
-        if (this.prevPolicyCallback != null) {
+        final NextPolicyCallback prevPolicyCallback = this.prevPolicyCallback;
+        if (this.httpPipeline.metrics != null) {
+            this.recordCompletion();
+        }
+        if (this.networkCallStartNanos != 0) {
+            this.reportNetworkCall(null);
+        }
+        // The policy is done with the chain, the previous policy may reuse it from here, e.g. to retry.
+        this.inUse = 0;
+        if (prevPolicyCallback != null) {
             try {
-                this.prevPolicyCallback.onError(error,
-                    new PolicyCompleter(this.prevChain));
+                this.prevChain.beginResponsePhase();
+                prevPolicyCallback.onError(error, this.prevChain.getCompleter());
             } catch (Throwable t) {
                 this.reportBypassedError(t, true);
             }
@@ -217,26 +392,34 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
      * </p>
      *
      * @param httpRequest The HTTP request for the next policy.
-     * @param requestContext The HTTP context for the next policy.
+     * @param cancellationToken The cancellation token for the next policies.
      * @param proceedCallback The current policy's callback (policy at {@code index})
      *     that next policy notify results to.
      */
-    private void processNextPolicyIntern(HttpRequest httpRequest, RequestContext requestContext,
+    private void processNextPolicyIntern(HttpRequest httpRequest,
+                                         CancellationToken cancellationToken,
                                          NextPolicyCallback proceedCallback) {
         final int nextIndex = this.index + 1;
         assert nextIndex >= 0;
 
-        // Create a chain for next policy.
-        final HttpPipelinePolicyChainImpl nextChain = new HttpPipelinePolicyChainImpl(nextIndex,
-            this.httpPipeline,
-            httpRequest,
-            this.rootHttpCallback,
-            requestContext,
-            this.cancellationToken,
-            this,
+        final HttpPipelinePolicyChainImpl nextChain = this.acquireNextChain(httpRequest,
+            cancellationToken,
             proceedCallback);
+        if (this.httpPipeline.metrics != null) {
+            final long nowNanos = System.nanoTime();
+            this.endRequestPhase(nowNanos);
+            // The policy proceeds again from its callback, e.g. to retry.
+            this.endResponsePhase(nowNanos);
+            nextChain.requestPhaseStartNanos = nowNanos;
+            nextChain.inRequestPhase = true;
+        }
 
         if (nextIndex == this.httpPipeline.size) {
+            final HttpCallDispatcher httpCallDispatcher = this.httpPipeline.httpCallDispatcher;
+            if (httpCallDispatcher.isSamplingNetworkCalls()) {
+                httpCallDispatcher.onNetworkCallStarted();
+                nextChain.networkCallStartNanos = System.nanoTime();
+            }
             try {
                 // No more policies, invoke the network-policy to write the request to the wire.
                 this.httpPipeline.networkPolicy.process(nextChain);
@@ -246,13 +429,123 @@ final class HttpPipelinePolicyChainImpl implements HttpPipelinePolicyChain {
         } else {
             try {
                 // Invoke the next pipeline policy at this.index + 1.
-                this.httpPipeline.getPolicy(nextIndex).process(nextChain);
+                this.httpPipeline.compiledPolicies[nextIndex].process(nextChain);
             } catch (Throwable t) {
                 this.reportBypassedError(t, false);
             }
         }
     }
 
+    /**
+     * package-private.
+     *
+     * Gets the metrics the pipeline records its latencies to.
+     *
+     * @return The metrics, null if the pipeline does not record latencies.
+     */
+    HttpPipelineMetrics getMetrics() {
+        return this.httpPipeline.metrics;
+    }
+
+    /**
+     * Marks the start of the response phase of this chain's policy, before notifying its callback.
+     */
+    private void beginResponsePhase() {
+        if (this.httpPipeline.metrics != null && this.index >= 0) {
+            this.responsePhaseStartNanos = System.nanoTime();
+            this.inResponsePhase = true;
+        }
+    }
+
+    /**
+     * Records the end of the request phase of this chain's policy, when the policy proceeds for the first time
+     * since it was invoked.
+     *
+     * @param nowNanos The current System.nanoTime().
+     */
+    private void endRequestPhase(long nowNanos) {
+        if (this.inRequestPhase) {
+            this.inRequestPhase = false;
+            final LatencyHistogram latency = this.httpPipeline.requestPhaseLatencies[this.index];
+            if (latency != null) {
+                latency.record(nowNanos - this.requestPhaseStartNanos);
+            }
+        }
+    }
+
+    /**
+     * Records the end of the response phase of this chain's policy, when the policy completes or proceeds again.
+     *
+     * @param nowNanos The current System.nanoTime().
+     */
+    private void endResponsePhase(long nowNanos) {
+        if (this.inResponsePhase) {
+            this.inResponsePhase = false;
+            final LatencyHistogram latency = this.httpPipeline.responsePhaseLatencies[this.index];
+            if (latency != null) {
+                latency.record(nowNanos - this.responsePhaseStartNanos);
+            }
+        }
+    }
+
+    /**
+     * Records the latencies ending with the completion of this chain's policy, i.e. the network call if this
+     * is the network chain, the response phase of the policy otherwise.
+     */
+    private void recordCompletion() {
+        final long nowNanos = System.nanoTime();
+        if (this.index == this.httpPipeline.size) {
+            this.httpPipeline.metrics.networkLatency.record(nowNanos - this.requestPhaseStartNanos);
+        } else {
+            this.endResponsePhase(nowNanos);
+        }
+    }
+
+    /**
+     * Reports the completed network call of this network chain to the dispatcher's {@link ConcurrencyLimit}.
+     *
+     * @param httpResponse The response, null if the call failed.
+     */
+    private void reportNetworkCall(HttpResponse httpResponse) {
+        final long rttNanos = System.nanoTime() - this.networkCallStartNanos;
+        this.networkCallStartNanos = 0;
+        this.httpPipeline.httpCallDispatcher.onNetworkCallCompleted(rttNanos, httpResponse, this.cancellationToken);
+    }
+
+    /**
+     * Gets a chain for the next policy, reusing the cached one if it is not in use.
+     *
+     * @param httpRequest The HTTP request for the next policy.
+     * @param cancellationToken The cancellation token for the next policies.
+     * @param proceedCallback The current policy's callback that next policy notify results to.
+     * @return The chain for the next policy.
+     */
+    private HttpPipelinePolicyChainImpl acquireNextChain(HttpRequest httpRequest,
+                                                         CancellationToken cancellationToken,
+                                                         NextPolicyCallback proceedCallback) {
+        final HttpPipelinePolicyChainImpl cachedChain = this.nextChain;
+        if (cachedChain != null
+            && cachedChain.cancellationToken == cancellationToken
+            && IN_USE_UPDATER.compareAndSet(cachedChain, 0, 1)) {
+            cachedChain.httpRequest = httpRequest;
+            cachedChain.prevPolicyCallback = proceedCallback;
+            return cachedChain;
+        }
+        final HttpPipelinePolicyChainImpl newChain = new HttpPipelinePolicyChainImpl(this.index + 1,
+            this.httpPipeline,
+            httpRequest,
+            this.rootHttpCallback,
+            this.context,
+            cancellationToken,
+            this,
+            proceedCallback);
+        // Only a chain using the pipeline run's token is cached, a chain using a per-attempt token is not reused.
+        if (cachedChain == null && cancellationToken == this.cancellationToken) {
+            this.nextChain = newChain;
+        }
+        return newChain;
+    }
+
     /**
      * Report the given bypassed error.
      *
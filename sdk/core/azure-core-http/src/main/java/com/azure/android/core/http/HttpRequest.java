@@ -22,7 +22,7 @@ public class HttpRequest {
     private HttpMethod httpMethod;
     private URL url;
     private HttpHeaders headers;
-    private byte[] body;
+    private HttpRequestBody body;
     private Map<Object, Object> tags;
 
     /**
@@ -66,7 +66,7 @@ public class HttpRequest {
             throw logger.logExceptionAsWarning(new IllegalArgumentException("'url' must be a valid URL", ex));
         }
         this.headers = Util.requireNonNull(headers, "'headers' is required.");
-        this.body = Util.requireNonNull(body, "'body' is required.");
+        this.body = HttpRequestBody.fromBytes(Util.requireNonNull(body, "'body' is required."));
         this.tags = new HashMap<>(0);
     }
 
@@ -151,9 +151,19 @@ public class HttpRequest {
     /**
      * Get the request content.
      *
-     * @return the content to be send
+     * @return the content to be send, null if the request has no content or the content is streamed
+     * from an {@link java.io.InputStream} or a file (see {@link #getRequestBody()})
      */
     public byte[] getBody() {
+        return body == null ? null : body.toByteArray();
+    }
+
+    /**
+     * Get the request content, whatever it is backed by.
+     *
+     * @return the content to be send, null if the request has no content
+     */
+    public HttpRequestBody getRequestBody() {
         return body;
     }
 
@@ -176,7 +186,25 @@ public class HttpRequest {
      * @return this HttpRequest
      */
     public HttpRequest setBody(byte[] content) {
-        headers.put("Content-Length", String.valueOf(content.length));
+        return setBody(HttpRequestBody.fromBytes(content));
+    }
+
+    /**
+     * Set the request content.
+     * The Content-Length header will be set based on the given content's length, or removed if the length
+     * is unknown, in which case the content is sent with chunked transfer encoding.
+     *
+     * @param content the request content
+     * @return this HttpRequest
+     */
+    public HttpRequest setBody(HttpRequestBody content) {
+        Util.requireNonNull(content, "'content' is required.");
+        final long contentLength = content.getContentLength();
+        if (contentLength >= 0) {
+            headers.put("Content-Length", String.valueOf(contentLength));
+        } else {
+            headers.remove("Content-Length");
+        }
         this.body = content;
         return this;
     }
@@ -206,10 +234,9 @@ public class HttpRequest {
      * @return a new HTTP request instance with cloned instances of all mutable properties.
      */
     public HttpRequest copy() {
-        HttpRequest requestCopy = new HttpRequest(this.httpMethod,
-            this.url.toString(),
-            new HttpHeaders(this.headers),
-            this.body);
+        HttpRequest requestCopy = new HttpRequest(this.httpMethod, this.url.toString());
+        requestCopy.headers = new HttpHeaders(this.headers);
+        requestCopy.body = this.body;
         // shallow-copy the tags.
         requestCopy.tags = new HashMap<>(this.tags);
         return requestCopy;
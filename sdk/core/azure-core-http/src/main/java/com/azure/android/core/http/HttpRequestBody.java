@@ -0,0 +1,286 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The content of an {@link HttpRequest}, written by the {@link HttpClient} to the connection as it is sent.
+ *
+ * <p>
+ * A body backed by a byte array, a {@link ByteBuffer} or a file is replayable: it can be written any number of
+ * times, e.g. when the request is retried. A body backed by an {@link InputStream} can be written only once, the
+ * request carrying it is therefore not retried.
+ * </p>
+ *
+ * <p>
+ * When the length of the body is known, the {@link HttpClient} sends it with a fixed {@code Content-Length},
+ * otherwise it uses chunked transfer encoding. Either way the body is streamed to the connection, without
+ * being buffered first.
+ * </p>
+ */
+public abstract class HttpRequestBody {
+    private static final ClientLogger LOGGER = new ClientLogger(HttpRequestBody.class);
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Creates a body holding the given bytes; the array is not copied and must not be modified afterwards.
+     *
+     * @param content The content.
+     * @return The body.
+     */
+    public static HttpRequestBody fromBytes(byte[] content) {
+        return new ByteArrayBody(Util.requireNonNull(content, "'content' is required."));
+    }
+
+    /**
+     * Creates a body holding the remaining bytes of the given buffer; the buffer is not copied and must not be
+     * modified afterwards.
+     *
+     * @param content The content.
+     * @return The body.
+     */
+    public static HttpRequestBody fromByteBuffer(ByteBuffer content) {
+        return new ByteBufferBody(Util.requireNonNull(content, "'content' is required.").slice());
+    }
+
+    /**
+     * Creates a body that reads the given number of bytes from a stream; the body can be written only once.
+     *
+     * @param content The stream to read the content from, closed once the content is written.
+     * @param length The number of bytes to read from the stream.
+     * @return The body.
+     * @throws IllegalArgumentException If the {@code length} is negative.
+     */
+    public static HttpRequestBody fromStream(InputStream content, long length) {
+        Util.requireNonNull(content, "'content' is required.");
+        if (length < 0) {
+            throw LOGGER.logExceptionAsError(new IllegalArgumentException("'length' cannot be negative."));
+        }
+        return new InputStreamBody(content, length);
+    }
+
+    /**
+     * Creates a body that reads a stream to its end, sent with chunked transfer encoding as its length is
+     * unknown; the body can be written only once.
+     *
+     * @param content The stream to read the content from, closed once the content is written.
+     * @return The body.
+     */
+    public static HttpRequestBody fromStream(InputStream content) {
+        return new InputStreamBody(Util.requireNonNull(content, "'content' is required."), -1);
+    }
+
+    /**
+     * Creates a body that reads the content of a file each time it is written.
+     *
+     * <p>
+     * The length of the file is captured when the body is created, and exactly that many bytes are written,
+     * so the body always matches the Content-Length it was sent with even if the file grows meanwhile.
+     * </p>
+     *
+     * @param file The file.
+     * @return The body.
+     */
+    public static HttpRequestBody fromFile(File file) {
+        Util.requireNonNull(file, "'file' is required.");
+        return new FileBody(file, file.length());
+    }
+
+    /**
+     * Gets the number of bytes of the body.
+     *
+     * @return The length in bytes, -1 if unknown.
+     */
+    public abstract long getContentLength();
+
+    /**
+     * Checks whether the body can be written more than once.
+     *
+     * @return true if the body can be written again, false otherwise.
+     */
+    public abstract boolean isReplayable();
+
+    /**
+     * Writes the body to a stream.
+     *
+     * @param outputStream The stream to write to, not closed by this method.
+     * @throws IOException If reading the content or writing the stream failed.
+     */
+    public abstract void writeTo(OutputStream outputStream) throws IOException;
+
+    /**
+     * Gets the content held in memory as an array.
+     *
+     * @return The array holding exactly the content, without copy if the body is backed by such an array,
+     * null if the content is not held in memory.
+     */
+    byte[] toByteArray() {
+        return null;
+    }
+
+    private static void copy(InputStream in, OutputStream out, long length) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        while (remaining != 0) {
+            final int toRead = remaining < 0 ? buffer.length : (int) Math.min(buffer.length, remaining);
+            final int len = in.read(buffer, 0, toRead);
+            if (len == -1) {
+                break;
+            }
+            out.write(buffer, 0, len);
+            if (remaining > 0) {
+                remaining -= len;
+            }
+        }
+        if (remaining > 0) {
+            throw new IOException("The request content ended " + remaining + " bytes before its declared length.");
+        }
+    }
+
+    private static final class ByteArrayBody extends HttpRequestBody {
+        private final byte[] content;
+
+        ByteArrayBody(byte[] content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.content.length;
+        }
+
+        @Override
+        public boolean isReplayable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            outputStream.write(this.content);
+        }
+
+        @Override
+        byte[] toByteArray() {
+            return this.content;
+        }
+    }
+
+    private static final class ByteBufferBody extends HttpRequestBody {
+        private final ByteBuffer content;
+        // The content as an array, created once when the content is not exactly a whole array.
+        private volatile byte[] contentBytes;
+
+        ByteBufferBody(ByteBuffer content) {
+            this.content = content;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.content.remaining();
+        }
+
+        @Override
+        public boolean isReplayable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            // A duplicate, so concurrent or repeated writes do not share the position.
+            final ByteBuffer buffer = this.content.duplicate();
+            if (buffer.hasArray()) {
+                outputStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                return;
+            }
+            final byte[] chunk = new byte[Math.min(BUFFER_SIZE, Math.max(1, buffer.remaining()))];
+            while (buffer.hasRemaining()) {
+                final int len = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, len);
+                outputStream.write(chunk, 0, len);
+            }
+        }
+
+        @Override
+        byte[] toByteArray() {
+            if (this.content.hasArray()
+                && this.content.arrayOffset() == 0
+                && this.content.remaining() == this.content.array().length) {
+                return this.content.array();
+            }
+            byte[] bytes = this.contentBytes;
+            if (bytes == null) {
+                // Racing threads may both copy, either copy is the same content.
+                bytes = new byte[this.content.remaining()];
+                this.content.duplicate().get(bytes);
+                this.contentBytes = bytes;
+            }
+            return bytes;
+        }
+    }
+
+    private static final class InputStreamBody extends HttpRequestBody {
+        private final InputStream content;
+        private final long length;
+
+        InputStreamBody(InputStream content, long length) {
+            this.content = content;
+            this.length = length;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.length;
+        }
+
+        @Override
+        public boolean isReplayable() {
+            return false;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try {
+                copy(this.content, outputStream, this.length);
+            } finally {
+                this.content.close();
+            }
+        }
+    }
+
+    private static final class FileBody extends HttpRequestBody {
+        private final File file;
+        private final long length;
+
+        FileBody(File file, long length) {
+            this.file = file;
+            this.length = length;
+        }
+
+        @Override
+        public long getContentLength() {
+            return this.length;
+        }
+
+        @Override
+        public boolean isReplayable() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream outputStream) throws IOException {
+            try (InputStream in = new FileInputStream(this.file)) {
+                copy(in, outputStream, this.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,49 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+/**
+ * A policy within the {@link HttpPipeline} that only mutates the request, synchronously, before passing it to
+ * the next policy, e.g. a policy adding a header.
+ *
+ * <p>
+ * The {@link HttpPipeline} fuses consecutive request policies into a single pipeline step that applies them
+ * in order, saving a chain hop per policy. A fused policy only gets {@link #processRequest(HttpRequest)} called,
+ * hence a request policy overriding {@link #process(HttpPipelinePolicyChain)} is not fused and runs as its own
+ * step.
+ * </p>
+ *
+ * @see HttpPipelinePolicy
+ */
+public interface HttpRequestPolicy extends HttpPipelinePolicy {
+    /**
+     * Applies the policy to a {@link HttpRequest}.
+     *
+     * <p>
+     * An exception thrown from this method completes the pipeline run with that exception as the error.
+     * </p>
+     *
+     * @param httpRequest The HTTP request to apply the policy to.
+     * @throws Exception If the policy fails to apply to the request.
+     */
+    void processRequest(HttpRequest httpRequest) throws Exception;
+
+    /**
+     * Applies the policy to the request by calling {@link HttpRequestPolicy#processRequest(HttpRequest)} then
+     * proceeds to the next policy.
+     *
+     * @param chain The chain for the policy to access the request and response.
+     */
+    @Override
+    default void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        try {
+            this.processRequest(httpRequest);
+        } catch (Exception e) {
+            chain.completedError(e);
+            return;
+        }
+        chain.processNextPolicy(httpRequest);
+    }
+}
@@ -7,6 +7,9 @@ import com.azure.android.core.http.implementation.BufferedHttpResponse;
 
 import java.io.Closeable;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 
 /**
@@ -22,7 +25,9 @@ import java.nio.charset.Charset;
  * <ul>
  *   <li>HttpResponse::close()</li>
  *   <li>HttpResponse::getBody().close()</li>
+ *   <li>HttpResponse::getBodyAsChannel().close()</li>
  *   <li>HttpResponse::getBodyAsByteArray()</li>
+ *   <li>HttpResponse::getBodyAsByteBuffer()</li>
  *   <li>HttpResponse::getBodyAsString()</li>
  *   <li>HttpResponse::getBodyAsString(Charset)</li>
  * </ul>
@@ -69,6 +74,34 @@ public abstract class HttpResponse implements Closeable {
      */
     public abstract InputStream getBody();
 
+    /**
+     * Get a {@link ReadableByteChannel} producing the response content, reading it into the caller's buffers.
+     *
+     * <p>
+     * The default implementation adapts {@link #getBody()}; an implementation backed by a channel-capable
+     * source overrides it so the content is read without the intermediate arrays of the stream adapter.
+     * </p>
+     *
+     * @return The response's content as a channel.
+     */
+    public ReadableByteChannel getBodyAsChannel() {
+        return Channels.newChannel(this.getBody());
+    }
+
+    /**
+     * Get the response content as a {@link ByteBuffer}.
+     *
+     * <p>
+     * The default implementation wraps {@link #getBodyAsByteArray()} without copying it, so the buffer is
+     * array-backed and can be parsed in place.
+     * </p>
+     *
+     * @return this response content as a ByteBuffer
+     */
+    public ByteBuffer getBodyAsByteBuffer() {
+        return ByteBuffer.wrap(this.getBodyAsByteArray());
+    }
+
     /**
      * Get the response content as a byte[].
      *
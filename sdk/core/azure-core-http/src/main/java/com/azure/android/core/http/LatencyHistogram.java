@@ -0,0 +1,93 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * package-private.
+ *
+ * A lock-free histogram of latencies in nanoseconds.
+ *
+ * <p>
+ * The latencies are counted in buckets that split each power of two range into four, so a bucket bounds
+ * the latencies it counts within 25%. Recording a latency is a few atomic increments, with no allocation.
+ * </p>
+ */
+final class LatencyHistogram {
+    // The latencies 0..3 have their own bucket, the power of two ranges from 4 (2^2) up to 2^62 have four.
+    private static final int BUCKET_COUNT = 63 * 4;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos The latency in nanoseconds, a negative value is recorded as zero.
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        this.buckets.incrementAndGet(getBucketIndex(nanos));
+        this.count.incrementAndGet();
+        this.totalNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = this.maxNanos.get();
+        } while (nanos > max && !this.maxNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Takes a snapshot of the latencies recorded so far.
+     *
+     * <p>
+     * Latencies recorded while the snapshot is taken may be partially reflected.
+     * </p>
+     *
+     * @return The snapshot.
+     */
+    LatencySnapshot getSnapshot() {
+        final long[] bucketCounts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            bucketCounts[i] = this.buckets.get(i);
+        }
+        return new LatencySnapshot(this.count.get(), this.totalNanos.get(), this.maxNanos.get(), bucketCounts);
+    }
+
+    /**
+     * Gets the index of the bucket counting a latency.
+     *
+     * @param nanos The non-negative latency in nanoseconds.
+     * @return The bucket index.
+     */
+    static int getBucketIndex(long nanos) {
+        if (nanos < 4) {
+            return (int) nanos;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        // The two bits after the leading one bit pick one of the four sub-ranges.
+        return (exponent << 2) + (int) ((nanos >>> (exponent - 2)) & 3);
+    }
+
+    /**
+     * Gets the largest latency a bucket counts.
+     *
+     * @param index The bucket index.
+     * @return The upper bound in nanoseconds.
+     */
+    static long getBucketUpperBound(int index) {
+        if (index < 4) {
+            return index;
+        }
+        final int exponent = index >>> 2;
+        final long subRange = 1L << (exponent - 2);
+        final long lowerBound = (4 + (index & 3)) * subRange;
+        return lowerBound + subRange - 1;
+    }
+}
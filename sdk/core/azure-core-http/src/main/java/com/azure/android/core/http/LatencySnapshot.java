@@ -0,0 +1,116 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A point in time snapshot of the latencies recorded for a stage of the {@link HttpPipeline}.
+ *
+ * <p>
+ * The percentiles are approximate, the reported value is within 25% above the actual latency.
+ * </p>
+ *
+ * @see HttpPipelineMetrics
+ */
+public final class LatencySnapshot {
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+    private final long[] bucketCounts;
+
+    /**
+     * package-private.
+     *
+     * Creates a LatencySnapshot.
+     *
+     * @param count The number of recorded latencies.
+     * @param totalNanos The sum of the recorded latencies in nanoseconds.
+     * @param maxNanos The largest recorded latency in nanoseconds.
+     * @param bucketCounts The number of recorded latencies per histogram bucket.
+     */
+    LatencySnapshot(long count, long totalNanos, long maxNanos, long[] bucketCounts) {
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.bucketCounts = bucketCounts;
+    }
+
+    /**
+     * Gets the number of recorded latencies.
+     *
+     * @return The number of recorded latencies.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Gets the sum of the recorded latencies.
+     *
+     * @param timeUnit The time unit of the returned value.
+     * @return The sum of the recorded latencies.
+     */
+    public long getTotal(TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return timeUnit.convert(this.totalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the mean of the recorded latencies.
+     *
+     * @param timeUnit The time unit of the returned value.
+     * @return The mean latency, zero if no latency is recorded.
+     */
+    public long getMean(TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return this.count == 0 ? 0 : timeUnit.convert(this.totalNanos / this.count, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the largest recorded latency.
+     *
+     * @param timeUnit The time unit of the returned value.
+     * @return The largest latency, zero if no latency is recorded.
+     */
+    public long getMax(TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        return timeUnit.convert(this.maxNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Gets the latency at the given percentile, e.g. 99 for the latency 99% of the recorded latencies
+     * do not exceed.
+     *
+     * @param percentile The percentile, from 0 to 100.
+     * @param timeUnit The time unit of the returned value.
+     * @return The latency at the percentile, zero if no latency is recorded.
+     * @throws IllegalArgumentException If {@code percentile} is not between 0 and 100.
+     */
+    public long getPercentile(double percentile, TimeUnit timeUnit) {
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (!(percentile >= 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("'percentile' must be between 0 and 100.");
+        }
+        long total = 0;
+        for (long bucketCount : this.bucketCounts) {
+            total += bucketCount;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < this.bucketCounts.length; i++) {
+            seen += this.bucketCounts[i];
+            if (seen >= rank) {
+                final long nanos = Math.min(LatencyHistogram.getBucketUpperBound(i), this.maxNanos);
+                return timeUnit.convert(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        return timeUnit.convert(this.maxNanos, TimeUnit.NANOSECONDS);
+    }
+}
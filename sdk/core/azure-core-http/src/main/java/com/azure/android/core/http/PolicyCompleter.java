@@ -22,6 +22,11 @@ public final class PolicyCompleter {
         this.chain = Util.requireNonNull(chain, "'chain' is required.");
     }
 
+    // pkg-private
+    HttpPipelinePolicyChain getChain() {
+        return this.chain;
+    }
+
     /**
      * The method to notify the successful completion of result interception.
      *
@@ -0,0 +1,36 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.exception;
+
+import java.io.IOException;
+
+/**
+ * This exception is thrown when an HTTP request fails fast without being sent because the circuit breaker
+ * for its host is open, i.e. the host recently failed too many requests.
+ *
+ * @see com.azure.android.core.http.policy.CircuitBreakerPolicy
+ */
+public class CircuitBreakerOpenException extends IOException {
+    private final String host;
+
+    /**
+     * Initializes a new instance of the CircuitBreakerOpenException class.
+     *
+     * @param message the exception message
+     * @param host the host whose circuit breaker is open
+     */
+    public CircuitBreakerOpenException(final String message, final String host) {
+        super(message);
+        this.host = host;
+    }
+
+    /**
+     * Gets the host whose circuit breaker is open.
+     *
+     * @return the host
+     */
+    public String getHost() {
+        return this.host;
+    }
+}
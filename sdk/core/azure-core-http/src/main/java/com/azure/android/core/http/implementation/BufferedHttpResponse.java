@@ -5,10 +5,10 @@ package com.azure.android.core.http.implementation;
 
 import com.azure.android.core.http.HttpHeaders;
 import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.util.ByteArrayPool;
 import com.azure.android.core.logging.ClientLogger;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
@@ -65,14 +65,9 @@ public final class BufferedHttpResponse extends HttpResponse {
     public synchronized byte[] getBodyAsByteArray() {
         if (this.bufferedContent == null) {
             InputStream innerStream = this.innerHttpResponse.getBody();
-            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-            byte[] buffer = new byte[1024];
-            int len;
             try {
-                while ((len = innerStream.read(buffer)) != -1) {
-                    outStream.write(buffer, 0, len);
-                }
-                this.bufferedContent = outStream.toByteArray();
+                this.bufferedContent = ByteArrayPool.getDefault().readAll(innerStream,
+                    ByteArrayPool.parseContentLength(this.innerHttpResponse.getHeaderValue("Content-Length")));
             } catch (IOException ioe) {
                 throw logger.logExceptionAsError(new RuntimeException(ioe));
             }
@@ -0,0 +1,411 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A timer to run tasks after a delay, optimized for a large number of short-lived timeouts that are often
+ * cancelled, such as retry back-offs.
+ *
+ * <p>
+ * The timeouts are hashed into the buckets of a wheel that a single worker thread advances once per tick,
+ * so both scheduling and cancelling a timeout are O(1) and never contend on a lock; the price is that a task
+ * runs up to one tick later than its delay. The worker thread is started on demand and does not wake up on
+ * every tick, it sleeps until the next bucket holding a due timeout, or at most a second to remove the
+ * cancelled timeouts. Without a pending timeout it parks until one is scheduled, and stops once the timer
+ * has no pending timeout for the idle time, so an idle timer neither wakes up nor holds a thread.
+ * </p>
+ *
+ * <p>
+ * The tasks run on the worker thread, hence a task is expected to complete quickly, e.g. by handing
+ * over the actual work to an executor.
+ * </p>
+ */
+public final class HashedWheelTimer {
+    private static final int WORKER_STOPPED = 0;
+    private static final int WORKER_STARTED = 1;
+    // The cap on a delay (about 146 years), so the deadline minus System.nanoTime() never overflows.
+    private static final long MAX_DELAY_NANOS = Long.MAX_VALUE / 2;
+    // The longest the worker sleeps with pending timeouts, so the cancelled timeouts are removed timely.
+    private static final long MAX_SLEEP_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final ClientLogger logger = new ClientLogger(HashedWheelTimer.class);
+    private final String threadName;
+    private final long tickNanos;
+    private final long idleNanos;
+    private final long maxSleepTicks;
+    private final Bucket[] wheel;
+    private final int mask;
+    // The timeouts scheduled and not yet moved to the wheel by the worker.
+    private final Queue<Timeout> newTimeouts = new ConcurrentLinkedQueue<>();
+    // The timeouts cancelled and not yet removed from the wheel by the worker.
+    private final Queue<Timeout> cancelledTimeouts = new ConcurrentLinkedQueue<>();
+    // The number of timeouts scheduled and not yet expired or removed by the worker.
+    private final AtomicLong pendingTimeouts = new AtomicLong();
+    private final AtomicInteger workerState = new AtomicInteger(WORKER_STOPPED);
+    // The worker thread while it is parked for having no pending timeout, null otherwise.
+    private volatile Thread idleWorker;
+    // The worker thread while it sleeps until wakeupNanos with pending timeouts, null otherwise.
+    private volatile Thread sleepingWorker;
+    private volatile long wakeupNanos;
+
+    /**
+     * Creates a HashedWheelTimer.
+     *
+     * @param threadName The name of the worker thread.
+     * @param tick The duration of a tick, the precision of the timer.
+     * @param wheelSize The number of buckets in the wheel, rounded up to a power of two.
+     * @param idleTime The time the worker thread stays alive without a pending timeout.
+     * @param timeUnit The time unit of {@code tick} and {@code idleTime}.
+     */
+    public HashedWheelTimer(String threadName, long tick, int wheelSize, long idleTime, TimeUnit timeUnit) {
+        Util.requireNonNull(threadName, "'threadName' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        if (tick < 1 || wheelSize < 1 || wheelSize > (1 << 30) || idleTime < 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("Invalid timer settings, tick: "
+                + tick + ", wheelSize: " + wheelSize + ", idleTime: " + idleTime));
+        }
+        this.threadName = threadName;
+        this.tickNanos = timeUnit.toNanos(tick);
+        this.idleNanos = timeUnit.toNanos(idleTime);
+        int size = 1;
+        while (size < wheelSize) {
+            size <<= 1;
+        }
+        this.wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) {
+            this.wheel[i] = new Bucket();
+        }
+        this.mask = size - 1;
+        this.maxSleepTicks = Math.max(1, Math.min(size, MAX_SLEEP_NANOS / this.tickNanos));
+    }
+
+    /**
+     * Schedules a task to run once after the given delay.
+     *
+     * @param task The task to run.
+     * @param delay The time from now to delay the task.
+     * @param timeUnit The time unit of {@code delay}.
+     * @return The timeout to cancel the task.
+     */
+    public Timeout newTimeout(Runnable task, long delay, TimeUnit timeUnit) {
+        Util.requireNonNull(task, "'task' is required.");
+        Util.requireNonNull(timeUnit, "'timeUnit' is required.");
+        final long delayNanos = Math.min(MAX_DELAY_NANOS, Math.max(0, timeUnit.toNanos(delay)));
+        // May wrap around, the deadline is only ever compared through its difference to System.nanoTime().
+        final Timeout timeout = new Timeout(this, task, System.nanoTime() + delayNanos);
+        this.pendingTimeouts.incrementAndGet();
+        this.newTimeouts.add(timeout);
+        if (this.workerState.compareAndSet(WORKER_STOPPED, WORKER_STARTED)) {
+            this.startWorker();
+        } else {
+            final Thread idle = this.idleWorker;
+            if (idle != null) {
+                LockSupport.unpark(idle);
+            }
+            final Thread sleeping = this.sleepingWorker;
+            // A timeout due after the wakeup is picked up then, only an earlier one wakes the worker.
+            if (sleeping != null && timeout.deadlineNanos - this.wakeupNanos < 0) {
+                LockSupport.unpark(sleeping);
+            }
+        }
+        return timeout;
+    }
+
+    /**
+     * Gets the number of timeouts that are scheduled and not yet expired or cancelled.
+     *
+     * @return The number of pending timeouts.
+     */
+    public long getPendingTimeouts() {
+        return this.pendingTimeouts.get();
+    }
+
+    /**
+     * Checks whether the worker thread is alive.
+     *
+     * @return true if the worker thread is alive, false otherwise.
+     */
+    public boolean isWorkerStarted() {
+        return this.workerState.get() == WORKER_STARTED;
+    }
+
+    private void startWorker() {
+        final Thread thread = new Thread(new Worker(), this.threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * The worker advancing the wheel, only one worker runs at a time.
+     */
+    private final class Worker implements Runnable {
+        private long startNanos;
+        private long tick;
+
+        @Override
+        public void run() {
+            this.startNanos = System.nanoTime();
+            this.tick = 0;
+            while (true) {
+                final long nowNanos = this.sleepUntilDueTick();
+                this.removeCancelledTimeouts();
+                this.transferNewTimeouts();
+                // Visit every bucket of the ticks elapsed while sleeping, in order, so the rounds stay counted.
+                while (this.startNanos + (this.tick + 1) * HashedWheelTimer.this.tickNanos - nowNanos <= 0) {
+                    HashedWheelTimer.this.wheel[(int) (this.tick & HashedWheelTimer.this.mask)]
+                        .expireTimeouts(nowNanos);
+                    this.tick++;
+                }
+
+                if (HashedWheelTimer.this.pendingTimeouts.get() == 0) {
+                    if (!this.awaitPendingTimeout() && this.tryStop()) {
+                        return;
+                    }
+                    // The wheel is empty, so the ticks skipped while parked are restarted from now.
+                    this.startNanos = System.nanoTime();
+                    this.tick = 0;
+                }
+            }
+        }
+
+        /**
+         * Parks the worker without ticking until a timeout is scheduled or the idle time elapses.
+         *
+         * @return true if a timeout is pending, false if the idle time elapsed without one.
+         */
+        private boolean awaitPendingTimeout() {
+            final long idleDeadlineNanos = System.nanoTime() + HashedWheelTimer.this.idleNanos;
+            HashedWheelTimer.this.idleWorker = Thread.currentThread();
+            try {
+                while (true) {
+                    // Checked after publishing idleWorker, so a timeout scheduled concurrently either is
+                    // seen here or unparks the worker.
+                    if (HashedWheelTimer.this.pendingTimeouts.get() != 0) {
+                        return true;
+                    }
+                    final long parkNanos = idleDeadlineNanos - System.nanoTime();
+                    if (parkNanos <= 0) {
+                        return false;
+                    }
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+            } finally {
+                HashedWheelTimer.this.idleWorker = null;
+            }
+        }
+
+        /**
+         * Try to stop the worker, the stop is abandoned if a timeout was scheduled meanwhile.
+         *
+         * @return true if the worker is stopped, false if it has to continue.
+         */
+        private boolean tryStop() {
+            HashedWheelTimer.this.workerState.set(WORKER_STOPPED);
+            // A timeout scheduled before the state was set saw the worker as started and did not start
+            // a new worker, so this worker has to continue unless another thread started a new worker.
+            return HashedWheelTimer.this.pendingTimeouts.get() == 0
+                || !HashedWheelTimer.this.workerState.compareAndSet(WORKER_STOPPED, WORKER_STARTED);
+        }
+
+        /**
+         * Sleeps until the end of the next tick whose bucket holds a due timeout, or until a timeout due
+         * earlier is scheduled.
+         *
+         * @return The current time.
+         */
+        private long sleepUntilDueTick() {
+            final long dueTick = this.findDueTick();
+            final long deadlineNanos = this.startNanos + (dueTick + 1) * HashedWheelTimer.this.tickNanos;
+            final long nowNanos = System.nanoTime();
+            if (deadlineNanos - nowNanos <= 0) {
+                return nowNanos;
+            }
+            HashedWheelTimer.this.wakeupNanos = deadlineNanos;
+            HashedWheelTimer.this.sleepingWorker = Thread.currentThread();
+            try {
+                // Checked after publishing sleepingWorker, so a timeout scheduled concurrently either is
+                // seen here or unparks the worker if it is due before the wakeup.
+                if (HashedWheelTimer.this.newTimeouts.isEmpty()) {
+                    LockSupport.parkNanos(this, deadlineNanos - nowNanos);
+                }
+            } finally {
+                HashedWheelTimer.this.sleepingWorker = null;
+            }
+            return System.nanoTime();
+        }
+
+        /**
+         * Finds the next tick whose bucket holds a timeout due in the current round, bounded by the longest
+         * sleep.
+         *
+         * @return The tick.
+         */
+        private long findDueTick() {
+            for (long i = 0; i < HashedWheelTimer.this.maxSleepTicks; i++) {
+                if (HashedWheelTimer.this.wheel[(int) ((this.tick + i) & HashedWheelTimer.this.mask)].hasDue()) {
+                    return this.tick + i;
+                }
+            }
+            return this.tick + HashedWheelTimer.this.maxSleepTicks - 1;
+        }
+
+        private void transferNewTimeouts() {
+            Timeout timeout;
+            while ((timeout = HashedWheelTimer.this.newTimeouts.poll()) != null) {
+                if (timeout.state == Timeout.STATE_CANCELLED) {
+                    // Cancelled before being placed on the wheel.
+                    HashedWheelTimer.this.pendingTimeouts.decrementAndGet();
+                    continue;
+                }
+                final long deadlineTicks = (timeout.deadlineNanos - this.startNanos
+                    + HashedWheelTimer.this.tickNanos - 1) / HashedWheelTimer.this.tickNanos;
+                // A deadline that is already in the past expires on the current tick.
+                final long ticks = Math.max(deadlineTicks, this.tick);
+                timeout.remainingRounds = (ticks - this.tick) / HashedWheelTimer.this.wheel.length;
+                HashedWheelTimer.this.wheel[(int) (ticks & HashedWheelTimer.this.mask)].add(timeout);
+            }
+        }
+
+        private void removeCancelledTimeouts() {
+            Timeout timeout;
+            while ((timeout = HashedWheelTimer.this.cancelledTimeouts.poll()) != null) {
+                if (timeout.bucket != null) {
+                    timeout.bucket.remove(timeout);
+                    HashedWheelTimer.this.pendingTimeouts.decrementAndGet();
+                }
+            }
+        }
+    }
+
+    /**
+     * A bucket of the wheel, a doubly-linked list of timeouts confined to the worker thread.
+     */
+    private final class Bucket {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.bucket = this;
+            if (this.head == null) {
+                this.head = timeout;
+                this.tail = timeout;
+            } else {
+                this.tail.next = timeout;
+                timeout.prev = this.tail;
+                this.tail = timeout;
+            }
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                this.head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            } else {
+                this.tail = timeout.prev;
+            }
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        boolean hasDue() {
+            for (Timeout timeout = this.head; timeout != null; timeout = timeout.next) {
+                if (timeout.remainingRounds == 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        void expireTimeouts(long nowNanos) {
+            Timeout timeout = this.head;
+            while (timeout != null) {
+                final Timeout next = timeout.next;
+                if (timeout.remainingRounds > 0) {
+                    timeout.remainingRounds--;
+                } else if (timeout.deadlineNanos - nowNanos <= 0) {
+                    this.remove(timeout);
+                    HashedWheelTimer.this.pendingTimeouts.decrementAndGet();
+                    timeout.expire();
+                }
+                timeout = next;
+            }
+        }
+    }
+
+    /**
+     * A task scheduled on a {@link HashedWheelTimer}.
+     */
+    public static final class Timeout {
+        private static final int STATE_PENDING = 0;
+        private static final int STATE_CANCELLED = 1;
+        private static final int STATE_EXPIRED = 2;
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadlineNanos;
+        private volatile int state = STATE_PENDING;
+        // The fields below are confined to the worker thread.
+        private long remainingRounds;
+        private Bucket bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        Timeout(HashedWheelTimer timer, Runnable task, long deadlineNanos) {
+            this.timer = timer;
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        /**
+         * Cancels the task if it has not run yet.
+         *
+         * @return true if the task is cancelled and will not run, false if it already ran or was cancelled.
+         */
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_CANCELLED)) {
+                return false;
+            }
+            // The worker removes the timeout from the wheel on the next tick.
+            this.timer.cancelledTimeouts.add(this);
+            return true;
+        }
+
+        /**
+         * Checks whether the task is cancelled.
+         *
+         * @return true if the task is cancelled, false otherwise.
+         */
+        public boolean isCancelled() {
+            return this.state == STATE_CANCELLED;
+        }
+
+        void expire() {
+            if (!STATE_UPDATER.compareAndSet(this, STATE_PENDING, STATE_EXPIRED)) {
+                return;
+            }
+            try {
+                this.task.run();
+            } catch (Throwable t) {
+                this.timer.logger.warning("The timer task threw an exception.", t);
+            }
+        }
+    }
+}
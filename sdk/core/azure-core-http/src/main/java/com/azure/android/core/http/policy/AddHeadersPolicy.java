@@ -5,14 +5,13 @@ package com.azure.android.core.http.policy;
 
 import com.azure.android.core.http.HttpHeader;
 import com.azure.android.core.http.HttpHeaders;
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 
 /**
  * The pipeline policy that adds a particular set of headers to HTTP requests.
  */
-public class AddHeadersPolicy implements HttpPipelinePolicy {
+public class AddHeadersPolicy implements HttpRequestPolicy {
     private final HttpHeaders headers;
 
     /**
@@ -25,11 +24,9 @@ public class AddHeadersPolicy implements HttpPipelinePolicy {
     }
 
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) {
         for (HttpHeader header : headers) {
             httpRequest.setHeader(header.getName(), header.getValue());
         }
-        chain.processNextPolicy(httpRequest);
     }
 }
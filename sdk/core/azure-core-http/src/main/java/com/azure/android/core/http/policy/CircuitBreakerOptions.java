@@ -0,0 +1,220 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.implementation.Util;
+
+import org.threeten.bp.Duration;
+
+/**
+ * The configurations for the {@link CircuitBreakerPolicy}.
+ */
+public class CircuitBreakerOptions {
+    private static final int DEFAULT_FAILURE_RATE_THRESHOLD = 50;
+    private static final int DEFAULT_SLOW_CALL_RATE_THRESHOLD = 100;
+    private static final Duration DEFAULT_SLOW_CALL_DURATION = Duration.ofSeconds(30);
+    private static final int DEFAULT_MINIMUM_CALLS = 10;
+    private static final Duration DEFAULT_WINDOW = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+    private static final int DEFAULT_HALF_OPEN_PROBE_CALLS = 3;
+
+    private int failureRateThreshold;
+    private int slowCallRateThreshold;
+    private Duration slowCallDuration;
+    private int minimumCalls;
+    private Duration window;
+    private Duration openDuration;
+    private int halfOpenProbeCalls;
+
+    /**
+     * Creates a new instance with the default configurations.
+     *
+     * <p>
+     * By default, the circuit of a host opens when at least 10 calls completed in the last 30 seconds and 50%
+     * of them failed, the circuit stays open for 30 seconds then lets 3 probe calls through. A call taking more
+     * than 30 seconds is slow, slow calls alone do not open the circuit unless all the calls are slow.
+     * </p>
+     */
+    public CircuitBreakerOptions() {
+        this.failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+        this.slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+        this.slowCallDuration = DEFAULT_SLOW_CALL_DURATION;
+        this.minimumCalls = DEFAULT_MINIMUM_CALLS;
+        this.window = DEFAULT_WINDOW;
+        this.openDuration = DEFAULT_OPEN_DURATION;
+        this.halfOpenProbeCalls = DEFAULT_HALF_OPEN_PROBE_CALLS;
+    }
+
+    /**
+     * Gets the percentage of failed calls in the window at which the circuit opens.
+     *
+     * @return The failure rate threshold, from 1 to 100.
+     */
+    public int getFailureRateThreshold() {
+        return this.failureRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of failed calls in the window at which the circuit opens.
+     *
+     * <p>
+     * A call fails if it completes with an error or with a 5XX status code.
+     * </p>
+     *
+     * @param failureRateThreshold The failure rate threshold, from 1 to 100.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code failureRateThreshold} is not between 1 and 100.
+     */
+    public CircuitBreakerOptions setFailureRateThreshold(int failureRateThreshold) {
+        this.failureRateThreshold = requirePercentage(failureRateThreshold, "failureRateThreshold");
+        return this;
+    }
+
+    /**
+     * Gets the percentage of slow calls in the window at which the circuit opens.
+     *
+     * @return The slow call rate threshold, from 1 to 100.
+     */
+    public int getSlowCallRateThreshold() {
+        return this.slowCallRateThreshold;
+    }
+
+    /**
+     * Sets the percentage of slow calls in the window at which the circuit opens.
+     *
+     * @param slowCallRateThreshold The slow call rate threshold, from 1 to 100.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code slowCallRateThreshold} is not between 1 and 100.
+     */
+    public CircuitBreakerOptions setSlowCallRateThreshold(int slowCallRateThreshold) {
+        this.slowCallRateThreshold = requirePercentage(slowCallRateThreshold, "slowCallRateThreshold");
+        return this;
+    }
+
+    /**
+     * Gets the duration above which a call is slow.
+     *
+     * @return The slow call duration.
+     */
+    public Duration getSlowCallDuration() {
+        return this.slowCallDuration;
+    }
+
+    /**
+     * Sets the duration above which a call is slow.
+     *
+     * @param slowCallDuration The slow call duration.
+     * @return The updated CircuitBreakerOptions object.
+     */
+    public CircuitBreakerOptions setSlowCallDuration(Duration slowCallDuration) {
+        this.slowCallDuration = Util.requireNonNull(slowCallDuration, "'slowCallDuration' cannot be null.");
+        return this;
+    }
+
+    /**
+     * Gets the minimum number of calls in the window before the failure and slow call rates are evaluated.
+     *
+     * @return The minimum number of calls.
+     */
+    public int getMinimumCalls() {
+        return this.minimumCalls;
+    }
+
+    /**
+     * Sets the minimum number of calls in the window before the failure and slow call rates are evaluated.
+     *
+     * @param minimumCalls The minimum number of calls.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code minimumCalls} is less than 1.
+     */
+    public CircuitBreakerOptions setMinimumCalls(int minimumCalls) {
+        if (minimumCalls < 1) {
+            throw new IllegalArgumentException("'minimumCalls' cannot be less than 1.");
+        }
+        this.minimumCalls = minimumCalls;
+        return this;
+    }
+
+    /**
+     * Gets the rolling window the failure and slow call rates are computed over.
+     *
+     * @return The window.
+     */
+    public Duration getWindow() {
+        return this.window;
+    }
+
+    /**
+     * Sets the rolling window the failure and slow call rates are computed over.
+     *
+     * @param window The window.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code window} is not positive.
+     */
+    public CircuitBreakerOptions setWindow(Duration window) {
+        this.window = requirePositive(window, "window");
+        return this;
+    }
+
+    /**
+     * Gets the time the circuit stays open before letting probe calls through.
+     *
+     * @return The open duration.
+     */
+    public Duration getOpenDuration() {
+        return this.openDuration;
+    }
+
+    /**
+     * Sets the time the circuit stays open before letting probe calls through.
+     *
+     * @param openDuration The open duration.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code openDuration} is not positive.
+     */
+    public CircuitBreakerOptions setOpenDuration(Duration openDuration) {
+        this.openDuration = requirePositive(openDuration, "openDuration");
+        return this;
+    }
+
+    /**
+     * Gets the number of probe calls let through in the half-open state.
+     *
+     * @return The number of probe calls.
+     */
+    public int getHalfOpenProbeCalls() {
+        return this.halfOpenProbeCalls;
+    }
+
+    /**
+     * Sets the number of probe calls let through in the half-open state, the circuit closes once they all
+     * succeed and opens again as soon as one of them fails.
+     *
+     * @param halfOpenProbeCalls The number of probe calls.
+     * @return The updated CircuitBreakerOptions object.
+     * @throws IllegalArgumentException If the {@code halfOpenProbeCalls} is less than 1.
+     */
+    public CircuitBreakerOptions setHalfOpenProbeCalls(int halfOpenProbeCalls) {
+        if (halfOpenProbeCalls < 1) {
+            throw new IllegalArgumentException("'halfOpenProbeCalls' cannot be less than 1.");
+        }
+        this.halfOpenProbeCalls = halfOpenProbeCalls;
+        return this;
+    }
+
+    private static int requirePercentage(int value, String name) {
+        if (value < 1 || value > 100) {
+            throw new IllegalArgumentException("'" + name + "' must be between 1 and 100.");
+        }
+        return value;
+    }
+
+    private static Duration requirePositive(Duration value, String name) {
+        Util.requireNonNull(value, "'" + name + "' cannot be null.");
+        if (value.isNegative() || value.isZero()) {
+            throw new IllegalArgumentException("'" + name + "' must be positive.");
+        }
+        return value;
+    }
+}
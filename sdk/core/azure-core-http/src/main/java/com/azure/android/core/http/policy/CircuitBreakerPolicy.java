@@ -0,0 +1,283 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.exception.CircuitBreakerOpenException;
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pipeline policy that fails the requests to a host fast, without sending them, while the host is failing.
+ *
+ * <p>
+ * The policy keeps a circuit per host. The circuit is closed as long as the rate of failed or slow calls
+ * to the host over a rolling window stays below the thresholds in the {@link CircuitBreakerOptions}. Once a
+ * threshold is reached the circuit opens, and the calls fail right away with a
+ * {@link CircuitBreakerOpenException}. After the open duration the circuit is half-open, a few probe calls
+ * are let through; the circuit closes if they all succeed and opens again as soon as one fails.
+ * </p>
+ *
+ * <p>
+ * The policy is meant to be placed after the {@link RetryPolicy}, so every attempt is counted, the
+ * {@link RetryPolicy} does not retry a call failed by an open circuit.
+ * </p>
+ */
+public class CircuitBreakerPolicy implements HttpPipelinePolicy {
+    private final CircuitBreakerOptions options;
+    private final ConcurrentHashMap<String, HostCircuit> circuits = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a {@link CircuitBreakerPolicy} with the default {@link CircuitBreakerOptions}.
+     */
+    public CircuitBreakerPolicy() {
+        this(new CircuitBreakerOptions());
+    }
+
+    /**
+     * Creates a {@link CircuitBreakerPolicy} with the given options.
+     *
+     * @param options The circuit breaker configurations, read once when the policy is created.
+     */
+    public CircuitBreakerPolicy(CircuitBreakerOptions options) {
+        Util.requireNonNull(options, "'options' cannot be null.");
+        // Copy the options, so changing them later does not change the policy.
+        this.options = new CircuitBreakerOptions()
+            .setFailureRateThreshold(options.getFailureRateThreshold())
+            .setSlowCallRateThreshold(options.getSlowCallRateThreshold())
+            .setSlowCallDuration(options.getSlowCallDuration())
+            .setMinimumCalls(options.getMinimumCalls())
+            .setWindow(options.getWindow())
+            .setOpenDuration(options.getOpenDuration())
+            .setHalfOpenProbeCalls(options.getHalfOpenProbeCalls());
+    }
+
+    /**
+     * Gets the state of the circuit for a host.
+     *
+     * @param host The host.
+     * @return The state of the circuit, {@link State#CLOSED} if the policy has not seen a call to the host.
+     */
+    public State getState(String host) {
+        final HostCircuit circuit = this.circuits.get(host);
+        return circuit == null ? State.CLOSED : circuit.getState(System.nanoTime());
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final String host = chain.getRequest().getUrl().getHost();
+        final HostCircuit circuit = this.getCircuit(host);
+        final long permit = circuit.tryAcquire(System.nanoTime());
+        if (permit == HostCircuit.REJECTED) {
+            chain.completedError(new CircuitBreakerOpenException("The circuit breaker for the host '" + host
+                + "' is open.", host));
+            return;
+        }
+        final long startNanos = System.nanoTime();
+        chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                final long nowNanos = System.nanoTime();
+                circuit.onCompleted(permit, response.getStatusCode() >= 500, nowNanos - startNanos, nowNanos);
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                final long nowNanos = System.nanoTime();
+                if (chain.getCancellationToken().isCancellationRequested()) {
+                    // A cancelled call says nothing about the health of the host.
+                    circuit.onCancelled(permit);
+                } else {
+                    circuit.onCompleted(permit, true, nowNanos - startNanos, nowNanos);
+                }
+                return completer.completedError(error);
+            }
+        });
+    }
+
+    private HostCircuit getCircuit(String host) {
+        HostCircuit circuit = this.circuits.get(host);
+        if (circuit == null) {
+            final HostCircuit newCircuit = new HostCircuit(this.options);
+            circuit = this.circuits.putIfAbsent(host, newCircuit);
+            if (circuit == null) {
+                circuit = newCircuit;
+            }
+        }
+        return circuit;
+    }
+
+    /**
+     * The state of the circuit for a host.
+     */
+    public enum State {
+        /**
+         * The calls are let through, the failure and slow call rates are tracked.
+         */
+        CLOSED,
+
+        /**
+         * The calls fail fast without being sent.
+         */
+        OPEN,
+
+        /**
+         * A limited number of probe calls are let through to decide whether to close or open the circuit.
+         */
+        HALF_OPEN
+    }
+
+    /**
+     * The circuit for a host.
+     */
+    private static final class HostCircuit {
+        // The permit of a rejected call.
+        static final long REJECTED = -1;
+        private static final int BUCKET_COUNT = 10;
+
+        private final int failureRateThreshold;
+        private final int slowCallRateThreshold;
+        private final long slowCallNanos;
+        private final int minimumCalls;
+        private final long openNanos;
+        private final int halfOpenProbeCalls;
+        private final long bucketNanos;
+        private final long originNanos = System.nanoTime();
+        // The rolling window, a ring of buckets each counting the calls completed in its time slice.
+        private final long[] bucketEpochs = new long[BUCKET_COUNT];
+        private final int[] bucketCalls = new int[BUCKET_COUNT];
+        private final int[] bucketFailures = new int[BUCKET_COUNT];
+        private final int[] bucketSlowCalls = new int[BUCKET_COUNT];
+
+        // Guarded by 'this'.
+        private State state = State.CLOSED;
+        // Incremented on each state change, a permit is the generation the call was let through in.
+        private long generation;
+        private long openUntilNanos;
+        private int probesLeft;
+        private int probesSucceeded;
+
+        HostCircuit(CircuitBreakerOptions options) {
+            this.failureRateThreshold = options.getFailureRateThreshold();
+            this.slowCallRateThreshold = options.getSlowCallRateThreshold();
+            this.slowCallNanos = options.getSlowCallDuration().toNanos();
+            this.minimumCalls = options.getMinimumCalls();
+            this.openNanos = options.getOpenDuration().toNanos();
+            this.halfOpenProbeCalls = options.getHalfOpenProbeCalls();
+            this.bucketNanos = Math.max(1, options.getWindow().toNanos() / BUCKET_COUNT);
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                this.bucketEpochs[i] = -1;
+            }
+        }
+
+        synchronized State getState(long nowNanos) {
+            if (this.state == State.OPEN && nowNanos - this.openUntilNanos >= 0) {
+                return State.HALF_OPEN;
+            }
+            return this.state;
+        }
+
+        /**
+         * Attempts to let a call through.
+         *
+         * @param nowNanos The current System.nanoTime().
+         * @return The permit of the call, {@link HostCircuit#REJECTED} if the call must fail fast.
+         */
+        synchronized long tryAcquire(long nowNanos) {
+            if (this.state == State.OPEN) {
+                if (nowNanos - this.openUntilNanos < 0) {
+                    return REJECTED;
+                }
+                this.transitionTo(State.HALF_OPEN, nowNanos);
+            }
+            if (this.state == State.HALF_OPEN) {
+                if (this.probesLeft == 0) {
+                    return REJECTED;
+                }
+                this.probesLeft--;
+            }
+            return this.generation;
+        }
+
+        synchronized void onCompleted(long permit, boolean failed, long durationNanos, long nowNanos) {
+            final boolean slow = durationNanos > this.slowCallNanos;
+            if (this.state == State.CLOSED) {
+                this.record(failed, slow, nowNanos);
+                final int[] counts = this.sumWindow(nowNanos);
+                final int calls = counts[0];
+                if (calls >= this.minimumCalls
+                    && (counts[1] * 100L >= (long) calls * this.failureRateThreshold
+                    || counts[2] * 100L >= (long) calls * this.slowCallRateThreshold)) {
+                    this.transitionTo(State.OPEN, nowNanos);
+                }
+            } else if (this.state == State.HALF_OPEN && permit == this.generation) {
+                if (failed || slow) {
+                    this.transitionTo(State.OPEN, nowNanos);
+                } else if (++this.probesSucceeded >= this.halfOpenProbeCalls) {
+                    this.transitionTo(State.CLOSED, nowNanos);
+                }
+            }
+        }
+
+        synchronized void onCancelled(long permit) {
+            if (this.state == State.HALF_OPEN && permit == this.generation) {
+                // Give back the probe.
+                this.probesLeft++;
+            }
+        }
+
+        private void transitionTo(State newState, long nowNanos) {
+            this.state = newState;
+            this.generation++;
+            if (newState == State.OPEN) {
+                this.openUntilNanos = nowNanos + this.openNanos;
+            } else if (newState == State.HALF_OPEN) {
+                this.probesLeft = this.halfOpenProbeCalls;
+                this.probesSucceeded = 0;
+            } else {
+                // Start the closed state with an empty window.
+                for (int i = 0; i < BUCKET_COUNT; i++) {
+                    this.bucketEpochs[i] = -1;
+                }
+            }
+        }
+
+        private void record(boolean failed, boolean slow, long nowNanos) {
+            final long epoch = (nowNanos - this.originNanos) / this.bucketNanos;
+            final int index = (int) (epoch % BUCKET_COUNT);
+            if (this.bucketEpochs[index] != epoch) {
+                this.bucketEpochs[index] = epoch;
+                this.bucketCalls[index] = 0;
+                this.bucketFailures[index] = 0;
+                this.bucketSlowCalls[index] = 0;
+            }
+            this.bucketCalls[index]++;
+            if (failed) {
+                this.bucketFailures[index]++;
+            }
+            if (slow) {
+                this.bucketSlowCalls[index]++;
+            }
+        }
+
+        private int[] sumWindow(long nowNanos) {
+            final long epoch = (nowNanos - this.originNanos) / this.bucketNanos;
+            final int[] counts = new int[3];
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                if (this.bucketEpochs[i] > epoch - BUCKET_COUNT) {
+                    counts[0] += this.bucketCalls[i];
+                    counts[1] += this.bucketFailures[i];
+                    counts[2] += this.bucketSlowCalls[i];
+                }
+            }
+            return counts;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.BufferedHttpResponse;
+import com.azure.android.core.http.util.ByteArrayPool;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.nio.charset.Charset;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The pipeline policy that gzips the request bodies and decompresses the gzipped responses as they are read.
+ *
+ * <p>
+ * The policy sets {@code Accept-Encoding: gzip} on the requests that do not already set an
+ * {@code Accept-Encoding}, and wraps the gzipped responses to those requests so their body is decompressed as it
+ * is read, without buffering it; the {@code Content-Encoding} and {@code Content-Length} headers of such
+ * responses, which describe the compressed body, are removed.
+ * </p>
+ *
+ * <p>
+ * If enabled, the request bodies of at least the given size are gzipped and sent with
+ * {@code Content-Encoding: gzip}, unless the request already sets a {@code Content-Encoding}. HTTP has no way
+ * to tell beforehand whether a service accepts compressed requests; a host answering a compressed request with
+ * 415 (Unsupported Media Type) is remembered, the request is sent again uncompressed and the requests to that
+ * host are no longer compressed.
+ * </p>
+ */
+public class CompressionPolicy implements HttpPipelinePolicy {
+    private static final String GZIP = "gzip";
+    private static final int DEFAULT_MIN_COMPRESSED_BODY_SIZE = 1024;
+
+    private final ClientLogger logger = new ClientLogger(CompressionPolicy.class);
+    private final boolean compressRequests;
+    private final int minCompressedBodySize;
+    // The hosts that rejected a compressed request, used as a concurrent set.
+    private final ConcurrentHashMap<String, Boolean> hostsRejectingCompression = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a {@link CompressionPolicy} that only decompresses the responses.
+     */
+    public CompressionPolicy() {
+        this.compressRequests = false;
+        this.minCompressedBodySize = DEFAULT_MIN_COMPRESSED_BODY_SIZE;
+    }
+
+    /**
+     * Creates a {@link CompressionPolicy} that decompresses the responses and compresses the request bodies
+     * of at least the given size.
+     *
+     * <p>
+     * Compressing a small body costs more CPU time than the bytes it saves are worth, and the gzip framing
+     * can make a body of a few dozen bytes larger; 1 KB is a reasonable threshold for JSON payloads.
+     * </p>
+     *
+     * @param minCompressedBodySize The minimum size in bytes of the request bodies to compress.
+     * @throws IllegalArgumentException If the {@code minCompressedBodySize} is negative.
+     */
+    public CompressionPolicy(int minCompressedBodySize) {
+        if (minCompressedBodySize < 0) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'minCompressedBodySize' cannot be negative."));
+        }
+        this.compressRequests = true;
+        this.minCompressedBodySize = minCompressedBodySize;
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        final HttpHeaders headers = httpRequest.getHeaders();
+        final boolean acceptsGzip = headers.getValue("Accept-Encoding") == null;
+        if (acceptsGzip) {
+            headers.put("Accept-Encoding", GZIP);
+        }
+        final String host = httpRequest.getUrl().getHost();
+        final byte[] uncompressedBody = this.shouldCompress(httpRequest, host) ? httpRequest.getBody() : null;
+        if (uncompressedBody != null) {
+            try {
+                httpRequest.setBody(gzip(uncompressedBody));
+            } catch (IOException e) {
+                chain.completedError(e);
+                return;
+            }
+            headers.put("Content-Encoding", GZIP);
+        }
+
+        chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+            // The body to restore, cleared once the request is resent uncompressed so a 415 to the resent request
+            // reaches the caller.
+            private byte[] compressedFrom = uncompressedBody;
+
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                if (this.compressedFrom != null) {
+                    // Restore the request, so it is compressed again (or not) if a previous policy resends it.
+                    headers.remove("Content-Encoding");
+                    httpRequest.setBody(this.compressedFrom);
+                    if (response.getStatusCode() == 415) {
+                        hostsRejectingCompression.put(host, Boolean.TRUE);
+                        response.close();
+                        this.compressedFrom = null;
+                        chain.processNextPolicy(httpRequest, this);
+                        return completer.defer();
+                    }
+                }
+                if (acceptsGzip && isGzipped(response)) {
+                    return completer.completed(new DecompressingHttpResponse(response));
+                }
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                if (this.compressedFrom != null) {
+                    headers.remove("Content-Encoding");
+                    httpRequest.setBody(this.compressedFrom);
+                }
+                return completer.completedError(error);
+            }
+        });
+    }
+
+    private boolean shouldCompress(HttpRequest httpRequest, String host) {
+        final byte[] body = httpRequest.getBody();
+        return this.compressRequests
+            && body != null
+            && body.length >= this.minCompressedBodySize
+            && httpRequest.getHttpMethod() != HttpMethod.GET
+            && httpRequest.getHttpMethod() != HttpMethod.HEAD
+            && httpRequest.getHeaders().getValue("Content-Encoding") == null
+            && !this.hostsRejectingCompression.containsKey(host);
+    }
+
+    private static boolean isGzipped(HttpResponse response) {
+        final String contentEncoding = response.getHeaderValue("Content-Encoding");
+        return contentEncoding != null
+            && GZIP.equals(contentEncoding.trim().toLowerCase(Locale.ROOT))
+            && response.getStatusCode() != 204
+            && response.getStatusCode() != 304
+            && response.getRequest().getHttpMethod() != HttpMethod.HEAD;
+    }
+
+    static byte[] gzip(byte[] content) throws IOException {
+        // Compressed JSON is usually a fraction of its size, a quarter is a reasonable initial capacity.
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, content.length / 4));
+        try (GZIPOutputStream gzipStream = new GZIPOutputStream(compressed)) {
+            gzipStream.write(content);
+        }
+        return compressed.toByteArray();
+    }
+
+    /**
+     * The response that decompresses the gzipped body of a response as it is read.
+     */
+    private static final class DecompressingHttpResponse extends HttpResponse {
+        private final ClientLogger logger = new ClientLogger(DecompressingHttpResponse.class);
+        private final HttpResponse innerHttpResponse;
+        private byte[] bufferedContent;
+
+        DecompressingHttpResponse(HttpResponse innerHttpResponse) {
+            super(innerHttpResponse.getRequest());
+            this.innerHttpResponse = innerHttpResponse;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.innerHttpResponse.getStatusCode();
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            if ("Content-Encoding".equalsIgnoreCase(name) || "Content-Length".equalsIgnoreCase(name)) {
+                return null;
+            }
+            return this.innerHttpResponse.getHeaderValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            final HttpHeaders headers = new HttpHeaders(this.innerHttpResponse.getHeaders());
+            headers.remove("Content-Encoding");
+            headers.remove("Content-Length");
+            return headers;
+        }
+
+        @Override
+        public synchronized InputStream getBody() {
+            if (this.bufferedContent != null) {
+                return new ByteArrayInputStream(this.bufferedContent);
+            }
+            final InputStream innerStream = this.innerHttpResponse.getBody();
+            if (innerStream == null) {
+                return new ByteArrayInputStream(new byte[0]);
+            }
+            try {
+                // An empty body has no gzip header, GZIPInputStream would fail reading it.
+                final PushbackInputStream pushbackStream = new PushbackInputStream(innerStream, 1);
+                final int first = pushbackStream.read();
+                if (first == -1) {
+                    return new ByteArrayInputStream(new byte[0]);
+                }
+                pushbackStream.unread(first);
+                return new GZIPInputStream(pushbackStream);
+            } catch (IOException ioe) {
+                throw logger.logExceptionAsError(new RuntimeException(ioe));
+            }
+        }
+
+        @Override
+        public synchronized byte[] getBodyAsByteArray() {
+            if (this.bufferedContent == null) {
+                try (InputStream body = this.getBody()) {
+                    // The decompressed length is unknown.
+                    this.bufferedContent = ByteArrayPool.getDefault().readAll(body, -1);
+                } catch (IOException ioe) {
+                    throw logger.logExceptionAsError(new RuntimeException(ioe));
+                }
+            }
+            return this.bufferedContent;
+        }
+
+        @Override
+        public String getBodyAsString() {
+            return new BufferedHttpResponse(this).getBodyAsString();
+        }
+
+        @Override
+        public String getBodyAsString(Charset charset) {
+            return new String(this.getBodyAsByteArray(), charset);
+        }
+
+        @Override
+        public void close() {
+            this.innerHttpResponse.close();
+        }
+    }
+}
@@ -19,7 +19,6 @@ import java.net.CookieManager;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -65,7 +64,7 @@ public class CookiePolicy implements HttpPipelinePolicy {
             public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
                 Map<String, List<String>> responseHeaders = new HashMap<>();
                 for (HttpHeader header : response.getHeaders()) {
-                    responseHeaders.put(header.getName(), Collections.singletonList(header.getValue()));
+                    responseHeaders.put(header.getName(), header.getValuesList());
                 }
 
                 try {
@@ -0,0 +1,110 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import org.threeten.bp.Duration;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The retry strategy with decorrelated jitter backoff.
+ *
+ * <p>
+ * Each delay is picked at random between the base delay and three times the previous delay, capped by the maximum
+ * delay. The delays grow about as fast as with the {@link ExponentialBackoff}, but the retries of requests that
+ * failed at the same time spread out more, instead of hitting the service again in waves.
+ * </p>
+ */
+public final class DecorrelatedJitter implements RetryStrategy {
+    private final ClientLogger logger = new ClientLogger(DecorrelatedJitter.class);
+
+    private static final Random RANDOM;
+    private static final int DEFAULT_MAX_RETRIES = 3;
+    private static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(800);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(8);
+
+    private final int maxRetries;
+    private final Duration baseDelay;
+    private final Duration maxDelay;
+
+    static {
+        if (android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP) {
+            RANDOM = null;
+        } else {
+            RANDOM = new Random();
+        }
+    }
+
+    /**
+     * Creates {@link DecorrelatedJitter} retry strategy with default settings.
+     *
+     * <p>
+     * The default maximum number of times to retry is 3, the default base delay
+     * is 800 milliseconds and default maximum backoff delay before a retry is 8 seconds.
+     */
+    public DecorrelatedJitter() {
+        this(DEFAULT_MAX_RETRIES, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Creates {@link DecorrelatedJitter} retry strategy.
+     *
+     * @param maxRetries The maximum number of times to retry.
+     * @param baseDelay The minimum delay before a retry, also the delay the first retry backs off from.
+     * @param maxDelay The maximum backoff delay before a retry.
+     * @throws IllegalArgumentException if the {@code maxRetries} is less than 0 or if the {@code baseDelay}
+     *     is zero or greater than {@code maxDelay}.
+     */
+    public DecorrelatedJitter(int maxRetries, Duration baseDelay, Duration maxDelay) {
+        if (maxRetries < 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxRetries' cannot be less than 0."));
+        }
+        Util.requireNonNull(baseDelay, "'baseDelay' cannot be null.");
+        Util.requireNonNull(maxDelay, "'maxDelay' cannot be null.");
+
+        if (baseDelay.isZero() || baseDelay.isNegative()) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'baseDelay' must be positive."));
+        }
+
+        if (baseDelay.compareTo(maxDelay) > 0) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'baseDelay' cannot be greater than 'maxDelay'."));
+        }
+        this.maxRetries = maxRetries;
+        this.baseDelay = baseDelay;
+        this.maxDelay = maxDelay;
+    }
+
+    @Override
+    public int getMaxRetries() {
+        return this.maxRetries;
+    }
+
+    @Override
+    public Duration calculateRetryDelay(HttpResponse response, Throwable error, int retryAttempts) {
+        return this.calculateRetryDelay(response, error, retryAttempts, null);
+    }
+
+    @Override
+    public Duration calculateRetryDelay(HttpResponse response,
+                                        Throwable error,
+                                        int retryAttempts,
+                                        Duration previousDelay) {
+        final long baseNanos = this.baseDelay.toNanos();
+        final long maxNanos = this.maxDelay.toNanos();
+        final long previousNanos = previousDelay == null
+            ? baseNanos
+            : Math.max(baseNanos, Math.min(maxNanos, previousDelay.toNanos()));
+        final double random = android.os.Build.VERSION.SDK_INT >= android.os.Build.VERSION_CODES.LOLLIPOP
+            ? ThreadLocalRandom.current().nextDouble()
+            : RANDOM.nextDouble();
+        final long delayNanos = baseNanos + (long) (random * (previousNanos * 3 - baseNanos));
+        return Duration.ofNanos(Math.min(delayNanos, maxNanos));
+    }
+}
@@ -0,0 +1,283 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+import com.azure.android.core.util.CancellationToken;
+
+import org.threeten.bp.Duration;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The pipeline policy that hedges idempotent requests: when the response to a GET or HEAD request does not
+ * arrive within the hedge delay, a second attempt of the request is sent, the first response to arrive is used
+ * and the other attempt is cancelled.
+ *
+ * <p>
+ * The hedge delay is either fixed or, using {@link HedgingPolicy#withAdaptiveDelay(Duration, int)}, the observed
+ * 95th percentile of the response latency, so only the slowest requests are hedged. The hedges are limited
+ * by a budget, the number of hedges never exceeds the given percentage of the requests.
+ * </p>
+ *
+ * <p>
+ * The policy is meant to be placed after the {@link RetryPolicy}, so each retry is hedged on its own.
+ * </p>
+ */
+public class HedgingPolicy implements HttpPipelinePolicy {
+    // The budget is counted in hundredths of a hedge, each request adds the allowed percentage.
+    private static final int HEDGE_COST = 100;
+    // The budget accumulates for at most 10 hedges, so a burst of slow requests after a long calm is limited.
+    private static final int MAX_BUDGET = 10 * HEDGE_COST;
+
+    private final ClientLogger logger = new ClientLogger(HedgingPolicy.class);
+    private final Duration hedgeDelay;
+    private final int maxHedgePercent;
+    private final LatencyWindow latencyWindow;
+    private final AtomicInteger budget = new AtomicInteger();
+
+    /**
+     * Creates a {@link HedgingPolicy} with a fixed hedge delay.
+     *
+     * @param hedgeDelay The time to wait for a response before sending the second attempt.
+     * @param maxHedgePercent The maximum number of hedges as a percentage of the requests, from 0 to 100.
+     * @throws IllegalArgumentException If the {@code hedgeDelay} is negative or the {@code maxHedgePercent}
+     *     is not between 0 and 100.
+     */
+    public HedgingPolicy(Duration hedgeDelay, int maxHedgePercent) {
+        this(hedgeDelay, maxHedgePercent, false);
+    }
+
+    private HedgingPolicy(Duration hedgeDelay, int maxHedgePercent, boolean adaptive) {
+        Util.requireNonNull(hedgeDelay, "'hedgeDelay' cannot be null.");
+        if (hedgeDelay.isNegative()) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'hedgeDelay' cannot be negative."));
+        }
+        if (maxHedgePercent < 0 || maxHedgePercent > 100) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'maxHedgePercent' must be between 0 and 100."));
+        }
+        this.hedgeDelay = hedgeDelay;
+        this.maxHedgePercent = maxHedgePercent;
+        this.latencyWindow = adaptive ? new LatencyWindow() : null;
+    }
+
+    /**
+     * Get an instance of {@link HedgingPolicy} that uses the observed 95th percentile of the response latency
+     * as the hedge delay.
+     *
+     * @param minDelay The minimum hedge delay, also used until enough responses are observed.
+     * @param maxHedgePercent The maximum number of hedges as a percentage of the requests, from 0 to 100.
+     * @return The hedging policy.
+     * @throws IllegalArgumentException If the {@code minDelay} is negative or the {@code maxHedgePercent}
+     *     is not between 0 and 100.
+     */
+    public static HedgingPolicy withAdaptiveDelay(Duration minDelay, int maxHedgePercent) {
+        return new HedgingPolicy(minDelay, maxHedgePercent, true);
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpMethod httpMethod = chain.getRequest().getHttpMethod();
+        if ((httpMethod != HttpMethod.GET && httpMethod != HttpMethod.HEAD)
+            || chain.getCancellationToken().isCancellationRequested()) {
+            chain.processNextPolicy(chain.getRequest());
+            return;
+        }
+        this.depositBudget();
+        new HedgedCall(this, chain).start();
+    }
+
+    /**
+     * Gets the current hedge delay.
+     *
+     * @return The hedge delay in nanoseconds.
+     */
+    private long getHedgeDelayNanos() {
+        final long minDelayNanos = this.hedgeDelay.toNanos();
+        if (this.latencyWindow == null) {
+            return minDelayNanos;
+        }
+        return Math.max(minDelayNanos, this.latencyWindow.getP95Nanos());
+    }
+
+    private void depositBudget() {
+        int current;
+        do {
+            current = this.budget.get();
+            if (current >= MAX_BUDGET) {
+                return;
+            }
+        } while (!this.budget.compareAndSet(current, Math.min(MAX_BUDGET, current + this.maxHedgePercent)));
+    }
+
+    private boolean tryWithdrawBudget() {
+        int current;
+        do {
+            current = this.budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!this.budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    private void refundBudget() {
+        this.budget.addAndGet(HEDGE_COST);
+    }
+
+    /**
+     * The state of a hedged request, the primary attempt and the hedge attempt.
+     */
+    private static final class HedgedCall extends AtomicBoolean {
+        private final HedgingPolicy policy;
+        private final HttpPipelinePolicyChain chain;
+        private final CancellationToken primaryToken = new CancellationToken();
+        private final CancellationToken hedgeToken = new CancellationToken();
+        private volatile CancellationToken.Registration onCancelRegistration;
+        // The number of attempts that may still deliver a result the call waits for.
+        private final AtomicInteger pendingAttempts = new AtomicInteger();
+        private long startNanos;
+        private long hedgeDelayNanos;
+        private boolean hedgeScheduled;
+
+        HedgedCall(HedgingPolicy policy, HttpPipelinePolicyChain chain) {
+            this.policy = policy;
+            this.chain = chain;
+        }
+
+        void start() {
+            // Cancelling the pipeline run cancels both attempts.
+            this.onCancelRegistration = this.chain.getCancellationToken().register(() -> {
+                this.primaryToken.cancel();
+                this.hedgeToken.cancel();
+            });
+            this.startNanos = System.nanoTime();
+            this.hedgeDelayNanos = this.policy.getHedgeDelayNanos();
+            this.hedgeScheduled = this.policy.tryWithdrawBudget();
+            this.pendingAttempts.set(this.hedgeScheduled ? 2 : 1);
+            final HttpRequest httpRequest = this.chain.getRequest();
+            // The hedge attempt gets its own copy of the request, as the next policies may mutate the request.
+            final HttpRequest hedgeRequest = this.hedgeScheduled ? httpRequest.copy() : null;
+            this.chain.processNextPolicy(httpRequest, this.primaryToken, new AttemptCallback(this, false));
+            if (this.hedgeScheduled) {
+                this.chain.processNextPolicyConcurrently(hedgeRequest,
+                    this.hedgeToken,
+                    new AttemptCallback(this, true),
+                    this.hedgeDelayNanos,
+                    TimeUnit.NANOSECONDS);
+            }
+        }
+
+        PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer, boolean hedge) {
+            if (!this.compareAndSet(false, true)) {
+                // The other attempt won.
+                response.close();
+                return completer.defer();
+            }
+            this.finish(hedge);
+            if (this.policy.latencyWindow != null) {
+                this.policy.latencyWindow.record(System.nanoTime() - this.startNanos);
+            }
+            return completer.completed(response);
+        }
+
+        PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer, boolean hedge) {
+            if (this.get()) {
+                // The other attempt won, this is likely the cancellation error.
+                return completer.defer();
+            }
+            final boolean hedgeStarted = this.hedgeScheduled
+                && System.nanoTime() - this.startNanos >= this.hedgeDelayNanos;
+            if (this.pendingAttempts.decrementAndGet() > 0 && (hedge || hedgeStarted)) {
+                // The other attempt is in flight, wait for it.
+                return completer.defer();
+            }
+            if (!this.compareAndSet(false, true)) {
+                return completer.defer();
+            }
+            this.finish(hedge);
+            return completer.completedError(error);
+        }
+
+        private void finish(boolean hedgeWon) {
+            this.onCancelRegistration.close();
+            if (hedgeWon) {
+                this.primaryToken.cancel();
+            } else if (this.hedgeScheduled) {
+                if (System.nanoTime() - this.startNanos < this.hedgeDelayNanos) {
+                    // The hedge attempt did not start, give back its budget.
+                    this.policy.refundBudget();
+                }
+                this.hedgeToken.cancel();
+            }
+        }
+    }
+
+    /**
+     * The callback for an attempt of a hedged request.
+     */
+    private static final class AttemptCallback implements NextPolicyCallback {
+        private final HedgedCall hedgedCall;
+        private final boolean hedge;
+
+        AttemptCallback(HedgedCall hedgedCall, boolean hedge) {
+            this.hedgedCall = hedgedCall;
+            this.hedge = hedge;
+        }
+
+        @Override
+        public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+            return this.hedgedCall.onSuccess(response, completer, this.hedge);
+        }
+
+        @Override
+        public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+            return this.hedgedCall.onError(error, completer, this.hedge);
+        }
+    }
+
+    /**
+     * The window of the latest response latencies, to compute the 95th percentile from.
+     */
+    private static final class LatencyWindow {
+        private static final int SIZE = 128;
+        // The percentile is computed again once this many latencies are recorded.
+        private static final int RECOMPUTE_INTERVAL = 16;
+        // The percentile is used once the window has this many latencies.
+        private static final int MIN_SAMPLES = 20;
+
+        private final long[] latencies = new long[SIZE];
+        private long count;
+        private int next;
+        private volatile long p95Nanos;
+
+        synchronized void record(long latencyNanos) {
+            this.latencies[this.next] = latencyNanos;
+            this.next = (this.next + 1) % SIZE;
+            this.count++;
+            if (this.count >= MIN_SAMPLES && this.count % RECOMPUTE_INTERVAL == 0) {
+                final int size = (int) Math.min(this.count, SIZE);
+                final long[] sorted = Arrays.copyOf(this.latencies, size);
+                Arrays.sort(sorted);
+                this.p95Nanos = sorted[(int) Math.ceil(size * 0.95) - 1];
+            }
+        }
+
+        long getP95Nanos() {
+            return this.p95Nanos;
+        }
+    }
+}
@@ -3,15 +3,14 @@
 
 package com.azure.android.core.http.policy;
 
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 import com.azure.android.core.http.util.UrlBuilder;
 
 /**
  * The pipeline policy that adds the given host to each HttpRequest.
  */
-public class HostPolicy implements HttpPipelinePolicy {
+public class HostPolicy implements HttpRequestPolicy {
     private final String host;
 
     /**
@@ -24,16 +23,9 @@ public class HostPolicy implements HttpPipelinePolicy {
     }
 
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) {
         final UrlBuilder urlBuilder = UrlBuilder.parse(httpRequest.getUrl());
-        try {
-            httpRequest.setUrl(urlBuilder.setHost(host).toString());
-        } catch (IllegalArgumentException error) {
-            chain.completedError(error);
-            return;
-        }
-        chain.processNextPolicy(httpRequest);
+        httpRequest.setUrl(urlBuilder.setHost(host).toString());
     }
 }
 
@@ -77,6 +77,14 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
         }
     }
 
+    /**
+     * The policy is a no-op when the {@link HttpLogDetailLevel} is {@link HttpLogDetailLevel#NONE}.
+     */
+    @Override
+    public boolean isNoOp() {
+        return httpLogDetailLevel == HttpLogDetailLevel.NONE;
+    }
+
     @Override
     public void process(HttpPipelinePolicyChain chain) {
         // No logging will be performed, trigger a no-op.
@@ -113,7 +121,7 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
         this.appendHeaders(logger, httpRequest.getHeaders(), requestLogMessage);
 
         if (httpLogDetailLevel.shouldLogBody()) {
-            if (httpRequest.getBody() == null) {
+            if (httpRequest.getRequestBody() == null) {
                 requestLogMessage.append("(empty body)")
                     .append(LINE_SEPARATOR)
                     .append("--> END ")
@@ -122,7 +130,9 @@ public class HttpLoggingPolicy implements HttpPipelinePolicy {
             } else {
                 final String requestContentType = httpRequest.getHeaders().getValue("Content-Type");
                 final long requestContentLength = this.getContentLength(logger, httpRequest.getHeaders());
-                if (this.isContentLoggable(requestContentType, requestContentLength)) {
+                // A streamed body is not logged, reading it would consume or buffer it.
+                if (httpRequest.getBody() != null
+                    && this.isContentLoggable(requestContentType, requestContentLength)) {
                     final String content = this.convertBytesToString(httpRequest.getBody(), logger);
                     requestLogMessage.append(requestContentLength)
                         .append("-byte body:")
@@ -3,9 +3,8 @@
 
 package com.azure.android.core.http.policy;
 
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 import com.azure.android.core.http.util.UrlBuilder;
 import com.azure.android.core.logging.ClientLogger;
 
@@ -14,7 +13,7 @@ import java.net.MalformedURLException;
 /**
  * The pipeline policy that adds a given port to each {@link HttpRequest}.
  */
-public class PortPolicy implements HttpPipelinePolicy {
+public class PortPolicy implements HttpRequestPolicy {
     private final int port;
     private final boolean overwrite;
     private final ClientLogger logger = new ClientLogger(PortPolicy.class);
@@ -31,18 +30,11 @@ public class PortPolicy implements HttpPipelinePolicy {
     }
 
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) throws MalformedURLException {
         final UrlBuilder urlBuilder = UrlBuilder.parse(httpRequest.getUrl());
         if (overwrite || urlBuilder.getPort() == null) {
             logger.info("Changing port to {}", port);
-            try {
-                httpRequest.setUrl(urlBuilder.setPort(port).toUrl().toString());
-            } catch (MalformedURLException error) {
-                chain.completedError(error);
-                return;
-            }
-            chain.processNextPolicy(httpRequest);
+            httpRequest.setUrl(urlBuilder.setPort(port).toUrl().toString());
         }
     }
 }
@@ -3,16 +3,15 @@
 
 package com.azure.android.core.http.policy;
 
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 import com.azure.android.core.http.util.UrlBuilder;
 import com.azure.android.core.logging.ClientLogger;
 
 /**
  * The pipeline policy that adds a given protocol to each HttpRequest.
  */
-public class ProtocolPolicy implements HttpPipelinePolicy {
+public class ProtocolPolicy implements HttpRequestPolicy {
     private final String protocol;
     private final boolean overwrite;
     private final ClientLogger logger = new ClientLogger(ProtocolPolicy.class);
@@ -29,21 +28,11 @@ public class ProtocolPolicy implements HttpPipelinePolicy {
     }
 
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) {
         final UrlBuilder urlBuilder = UrlBuilder.parse(httpRequest.getUrl());
         if (overwrite || urlBuilder.getScheme() == null) {
             logger.info("Setting protocol to {}", protocol);
-
-            try {
-                httpRequest.setUrl(urlBuilder.setScheme(protocol).toString());
-            } catch (IllegalArgumentException error) {
-                chain.completedError(error);
-                return;
-            }
-            chain.processNextPolicy(httpRequest);
-        } else {
-            chain.processNextPolicy(httpRequest);
+            httpRequest.setUrl(urlBuilder.setScheme(protocol).toString());
         }
     }
 }
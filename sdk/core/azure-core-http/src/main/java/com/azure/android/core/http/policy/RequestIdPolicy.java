@@ -3,9 +3,8 @@
 
 package com.azure.android.core.http.policy;
 
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 import com.azure.android.core.http.implementation.Util;
 
 import java.util.UUID;
@@ -14,7 +13,7 @@ import java.util.UUID;
  * The pipeline policy that puts a UUID in the request header. Azure uses the request id as
  * the unique identifier for the request.
  */
-public class RequestIdPolicy implements HttpPipelinePolicy {
+public class RequestIdPolicy implements HttpRequestPolicy {
 
     private static final String REQUEST_ID_HEADER = "x-ms-client-request-id";
     private final String requestIdHeaderName;
@@ -36,13 +35,11 @@ public class RequestIdPolicy implements HttpPipelinePolicy {
     }
 
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) {
         String requestId = httpRequest.getHeaders().getValue(requestIdHeaderName);
         if (requestId == null) {
             httpRequest.getHeaders().put(requestIdHeaderName, UUID.randomUUID().toString());
         }
-        chain.processNextPolicy(httpRequest);
     }
 }
 
@@ -0,0 +1,216 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The on-disk tier of the {@link ResponseCachePolicy}, one file per entry, bounded by bytes.
+ *
+ * <p>
+ * The tier is best effort: an entry that cannot be read or written is treated as missing, and the failure
+ * is logged. The entries are tracked in an in-memory index in access order, built from the files once; when
+ * the files exceed the size bound, the least recently used ones are deleted until the files are down to
+ * the low-water mark, so a full tier does not evict on every write. The file contents are read and written
+ * without holding the lock, only the index updates, renames and deletes are done under it.
+ * </p>
+ */
+final class ResponseCacheDiskTier {
+    private static final String FILE_SUFFIX = ".entry";
+    private static final String TEMP_FILE_SUFFIX = ".tmp";
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ClientLogger logger = new ClientLogger(ResponseCacheDiskTier.class);
+    private final File directory;
+    private final long maxBytes;
+    private final long lowWaterBytes;
+    // The file names to their lengths in access order, guarded by 'this', null until the existing files
+    // are indexed.
+    private LinkedHashMap<String, Long> index;
+    // Guarded by 'this'.
+    private long totalBytes;
+
+    ResponseCacheDiskTier(File directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        // The eviction brings the files down to 90% of the size bound.
+        this.lowWaterBytes = maxBytes - maxBytes / 10;
+    }
+
+    ResponseCacheEntry read(String key) {
+        final File file = this.getFile(key);
+        synchronized (this) {
+            // Marks the entry as recently used, a file not in the index is not read at all.
+            if (this.getIndex().get(file.getName()) == null) {
+                return null;
+            }
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            final ResponseCacheEntry entry = ResponseCacheEntry.readFrom(in, key);
+            if (entry != null) {
+                // The modification time orders the files when the index is built again.
+                file.setLastModified(System.currentTimeMillis());
+            }
+            return entry;
+        } catch (FileNotFoundException e) {
+            // Evicted or removed meanwhile.
+            return null;
+        } catch (IOException e) {
+            logger.warning("Failed to read the cached response " + file + ": " + e);
+            return null;
+        }
+    }
+
+    void write(ResponseCacheEntry entry) {
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            logger.warning("Failed to create the response cache directory " + this.directory);
+            return;
+        }
+        final File file = this.getFile(entry.key);
+        final File tempFile;
+        try {
+            // A file of its own, so concurrent writes of the same entry do not interleave.
+            tempFile = File.createTempFile(file.getName(), TEMP_FILE_SUFFIX, this.directory);
+        } catch (IOException e) {
+            logger.warning("Failed to write the cached response " + file + ": " + e);
+            return;
+        }
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tempFile)))) {
+            entry.writeTo(out);
+        } catch (IOException e) {
+            logger.warning("Failed to write the cached response " + file + ": " + e);
+            tempFile.delete();
+            return;
+        }
+        final long length = tempFile.length();
+        synchronized (this) {
+            final Map<String, Long> index = this.getIndex();
+            if (!tempFile.renameTo(file)) {
+                file.delete();
+                if (!tempFile.renameTo(file)) {
+                    logger.warning("Failed to write the cached response " + file);
+                    tempFile.delete();
+                    this.removeFromIndex(file.getName());
+                    return;
+                }
+            }
+            final Long previousLength = index.put(file.getName(), length);
+            this.totalBytes += length - (previousLength == null ? 0 : previousLength);
+            if (this.totalBytes > this.maxBytes) {
+                this.evict();
+            }
+        }
+    }
+
+    synchronized void remove(String key) {
+        final File file = this.getFile(key);
+        this.getIndex();
+        file.delete();
+        this.removeFromIndex(file.getName());
+    }
+
+    synchronized void clear() {
+        final File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (file.getName().endsWith(FILE_SUFFIX) || file.getName().endsWith(TEMP_FILE_SUFFIX)) {
+                    file.delete();
+                }
+            }
+        }
+        this.index = new LinkedHashMap<>(16, 0.75f, true);
+        this.totalBytes = 0;
+    }
+
+    private Map<String, Long> getIndex() {
+        if (this.index == null) {
+            // Built once from the files, the least recently modified first.
+            final File[] files = this.listEntryFiles();
+            Arrays.sort(files, new Comparator<File>() {
+                @Override
+                public int compare(File f1, File f2) {
+                    final long m1 = f1.lastModified();
+                    final long m2 = f2.lastModified();
+                    return m1 < m2 ? -1 : (m1 == m2 ? 0 : 1);
+                }
+            });
+            final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+            long total = 0;
+            for (File file : files) {
+                final long length = file.length();
+                index.put(file.getName(), length);
+                total += length;
+            }
+            this.index = index;
+            this.totalBytes = total;
+        }
+        return this.index;
+    }
+
+    private void removeFromIndex(String fileName) {
+        final Long length = this.index.remove(fileName);
+        if (length != null) {
+            this.totalBytes -= length;
+        }
+    }
+
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> iterator = this.index.entrySet().iterator();
+        while (iterator.hasNext() && this.totalBytes > this.lowWaterBytes) {
+            final Map.Entry<String, Long> indexEntry = iterator.next();
+            final File file = new File(this.directory, indexEntry.getKey());
+            if (file.delete() || !file.exists()) {
+                iterator.remove();
+                this.totalBytes -= indexEntry.getValue();
+            }
+        }
+    }
+
+    private File[] listEntryFiles() {
+        final File[] files = this.directory.listFiles();
+        if (files == null) {
+            return new File[0];
+        }
+        int count = 0;
+        for (File file : files) {
+            if (file.getName().endsWith(FILE_SUFFIX)) {
+                files[count++] = file;
+            }
+        }
+        return Arrays.copyOf(files, count);
+    }
+
+    private File getFile(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(Charset.forName("UTF-8")));
+            final char[] name = new char[digest.length * 2];
+            for (int i = 0; i < digest.length; i++) {
+                name[2 * i] = HEX_DIGITS[(digest[i] >> 4) & 0xF];
+                name[2 * i + 1] = HEX_DIGITS[digest[i] & 0xF];
+            }
+            return new File(this.directory, new String(name) + FILE_SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java and Android runtime supports SHA-1.
+            throw logger.logExceptionAsError(new IllegalStateException(e));
+        }
+    }
+}
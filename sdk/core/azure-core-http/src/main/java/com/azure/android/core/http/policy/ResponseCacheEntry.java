@@ -0,0 +1,329 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+
+import org.threeten.bp.OffsetDateTime;
+import org.threeten.bp.format.DateTimeFormatter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * A response stored by the {@link ResponseCachePolicy}, immutable once created.
+ */
+final class ResponseCacheEntry {
+    private static final int FORMAT_VERSION = 2;
+    // The headers of a 304 (Not Modified) response that update the stored response.
+    private static final String[] REVALIDATION_HEADERS = {"Cache-Control", "Expires", "ETag", "Last-Modified",
+        "Date", "Age"};
+
+    final String key;
+    final int statusCode;
+    // Never modified, the responses served from the entry get a copy.
+    final HttpHeaders headers;
+    final byte[] body;
+    // The values the request had for the headers named by the response's Vary header, absent ones left out.
+    final HttpHeaders varyHeaders;
+    // The wall clock time until which the entry is served without revalidation.
+    final long freshUntilMillis;
+    // true if the response asked to be revalidated before each use (Cache-Control: no-cache).
+    final boolean mustRevalidate;
+
+    private ResponseCacheEntry(String key,
+                               int statusCode,
+                               HttpHeaders headers,
+                               byte[] body,
+                               HttpHeaders varyHeaders,
+                               long freshUntilMillis,
+                               boolean mustRevalidate) {
+        this.key = key;
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+        this.varyHeaders = varyHeaders;
+        this.freshUntilMillis = freshUntilMillis;
+        this.mustRevalidate = mustRevalidate;
+    }
+
+    /**
+     * Creates an entry from a response received from the network.
+     *
+     * @param key The cache key of the request.
+     * @param request The request the response is for.
+     * @param response The response.
+     * @param body The body of the response.
+     * @param nowMillis The current wall clock time.
+     * @return The entry.
+     */
+    static ResponseCacheEntry create(String key,
+                                     HttpRequest request,
+                                     HttpResponse response,
+                                     byte[] body,
+                                     long nowMillis) {
+        final HttpHeaders headers = new HttpHeaders(response.getHeaders());
+        final HttpHeaders varyHeaders = new HttpHeaders();
+        for (String name : getVaryNames(headers.getValue("Vary"))) {
+            final String value = request.getHeaders().getValue(name);
+            if (value != null) {
+                varyHeaders.put(name, value);
+            }
+        }
+        return new ResponseCacheEntry(key,
+            response.getStatusCode(),
+            headers,
+            body,
+            varyHeaders,
+            computeFreshUntil(headers, nowMillis),
+            hasDirective(headers.getValue("Cache-Control"), "no-cache"));
+    }
+
+    /**
+     * Checks whether a response received from the network can be stored.
+     *
+     * <p>
+     * The response to a request carrying credentials is stored only if it is explicitly public, as the cache key
+     * does not tell the callers apart; a response varying on every request ({@code Vary: *}) is never stored.
+     * </p>
+     *
+     * @param request The request the response is for.
+     * @param response The response.
+     * @return true if the response can be stored, false otherwise.
+     */
+    static boolean isCacheable(HttpRequest request, HttpResponse response) {
+        if (response.getStatusCode() != 200) {
+            return false;
+        }
+        final String cacheControl = response.getHeaderValue("Cache-Control");
+        if (hasDirective(cacheControl, "no-store")) {
+            return false;
+        }
+        if (request.getHeaders().getValue("Authorization") != null && !hasDirective(cacheControl, "public")) {
+            return false;
+        }
+        for (String name : getVaryNames(response.getHeaderValue("Vary"))) {
+            if (name.equals("*")) {
+                return false;
+            }
+        }
+        // A response that is never fresh and cannot be revalidated is not worth storing.
+        return response.getHeaderValue("ETag") != null
+            || response.getHeaderValue("Last-Modified") != null
+            || getMaxAgeSeconds(cacheControl) > 0
+            || response.getHeaderValue("Expires") != null;
+    }
+
+    /**
+     * Checks whether the value of a Cache-Control header has the given directive.
+     *
+     * @param cacheControl The Cache-Control header value, may be null.
+     * @param directive The directive in lower case.
+     * @return true if the directive is present, false otherwise.
+     */
+    static boolean hasDirective(String cacheControl, String directive) {
+        if (cacheControl == null) {
+            return false;
+        }
+        for (String token : cacheControl.split(",")) {
+            final String name = token.trim().toLowerCase(Locale.ROOT);
+            if (name.equals(directive) || name.startsWith(directive + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether the entry can be served for a request, i.e. whether the request has the same values as the
+     * stored one for the headers the response varies on.
+     *
+     * @param request The request.
+     * @return true if the entry matches the request, false otherwise.
+     */
+    boolean matches(HttpRequest request) {
+        for (String name : getVaryNames(this.headers.getValue("Vary"))) {
+            final String value = request.getHeaders().getValue(name);
+            final String storedValue = this.varyHeaders.getValue(name);
+            if (value == null ? storedValue != null : !value.equals(storedValue)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the response is meant for a single user ({@code Cache-Control: private}).
+     *
+     * @return true if the response is private, false otherwise.
+     */
+    boolean isPrivate() {
+        return hasDirective(this.headers.getValue("Cache-Control"), "private");
+    }
+
+    boolean isFresh(long nowMillis) {
+        return !this.mustRevalidate && nowMillis < this.freshUntilMillis;
+    }
+
+    boolean canRevalidate() {
+        return this.getETag() != null || this.getLastModified() != null;
+    }
+
+    String getETag() {
+        return this.headers.getValue("ETag");
+    }
+
+    String getLastModified() {
+        return this.headers.getValue("Last-Modified");
+    }
+
+    /**
+     * Gets the approximate memory the entry holds.
+     *
+     * @return The size in bytes.
+     */
+    long getSize() {
+        long size = this.body.length + 2L * this.key.length();
+        for (HttpHeader header : this.headers) {
+            size += 2L * (header.getName().length() + header.getValue().length());
+        }
+        for (HttpHeader header : this.varyHeaders) {
+            size += 2L * (header.getName().length() + header.getValue().length());
+        }
+        return size;
+    }
+
+    /**
+     * Creates the entry the 304 (Not Modified) response to a revalidation of this entry confirmed.
+     *
+     * @param notModified The 304 response.
+     * @param nowMillis The current wall clock time.
+     * @return The entry with the updated headers and freshness.
+     */
+    ResponseCacheEntry revalidated(HttpResponse notModified, long nowMillis) {
+        final HttpHeaders headers = new HttpHeaders(this.headers);
+        for (String name : REVALIDATION_HEADERS) {
+            final String value = notModified.getHeaderValue(name);
+            if (value != null) {
+                headers.put(name, value);
+            }
+        }
+        return new ResponseCacheEntry(this.key,
+            this.statusCode,
+            headers,
+            this.body,
+            this.varyHeaders,
+            computeFreshUntil(headers, nowMillis),
+            hasDirective(headers.getValue("Cache-Control"), "no-cache"));
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(this.key);
+        out.writeInt(this.statusCode);
+        out.writeLong(this.freshUntilMillis);
+        out.writeBoolean(this.mustRevalidate);
+        out.writeInt(this.headers.getSize());
+        for (HttpHeader header : this.headers) {
+            out.writeUTF(header.getName());
+            out.writeUTF(header.getValue());
+        }
+        out.writeInt(this.varyHeaders.getSize());
+        for (HttpHeader header : this.varyHeaders) {
+            out.writeUTF(header.getName());
+            out.writeUTF(header.getValue());
+        }
+        out.writeInt(this.body.length);
+        out.write(this.body);
+    }
+
+    /**
+     * Reads an entry written by {@link #writeTo(DataOutputStream)}.
+     *
+     * @param in The stream to read from.
+     * @param key The expected key of the entry.
+     * @return The entry, null if the stream holds an entry of another format or key.
+     * @throws IOException If reading the stream failed.
+     */
+    static ResponseCacheEntry readFrom(DataInputStream in, String key) throws IOException {
+        if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+            return null;
+        }
+        final int statusCode = in.readInt();
+        final long freshUntilMillis = in.readLong();
+        final boolean mustRevalidate = in.readBoolean();
+        final int headerCount = in.readInt();
+        final HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            headers.put(in.readUTF(), in.readUTF());
+        }
+        final int varyHeaderCount = in.readInt();
+        final HttpHeaders varyHeaders = new HttpHeaders();
+        for (int i = 0; i < varyHeaderCount; i++) {
+            varyHeaders.put(in.readUTF(), in.readUTF());
+        }
+        final byte[] body = new byte[in.readInt()];
+        in.readFully(body);
+        return new ResponseCacheEntry(key, statusCode, headers, body, varyHeaders, freshUntilMillis,
+            mustRevalidate);
+    }
+
+    private static long computeFreshUntil(HttpHeaders headers, long nowMillis) {
+        long freshMillis = getMaxAgeSeconds(headers.getValue("Cache-Control")) * 1000;
+        if (freshMillis < 0) {
+            final String expires = headers.getValue("Expires");
+            if (expires != null) {
+                try {
+                    freshMillis = OffsetDateTime.parse(expires, DateTimeFormatter.RFC_1123_DATE_TIME)
+                        .toEpochSecond() * 1000 - nowMillis;
+                } catch (Exception ignored) {
+                    // An invalid Expires value means the response is already expired.
+                    freshMillis = 0;
+                }
+            }
+        }
+        final String age = headers.getValue("Age");
+        if (age != null && freshMillis > 0) {
+            try {
+                freshMillis -= Long.parseLong(age.trim()) * 1000;
+            } catch (NumberFormatException ignored) {
+                // Ignore an invalid Age.
+            }
+        }
+        return nowMillis + Math.max(0, freshMillis);
+    }
+
+    private static String[] getVaryNames(String vary) {
+        if (vary == null) {
+            return new String[0];
+        }
+        final String[] names = vary.split(",");
+        for (int i = 0; i < names.length; i++) {
+            names[i] = names[i].trim();
+        }
+        return names;
+    }
+
+    private static long getMaxAgeSeconds(String cacheControl) {
+        if (cacheControl == null) {
+            return -1;
+        }
+        for (String token : cacheControl.split(",")) {
+            final String directive = token.trim().toLowerCase(Locale.ROOT);
+            if (directive.startsWith("max-age=")) {
+                try {
+                    return Long.parseLong(directive.substring("max-age=".length()).replace("\"", ""));
+                } catch (NumberFormatException ignored) {
+                    return 0;
+                }
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,439 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.BufferedHttpResponse;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.http.util.ByteArrayPool;
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The pipeline policy that caches the responses to GET requests, keyed by the method and the URL, and matched on
+ * the request headers named by the response's {@code Vary} header.
+ *
+ * <p>
+ * The responses are kept in an in-memory LRU tier bounded by bytes and, optionally, in an on-disk tier that
+ * survives the process. A response is stored if it is a 200 (OK) without {@code Cache-Control: no-store}, and is
+ * either fresh for some time ({@code Cache-Control: max-age} or {@code Expires}) or can be revalidated
+ * ({@code ETag} or {@code Last-Modified}). While fresh, the stored response is returned without sending the
+ * request; once stale, the request is sent with {@code If-None-Match} / {@code If-Modified-Since}, and a
+ * 304 (Not Modified) is turned into the stored response without downloading the body again. A response whose
+ * body turns out larger than the in-memory tier is passed through as is, after reading no more than that bound.
+ * </p>
+ *
+ * <p>
+ * The response to a request carrying an {@code Authorization} header is stored only if it is marked
+ * {@code Cache-Control: public}, so a response fetched with the credentials of one caller is never served to
+ * another; a response marked {@code Cache-Control: private} is kept in the in-memory tier only, never on disk.
+ * </p>
+ *
+ * <p>
+ * The responses served from the cache go through the policies before this policy like the responses from the
+ * network. Place the policy after the {@link RetryPolicy}, so revalidations are retried, and after the policies
+ * setting the headers the requests are matched on, e.g. the credential policy. A request that is not a GET
+ * (e.g. a POST or a DELETE) removes the cached response for its URL, since it likely changes the resource.
+ * </p>
+ */
+public class ResponseCachePolicy implements HttpPipelinePolicy {
+    private final ClientLogger logger = new ClientLogger(ResponseCachePolicy.class);
+    private final long maxMemoryBytes;
+    private final ResponseCacheDiskTier diskTier;
+    // Guarded by 'memoryEntries'. In access order, the eldest entry is the least recently used.
+    private final LinkedHashMap<String, ResponseCacheEntry> memoryEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes;
+
+    /**
+     * Creates a {@link ResponseCachePolicy} with an in-memory tier only.
+     *
+     * @param maxMemoryBytes The maximum number of bytes the in-memory tier holds.
+     * @throws IllegalArgumentException If the {@code maxMemoryBytes} is not positive.
+     */
+    public ResponseCachePolicy(long maxMemoryBytes) {
+        if (maxMemoryBytes <= 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxMemoryBytes' must be positive."));
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskTier = null;
+    }
+
+    /**
+     * Creates a {@link ResponseCachePolicy} with an in-memory tier and an on-disk tier.
+     *
+     * <p>
+     * The directory must be used by a single policy, e.g. a sub-directory of the app's cache directory.
+     * </p>
+     *
+     * @param maxMemoryBytes The maximum number of bytes the in-memory tier holds.
+     * @param directory The directory the on-disk tier stores the responses in, created if missing.
+     * @param maxDiskBytes The maximum number of bytes the on-disk tier holds.
+     * @throws IllegalArgumentException If the {@code maxMemoryBytes} or the {@code maxDiskBytes} is not positive.
+     */
+    public ResponseCachePolicy(long maxMemoryBytes, File directory, long maxDiskBytes) {
+        Util.requireNonNull(directory, "'directory' cannot be null.");
+        if (maxMemoryBytes <= 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxMemoryBytes' must be positive."));
+        }
+        if (maxDiskBytes <= 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxDiskBytes' must be positive."));
+        }
+        this.maxMemoryBytes = maxMemoryBytes;
+        this.diskTier = new ResponseCacheDiskTier(directory, maxDiskBytes);
+    }
+
+    /**
+     * Removes all the cached responses, from both tiers.
+     */
+    public void clear() {
+        synchronized (this.memoryEntries) {
+            this.memoryEntries.clear();
+            this.memoryBytes = 0;
+        }
+        if (this.diskTier != null) {
+            this.diskTier.clear();
+        }
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final HttpRequest httpRequest = chain.getRequest();
+        final HttpMethod httpMethod = httpRequest.getHttpMethod();
+        if (httpMethod != HttpMethod.GET) {
+            if (httpMethod != HttpMethod.HEAD && httpMethod != HttpMethod.OPTIONS
+                && httpMethod != HttpMethod.TRACE) {
+                this.remove(getKey(HttpMethod.GET, httpRequest));
+            }
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+        final HttpHeaders requestHeaders = httpRequest.getHeaders();
+        final String requestCacheControl = requestHeaders.getValue("Cache-Control");
+        if (ResponseCacheEntry.hasDirective(requestCacheControl, "no-store")
+            || requestHeaders.getValue("If-None-Match") != null
+            || requestHeaders.getValue("If-Modified-Since") != null) {
+            // The caller does not want the cache or handles the revalidation itself.
+            chain.processNextPolicy(httpRequest);
+            return;
+        }
+
+        final String key = getKey(httpMethod, httpRequest);
+        ResponseCacheEntry entry = this.get(key);
+        if (entry != null && !entry.matches(httpRequest)) {
+            // Stored for a request with other values of the headers the response varies on.
+            entry = null;
+        }
+        if (entry != null
+            && entry.isFresh(System.currentTimeMillis())
+            && !ResponseCacheEntry.hasDirective(requestCacheControl, "no-cache")) {
+            chain.completed(new CachedHttpResponse(httpRequest, entry));
+            return;
+        }
+
+        final ResponseCacheEntry matchedEntry = entry;
+        final ResponseCacheEntry staleEntry = entry != null && entry.canRevalidate() ? entry : null;
+        if (staleEntry != null) {
+            if (staleEntry.getETag() != null) {
+                httpRequest.setHeader("If-None-Match", staleEntry.getETag());
+            }
+            if (staleEntry.getLastModified() != null) {
+                httpRequest.setHeader("If-Modified-Since", staleEntry.getLastModified());
+            }
+        }
+        chain.processNextPolicy(httpRequest, new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                if (staleEntry != null) {
+                    removeConditionalHeaders(httpRequest);
+                    if (response.getStatusCode() == 304) {
+                        final ResponseCacheEntry revalidatedEntry = staleEntry.revalidated(response,
+                            System.currentTimeMillis());
+                        response.close();
+                        put(revalidatedEntry);
+                        return completer.completed(new CachedHttpResponse(httpRequest, revalidatedEntry));
+                    }
+                }
+                if (!ResponseCacheEntry.isCacheable(httpRequest, response) || isTooLarge(response)) {
+                    if (matchedEntry != null) {
+                        // The resource changed, the stored response is outdated.
+                        remove(key);
+                    }
+                    return completer.completed(response);
+                }
+                // Counted against the bound as it is read, the Content-Length may be missing.
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                final InputStream content;
+                final boolean complete;
+                try {
+                    content = response.getBody();
+                    complete = readAtMost(content, buffer, maxMemoryBytes);
+                } catch (IOException | RuntimeException e) {
+                    response.close();
+                    return completer.completedError(e);
+                }
+                if (!complete) {
+                    if (matchedEntry != null) {
+                        remove(key);
+                    }
+                    return completer.completed(new PassThroughHttpResponse(response, buffer.toByteArray(), content));
+                }
+                response.close();
+                final ResponseCacheEntry newEntry = ResponseCacheEntry.create(key, httpRequest, response,
+                    buffer.toByteArray(), System.currentTimeMillis());
+                put(newEntry);
+                return completer.completed(new CachedHttpResponse(httpRequest, newEntry));
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                if (staleEntry != null) {
+                    removeConditionalHeaders(httpRequest);
+                }
+                return completer.completedError(error);
+            }
+        });
+    }
+
+    private static String getKey(HttpMethod httpMethod, HttpRequest httpRequest) {
+        return httpMethod + " " + httpRequest.getUrl();
+    }
+
+    private static void removeConditionalHeaders(HttpRequest httpRequest) {
+        httpRequest.getHeaders().remove("If-None-Match");
+        httpRequest.getHeaders().remove("If-Modified-Since");
+    }
+
+    private boolean isTooLarge(HttpResponse response) {
+        final String contentLength = response.getHeaderValue("Content-Length");
+        if (contentLength == null) {
+            return false;
+        }
+        try {
+            return Long.parseLong(contentLength.trim()) > this.maxMemoryBytes;
+        } catch (NumberFormatException ignored) {
+            return false;
+        }
+    }
+
+    /**
+     * Reads a stream until its end, or until the buffer holds more than the given number of bytes.
+     *
+     * @param inputStream The stream, not closed by this method.
+     * @param buffer The buffer to read the stream into.
+     * @param maxBytes The number of bytes to read at most before giving up.
+     * @return true if the end of the stream was reached, false if the stream holds more than maxBytes.
+     * @throws IOException If reading the stream failed.
+     */
+    private static boolean readAtMost(InputStream inputStream, ByteArrayOutputStream buffer, long maxBytes)
+        throws IOException {
+        final byte[] segment = ByteArrayPool.getDefault().acquire();
+        try {
+            int len;
+            while ((len = inputStream.read(segment)) != -1) {
+                buffer.write(segment, 0, len);
+                if (buffer.size() > maxBytes) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            ByteArrayPool.getDefault().release(segment);
+        }
+    }
+
+    private ResponseCacheEntry get(String key) {
+        synchronized (this.memoryEntries) {
+            final ResponseCacheEntry entry = this.memoryEntries.get(key);
+            if (entry != null || this.diskTier == null) {
+                return entry;
+            }
+        }
+        final ResponseCacheEntry entry = this.diskTier.read(key);
+        if (entry != null) {
+            this.putInMemory(entry);
+        }
+        return entry;
+    }
+
+    private void put(ResponseCacheEntry entry) {
+        this.putInMemory(entry);
+        if (this.diskTier != null) {
+            if (entry.isPrivate()) {
+                // A private response does not outlive the process, drop a previous response stored on disk.
+                this.diskTier.remove(entry.key);
+            } else {
+                this.diskTier.write(entry);
+            }
+        }
+    }
+
+    private void putInMemory(ResponseCacheEntry entry) {
+        final long size = entry.getSize();
+        synchronized (this.memoryEntries) {
+            final ResponseCacheEntry previous = this.memoryEntries.remove(entry.key);
+            if (previous != null) {
+                this.memoryBytes -= previous.getSize();
+            }
+            if (size > this.maxMemoryBytes) {
+                return;
+            }
+            this.memoryEntries.put(entry.key, entry);
+            this.memoryBytes += size;
+            final Iterator<Map.Entry<String, ResponseCacheEntry>> eldest = this.memoryEntries.entrySet().iterator();
+            while (this.memoryBytes > this.maxMemoryBytes && eldest.hasNext()) {
+                this.memoryBytes -= eldest.next().getValue().getSize();
+                eldest.remove();
+            }
+        }
+    }
+
+    private void remove(String key) {
+        synchronized (this.memoryEntries) {
+            final ResponseCacheEntry previous = this.memoryEntries.remove(key);
+            if (previous != null) {
+                this.memoryBytes -= previous.getSize();
+            }
+        }
+        if (this.diskTier != null) {
+            this.diskTier.remove(key);
+        }
+    }
+
+    /**
+     * The response served from a cache entry.
+     */
+    private static final class CachedHttpResponse extends HttpResponse {
+        private final ResponseCacheEntry entry;
+
+        CachedHttpResponse(HttpRequest request, ResponseCacheEntry entry) {
+            super(request);
+            this.entry = entry;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.entry.statusCode;
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return this.entry.headers.getValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return new HttpHeaders(this.entry.headers);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(this.entry.body);
+        }
+
+        @Override
+        public ByteBuffer getBodyAsByteBuffer() {
+            // Read-only instead of a copy, the entry is shared by all the responses served from it. The buffer
+            // is not array-backed then, a consumer needing the array, e.g. JacksonSerder, copies it once.
+            return ByteBuffer.wrap(this.entry.body).asReadOnlyBuffer();
+        }
+
+        @Override
+        public byte[] getBodyAsByteArray() {
+            // A copy, the entry is shared by all the responses served from it.
+            return this.entry.body.clone();
+        }
+
+        @Override
+        public String getBodyAsString() {
+            return new BufferedHttpResponse(this).getBodyAsString();
+        }
+
+        @Override
+        public String getBodyAsString(Charset charset) {
+            return new String(this.entry.body, charset);
+        }
+    }
+
+    /**
+     * A response too large to cache, passed through with the part of the body already read put back in front
+     * of the rest.
+     */
+    private static final class PassThroughHttpResponse extends HttpResponse {
+        private final HttpResponse innerHttpResponse;
+        private final InputStream body;
+        private BufferedHttpResponse bufferedHttpResponse;
+
+        PassThroughHttpResponse(HttpResponse innerHttpResponse, byte[] readBytes, InputStream rest) {
+            super(innerHttpResponse.getRequest());
+            this.innerHttpResponse = innerHttpResponse;
+            this.body = new SequenceInputStream(new ByteArrayInputStream(readBytes), rest);
+        }
+
+        @Override
+        public int getStatusCode() {
+            return this.innerHttpResponse.getStatusCode();
+        }
+
+        @Override
+        public String getHeaderValue(String name) {
+            return this.innerHttpResponse.getHeaderValue(name);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return this.innerHttpResponse.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return this.body;
+        }
+
+        @Override
+        public byte[] getBodyAsByteArray() {
+            return this.getBufferedHttpResponse().getBodyAsByteArray();
+        }
+
+        @Override
+        public String getBodyAsString() {
+            return this.getBufferedHttpResponse().getBodyAsString();
+        }
+
+        @Override
+        public String getBodyAsString(Charset charset) {
+            return this.getBufferedHttpResponse().getBodyAsString(charset);
+        }
+
+        @Override
+        public void close() {
+            this.innerHttpResponse.close();
+        }
+
+        private synchronized BufferedHttpResponse getBufferedHttpResponse() {
+            if (this.bufferedHttpResponse == null) {
+                // Reads the body through getBody(), so the bytes already read come first.
+                this.bufferedHttpResponse = new BufferedHttpResponse(this);
+            }
+            return this.bufferedHttpResponse;
+        }
+    }
+}
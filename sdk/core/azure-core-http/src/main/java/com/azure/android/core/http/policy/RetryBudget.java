@@ -0,0 +1,102 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The budget limiting the retries of the {@link RetryPolicy} to a percentage of the successful requests.
+ *
+ * <p>
+ * Retrying every failed request independently multiplies the load on a service by the number of retries,
+ * exactly when the service is the weakest, e.g. during a partial outage. With a budget, each successful
+ * request earns a fraction of a retry and each retry spends a whole one; once the budget is spent, the
+ * {@link RetryPolicy} completes with the failed result right away instead of retrying. Share a budget between
+ * the pipelines calling the same service, or across the process, to cap the retries to that service.
+ * </p>
+ */
+public class RetryBudget {
+    // The budget is counted in hundredths of a retry, each successful request adds the retry percentage.
+    private static final int RETRY_COST = 100;
+    private static final int DEFAULT_RETRY_PERCENT = 10;
+    private static final int DEFAULT_MAX_RETRY_BURST = 10;
+
+    private final ClientLogger logger = new ClientLogger(RetryBudget.class);
+    private final int retryPercent;
+    private final int maxBudget;
+    private final AtomicInteger budget;
+
+    /**
+     * Creates a {@link RetryBudget} with default settings.
+     *
+     * <p>
+     * The default budget allows retries for 10% of the successful requests, and at most 10 retries in a burst,
+     * the budget starts full.
+     * </p>
+     */
+    public RetryBudget() {
+        this(DEFAULT_RETRY_PERCENT, DEFAULT_MAX_RETRY_BURST);
+    }
+
+    /**
+     * Creates a {@link RetryBudget}.
+     *
+     * @param retryPercent The number of retries allowed as a percentage of the successful requests, from 0 to 100.
+     * @param maxRetryBurst The maximum number of retries the budget accumulates, the budget starts full.
+     * @throws IllegalArgumentException If the {@code retryPercent} is not between 0 and 100 or the
+     *     {@code maxRetryBurst} is negative.
+     */
+    public RetryBudget(int retryPercent, int maxRetryBurst) {
+        if (retryPercent < 0 || retryPercent > 100) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'retryPercent' must be between 0 and 100."));
+        }
+        if (maxRetryBurst < 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'maxRetryBurst' cannot be negative."));
+        }
+        this.retryPercent = retryPercent;
+        this.maxBudget = maxRetryBurst * RETRY_COST;
+        this.budget = new AtomicInteger(this.maxBudget);
+    }
+
+    /**
+     * Gets the number of retries the budget currently allows.
+     *
+     * @return The number of retries.
+     */
+    public int getAvailableRetries() {
+        return this.budget.get() / RETRY_COST;
+    }
+
+    /**
+     * Credits the budget for a successful request.
+     */
+    void deposit() {
+        int current;
+        do {
+            current = this.budget.get();
+            if (current >= this.maxBudget) {
+                return;
+            }
+        } while (!this.budget.compareAndSet(current, Math.min(this.maxBudget, current + this.retryPercent)));
+    }
+
+    /**
+     * Spends a retry from the budget, if the budget allows.
+     *
+     * @return true if the retry is allowed, false if the budget is spent.
+     */
+    boolean tryWithdraw() {
+        int current;
+        do {
+            current = this.budget.get();
+            if (current < RETRY_COST) {
+                return false;
+            }
+        } while (!this.budget.compareAndSet(current, current - RETRY_COST));
+        return true;
+    }
+}
@@ -3,11 +3,16 @@
 
 package com.azure.android.core.http.policy;
 
+import com.azure.android.core.http.HttpCallDeadline;
 import com.azure.android.core.http.HttpPipelinePolicy;
 import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.http.NextPolicyCallback;
 import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.exception.CircuitBreakerOpenException;
+import com.azure.android.core.util.Option;
 
 import org.threeten.bp.Duration;
 import org.threeten.bp.OffsetDateTime;
@@ -22,6 +27,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class RetryPolicy implements HttpPipelinePolicy {
     private final RetryStrategy retryStrategy;
+    private final RetryBudget retryBudget;
 
     /**
      * Creates {@link RetryPolicy} with the provided {@link RetryStrategy}.
@@ -29,7 +35,23 @@ public class RetryPolicy implements HttpPipelinePolicy {
      * @param retryStrategy The {@link RetryStrategy} used for retries.
      */
     public RetryPolicy(RetryStrategy retryStrategy) {
+        this(retryStrategy, null);
+    }
+
+    /**
+     * Creates {@link RetryPolicy} with the provided {@link RetryStrategy}, limiting the retries with the provided
+     * {@link RetryBudget}.
+     *
+     * <p>
+     * Once the budget is spent, a request that would be retried completes with its failed result right away.
+     * </p>
+     *
+     * @param retryStrategy The {@link RetryStrategy} used for retries.
+     * @param retryBudget The {@link RetryBudget} the retries spend, null to retry without a budget.
+     */
+    public RetryPolicy(RetryStrategy retryStrategy, RetryBudget retryBudget) {
         this.retryStrategy = retryStrategy;
+        this.retryBudget = retryBudget;
     }
 
     /**
@@ -84,12 +106,12 @@ public class RetryPolicy implements HttpPipelinePolicy {
         chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
             @Override
             public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
-                return retryIfRequired(chain, response, null, completer, 0);
+                return retryIfRequired(chain, response, null, completer, 0, null);
             }
 
             @Override
             public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
-                return retryIfRequired(chain, null, error, completer, 0);
+                return retryIfRequired(chain, null, error, completer, 0, null);
             }
         });
     }
@@ -98,7 +120,8 @@ public class RetryPolicy implements HttpPipelinePolicy {
                                  HttpResponse response,
                                  Throwable error,
                                  PolicyCompleter completer,
-                                 final int retryAttempts) {
+                                 final int retryAttempts,
+                                 Duration previousDelay) {
         if (chain.getCancellationToken().isCancellationRequested()) {
             if (response != null) {
                 response.close();
@@ -106,8 +129,12 @@ public class RetryPolicy implements HttpPipelinePolicy {
             return completer.completedError(new IOException("Canceled."));
         }
 
-        if (!shouldRetry(response, error, retryAttempts)) {
+        if (!shouldRetry(chain.getRequest(), response, error, retryAttempts)) {
             if (response != null) {
+                if (this.retryBudget != null && !this.retryStrategy.shouldRetry(response, null, retryAttempts)) {
+                    // A successful request earns its share of the retries.
+                    this.retryBudget.deposit();
+                }
                 return completer.completed(response);
             } else {
                 if (retryAttempts >= this.retryStrategy.getMaxRetries()) {
@@ -126,27 +153,39 @@ public class RetryPolicy implements HttpPipelinePolicy {
             Duration delay = null;
             Throwable userError = null;
             try {
-                delay = calculateRetryDelay(response, null, retryAttempts);
+                delay = calculateRetryDelay(response, error, retryAttempts, previousDelay);
             } catch (Throwable e) {
                 userError = e;
-            } finally {
+            }
+
+            if (userError == null
+                && (!isRetryWithinDeadline(chain, delay)
+                || (this.retryBudget != null && !this.retryBudget.tryWithdraw()))) {
+                // The retry would start after the deadline of the call, or the retry budget is spent,
+                // complete with the last result.
                 if (response != null) {
-                    response.close();
+                    return completer.completed(response);
+                } else {
+                    return completer.completedError(error);
                 }
             }
+            if (response != null) {
+                response.close();
+            }
 
             if (userError != null) {
                 return completer.completedError(userError);
             } else {
+                final Duration retryDelay = delay;
                 chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
                     @Override
                     public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
-                        return retryIfRequired(chain, response, null, completer, retryAttempts + 1);
+                        return retryIfRequired(chain, response, null, completer, retryAttempts + 1, retryDelay);
                     }
 
                     @Override
                     public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
-                        return retryIfRequired(chain, null, error, completer, retryAttempts + 1);
+                        return retryIfRequired(chain, null, error, completer, retryAttempts + 1, retryDelay);
                     }
                 }, delay.toMillis(), TimeUnit.MILLISECONDS);
                 return completer.defer();
@@ -154,6 +193,21 @@ public class RetryPolicy implements HttpPipelinePolicy {
         }
     }
 
+    /**
+     * Checks whether a retry after the given delay starts before the {@link HttpCallDeadline} of the call, if any.
+     *
+     * @param chain The chain of the call.
+     * @param delay The delay before the retry.
+     * @return true if the call has no deadline or the retry starts before it, false otherwise.
+     */
+    private static boolean isRetryWithinDeadline(HttpPipelinePolicyChain chain, Duration delay) {
+        final Option<Object> deadline = chain.getContext().getData(HttpCallDeadline.KEY);
+        if (!deadline.isInitialized() || !(deadline.getValue() instanceof HttpCallDeadline)) {
+            return true;
+        }
+        return delay.toMillis() < ((HttpCallDeadline) deadline.getValue()).getRemaining(TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Determines the delay duration that should be waited before retrying.
      *
@@ -163,46 +217,74 @@ public class RetryPolicy implements HttpPipelinePolicy {
      * @return The delay duration.
      */
     public Duration calculateRetryDelay(HttpResponse response, Throwable exception, int retryAttempts) {
+        return this.calculateRetryDelay(response, exception, retryAttempts, null);
+    }
+
+    private Duration calculateRetryDelay(HttpResponse response,
+                                         Throwable exception,
+                                         int retryAttempts,
+                                         Duration previousDelay) {
         if (exception != null) {
-            return this.retryStrategy.calculateRetryDelay(null, exception, retryAttempts);
+            return this.retryStrategy.calculateRetryDelay(null, exception, retryAttempts, previousDelay);
         } else {
-            final int code = response.getStatusCode();
-            if (code == 429) {
-                // Too Many Requests.
-                // https://docs.microsoft.com/en-us/rest/api/cosmos-db/common-cosmosdb-rest-response-headers
-                final String retryAfterHeader = response.getHeaderValue("x-ms-retry-after-ms");
-                if (retryAfterHeader != null) {
-                    return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.MILLIS);
-                }
+            final Duration retryAfter = getRetryAfter(response);
+            if (retryAfter != null) {
+                return retryAfter;
             }
+            return this.retryStrategy.calculateRetryDelay(response, null, retryAttempts, previousDelay);
+        }
+    }
 
-            if (code == 429 || code == 503) {
-                // Too Many Requests OR Service Unavailable
-                // https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Retry-After
-                final String retryAfterHeader = response.getHeaderValue("Retry-After");
-                if (retryAfterHeader != null) {
-                    try {
-                        return Duration.between(OffsetDateTime.now(),
-                            OffsetDateTime.parse(retryAfterHeader, DateTimeFormatter.RFC_1123_DATE_TIME));
-                    } catch (Exception ignored) {
-                        return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.SECONDS);
-                    }
+    /**
+     * Gets the delay a 429 (Too Many Requests) or 503 (Service Unavailable) response asks to wait before
+     * sending another request.
+     *
+     * @param response The HTTP response.
+     * @return The delay, null if the response does not advertise one.
+     */
+    static Duration getRetryAfter(HttpResponse response) {
+        final int code = response.getStatusCode();
+        if (code == 429) {
+            // Too Many Requests.
+            // https://docs.microsoft.com/en-us/rest/api/cosmos-db/common-cosmosdb-rest-response-headers
+            final String retryAfterHeader = response.getHeaderValue("x-ms-retry-after-ms");
+            if (retryAfterHeader != null) {
+                return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.MILLIS);
+            }
+        }
+
+        if (code == 429 || code == 503) {
+            // Too Many Requests OR Service Unavailable
+            // https://developer.mozilla.org/en-US/docs/Web/HTTP/Headers/Retry-After
+            final String retryAfterHeader = response.getHeaderValue("Retry-After");
+            if (retryAfterHeader != null) {
+                try {
+                    return Duration.between(OffsetDateTime.now(),
+                        OffsetDateTime.parse(retryAfterHeader, DateTimeFormatter.RFC_1123_DATE_TIME));
+                } catch (Exception ignored) {
+                    return Duration.of(Integer.parseInt(retryAfterHeader), ChronoUnit.SECONDS);
                 }
             }
-            return this.retryStrategy.calculateRetryDelay(response, null, retryAttempts);
         }
+        return null;
     }
 
     /**
      * Determines any retry should be performed.
      *ß
+     * @param httpRequest The HTTP request.
      * @param response The HTTP response.
      * @param error The pipeline exception, if any.
      * @param retryAttempts The number of retry attempts so far made.
      * @return True to retry, false to exit retry loop.
      */
-    private boolean shouldRetry(HttpResponse response, Throwable error, int retryAttempts) {
-        return retryAttempts < this.retryStrategy.getMaxRetries()
+    private boolean shouldRetry(HttpRequest httpRequest, HttpResponse response, Throwable error, int retryAttempts) {
+        final HttpRequestBody body = httpRequest.getRequestBody();
+        // An open circuit fails every attempt until it closes, retrying would only add load.
+        return !(error instanceof CircuitBreakerOpenException)
+            // A streamed body was consumed by the first attempt.
+            && (body == null || body.isReplayable())
+            && retryAttempts < this.retryStrategy.getMaxRetries()
             && this.retryStrategy.shouldRetry(response, error, retryAttempts);
     }
 }
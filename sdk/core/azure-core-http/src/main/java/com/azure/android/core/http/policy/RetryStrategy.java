@@ -57,4 +57,26 @@ public interface RetryStrategy {
      * @return The delay duration.
      */
     Duration calculateRetryDelay(HttpResponse response, Throwable error, int retryAttempts);
+
+    /**
+     * Determines the delay duration that should be waited before retrying, given the delay waited before
+     * the previous retry of the same request.
+     *
+     * <p>
+     * The default implementation ignores the previous delay and calls
+     * {@link #calculateRetryDelay(HttpResponse, Throwable, int)}.
+     * </p>
+     *
+     * @param response The HTTP response.
+     * @param error The pipeline exception, if any.
+     * @param retryAttempts The number of retry attempts so far made.
+     * @param previousDelay The delay waited before the previous retry, null before the first retry.
+     * @return The delay duration.
+     */
+    default Duration calculateRetryDelay(HttpResponse response,
+                                         Throwable error,
+                                         int retryAttempts,
+                                         Duration previousDelay) {
+        return this.calculateRetryDelay(response, error, retryAttempts);
+    }
 }
@@ -0,0 +1,200 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.implementation.Util;
+import com.azure.android.core.logging.ClientLogger;
+
+import org.threeten.bp.Duration;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The coordinator that paces the requests to each host, shared by the {@link ThrottlingPolicy} of every
+ * pipeline calling the same services.
+ *
+ * <p>
+ * When a host throttles a request, with a 429 (Too Many Requests) or 503 (Service Unavailable) response
+ * advertising a {@code Retry-After} or {@code x-ms-retry-after-ms} delay, the dispatch of all the requests to
+ * that host is paused for the advertised delay, so the requests in flight and the new ones do not hit the
+ * throttled service only to get throttled in turn.
+ * </p>
+ *
+ * <p>
+ * Optionally, a token bucket per host paces the requests on the client side, before the service throttles.
+ * </p>
+ */
+public class ThrottlingCoordinator {
+    private final ClientLogger logger = new ClientLogger(ThrottlingCoordinator.class);
+    private final double permitsPerNano;
+    private final int burst;
+    private final ConcurrentHashMap<String, HostThrottle> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a {@link ThrottlingCoordinator} that only honors the delays advertised by the services.
+     */
+    public ThrottlingCoordinator() {
+        this.permitsPerNano = 0;
+        this.burst = 0;
+    }
+
+    /**
+     * Creates a {@link ThrottlingCoordinator} that also limits the rate of the requests to each host.
+     *
+     * @param requestsPerSecond The sustained rate of the requests to a host.
+     * @param burst The number of requests to a host that can be sent at once after a calm period.
+     * @throws IllegalArgumentException If the {@code requestsPerSecond} is not positive or the {@code burst}
+     *     is less than 1.
+     */
+    public ThrottlingCoordinator(double requestsPerSecond, int burst) {
+        if (!(requestsPerSecond > 0)) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'requestsPerSecond' must be positive."));
+        }
+        if (burst < 1) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'burst' cannot be less than 1."));
+        }
+        this.permitsPerNano = requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+    }
+
+    /**
+     * Pauses the dispatch of the requests to a host.
+     *
+     * <p>
+     * A shorter pause than the one in effect does not shorten it.
+     * </p>
+     *
+     * @param host The host.
+     * @param duration The time to pause for.
+     */
+    public void pause(String host, Duration duration) {
+        Util.requireNonNull(host, "'host' cannot be null.");
+        Util.requireNonNull(duration, "'duration' cannot be null.");
+        if (duration.isNegative() || duration.isZero()) {
+            return;
+        }
+        this.getHostThrottle(host).pauseUntil(System.nanoTime() + duration.toNanos());
+    }
+
+    /**
+     * Gets the remaining time the dispatch of the requests to a host is paused for.
+     *
+     * @param host The host.
+     * @return The remaining pause, {@link Duration#ZERO} if the host is not paused.
+     */
+    public Duration getRemainingPause(String host) {
+        final HostThrottle hostThrottle = this.hosts.get(host);
+        if (hostThrottle == null) {
+            return Duration.ZERO;
+        }
+        return Duration.ofNanos(hostThrottle.getRemainingPauseNanos(System.nanoTime()));
+    }
+
+    /**
+     * Reserves the dispatch of a request to a host.
+     *
+     * @param host The host.
+     * @return The time in nanoseconds to wait before dispatching the request.
+     */
+    long reserve(String host) {
+        return this.getHostThrottle(host).reserve(System.nanoTime());
+    }
+
+    /**
+     * Pauses the host if the response throttles the request.
+     *
+     * @param host The host the response is from.
+     * @param response The response.
+     */
+    void onResponse(String host, HttpResponse response) {
+        final int code = response.getStatusCode();
+        if (code != 429 && code != 503) {
+            return;
+        }
+        final Duration retryAfter;
+        try {
+            retryAfter = RetryPolicy.getRetryAfter(response);
+        } catch (NumberFormatException ignored) {
+            // A malformed delay, leave it to the RetryPolicy.
+            return;
+        }
+        if (retryAfter != null) {
+            this.pause(host, retryAfter);
+        }
+    }
+
+    private HostThrottle getHostThrottle(String host) {
+        HostThrottle hostThrottle = this.hosts.get(host);
+        if (hostThrottle == null) {
+            final HostThrottle newHostThrottle = new HostThrottle(this.permitsPerNano, this.burst);
+            hostThrottle = this.hosts.putIfAbsent(host, newHostThrottle);
+            if (hostThrottle == null) {
+                hostThrottle = newHostThrottle;
+            }
+        }
+        return hostThrottle;
+    }
+
+    /**
+     * The pause and the token bucket of a host.
+     */
+    private static final class HostThrottle {
+        private final double permitsPerNano;
+        private final int burst;
+
+        // Guarded by 'this'.
+        private boolean paused;
+        private long pausedUntilNanos;
+        // The tokens go below zero as the requests reserve future tokens, a request waits until its token refills.
+        private double tokens;
+        private long refilledAtNanos;
+
+        HostThrottle(double permitsPerNano, int burst) {
+            this.permitsPerNano = permitsPerNano;
+            this.burst = burst;
+            this.tokens = burst;
+            this.refilledAtNanos = System.nanoTime();
+        }
+
+        synchronized void pauseUntil(long untilNanos) {
+            if (!this.paused || untilNanos - this.pausedUntilNanos > 0) {
+                this.paused = true;
+                this.pausedUntilNanos = untilNanos;
+            }
+        }
+
+        synchronized long getRemainingPauseNanos(long nowNanos) {
+            if (!this.paused) {
+                return 0;
+            }
+            final long remainingNanos = this.pausedUntilNanos - nowNanos;
+            if (remainingNanos <= 0) {
+                this.paused = false;
+                return 0;
+            }
+            return remainingNanos;
+        }
+
+        synchronized long reserve(long nowNanos) {
+            final long pauseNanos = this.getRemainingPauseNanos(nowNanos);
+            if (this.permitsPerNano == 0) {
+                return pauseNanos;
+            }
+            // The tokens refill until the request can be dispatched, at the end of the pause.
+            final long dispatchAtNanos = nowNanos + pauseNanos;
+            if (dispatchAtNanos - this.refilledAtNanos > 0) {
+                this.tokens = Math.min(this.burst,
+                    this.tokens + (dispatchAtNanos - this.refilledAtNanos) * this.permitsPerNano);
+                this.refilledAtNanos = dispatchAtNanos;
+            }
+            this.tokens -= 1;
+            if (this.tokens >= 0) {
+                return pauseNanos;
+            }
+            return pauseNanos + (long) Math.ceil(-this.tokens / this.permitsPerNano);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpPipelinePolicy;
+import com.azure.android.core.http.HttpPipelinePolicyChain;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.NextPolicyCallback;
+import com.azure.android.core.http.PolicyCompleter;
+import com.azure.android.core.http.implementation.Util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pipeline policy that holds the requests to a host while a {@link ThrottlingCoordinator} paces or pauses
+ * that host, and reports the throttling responses to the coordinator.
+ *
+ * <p>
+ * The held requests wait without blocking a thread, the same way the {@link RetryPolicy} waits before a retry.
+ * Share one {@link ThrottlingCoordinator} between the pipelines calling the same services, and place the policy
+ * after the {@link RetryPolicy}, so the retries are held too.
+ * </p>
+ */
+public class ThrottlingPolicy implements HttpPipelinePolicy {
+    private final ThrottlingCoordinator coordinator;
+
+    /**
+     * Creates a {@link ThrottlingPolicy}.
+     *
+     * @param coordinator The coordinator pacing the requests.
+     */
+    public ThrottlingPolicy(ThrottlingCoordinator coordinator) {
+        this.coordinator = Util.requireNonNull(coordinator, "'coordinator' cannot be null.");
+    }
+
+    @Override
+    public void process(HttpPipelinePolicyChain chain) {
+        final String host = chain.getRequest().getUrl().getHost();
+        final long delayNanos = this.coordinator.reserve(host);
+        final NextPolicyCallback callback = new NextPolicyCallback() {
+            @Override
+            public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                coordinator.onResponse(host, response);
+                return completer.completed(response);
+            }
+
+            @Override
+            public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                return completer.completedError(error);
+            }
+        };
+        if (delayNanos > 0) {
+            chain.processNextPolicy(chain.getRequest(), callback, delayNanos, TimeUnit.NANOSECONDS);
+        } else {
+            chain.processNextPolicy(chain.getRequest(), callback);
+        }
+    }
+}
@@ -5,9 +5,8 @@ package com.azure.android.core.http.policy;
 
 import android.os.Build;
 
-import com.azure.android.core.http.HttpPipelinePolicy;
-import com.azure.android.core.http.HttpPipelinePolicyChain;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestPolicy;
 
 /**
  * Pipeline policy that adds "User-Agent" header to a request.
@@ -15,7 +14,7 @@ import com.azure.android.core.http.HttpRequest;
  * The format for the "User-Agent" string is outlined in
  * <a href="https://azure.github.io/azure-sdk/general_azurecore.html#telemetry-policy">Azure Core: Telemetry policy</a>.
  */
-public class UserAgentPolicy implements HttpPipelinePolicy {
+public class UserAgentPolicy implements HttpRequestPolicy {
     private static final int MAX_APPLICATION_ID_LENGTH = 24;
     private static final String INVALID_APPLICATION_ID_LENGTH = "'applicationId' length cannot be greater than "
         + MAX_APPLICATION_ID_LENGTH;
@@ -77,13 +76,11 @@ public class UserAgentPolicy implements HttpPipelinePolicy {
      * Updates the "User-Agent" header with the value supplied at the time of creating policy.
      */
     @Override
-    public void process(HttpPipelinePolicyChain chain) {
-        HttpRequest httpRequest = chain.getRequest();
+    public void processRequest(HttpRequest httpRequest) {
         final String existingUserAgent = httpRequest.getHeaders().getValue("User-Agent");
         httpRequest.getHeaders().put("User-Agent",
             existingUserAgent != null && existingUserAgent.length() != 0
                 ? existingUserAgent + " " + this.userAgent
                 : this.userAgent);
-        chain.processNextPolicy(httpRequest);
     }
 }
@@ -0,0 +1,205 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.util;
+
+import com.azure.android.core.logging.ClientLogger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A bounded pool of fixed-size byte arrays, used as scratch space to read the response bodies.
+ *
+ * <p>
+ * {@link #readAll(InputStream, long)} reads a body into an array of exactly its size: when the expected length is
+ * known (e.g. from {@code Content-Length}) the body is read straight into the result; otherwise it is read into
+ * pooled segments that are copied once into the result and returned to the pool. This replaces the growing
+ * {@link java.io.ByteArrayOutputStream}, which copies its content on each growth and once more on
+ * {@code toByteArray()}.
+ * </p>
+ */
+public final class ByteArrayPool {
+    private static final int DEFAULT_SEGMENT_SIZE = 8 * 1024;
+    private static final int DEFAULT_MAX_POOLED_SEGMENTS = 64;
+    // A larger Content-Length is not trusted to pre-size the result, the body is read in segments instead.
+    private static final long MAX_PRESIZED_LENGTH = 16 * 1024 * 1024;
+    private static final ByteArrayPool DEFAULT = new ByteArrayPool(DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_POOLED_SEGMENTS);
+
+    private final ClientLogger logger = new ClientLogger(ByteArrayPool.class);
+    private final int segmentSize;
+    // Guarded by 'this', a stack so the most recently used (likely cache-hot) segment is reused first.
+    private final byte[][] pooled;
+    private int pooledCount;
+
+    /**
+     * Creates a pool.
+     *
+     * @param segmentSize The size of the arrays.
+     * @param maxPooledSegments The maximum number of arrays kept in the pool.
+     * @throws IllegalArgumentException If the {@code segmentSize} is not positive or the {@code maxPooledSegments}
+     * is negative.
+     */
+    public ByteArrayPool(int segmentSize, int maxPooledSegments) {
+        if (segmentSize <= 0) {
+            throw logger.logExceptionAsError(new IllegalArgumentException("'segmentSize' must be positive."));
+        }
+        if (maxPooledSegments < 0) {
+            throw logger.logExceptionAsError(
+                new IllegalArgumentException("'maxPooledSegments' cannot be negative."));
+        }
+        this.segmentSize = segmentSize;
+        this.pooled = new byte[maxPooledSegments][];
+    }
+
+    /**
+     * Gets the pool shared by the HTTP clients and the buffered responses.
+     *
+     * @return The shared pool, of 8 KB arrays.
+     */
+    public static ByteArrayPool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Gets an array from the pool, or a new one if the pool is empty.
+     *
+     * @return An array of the segment size, with arbitrary content.
+     */
+    public byte[] acquire() {
+        synchronized (this) {
+            if (this.pooledCount > 0) {
+                final byte[] segment = this.pooled[--this.pooledCount];
+                this.pooled[this.pooledCount] = null;
+                return segment;
+            }
+        }
+        return new byte[this.segmentSize];
+    }
+
+    /**
+     * Returns an array to the pool; it must not be used afterwards. An array of another size, or one that does
+     * not fit in the pool, is left to the garbage collector.
+     *
+     * @param segment The array.
+     */
+    public void release(byte[] segment) {
+        if (segment == null || segment.length != this.segmentSize) {
+            return;
+        }
+        synchronized (this) {
+            if (this.pooledCount < this.pooled.length) {
+                this.pooled[this.pooledCount++] = segment;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of arrays currently in the pool.
+     *
+     * @return The number of pooled arrays.
+     */
+    public synchronized int getPooledCount() {
+        return this.pooledCount;
+    }
+
+    /**
+     * Reads a stream to its end.
+     *
+     * @param inputStream The stream, not closed by this method.
+     * @param expectedLength The expected number of bytes (e.g. the {@code Content-Length}), -1 if unknown. A wrong
+     * value costs an extra copy but does not change the result.
+     * @return The content of the stream, in an array of exactly its length.
+     * @throws IOException If reading the stream failed.
+     */
+    public byte[] readAll(InputStream inputStream, long expectedLength) throws IOException {
+        if (expectedLength < 0 || expectedLength > MAX_PRESIZED_LENGTH) {
+            return this.readSegments(inputStream, null, 0, this.acquire());
+        }
+        final byte[] result = new byte[(int) expectedLength];
+        int offset = 0;
+        while (offset < result.length) {
+            final int len = inputStream.read(result, offset, result.length - offset);
+            if (len == -1) {
+                return Arrays.copyOf(result, offset);
+            }
+            offset += len;
+        }
+        final int next = inputStream.read();
+        if (next == -1) {
+            return result;
+        }
+        // The stream is longer than expected, read the rest in segments.
+        final byte[] segment = this.acquire();
+        segment[0] = (byte) next;
+        return this.readSegments(inputStream, result, 1, segment);
+    }
+
+    /**
+     * Parses a {@code Content-Length} header value.
+     *
+     * @param contentLength The header value, may be null.
+     * @return The length, -1 if the value is missing or invalid.
+     */
+    public static long parseContentLength(String contentLength) {
+        if (contentLength == null) {
+            return -1;
+        }
+        try {
+            final long length = Long.parseLong(contentLength.trim());
+            return length >= 0 ? length : -1;
+        } catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    private byte[] readSegments(InputStream inputStream,
+                                byte[] prefix,
+                                int firstSegmentLength,
+                                byte[] firstSegment) throws IOException {
+        final List<byte[]> segments = new ArrayList<>(4);
+        segments.add(firstSegment);
+        try {
+            byte[] segment = firstSegment;
+            int segmentLength = firstSegmentLength;
+            long total = segmentLength;
+            while (true) {
+                if (segmentLength == segment.length) {
+                    segment = this.acquire();
+                    segments.add(segment);
+                    segmentLength = 0;
+                }
+                final int len = inputStream.read(segment, segmentLength, segment.length - segmentLength);
+                if (len == -1) {
+                    break;
+                }
+                segmentLength += len;
+                total += len;
+            }
+            final long resultLength = total + (prefix == null ? 0 : prefix.length);
+            if (resultLength > Integer.MAX_VALUE - 8) {
+                throw new IOException("The content is too large to be held in an array: " + resultLength + " bytes.");
+            }
+            final byte[] result = new byte[(int) resultLength];
+            int offset = 0;
+            if (prefix != null) {
+                System.arraycopy(prefix, 0, result, 0, prefix.length);
+                offset = prefix.length;
+            }
+            final int last = segments.size() - 1;
+            for (int i = 0; i < last; i++) {
+                System.arraycopy(segments.get(i), 0, result, offset, this.segmentSize);
+                offset += this.segmentSize;
+            }
+            System.arraycopy(segments.get(last), 0, result, offset, segmentLength);
+            return result;
+        } finally {
+            for (byte[] segment : segments) {
+                this.release(segment);
+            }
+        }
+    }
+}
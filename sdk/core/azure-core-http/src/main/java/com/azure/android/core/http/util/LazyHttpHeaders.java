@@ -0,0 +1,115 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.util;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * A view of the response headers held by the native structure of an HttpClient.
+ *
+ * <p>
+ * Header values are read from the native structure on demand, which is enough for most responses as only a few
+ * of their headers are ever read. The headers are copied into the collection the first time it is iterated,
+ * modified or asked for an {@link HttpHeader}; from then on the native structure is no longer used. The copy is
+ * published once complete, so a response handed to another thread can be read while it is being copied.
+ * </p>
+ */
+public abstract class LazyHttpHeaders extends HttpHeaders {
+    // Set once the copy is complete, readers on other threads keep reading the native structure until then.
+    private volatile boolean copied;
+    // Guarded by this, set while copyAll runs as it calls back into add.
+    private boolean copying;
+
+    /**
+     * Reads the value of a header from the native structure.
+     *
+     * @param name the case-insensitive name of the header.
+     * @return the value of the header, its values separated by commas if it has several, null if the header isn't
+     * found.
+     */
+    protected abstract String readValue(String name);
+
+    /**
+     * Copies all the headers of the native structure, calling {@link #add(String, String)} once for each value.
+     */
+    protected abstract void copyAll();
+
+    @Override
+    public String getValue(String name) {
+        return this.copied ? super.getValue(name) : readValue(name);
+    }
+
+    @Override
+    public String[] getValues(String name) {
+        if (this.copied) {
+            return super.getValues(name);
+        }
+        final String value = readValue(name);
+        return value == null ? null : value.split(",");
+    }
+
+    @Override
+    public int getSize() {
+        copy();
+        return super.getSize();
+    }
+
+    @Override
+    public HttpHeaders put(String name, String value) {
+        copy();
+        return super.put(name, value);
+    }
+
+    @Override
+    public HttpHeaders add(String name, String value) {
+        copy();
+        return super.add(name, value);
+    }
+
+    @Override
+    public HttpHeader get(String name) {
+        copy();
+        return super.get(name);
+    }
+
+    @Override
+    public HttpHeader remove(String name) {
+        copy();
+        return super.remove(name);
+    }
+
+    @Override
+    public Map<String, String> toMap() {
+        copy();
+        return super.toMap();
+    }
+
+    @Override
+    public Iterator<HttpHeader> iterator() {
+        copy();
+        return super.iterator();
+    }
+
+    private void copy() {
+        if (this.copied) {
+            return;
+        }
+        synchronized (this) {
+            if (this.copied || this.copying) {
+                return;
+            }
+            this.copying = true;
+            try {
+                copyAll();
+            } finally {
+                this.copying = false;
+            }
+            this.copied = true;
+        }
+    }
+}
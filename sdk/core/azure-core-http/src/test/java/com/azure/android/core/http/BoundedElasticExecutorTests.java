@@ -0,0 +1,128 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedElasticExecutorTests {
+    @Test
+    public void rejectsWhenThreadsAndQueueAreFull() throws InterruptedException {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor.Builder()
+            .maxThreads(1)
+            .maxWaitingCalls(1)
+            .build();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> { });
+            assertEquals(1, executor.getPoolSize());
+            assertThrows(HttpCallRejectedException.class, () -> executor.execute(() -> { }));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void runsInCallerThreadWhenFull() {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor.Builder()
+            .maxThreads(1)
+            .maxWaitingCalls(1)
+            .overflowStrategy(BoundedElasticExecutor.OverflowStrategy.CALLER_RUNS)
+            .build();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> { });
+            final AtomicReference<Thread> runner = new AtomicReference<>();
+            executor.execute(() -> runner.set(Thread.currentThread()));
+            assertSame(Thread.currentThread(), runner.get());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void blocksUntilQueueHasRoom() throws InterruptedException {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor.Builder()
+            .maxThreads(1)
+            .maxWaitingCalls(1)
+            .overflowStrategy(BoundedElasticExecutor.OverflowStrategy.BLOCK, 5, TimeUnit.SECONDS)
+            .build();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(3);
+        try {
+            executor.execute(() -> {
+                await(release);
+                completed.countDown();
+            });
+            executor.execute(completed::countDown);
+            new Thread(() -> {
+                sleep(100);
+                release.countDown();
+            }).start();
+            // Blocks until the first call completes and the queued call is taken by the thread.
+            executor.execute(completed::countDown);
+            assertTrue(completed.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void blockTimesOut() {
+        final BoundedElasticExecutor executor = new BoundedElasticExecutor.Builder()
+            .maxThreads(1)
+            .maxWaitingCalls(1)
+            .overflowStrategy(BoundedElasticExecutor.OverflowStrategy.BLOCK, 50, TimeUnit.MILLISECONDS)
+            .build();
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            executor.execute(() -> await(release));
+            executor.execute(() -> { });
+            assertThrows(HttpCallRejectedException.class, () -> executor.execute(() -> { }));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void invalidSettings() {
+        final BoundedElasticExecutor.Builder builder = new BoundedElasticExecutor.Builder();
+        assertThrows(IllegalArgumentException.class, () -> builder.maxThreads(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.maxWaitingCalls(0));
+        assertThrows(IllegalArgumentException.class, () -> builder.keepAlive(0, TimeUnit.SECONDS));
+        assertThrows(IllegalArgumentException.class,
+            () -> builder.overflowStrategy(BoundedElasticExecutor.OverflowStrategy.BLOCK, -1, TimeUnit.SECONDS));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.NoOpHttpClient;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConcurrencyLimitTests {
+    private static final long MILLIS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void aimdGrowsWhenInUseAndBacksOffOnDrop() {
+        final AimdConcurrencyLimit limit = new AimdConcurrencyLimit(10, 2, 12, 0.5);
+
+        // An idle client does not grow the limit.
+        limit.onSample(10 * MILLIS, 1, false);
+        assertEquals(10, limit.getLimit());
+
+        limit.onSample(10 * MILLIS, 5, false);
+        limit.onSample(10 * MILLIS, 10, false);
+        assertEquals(12, limit.getLimit());
+        limit.onSample(10 * MILLIS, 12, false);
+        assertEquals(12, limit.getLimit());
+
+        limit.onSample(10 * MILLIS, 12, true);
+        assertEquals(6, limit.getLimit());
+        limit.onSample(10 * MILLIS, 6, true);
+        limit.onSample(10 * MILLIS, 3, true);
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    public void gradientGrowsWhileLatencyIsSteadyAndShrinksWhenItRises() {
+        final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(10, 1, 100);
+        for (int i = 0; i < 50; i++) {
+            limit.onSample(10 * MILLIS, limit.getLimit(), false);
+        }
+        final int grownLimit = limit.getLimit();
+        assertTrue(grownLimit > 10);
+
+        // The calls take 5 times longer, i.e. the requests queue up.
+        for (int i = 0; i < 10; i++) {
+            limit.onSample(50 * MILLIS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < grownLimit);
+    }
+
+    @Test
+    public void gradientShrinksOnDrop() {
+        final GradientConcurrencyLimit limit = new GradientConcurrencyLimit(20, 1, 100);
+        for (int i = 0; i < 5; i++) {
+            limit.onSample(10 * MILLIS, 20, true);
+        }
+        assertTrue(limit.getLimit() < 12);
+        assertTrue(limit.getLimit() >= 1);
+    }
+
+    @Test
+    public void invalidLimitsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimit(0, 0, 10, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimit(20, 1, 10, 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AimdConcurrencyLimit(5, 1, 10, 1.0));
+        assertThrows(IllegalArgumentException.class, () -> new GradientConcurrencyLimit(5, 6, 10));
+    }
+
+    @Test
+    public void throttledPipelineCallsLowerTheDispatcherLimit() throws InterruptedException {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        dispatcher.setConcurrencyLimit(new AimdConcurrencyLimit(8, 1, 8, 0.5));
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public HttpCallDispatcher getHttpCallDispatcher() {
+                    return dispatcher;
+                }
+
+                @Override
+                public void send(HttpRequest httpRequest,
+                                 CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 429));
+                }
+            })
+            .build();
+
+        for (int i = 0; i < 2; i++) {
+            final CountDownLatch latch = new CountDownLatch(1);
+            pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+                CancellationToken.NONE, new HttpCallback() {
+                    @Override
+                    public void onSuccess(HttpResponse response) {
+                        latch.countDown();
+                    }
+
+                    @Override
+                    public void onError(Throwable error) {
+                        latch.countDown();
+                    }
+                });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        assertEquals(2, dispatcher.getCurrentMaxRunningCalls());
+    }
+}
@@ -0,0 +1,214 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.FixedDelay;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.NoOpHttpClient;
+import com.azure.android.core.http.policy.RetryPolicy;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.temporal.ChronoUnit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCallDeadlineTests {
+    @Test
+    public void relativeDeadlineIsResolvedPerRun() {
+        final HttpCallDeadline deadline = HttpCallDeadline.after(1, TimeUnit.HOURS);
+        assertEquals(1, deadline.getRemaining(TimeUnit.HOURS));
+        assertFalse(deadline.isExpired());
+        assertTrue(deadline.resolve().getRemaining(TimeUnit.MINUTES) >= 59);
+
+        assertTrue(HttpCallDeadline.after(0, TimeUnit.SECONDS).isExpired());
+        assertTrue(HttpCallDeadline.at(System.currentTimeMillis() - 1000).isExpired());
+        assertFalse(HttpCallDeadline.at(System.currentTimeMillis() + 60_000).isExpired());
+    }
+
+    @Test
+    public void farDeadlinesDoNotOverflow() {
+        final HttpCallDeadline relative = HttpCallDeadline.after(Long.MAX_VALUE, TimeUnit.DAYS).resolve();
+        assertFalse(relative.isExpired());
+        assertTrue(relative.getRemaining(TimeUnit.DAYS) > 365 * 100);
+
+        final HttpCallDeadline epoch = HttpCallDeadline.at(Long.MAX_VALUE);
+        assertFalse(epoch.isExpired());
+        assertFalse(epoch.resolve().isExpired());
+        assertTrue(HttpCallDeadline.at(Long.MIN_VALUE).isExpired());
+    }
+
+    @Test
+    public void elapsedDeadlineFailsCallAndCancelsIt() throws InterruptedException {
+        final AtomicReference<CancellationToken> clientToken = new AtomicReference<>();
+        final AtomicReference<HttpCallDeadline> clientDeadline = new AtomicReference<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    // Never completes, as a hanging server.
+                    clientToken.set(cancellationToken);
+                    clientDeadline.set((HttpCallDeadline) httpRequest.getTags().get(HttpCallDeadline.KEY));
+                }
+            })
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final long start = System.nanoTime();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+            new RequestContext(HttpCallDeadline.KEY, HttpCallDeadline.after(200, TimeUnit.MILLISECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 200);
+        assertTrue(error.get() instanceof TimeoutException);
+        assertNotNull(clientDeadline.get());
+        assertTrue(clientToken.get().isCancellationRequested());
+    }
+
+    @Test
+    public void elapsedDeadlineIsNotReportedOnTheTimerThread() throws InterruptedException {
+        final CountDownLatch cancelled = new CountDownLatch(1);
+        final AtomicReference<Thread> cancelThread = new AtomicReference<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    cancellationToken.registerOnCancel(() -> {
+                        cancelThread.set(Thread.currentThread());
+                        cancelled.countDown();
+                    });
+                }
+            })
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+            new RequestContext(HttpCallDeadline.KEY, HttpCallDeadline.after(50, TimeUnit.MILLISECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    callbackThread.set(Thread.currentThread());
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+        // The cancel hooks and the caller's callback may block, they must not hold up the shared timer.
+        assertNotEquals("azure-http-call-timer", callbackThread.get().getName());
+        assertNotEquals("azure-http-call-timer", cancelThread.get().getName());
+    }
+
+    @Test
+    public void retryBeyondDeadlineCompletesWithLastResponse() throws InterruptedException {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 503));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.of(10, ChronoUnit.SECONDS))))
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<HttpResponse> response = new AtomicReference<>();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+            new RequestContext(HttpCallDeadline.KEY, HttpCallDeadline.after(5, TimeUnit.SECONDS)),
+            CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse r) {
+                    response.set(r);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+
+        // The 10 seconds back-off does not fit the 5 seconds deadline, so there is no retry.
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertNull(error.get());
+        assertEquals(503, response.get().getStatusCode());
+        assertEquals(1, sendCount.get());
+    }
+
+    @Test
+    public void callerCancellationStillApplies() throws InterruptedException {
+        final CancellationToken cancellationToken = new CancellationToken();
+        final AtomicReference<CancellationToken> clientToken = new AtomicReference<>();
+        final CountDownLatch sent = new CountDownLatch(1);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken token, HttpCallback httpCallback) {
+                    clientToken.set(token);
+                    sent.countDown();
+                }
+            })
+            .build();
+
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"),
+            new RequestContext(HttpCallDeadline.KEY, HttpCallDeadline.after(1, TimeUnit.HOURS)),
+            cancellationToken,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                }
+            });
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertFalse(clientToken.get().isCancellationRequested());
+        cancellationToken.cancel();
+        assertTrue(clientToken.get().isCancellationRequested());
+    }
+}
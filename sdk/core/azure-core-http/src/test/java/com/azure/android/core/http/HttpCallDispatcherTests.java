@@ -0,0 +1,418 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCallDispatcherTests {
+    @Test
+    public void perHostLimitDoesNotBlockOtherHosts() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(4);
+        dispatcher.setMaxRunningCallsPerHost(2);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        for (int i = 0; i < 3; i++) {
+            enqueue(dispatcher, function, "http://slow.example.com/" + i);
+        }
+        enqueue(dispatcher, function, "http://fast.example.com/0");
+
+        assertEquals(3, function.startedUrls.size());
+        assertEquals("http://slow.example.com/0", function.startedUrls.get(0));
+        assertEquals("http://slow.example.com/1", function.startedUrls.get(1));
+        assertEquals("http://fast.example.com/0", function.startedUrls.get(2));
+
+        // Completing a call to the slow host admits the next waiting call of the same host.
+        function.complete(0);
+        assertEquals(4, function.startedUrls.size());
+        assertEquals("http://slow.example.com/2", function.startedUrls.get(3));
+    }
+
+    @Test
+    public void waitingHostsAreDispatchedRoundRobin() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(1);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        enqueue(dispatcher, function, "http://a.example.com/0");
+        enqueue(dispatcher, function, "http://a.example.com/1");
+        enqueue(dispatcher, function, "http://a.example.com/2");
+        enqueue(dispatcher, function, "http://b.example.com/0");
+        enqueue(dispatcher, function, "http://c.example.com/0");
+
+        for (int i = 0; i < 4; i++) {
+            function.complete(i);
+        }
+
+        assertEquals(5, function.startedUrls.size());
+        assertEquals("http://a.example.com/0", function.startedUrls.get(0));
+        assertEquals("http://a.example.com/1", function.startedUrls.get(1));
+        assertEquals("http://b.example.com/0", function.startedUrls.get(2));
+        assertEquals("http://c.example.com/0", function.startedUrls.get(3));
+        assertEquals("http://a.example.com/2", function.startedUrls.get(4));
+    }
+
+    @Test
+    public void globalLimitAppliesAcrossHosts() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(2);
+        dispatcher.setMaxRunningCallsPerHost(2);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        enqueue(dispatcher, function, "http://a.example.com/0");
+        enqueue(dispatcher, function, "http://b.example.com/0");
+        enqueue(dispatcher, function, "http://c.example.com/0");
+
+        assertEquals(2, function.startedUrls.size());
+        function.complete(1);
+        assertEquals(3, function.startedUrls.size());
+        assertEquals("http://c.example.com/0", function.startedUrls.get(2));
+    }
+
+    @Test
+    public void noPerHostLimitByDefault() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(8);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        for (int i = 0; i < 10; i++) {
+            enqueue(dispatcher, function, "http://a.example.com/" + i);
+        }
+        assertEquals(8, function.startedUrls.size());
+        assertEquals(Integer.MAX_VALUE, dispatcher.getMaxRunningCallsPerHost());
+    }
+
+    @Test
+    public void raisingPerHostLimitDispatchesWaitingCalls() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCallsPerHost(1);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        enqueue(dispatcher, function, "http://a.example.com/0");
+        enqueue(dispatcher, function, "http://a.example.com/1");
+        assertEquals(1, function.startedUrls.size());
+
+        dispatcher.setMaxRunningCallsPerHost(2);
+        assertEquals(2, function.startedUrls.size());
+        assertEquals(2, dispatcher.getMaxRunningCallsPerHost());
+    }
+
+    @Test
+    public void adaptiveLimitCapsRunningCalls() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCallsPerHost(10);
+        final ConcurrencyLimit concurrencyLimit = new AimdConcurrencyLimit(2, 1, 10, 0.5);
+        dispatcher.setConcurrencyLimit(concurrencyLimit);
+        assertEquals(2, dispatcher.getCurrentMaxRunningCalls());
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        for (int i = 0; i < 4; i++) {
+            enqueue(dispatcher, function, "http://a.example.com/" + i);
+        }
+        assertEquals(2, function.startedUrls.size());
+
+        // The limit is capped by the fixed limit.
+        dispatcher.setMaxRunningCalls(1);
+        assertEquals(1, dispatcher.getCurrentMaxRunningCalls());
+
+        // Going back to the fixed limit dispatches the waiting calls.
+        dispatcher.setMaxRunningCalls(64);
+        dispatcher.setConcurrencyLimit(null);
+        assertEquals(64, dispatcher.getCurrentMaxRunningCalls());
+        assertEquals(4, function.startedUrls.size());
+    }
+
+    @Test
+    public void invalidPerHostLimit() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        assertThrows(IllegalArgumentException.class, () -> dispatcher.setMaxRunningCallsPerHost(0));
+    }
+
+    @Test
+    public void higherPriorityCallsAreDispatchedFirst() {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setPriorityAgingInterval(1, TimeUnit.HOURS);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        enqueue(dispatcher, function, "http://a.example.com/running", HttpCallPriority.NORMAL);
+        enqueue(dispatcher, function, "http://a.example.com/typing", HttpCallPriority.LOW);
+        enqueue(dispatcher, function, "http://b.example.com/receipt", HttpCallPriority.LOW);
+        enqueue(dispatcher, function, "http://a.example.com/get", HttpCallPriority.NORMAL);
+        enqueue(dispatcher, function, "http://b.example.com/send", HttpCallPriority.HIGH);
+
+        for (int i = 0; i < 4; i++) {
+            function.complete(i);
+        }
+
+        assertEquals(5, function.startedUrls.size());
+        assertEquals("http://a.example.com/running", function.startedUrls.get(0));
+        assertEquals("http://b.example.com/send", function.startedUrls.get(1));
+        assertEquals("http://a.example.com/get", function.startedUrls.get(2));
+        // The hosts with calls of the same priority are still visited round-robin.
+        assertEquals("http://b.example.com/receipt", function.startedUrls.get(3));
+        assertEquals("http://a.example.com/typing", function.startedUrls.get(4));
+    }
+
+    @Test
+    public void waitingLowPriorityCallsAreAged() throws InterruptedException {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher(new DirectExecutorService());
+        dispatcher.setMaxRunningCalls(1);
+        dispatcher.setPriorityAgingInterval(50, TimeUnit.MILLISECONDS);
+
+        final RecordingCallFunction function = new RecordingCallFunction();
+        enqueue(dispatcher, function, "http://a.example.com/running", HttpCallPriority.NORMAL);
+        enqueue(dispatcher, function, "http://a.example.com/typing", HttpCallPriority.LOW);
+        Thread.sleep(150);
+        enqueue(dispatcher, function, "http://a.example.com/get", HttpCallPriority.NORMAL);
+
+        function.complete(0);
+
+        // The LOW call waited more than two aging intervals, so it is raised above the NORMAL call.
+        assertEquals("http://a.example.com/typing", function.startedUrls.get(1));
+        function.complete(1);
+        assertEquals("http://a.example.com/get", function.startedUrls.get(2));
+    }
+
+    @Test
+    public void limitsHoldUnderContention() throws InterruptedException {
+        final int threadCount = 8;
+        final int callsPerThread = 500;
+        final ExecutorService executorService = Executors.newFixedThreadPool(16);
+        try {
+            final HttpCallDispatcher dispatcher = new HttpCallDispatcher(executorService);
+            dispatcher.setMaxRunningCalls(6);
+            dispatcher.setMaxRunningCallsPerHost(2);
+
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final ConcurrentHashMap<String, AtomicInteger> runningPerHost = new ConcurrentHashMap<>();
+            final AtomicInteger maxRunningPerHost = new AtomicInteger();
+            final CountDownLatch completed = new CountDownLatch(threadCount * callsPerThread);
+
+            final HttpCallDispatcher.HttpCallFunction function = (httpRequest, httpCallback) -> {
+                final String host = httpRequest.getUrl().getHost();
+                final AtomicInteger hostRunning = runningPerHost.computeIfAbsent(host, h -> new AtomicInteger());
+                updateMax(maxRunning, running.incrementAndGet());
+                updateMax(maxRunningPerHost, hostRunning.incrementAndGet());
+                Thread.yield();
+                hostRunning.decrementAndGet();
+                running.decrementAndGet();
+                httpCallback.onError(new RuntimeException("completed"));
+            };
+            final HttpCallback callback = new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    completed.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    completed.countDown();
+                }
+            };
+
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threadCount; t++) {
+                final int threadId = t;
+                final Thread producer = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < callsPerThread; i++) {
+                        final String url = "http://host" + ((threadId + i) % 4) + ".example.com/" + i;
+                        dispatcher.enqueue(function, new HttpRequest(HttpMethod.GET, url), CancellationToken.NONE,
+                            callback);
+                    }
+                });
+                producers.add(producer);
+                producer.start();
+            }
+            start.countDown();
+            for (Thread producer : producers) {
+                producer.join();
+            }
+
+            assertTrue(completed.await(30, TimeUnit.SECONDS));
+            assertTrue(maxRunning.get() <= 6);
+            assertTrue(maxRunningPerHost.get() <= 2);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void defaultExecutorFollowsRaisedLimit() throws InterruptedException {
+        final HttpCallDispatcher dispatcher = new HttpCallDispatcher();
+        dispatcher.setMaxRunningCalls(200);
+
+        final int callCount = 200;
+        final CountDownLatch started = new CountDownLatch(callCount);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch completed = new CountDownLatch(callCount);
+        final HttpCallDispatcher.HttpCallFunction function = (httpRequest, httpCallback) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignored) {
+                Thread.currentThread().interrupt();
+            }
+            httpCallback.onError(new RuntimeException("completed"));
+        };
+        final HttpCallback callback = new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                completed.countDown();
+            }
+        };
+        for (int i = 0; i < callCount; i++) {
+            dispatcher.enqueue(function, new HttpRequest(HttpMethod.GET, "http://a.example.com/" + i),
+                CancellationToken.NONE, callback);
+        }
+        try {
+            // All the calls run at once, none of them is rejected or left waiting for a thread.
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+        assertTrue(completed.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void virtualThreadModeRunsCalls() throws Exception {
+        final HttpCallDispatcher dispatcher = HttpCallDispatcher.createWithVirtualThreads();
+        final CountDownLatch completed = new CountDownLatch(1);
+        final List<Thread> callThreads = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.enqueue((httpRequest, httpCallback) -> {
+            callThreads.add(Thread.currentThread());
+            httpCallback.onError(new RuntimeException("completed"));
+        }, new HttpRequest(HttpMethod.GET, "http://a.example.com"), CancellationToken.NONE, new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse response) {
+                completed.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                completed.countDown();
+            }
+        });
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+
+        // Without virtual threads, e.g. on Android or before JDK 21, the dispatcher falls back to platform threads.
+        boolean isVirtual = false;
+        try {
+            isVirtual = (Boolean) Thread.class.getMethod("isVirtual").invoke(callThreads.get(0));
+        } catch (NoSuchMethodException ignored) {
+            // The runtime has no virtual threads.
+        }
+        assertEquals(HttpCallDispatcher.isVirtualThreadSupported(), isVirtual);
+    }
+
+    private static void updateMax(AtomicInteger max, int value) {
+        int current;
+        while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+            // retry
+        }
+    }
+
+    private static void enqueue(HttpCallDispatcher dispatcher, RecordingCallFunction function, String url) {
+        enqueue(dispatcher, function, url, null);
+    }
+
+    private static void enqueue(HttpCallDispatcher dispatcher, RecordingCallFunction function, String url,
+                                HttpCallPriority priority) {
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, url);
+        if (priority != null) {
+            httpRequest.getTags().put(HttpCallPriority.KEY, priority);
+        }
+        dispatcher.enqueue(function, httpRequest, CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                }
+            });
+    }
+
+    /**
+     * A call function that records the started calls and completes them only on demand.
+     */
+    private static final class RecordingCallFunction implements HttpCallDispatcher.HttpCallFunction {
+        final List<String> startedUrls = new ArrayList<>();
+        final List<HttpCallback> callbacks = new ArrayList<>();
+
+        @Override
+        public void apply(HttpRequest httpRequest, HttpCallback httpCallback) {
+            this.startedUrls.add(httpRequest.getUrl().toString());
+            this.callbacks.add(httpCallback);
+        }
+
+        void complete(int index) {
+            this.callbacks.get(index).onError(new RuntimeException("completed"));
+        }
+    }
+
+    /**
+     * An executor that runs the call in the thread submitting it.
+     */
+    private static final class DirectExecutorService extends AbstractExecutorService {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+}
@@ -5,6 +5,9 @@ package com.azure.android.core.http;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class HttpHeaderTests {
@@ -14,4 +17,15 @@ public class HttpHeaderTests {
         header.addValue("c");
         assertEquals("a:b,c", header.toString());
     }
+
+    @Test
+    public void valuesListKeepsValuesApart() {
+        final HttpHeader header = new HttpHeader("a", null);
+        assertEquals(Collections.emptyList(), header.getValuesList());
+        header.addValue("b,c");
+        assertEquals(Collections.singletonList("b,c"), header.getValuesList());
+        header.addValue("d");
+        assertEquals(Arrays.asList("b,c", "d"), header.getValuesList());
+        assertEquals("b,c,d", header.getValue());
+    }
 }
@@ -5,6 +5,14 @@ package com.azure.android.core.http;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 
@@ -41,4 +49,130 @@ public class HttpHeadersTests {
 
         assertEquals("key1=value1, key2=value2, key3=value3", headers.toString());
     }
+
+    @Test
+    public void namesAreCaseInsensitive() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.put("Content-Type", "application/json");
+        headers.put(new String("X-Custom".toCharArray()), "1");
+
+        assertEquals("application/json", headers.getValue("content-type"));
+        assertEquals("application/json", headers.getValue("CONTENT-TYPE"));
+        assertEquals("1", headers.getValue("x-custom"));
+        assertEquals(HttpHeaders.hash("Content-Type"), HttpHeaders.hash("cOnTeNt-TyPe"));
+        assertEquals(HttpHeaders.hash("X-Custom"), HttpHeaders.hash("x-CUSTOM"));
+
+        // The latest name is kept, in the original position.
+        headers.put("content-type", "text/plain");
+        assertEquals("content-type=text/plain, X-Custom=1", headers.toString());
+        assertEquals(2, headers.getSize());
+    }
+
+    @Test
+    public void addKeepsEachValue() {
+        final HttpHeaders headers = new HttpHeaders();
+        headers.add("Set-Cookie", "a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT");
+        headers.add("set-cookie", "b=2");
+
+        final HttpHeader header = headers.get("Set-Cookie");
+        assertEquals(Arrays.asList("a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT", "b=2"), header.getValuesList());
+        assertEquals("a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT,b=2", header.getValue());
+        assertEquals(1, headers.getSize());
+
+        // A copy keeps the values apart.
+        final HttpHeaders copy = new HttpHeaders(headers);
+        assertEquals(header.getValuesList(), copy.get("set-cookie").getValuesList());
+        copy.add("Set-Cookie", "c=3");
+        assertEquals(2, headers.get("Set-Cookie").getValuesList().size());
+
+        // Put replaces all the values.
+        headers.put("Set-Cookie", "d=4");
+        assertEquals(Arrays.asList("d=4"), headers.get("Set-Cookie").getValuesList());
+        assertArrayEquals(new String[] {"d=4"}, headers.getValues("Set-Cookie"));
+    }
+
+    @Test
+    public void removeKeepsTheOrderOfTheOthers() {
+        final HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < 100; i++) {
+            headers.put("Header-" + i, String.valueOf(i));
+        }
+        for (int i = 0; i < 100; i += 2) {
+            assertEquals(String.valueOf(i), headers.remove("HEADER-" + i).getValue());
+        }
+        assertNull(headers.remove("Header-0"));
+        assertEquals(50, headers.getSize());
+
+        final Iterator<HttpHeader> iterator = headers.iterator();
+        for (int i = 1; i < 100; i += 2) {
+            final HttpHeader header = iterator.next();
+            assertEquals("Header-" + i, header.getName());
+            if (i > 50) {
+                iterator.remove();
+            }
+        }
+        assertEquals(25, headers.getSize());
+        assertNull(headers.get("Header-51"));
+        assertEquals("49", headers.getValue("header-49"));
+    }
+
+    /**
+     * Runs the same workload, typical of a request going through the pipeline, against this collection and the
+     * previous HashMap keyed by lower-cased names, checking that both end up holding the same headers.
+     */
+    @Test
+    public void matchesLowerCasedHashMap() {
+        final String[] names = {
+            "Authorization", "Content-Type", "Content-Length", "x-ms-client-request-id", "Retry-After",
+            "Accept", "User-Agent", "x-ms-date", "If-None-Match", "X-Custom-Header", "content-type", "RETRY-AFTER",
+        };
+        final Random random = new Random(42);
+        final int operations = 10_000;
+        final int[] kinds = new int[operations];
+        final String[] keys = new String[operations];
+        for (int i = 0; i < operations; i++) {
+            kinds[i] = random.nextInt(10);
+            keys[i] = names[random.nextInt(names.length)];
+        }
+
+        final HttpHeaders headers = runOnHttpHeaders(kinds, keys);
+        final Map<String, HttpHeader> map = runOnHashMap(kinds, keys);
+
+        assertEquals(map.size(), headers.getSize());
+        for (final HttpHeader header : map.values()) {
+            assertEquals(header.getValue(), headers.getValue(header.getName()));
+        }
+    }
+
+    private static HttpHeaders runOnHttpHeaders(int[] kinds, String[] keys) {
+        final HttpHeaders headers = new HttpHeaders();
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] < 6) {
+                headers.getValue(keys[i]);
+            } else if (kinds[i] < 9) {
+                headers.put(keys[i], "value" + (i & 7));
+            } else {
+                headers.remove(keys[i]);
+            }
+        }
+        return headers;
+    }
+
+    private static Map<String, HttpHeader> runOnHashMap(int[] kinds, String[] keys) {
+        final Map<String, HttpHeader> map = new HashMap<>();
+        for (int i = 0; i < kinds.length; i++) {
+            final String key = keys[i].toLowerCase(Locale.ROOT);
+            if (kinds[i] < 6) {
+                final HttpHeader header = map.get(key);
+                if (header != null) {
+                    header.getValue();
+                }
+            } else if (kinds[i] < 9) {
+                map.put(key, new HttpHeader(keys[i], "value" + (i & 7)));
+            } else {
+                map.remove(key);
+            }
+        }
+        return map;
+    }
 }
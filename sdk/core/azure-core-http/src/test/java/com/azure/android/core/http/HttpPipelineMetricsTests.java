@@ -0,0 +1,155 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.FixedDelay;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.NoOpHttpClient;
+import com.azure.android.core.http.policy.RequestIdPolicy;
+import com.azure.android.core.http.policy.RetryPolicy;
+import com.azure.android.core.http.policy.UserAgentPolicy;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.temporal.ChronoUnit;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpPipelineMetricsTests {
+    @Test
+    public void recordsLatenciesOfPipelineStages() throws InterruptedException {
+        final HttpPipelineMetrics metrics = new HttpPipelineMetrics();
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    sleep(30);
+                    final int statusCode = sendCount.incrementAndGet() == 1 ? 503 : 200;
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, statusCode));
+                }
+            })
+            .policies(new UserAgentPolicy(),
+                new RequestIdPolicy(),
+                new SlowPolicy(),
+                new RetryPolicy(new FixedDelay(1, Duration.of(50, ChronoUnit.MILLIS))))
+            .metrics(metrics)
+            .build();
+
+        assertSame(metrics, pipeline.getMetrics());
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        final HttpPipelineMetrics.Snapshot snapshot = metrics.getSnapshot();
+        // The fused request policies are recorded one by one.
+        assertEquals(1, snapshot.getRequestPhaseLatencies().get(UserAgentPolicy.class.getName()).getCount());
+        assertEquals(1, snapshot.getRequestPhaseLatencies().get(RequestIdPolicy.class.getName()).getCount());
+
+        final LatencySnapshot slowRequestPhase = snapshot.getRequestPhaseLatencies().get(SlowPolicy.class.getName());
+        assertEquals(1, slowRequestPhase.getCount());
+        assertTrue(slowRequestPhase.getMax(TimeUnit.MILLISECONDS) >= 20);
+        final LatencySnapshot slowResponsePhase = snapshot.getResponsePhaseLatencies()
+            .get(SlowPolicy.class.getName());
+        assertEquals(1, slowResponsePhase.getCount());
+        assertTrue(slowResponsePhase.getMax(TimeUnit.MILLISECONDS) >= 10);
+
+        // The retry policy handled two responses, the back-off is recorded as a delay.
+        assertEquals(2, snapshot.getResponsePhaseLatencies().get(RetryPolicy.class.getName()).getCount());
+        assertEquals(1, snapshot.getDelayLatency().getCount());
+        assertTrue(snapshot.getDelayLatency().getMax(TimeUnit.MILLISECONDS) >= 50);
+
+        assertEquals(2, snapshot.getNetworkLatency().getCount());
+        assertTrue(snapshot.getNetworkLatency().getPercentile(50, TimeUnit.MILLISECONDS) >= 30);
+        // The root call and the call resumed after the back-off waited in the dispatcher.
+        assertEquals(2, snapshot.getQueueWaitLatency().getCount());
+    }
+
+    @Test
+    public void pipelineWithoutMetricsRecordsNothing() {
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient())
+            .build();
+
+        assertNull(pipeline.getMetrics());
+        assertNull(pipeline.requestPhaseLatencies);
+    }
+
+    @Test
+    public void percentilesAreWithinTheBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+        final LatencySnapshot snapshot = histogram.getSnapshot();
+
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(500, snapshot.getMean(TimeUnit.MICROSECONDS));
+        assertEquals(1000, snapshot.getMax(TimeUnit.MICROSECONDS));
+        final long p50 = snapshot.getPercentile(50, TimeUnit.MICROSECONDS);
+        assertTrue(p50 >= 500 && p50 <= 625, "p50: " + p50);
+        final long p99 = snapshot.getPercentile(99, TimeUnit.MICROSECONDS);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99: " + p99);
+        assertEquals(0, new LatencyHistogram().getSnapshot().getPercentile(99, TimeUnit.MICROSECONDS));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.getPercentile(101, TimeUnit.MICROSECONDS));
+    }
+
+    @Test
+    public void bucketsBoundTheLatencies() {
+        for (long nanos : new long[] {0, 1, 3, 4, 7, 8, 1000, 123_456_789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.getBucketIndex(nanos);
+            assertTrue(nanos <= LatencyHistogram.getBucketUpperBound(index));
+            assertTrue(index == 0 || nanos > LatencyHistogram.getBucketUpperBound(index - 1));
+        }
+    }
+
+    private static final class SlowPolicy implements HttpPipelinePolicy {
+        @Override
+        public void process(HttpPipelinePolicyChain chain) {
+            sleep(20);
+            chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                @Override
+                public PolicyCompleter.CompletionState onSuccess(HttpResponse response, PolicyCompleter completer) {
+                    sleep(10);
+                    return completer.completed(response);
+                }
+
+                @Override
+                public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                    return completer.completedError(error);
+                }
+            });
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
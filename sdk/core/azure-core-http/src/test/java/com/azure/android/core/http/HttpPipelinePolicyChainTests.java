@@ -0,0 +1,153 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.FixedDelay;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.NoOpHttpClient;
+import com.azure.android.core.http.policy.RetryPolicy;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.temporal.ChronoUnit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpPipelinePolicyChainTests {
+    @Test
+    public void retriesReuseTheChains() throws InterruptedException {
+        final List<HttpPipelinePolicyChain> chains = Collections.synchronizedList(new ArrayList<>());
+        final List<PolicyCompleter> completers = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    final int statusCode = sendCount.incrementAndGet() < 4 ? 500 : 200;
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, statusCode));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.of(0, ChronoUnit.MILLIS))),
+                chain -> {
+                    chains.add(chain);
+                    chain.processNextPolicy(chain.getRequest(), new NextPolicyCallback() {
+                        @Override
+                        public PolicyCompleter.CompletionState onSuccess(HttpResponse response,
+                                                                         PolicyCompleter completer) {
+                            completers.add(completer);
+                            return completer.completed(response);
+                        }
+
+                        @Override
+                        public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                            completers.add(completer);
+                            return completer.completedError(error);
+                        }
+                    });
+                })
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicInteger statusCode = new AtomicInteger();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    statusCode.set(response.getStatusCode());
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(200, statusCode.get());
+        // The first attempt and the three retries ran the policy with the same chain and completer.
+        assertEquals(4, chains.size());
+        assertEquals(4, completers.size());
+        for (int i = 1; i < 4; i++) {
+            assertSame(chains.get(0), chains.get(i));
+            assertSame(completers.get(0), completers.get(i));
+        }
+    }
+
+    @Test
+    public void concurrentRunsOfNextPoliciesGetDistinctChains() throws InterruptedException {
+        final List<HttpPipelinePolicyChain> chains = Collections.synchronizedList(new ArrayList<>());
+        final List<HttpCallback> pendingCallbacks = Collections.synchronizedList(new ArrayList<>());
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    pendingCallbacks.add(httpCallback);
+                    if (pendingCallbacks.size() == 2) {
+                        // Complete both attempts once both are in flight.
+                        pendingCallbacks.get(0).onSuccess(new MockHttpResponse(httpRequest, 200));
+                        pendingCallbacks.get(1).onSuccess(new MockHttpResponse(httpRequest, 200));
+                    }
+                }
+            })
+            .policies(chain -> {
+                // Runs the next policies twice concurrently, completing with the first response.
+                final AtomicInteger responses = new AtomicInteger();
+                final NextPolicyCallback callback = new NextPolicyCallback() {
+                    @Override
+                    public PolicyCompleter.CompletionState onSuccess(HttpResponse response,
+                                                                     PolicyCompleter completer) {
+                        if (responses.incrementAndGet() == 1) {
+                            return completer.completed(response);
+                        }
+                        response.close();
+                        return completer.defer();
+                    }
+
+                    @Override
+                    public PolicyCompleter.CompletionState onError(Throwable error, PolicyCompleter completer) {
+                        return completer.completedError(error);
+                    }
+                };
+                chain.processNextPolicy(chain.getRequest(), callback);
+                chain.processNextPolicy(chain.getRequest(), callback);
+            }, chain -> {
+                chains.add(chain);
+                chain.processNextPolicy(chain.getRequest());
+            })
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(2, chains.size());
+        assertNotSame(chains.get(0), chains.get(1));
+    }
+}
@@ -0,0 +1,168 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import com.azure.android.core.http.policy.AddHeadersPolicy;
+import com.azure.android.core.http.policy.HttpLogOptions;
+import com.azure.android.core.http.policy.HttpLoggingPolicy;
+import com.azure.android.core.http.policy.MockHttpResponse;
+import com.azure.android.core.http.policy.NoOpHttpClient;
+import com.azure.android.core.http.policy.RequestIdPolicy;
+import com.azure.android.core.http.policy.RetryPolicy;
+import com.azure.android.core.http.policy.UserAgentPolicy;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpPipelineTests {
+    @Test
+    public void compileFusesRequestPoliciesAndLeavesOutNoOps() {
+        final RetryPolicy retryPolicy = RetryPolicy.withExponentialBackoff();
+        final HttpLoggingPolicy loggingPolicy = new HttpLoggingPolicy(new HttpLogOptions());
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient())
+            .policies(new UserAgentPolicy(),
+                new RequestIdPolicy(),
+                loggingPolicy,
+                new AddHeadersPolicy(new HttpHeaders().put("x-ms-test", "value")),
+                retryPolicy,
+                new RequestIdPolicy(),
+                new HttpLoggingPolicy(null))
+            .build();
+
+        // The configured policies are still exposed as is.
+        assertSame(loggingPolicy, pipeline.getPolicy(2));
+        // The request policies before the RetryPolicy are fused into one step, the no-op logging policies are
+        // left out and the last request policy runs as is.
+        assertEquals(3, pipeline.size);
+        assertTrue(pipeline.compiledPolicies[0] instanceof FusedRequestPolicy);
+        assertSame(retryPolicy, pipeline.compiledPolicies[1]);
+        assertTrue(pipeline.compiledPolicies[2] instanceof RequestIdPolicy);
+    }
+
+    @Test
+    public void fusedRequestPoliciesApplyInOrder() throws InterruptedException {
+        final AtomicReference<HttpRequest> sentRequest = new AtomicReference<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    sentRequest.set(httpRequest);
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+                }
+            })
+            .policies((HttpRequestPolicy) httpRequest -> httpRequest.setHeader("x-ms-order", "first"),
+                (HttpRequestPolicy) httpRequest -> httpRequest.setHeader("x-ms-order",
+                    httpRequest.getHeaders().getValue("x-ms-order") + ",second"),
+                new RequestIdPolicy())
+            .build();
+
+        assertEquals(1, pipeline.size);
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("first,second", sentRequest.get().getHeaders().getValue("x-ms-order"));
+        assertNotNull(sentRequest.get().getHeaders().getValue("x-ms-client-request-id"));
+    }
+
+    @Test
+    public void requestPolicyOverridingProcessIsNotFused() throws InterruptedException {
+        final AtomicReference<HttpRequest> sentRequest = new AtomicReference<>();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken,
+                                 HttpCallback httpCallback) {
+                    sentRequest.set(httpRequest);
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+                }
+            })
+            .policies(new UserAgentPolicy(),
+                new AddHeadersPolicy(new HttpHeaders().put("x-ms-test", "value")) {
+                    @Override
+                    public void process(HttpPipelinePolicyChain chain) {
+                        chain.getRequest().setHeader("x-ms-overridden", "true");
+                        super.process(chain);
+                    }
+                },
+                new RequestIdPolicy())
+            .build();
+
+        assertEquals(3, pipeline.size);
+        assertTrue(pipeline.compiledPolicies[0] instanceof UserAgentPolicy);
+        assertTrue(pipeline.compiledPolicies[2] instanceof RequestIdPolicy);
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals("true", sentRequest.get().getHeaders().getValue("x-ms-overridden"));
+        assertEquals("value", sentRequest.get().getHeaders().getValue("x-ms-test"));
+    }
+
+    @Test
+    public void fusedRequestPolicyErrorCompletesTheCall() throws InterruptedException {
+        final IllegalStateException policyError = new IllegalStateException("policy error");
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient())
+            .policies(new RequestIdPolicy(),
+                (HttpRequestPolicy) httpRequest -> {
+                    throw policyError;
+                })
+            .build();
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE,
+            CancellationToken.NONE, new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error.set(e);
+                    latch.countDown();
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertSame(policyError, error.get());
+    }
+}
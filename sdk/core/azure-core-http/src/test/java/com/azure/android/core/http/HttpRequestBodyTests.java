@@ -0,0 +1,129 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpRequestBodyTests {
+    private static final byte[] CONTENT = "Hello World!".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    public void byteArrayBodyIsReplayable() throws IOException {
+        final HttpRequestBody body = HttpRequestBody.fromBytes(CONTENT);
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertTrue(body.isReplayable());
+        assertArrayEquals(CONTENT, write(body));
+        assertArrayEquals(CONTENT, write(body));
+    }
+
+    @Test
+    public void byteBufferBodyHoldsTheRemainingBytes() throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(CONTENT);
+        buffer.position(6);
+        final HttpRequestBody body = HttpRequestBody.fromByteBuffer(buffer);
+        assertEquals(6, body.getContentLength());
+        assertArrayEquals("World!".getBytes(StandardCharsets.UTF_8), write(body));
+        assertArrayEquals("World!".getBytes(StandardCharsets.UTF_8), write(body));
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(CONTENT.length);
+        direct.put(CONTENT).flip();
+        assertArrayEquals(CONTENT, write(HttpRequestBody.fromByteBuffer(direct)));
+    }
+
+    @Test
+    public void streamBodyIsWrittenOnce() throws IOException {
+        final HttpRequestBody body = HttpRequestBody.fromStream(new ByteArrayInputStream(CONTENT), 5);
+        assertEquals(5, body.getContentLength());
+        assertFalse(body.isReplayable());
+        assertArrayEquals("Hello".getBytes(StandardCharsets.UTF_8), write(body));
+
+        final HttpRequestBody unknownLength = HttpRequestBody.fromStream(new ByteArrayInputStream(CONTENT));
+        assertEquals(-1, unknownLength.getContentLength());
+        assertArrayEquals(CONTENT, write(unknownLength));
+    }
+
+    @Test
+    public void shortStreamFails() {
+        final HttpRequestBody body = HttpRequestBody.fromStream(new ByteArrayInputStream(CONTENT), 20);
+        assertThrows(IOException.class, () -> write(body));
+        assertThrows(IllegalArgumentException.class,
+            () -> HttpRequestBody.fromStream(new ByteArrayInputStream(CONTENT), -1));
+    }
+
+    @Test
+    public void fileBodyIsReadOnEachWrite() throws IOException {
+        final File file = File.createTempFile("request-body", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(CONTENT);
+        }
+        final HttpRequestBody body = HttpRequestBody.fromFile(file);
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertTrue(body.isReplayable());
+        assertArrayEquals(CONTENT, write(body));
+        assertArrayEquals(CONTENT, write(body));
+    }
+
+    @Test
+    public void fileBodyKeepsItsLengthWhenTheFileGrows() throws IOException {
+        final File file = File.createTempFile("request-body", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(CONTENT);
+        }
+        final HttpRequestBody body = HttpRequestBody.fromFile(file);
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            out.write(CONTENT);
+        }
+        assertEquals(CONTENT.length, body.getContentLength());
+        assertArrayEquals(CONTENT, write(body));
+
+        // A file shrunk below the captured length fails the write rather than sending a short body.
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(CONTENT, 0, 5);
+        }
+        assertThrows(IOException.class, () -> write(body));
+    }
+
+    @Test
+    public void setBodyUpdatesContentLength() {
+        final HttpRequest request = new HttpRequest(HttpMethod.PUT, "http://localhost");
+        request.setBody(CONTENT);
+        assertEquals("12", request.getHeaders().getValue("Content-Length"));
+        assertSame(CONTENT, request.getBody());
+
+        request.setBody(HttpRequestBody.fromStream(new ByteArrayInputStream(CONTENT)));
+        assertNull(request.getHeaders().getValue("Content-Length"));
+        // The content of a stream is not held in memory.
+        assertNull(request.getBody());
+
+        request.setBody(HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(CONTENT, 0, 5)));
+        assertEquals("5", request.getHeaders().getValue("Content-Length"));
+        assertArrayEquals("Hello".getBytes(StandardCharsets.UTF_8), request.getBody());
+        // A part of an array is copied once, not on every call.
+        assertSame(request.getBody(), request.getBody());
+    }
+
+    private static byte[] write(HttpRequestBody body) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HashedWheelTimerTests {
+    @Test
+    public void runsTaskAfterDelay() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 1000, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        final long[] elapsed = new long[1];
+        timer.newTimeout(() -> {
+            elapsed[0] = System.nanoTime() - start;
+            latch.countDown();
+        }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(elapsed[0] >= TimeUnit.MILLISECONDS.toNanos(100));
+    }
+
+    @Test
+    public void runsTasksBeyondOneWheelRound() throws InterruptedException {
+        // A wheel of 8 ticks of 5ms covers 40ms, the delays below take several rounds.
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 1000, TimeUnit.MILLISECONDS);
+        final CountDownLatch latch = new CountDownLatch(3);
+        final AtomicInteger order = new AtomicInteger();
+        final int[] positions = new int[3];
+        timer.newTimeout(() -> {
+            positions[2] = order.getAndIncrement();
+            latch.countDown();
+        }, 150, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            positions[0] = order.getAndIncrement();
+            latch.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        timer.newTimeout(() -> {
+            positions[1] = order.getAndIncrement();
+            latch.countDown();
+        }, 90, TimeUnit.MILLISECONDS);
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, positions[0]);
+        assertEquals(1, positions[1]);
+        assertEquals(2, positions[2]);
+    }
+
+    @Test
+    public void farDelayDoesNotOverflow() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 1000, TimeUnit.MILLISECONDS);
+        final AtomicInteger runs = new AtomicInteger();
+        final HashedWheelTimer.Timeout timeout = timer.newTimeout(runs::incrementAndGet, Long.MAX_VALUE,
+            TimeUnit.NANOSECONDS);
+
+        Thread.sleep(100);
+        assertEquals(0, runs.get());
+        assertTrue(timeout.cancel());
+    }
+
+    @Test
+    public void cancelledTaskDoesNotRun() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 1000, TimeUnit.MILLISECONDS);
+        final AtomicInteger runs = new AtomicInteger();
+        final HashedWheelTimer.Timeout timeout = timer.newTimeout(runs::incrementAndGet, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(timeout.cancel());
+        assertFalse(timeout.cancel());
+        assertTrue(timeout.isCancelled());
+        Thread.sleep(150);
+        assertEquals(0, runs.get());
+        assertEquals(0, timer.getPendingTimeouts());
+    }
+
+    @Test
+    public void workerStopsWhenIdleAndRestarts() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 50, TimeUnit.MILLISECONDS);
+        final CountDownLatch first = new CountDownLatch(1);
+        timer.newTimeout(first::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (timer.isWorkerStarted() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(timer.isWorkerStarted());
+
+        final CountDownLatch second = new CountDownLatch(1);
+        timer.newTimeout(second::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(second.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void idleWorkerRunsNewTaskWithoutRestart() throws InterruptedException {
+        final HashedWheelTimer timer = new HashedWheelTimer("test-timer", 5, 8, 10_000, TimeUnit.MILLISECONDS);
+        final CountDownLatch first = new CountDownLatch(1);
+        timer.newTimeout(first::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(first.await(5, TimeUnit.SECONDS));
+
+        // The worker is parked without a pending timeout, a new timeout has to wake it up.
+        Thread.sleep(100);
+        assertTrue(timer.isWorkerStarted());
+        final CountDownLatch second = new CountDownLatch(1);
+        final long start = System.nanoTime();
+        timer.newTimeout(second::countDown, 10, TimeUnit.MILLISECONDS);
+        assertTrue(second.await(1, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+    }
+}
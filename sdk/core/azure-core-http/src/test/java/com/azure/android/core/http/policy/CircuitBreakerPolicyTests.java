@@ -0,0 +1,142 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.http.exception.CircuitBreakerOpenException;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CircuitBreakerPolicyTests {
+    @Test
+    public void opensAfterFailuresAndFailsFast() throws InterruptedException {
+        final StatusClient client = new StatusClient(500);
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setMinimumCalls(4));
+        final HttpPipeline pipeline = new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+
+        for (int i = 0; i < 4; i++) {
+            assertEquals(500, ((HttpResponse) send(pipeline, "http://a.com/")).getStatusCode());
+        }
+        assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState("a.com"));
+
+        final Object result = send(pipeline, "http://a.com/");
+        assertTrue(result instanceof CircuitBreakerOpenException);
+        assertEquals("a.com", ((CircuitBreakerOpenException) result).getHost());
+        assertEquals(4, client.sendCount.get());
+    }
+
+    @Test
+    public void closesAfterSuccessfulProbes() throws InterruptedException {
+        final StatusClient client = new StatusClient(500);
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setMinimumCalls(2)
+            .setOpenDuration(Duration.ofMillis(100))
+            .setHalfOpenProbeCalls(2));
+        final HttpPipeline pipeline = new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+
+        send(pipeline, "http://a.com/");
+        send(pipeline, "http://a.com/");
+        assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState("a.com"));
+
+        Thread.sleep(150);
+        assertEquals(CircuitBreakerPolicy.State.HALF_OPEN, policy.getState("a.com"));
+        client.status.set(200);
+        assertEquals(200, ((HttpResponse) send(pipeline, "http://a.com/")).getStatusCode());
+        assertEquals(CircuitBreakerPolicy.State.HALF_OPEN, policy.getState("a.com"));
+        assertEquals(200, ((HttpResponse) send(pipeline, "http://a.com/")).getStatusCode());
+        assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState("a.com"));
+    }
+
+    @Test
+    public void reopensOnProbeFailure() throws InterruptedException {
+        final StatusClient client = new StatusClient(503);
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setMinimumCalls(1)
+            .setOpenDuration(Duration.ofMillis(100)));
+        final HttpPipeline pipeline = new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+
+        send(pipeline, "http://a.com/");
+        assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState("a.com"));
+
+        Thread.sleep(150);
+        assertEquals(503, ((HttpResponse) send(pipeline, "http://a.com/")).getStatusCode());
+        assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState("a.com"));
+        assertTrue(send(pipeline, "http://a.com/") instanceof CircuitBreakerOpenException);
+        assertEquals(2, client.sendCount.get());
+    }
+
+    @Test
+    public void hostsHaveIndependentCircuits() throws InterruptedException {
+        final StatusClient client = new StatusClient(500);
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setMinimumCalls(1));
+        final HttpPipeline pipeline = new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+
+        send(pipeline, "http://a.com/");
+        assertEquals(CircuitBreakerPolicy.State.OPEN, policy.getState("a.com"));
+        assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState("b.com"));
+
+        client.status.set(200);
+        assertEquals(200, ((HttpResponse) send(pipeline, "http://b.com/")).getStatusCode());
+        assertEquals(CircuitBreakerPolicy.State.CLOSED, policy.getState("b.com"));
+    }
+
+    @Test
+    public void openCircuitIsNotRetried() throws InterruptedException {
+        final StatusClient client = new StatusClient(500);
+        final CircuitBreakerPolicy policy = new CircuitBreakerPolicy(new CircuitBreakerOptions()
+            .setMinimumCalls(1));
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(client)
+            .policies(RetryPolicy.withFixedDelay(3, Duration.ofMillis(1)), policy)
+            .build();
+
+        // The first attempt opens the circuit, the first retry fails fast and is not retried again.
+        assertTrue(send(pipeline, "http://a.com/") instanceof CircuitBreakerOpenException);
+        assertEquals(1, client.sendCount.get());
+    }
+
+    @Test
+    public void invalidOptionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerOptions().setFailureRateThreshold(0));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerOptions().setMinimumCalls(0));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreakerOptions().setWindow(Duration.ZERO));
+    }
+
+    private static Object send(HttpPipeline pipeline, String url) throws InterruptedException {
+        final RecordingHttpCallback callback = new RecordingHttpCallback();
+        pipeline.send(new HttpRequest(HttpMethod.GET, url), RequestContext.NONE, CancellationToken.NONE, callback);
+        return callback.awaitResult();
+    }
+
+    private static final class StatusClient extends NoOpHttpClient {
+        private final AtomicInteger status;
+        private final AtomicInteger sendCount = new AtomicInteger();
+
+        StatusClient(int status) {
+            this.status = new AtomicInteger(status);
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.sendCount.incrementAndGet();
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, this.status.get()));
+        }
+    }
+}
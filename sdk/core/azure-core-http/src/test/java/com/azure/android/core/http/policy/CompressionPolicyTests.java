@@ -0,0 +1,257 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressionPolicyTests {
+    @Test
+    public void largeRequestBodyIsCompressed() throws InterruptedException, IOException {
+        final RecordingClient client = new RecordingClient(200, false);
+        final byte[] body = createJson(4096);
+        send(createPipeline(client, new CompressionPolicy(1024)), HttpMethod.PUT, body);
+
+        final RecordedRequest sent = client.requests.get(0);
+        assertEquals("gzip", sent.contentEncoding);
+        assertTrue(sent.body.length < body.length);
+        assertEquals(String.valueOf(sent.body.length), sent.contentLength);
+        assertArrayEquals(body, gunzip(sent.body));
+    }
+
+    @Test
+    public void smallRequestBodyIsNotCompressed() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(200, false);
+        final byte[] body = createJson(512);
+        send(createPipeline(client, new CompressionPolicy(1024)), HttpMethod.PUT, body);
+
+        assertNull(client.requests.get(0).contentEncoding);
+        assertArrayEquals(body, client.requests.get(0).body);
+    }
+
+    @Test
+    public void requestBodyIsNotCompressedByDefault() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(200, false);
+        final byte[] body = createJson(4096);
+        send(createPipeline(client, new CompressionPolicy()), HttpMethod.PUT, body);
+
+        assertNull(client.requests.get(0).contentEncoding);
+        assertEquals("gzip", client.requests.get(0).acceptEncoding);
+    }
+
+    @Test
+    public void hostRejectingCompressionGetsUncompressedBodies() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(415, false);
+        final HttpPipeline pipeline = createPipeline(client, new CompressionPolicy(1024));
+        final byte[] body = createJson(4096);
+
+        final HttpResponse response = send(pipeline, HttpMethod.PUT, body);
+        assertEquals(200, response.getStatusCode());
+        assertEquals(2, client.requests.size());
+        assertEquals("gzip", client.requests.get(0).contentEncoding);
+        assertNull(client.requests.get(1).contentEncoding);
+        assertArrayEquals(body, client.requests.get(1).body);
+
+        // The host is remembered, the next request is not compressed.
+        send(pipeline, HttpMethod.PUT, body);
+        assertEquals(3, client.requests.size());
+        assertNull(client.requests.get(2).contentEncoding);
+    }
+
+    @Test
+    public void unsupportedMediaTypeForTheUncompressedBodyReachesTheCaller() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(415, false);
+        client.statusCode = 415;
+        final byte[] body = createJson(4096);
+
+        final HttpResponse response = send(createPipeline(client, new CompressionPolicy(1024)), HttpMethod.PUT, body);
+        assertEquals(415, response.getStatusCode());
+        // Sent compressed then uncompressed, once each.
+        assertEquals(2, client.requests.size());
+        assertEquals("gzip", client.requests.get(0).contentEncoding);
+        assertNull(client.requests.get(1).contentEncoding);
+    }
+
+    @Test
+    public void gzippedResponseIsDecompressedAsItIsRead() throws InterruptedException, IOException {
+        final RecordingClient client = new RecordingClient(200, true);
+        final HttpResponse response = send(createPipeline(client, new CompressionPolicy()), HttpMethod.GET, null);
+
+        assertNull(response.getHeaderValue("Content-Encoding"));
+        assertNull(response.getHeaders().getValue("Content-Length"));
+        final InputStream body = response.getBody();
+        final byte[] firstBytes = new byte[8];
+        assertEquals(8, body.read(firstBytes));
+        assertArrayEquals("response".getBytes(StandardCharsets.UTF_8), firstBytes);
+        assertEquals("response-body", "response" + readAll(body));
+    }
+
+    @Test
+    public void emptyGzippedResponseIsEmpty() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(200, true);
+        client.responseBody = new byte[0];
+        final HttpResponse response = send(createPipeline(client, new CompressionPolicy()), HttpMethod.GET, null);
+
+        assertEquals("", response.getBodyAsString());
+    }
+
+    @Test
+    public void callerAcceptEncodingIsLeftAlone() throws InterruptedException {
+        final RecordingClient client = new RecordingClient(200, true);
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, "http://a.com/x");
+        httpRequest.setHeader("Accept-Encoding", "identity");
+        final HttpResponse response = RecordingHttpCallback.send(createPipeline(client, new CompressionPolicy()),
+            httpRequest);
+
+        assertEquals("identity", client.requests.get(0).acceptEncoding);
+        // The caller asked for the encoding, so it decodes the body itself.
+        assertEquals("gzip", response.getHeaderValue("Content-Encoding"));
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressionPolicy(-1));
+    }
+
+    /**
+     * Checks the compressed size across body sizes, the compression only pays off above the default threshold.
+     */
+    @Test
+    public void compressedSizeVersusBodySize() throws IOException {
+        final int[] sizes = {64, 256, 1024, 4096, 16384, 65536};
+        for (int size : sizes) {
+            final byte[] body = createJson(size);
+            final byte[] compressed = CompressionPolicy.gzip(body);
+            if (size < 256) {
+                // The gzip header and trailer outweigh the savings on small bodies.
+                assertTrue(compressed.length > body.length / 2,
+                    "size=" + size + " compressed=" + compressed.length);
+            } else if (size >= 1024) {
+                assertTrue(compressed.length < body.length / 4,
+                    "size=" + size + " compressed=" + compressed.length);
+            }
+        }
+    }
+
+    private static byte[] createJson(int size) {
+        final StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; builder.length() < size - 1; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"item\"},");
+        }
+        builder.setLength(size - 1);
+        builder.append(']');
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return readAll(in).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static String readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[256];
+        int len;
+        while ((len = in.read(buffer)) != -1) {
+            out.write(buffer, 0, len);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static HttpPipeline createPipeline(RecordingClient client, CompressionPolicy policy) {
+        return new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, HttpMethod httpMethod, byte[] body)
+        throws InterruptedException {
+        final HttpRequest httpRequest = new HttpRequest(httpMethod, "http://a.com/x");
+        if (body != null) {
+            httpRequest.setBody(body);
+        }
+        return RecordingHttpCallback.send(pipeline, httpRequest);
+    }
+
+    /**
+     * A request as the HttpClient received it.
+     */
+    private static final class RecordedRequest {
+        private final byte[] body;
+        private final String contentEncoding;
+        private final String contentLength;
+        private final String acceptEncoding;
+
+        RecordedRequest(HttpRequest httpRequest) {
+            this.body = httpRequest.getBody();
+            this.contentEncoding = httpRequest.getHeaders().getValue("Content-Encoding");
+            this.contentLength = httpRequest.getHeaders().getValue("Content-Length");
+            this.acceptEncoding = httpRequest.getHeaders().getValue("Accept-Encoding");
+        }
+    }
+
+    /**
+     * An HttpClient recording the requests, answering a compressed request with the given status code, the other
+     * requests with {@code statusCode} and optionally gzipping the response body.
+     */
+    private static final class RecordingClient extends NoOpHttpClient {
+        private final List<RecordedRequest> requests = new CopyOnWriteArrayList<>();
+        private final int compressedRequestStatusCode;
+        private final boolean gzipResponse;
+        private volatile byte[] responseBody = "response-body".getBytes(StandardCharsets.UTF_8);
+        private volatile int statusCode = 200;
+
+        RecordingClient(int compressedRequestStatusCode, boolean gzipResponse) {
+            this.compressedRequestStatusCode = compressedRequestStatusCode;
+            this.gzipResponse = gzipResponse;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            final RecordedRequest recorded = new RecordedRequest(httpRequest);
+            this.requests.add(recorded);
+            if (recorded.contentEncoding != null) {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, this.compressedRequestStatusCode));
+                return;
+            }
+            final HttpHeaders headers = new HttpHeaders();
+            byte[] body = this.responseBody;
+            if (this.gzipResponse) {
+                headers.put("Content-Encoding", "gzip");
+                if (body.length > 0) {
+                    try {
+                        body = CompressionPolicy.gzip(body);
+                    } catch (IOException e) {
+                        httpCallback.onError(e);
+                        return;
+                    }
+                }
+                headers.put("Content-Length", String.valueOf(body.length));
+            }
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, this.statusCode, headers, body));
+        }
+    }
+}
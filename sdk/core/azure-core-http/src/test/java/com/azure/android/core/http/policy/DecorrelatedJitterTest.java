@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link DecorrelatedJitter}.
+ */
+public class DecorrelatedJitterTest {
+
+    @Test
+    public void testZeroBaseDelay() {
+        assertThrows(IllegalArgumentException.class, () -> new DecorrelatedJitter(3, Duration.ZERO,
+            Duration.ofMillis(1000)));
+    }
+
+    @Test
+    public void testBaseGreaterThanMaxDelay() {
+        assertThrows(IllegalArgumentException.class, () -> new DecorrelatedJitter(3, Duration.ofSeconds(1),
+            Duration.ofMillis(500)));
+    }
+
+    @Test
+    public void testNegativeMaxRetries() {
+        assertThrows(IllegalArgumentException.class, () -> new DecorrelatedJitter(-1, Duration.ofSeconds(1),
+            Duration.ofMillis(5000)));
+    }
+
+    @Test
+    public void testFirstDelayIsWithinThreeTimesBase() {
+        DecorrelatedJitter jitter = new DecorrelatedJitter(3, Duration.ofMillis(100), Duration.ofSeconds(10));
+        assertEquals(3, jitter.getMaxRetries());
+        for (int i = 0; i < 100; i++) {
+            long delay = jitter.calculateRetryDelay(null, null, 0).toMillis();
+            assertTrue(delay >= 100 && delay <= 300);
+        }
+    }
+
+    @Test
+    public void testDelayDependsOnPreviousDelay() {
+        DecorrelatedJitter jitter = new DecorrelatedJitter(3, Duration.ofMillis(100), Duration.ofSeconds(10));
+        for (int i = 0; i < 100; i++) {
+            long delay = jitter.calculateRetryDelay(null, null, 1, Duration.ofMillis(1000)).toMillis();
+            assertTrue(delay >= 100 && delay <= 3000);
+        }
+    }
+
+    @Test
+    public void testDelayIsCappedByMaxDelay() {
+        DecorrelatedJitter jitter = new DecorrelatedJitter(3, Duration.ofMillis(100), Duration.ofMillis(500));
+        for (int i = 0; i < 100; i++) {
+            long delay = jitter.calculateRetryDelay(null, null, 5, Duration.ofSeconds(60)).toMillis();
+            assertTrue(delay >= 100 && delay <= 500);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HedgingPolicyTests {
+    @Test
+    public void slowPrimaryIsHedgedAndCancelled() throws InterruptedException {
+        // The first attempt hangs until cancelled, the second responds right away.
+        final SendRecorder client = new SendRecorder(1);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(client)
+            .policies(new HedgingPolicy(Duration.ofMillis(50), 100))
+            .build();
+
+        final long start = System.nanoTime();
+        final HttpResponse response = send(pipeline, HttpMethod.GET);
+
+        assertEquals(200, response.getStatusCode());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(2, client.requests.size());
+        assertNotSame(client.requests.get(0), client.requests.get(1));
+        assertTrue(client.tokens.get(0).isCancellationRequested());
+        assertFalse(client.tokens.get(1).isCancellationRequested());
+    }
+
+    @Test
+    public void fastPrimaryIsNotHedged() throws InterruptedException {
+        final SendRecorder client = new SendRecorder(0);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(client)
+            .policies(new HedgingPolicy(Duration.ofMillis(200), 100))
+            .build();
+
+        assertEquals(200, send(pipeline, HttpMethod.GET).getStatusCode());
+        Thread.sleep(300);
+        assertEquals(1, client.requests.size());
+    }
+
+    @Test
+    public void nonIdempotentRequestIsNotHedged() throws InterruptedException {
+        final SendRecorder client = new SendRecorder(0);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(client)
+            .policies(new HedgingPolicy(Duration.ZERO, 100))
+            .build();
+
+        assertEquals(200, send(pipeline, HttpMethod.POST).getStatusCode());
+        Thread.sleep(100);
+        assertEquals(1, client.requests.size());
+    }
+
+    @Test
+    public void hedgesAreCappedByTheBudget() throws InterruptedException {
+        // With a 10% budget, the first 9 slow requests are not hedged and the 10th is.
+        final HedgingPolicy policy = new HedgingPolicy(Duration.ofMillis(20), 10);
+        for (int i = 0; i < 10; i++) {
+            final SendRecorder client = new SendRecorder(1, 100);
+            final HttpPipeline pipeline = new HttpPipelineBuilder()
+                .httpClient(client)
+                .policies(policy)
+                .build();
+            assertEquals(200, send(pipeline, HttpMethod.GET).getStatusCode());
+            assertEquals(i == 9 ? 2 : 1, client.requests.size());
+        }
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(Duration.ofMillis(-1), 10));
+        assertThrows(IllegalArgumentException.class, () -> new HedgingPolicy(Duration.ofMillis(10), 101));
+        assertThrows(IllegalArgumentException.class, () -> HedgingPolicy.withAdaptiveDelay(Duration.ZERO, -1));
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, HttpMethod httpMethod) throws InterruptedException {
+        return RecordingHttpCallback.send(pipeline, new HttpRequest(httpMethod, "http://localhost/"));
+    }
+
+    /**
+     * An HttpClient recording the sent requests, the first {@code slowCount} requests respond only when
+     * cancelled or after {@code slowMillis}.
+     */
+    private static final class SendRecorder extends NoOpHttpClient {
+        private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        private final List<CancellationToken> tokens = new CopyOnWriteArrayList<>();
+        private final int slowCount;
+        private final long slowMillis;
+
+        SendRecorder(int slowCount) {
+            this(slowCount, -1);
+        }
+
+        SendRecorder(int slowCount, long slowMillis) {
+            this.slowCount = slowCount;
+            this.slowMillis = slowMillis;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.requests.add(httpRequest);
+            this.tokens.add(cancellationToken);
+            if (this.requests.size() > this.slowCount) {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+                return;
+            }
+            final CountDownLatch cancelled = new CountDownLatch(1);
+            cancellationToken.registerOnCancel(cancelled::countDown);
+            new Thread(() -> {
+                try {
+                    if (this.slowMillis < 0) {
+                        cancelled.await();
+                    } else {
+                        cancelled.await(this.slowMillis, TimeUnit.MILLISECONDS);
+                    }
+                } catch (InterruptedException ignored) {
+                    Thread.currentThread().interrupt();
+                }
+                if (cancellationToken.isCancellationRequested()) {
+                    httpCallback.onError(new IOException("Canceled."));
+                } else {
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+                }
+            }).start();
+        }
+    }
+}
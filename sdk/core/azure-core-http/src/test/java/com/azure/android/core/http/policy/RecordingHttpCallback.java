@@ -0,0 +1,79 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+import com.azure.android.core.util.RequestContext;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An HttpCallback recording the result of a pipeline run, for the tests to wait on.
+ */
+public class RecordingHttpCallback implements HttpCallback {
+    private final CountDownLatch latch = new CountDownLatch(1);
+    private volatile HttpResponse response;
+    private volatile Throwable error;
+
+    /**
+     * Sends the request through the pipeline and waits for the response.
+     *
+     * @param pipeline The pipeline.
+     * @param httpRequest The request.
+     * @return The response.
+     * @throws AssertionError if the run completes with an error or does not complete within 5 seconds.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public static HttpResponse send(HttpPipeline pipeline, HttpRequest httpRequest) throws InterruptedException {
+        final RecordingHttpCallback callback = new RecordingHttpCallback();
+        pipeline.send(httpRequest, RequestContext.NONE, CancellationToken.NONE, callback);
+        return callback.awaitResponse();
+    }
+
+    @Override
+    public void onSuccess(HttpResponse response) {
+        this.response = response;
+        this.latch.countDown();
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        this.error = error;
+        this.latch.countDown();
+    }
+
+    /**
+     * Waits for the run to complete.
+     *
+     * @return The response, or the error the run completed with.
+     * @throws AssertionError if the run does not complete within 5 seconds.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public Object awaitResult() throws InterruptedException {
+        assertTrue(this.latch.await(5, TimeUnit.SECONDS), "The pipeline run did not complete.");
+        return this.error != null ? this.error : this.response;
+    }
+
+    /**
+     * Waits for the run to complete with a response.
+     *
+     * @return The response.
+     * @throws AssertionError if the run completes with an error or does not complete within 5 seconds.
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public HttpResponse awaitResponse() throws InterruptedException {
+        this.awaitResult();
+        if (this.error != null) {
+            throw new AssertionError(this.error);
+        }
+        return this.response;
+    }
+}
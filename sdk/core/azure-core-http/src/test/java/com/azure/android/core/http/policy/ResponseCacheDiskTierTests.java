@@ -0,0 +1,69 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpRequest;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class ResponseCacheDiskTierTests {
+    @Test
+    public void evictsTheLeastRecentlyUsedDownToTheLowWaterMark() throws IOException {
+        final File directory = Files.createTempDirectory("response-cache").toFile();
+        final ResponseCacheDiskTier probe = new ResponseCacheDiskTier(directory, Long.MAX_VALUE);
+        writeEntry(probe, "key-99");
+        final long entryBytes = directory.listFiles()[0].length();
+        probe.clear();
+
+        // Room for 10 entries, the 11th write evicts down to 90%, i.e. 9 entries.
+        final ResponseCacheDiskTier tier = new ResponseCacheDiskTier(directory, 10 * entryBytes);
+        for (int i = 0; i < 10; i++) {
+            writeEntry(tier, "key-0" + i);
+        }
+        assertNotNull(tier.read("key-00"));
+        writeEntry(tier, "key-10");
+
+        assertEquals(9, directory.listFiles().length);
+        assertNotNull(tier.read("key-00"));
+        assertNull(tier.read("key-01"));
+        assertNull(tier.read("key-02"));
+        assertNotNull(tier.read("key-03"));
+        assertNotNull(tier.read("key-10"));
+
+        // A write below the bound does not evict.
+        writeEntry(tier, "key-11");
+        assertEquals(10, directory.listFiles().length);
+    }
+
+    @Test
+    public void indexIsBuiltFromTheExistingFiles() throws IOException {
+        final File directory = Files.createTempDirectory("response-cache").toFile();
+        final ResponseCacheDiskTier tier = new ResponseCacheDiskTier(directory, Long.MAX_VALUE);
+        writeEntry(tier, "key-00");
+        writeEntry(tier, "key-01");
+        tier.remove("key-00");
+
+        final ResponseCacheDiskTier reopened = new ResponseCacheDiskTier(directory, Long.MAX_VALUE);
+        assertNull(reopened.read("key-00"));
+        assertNotNull(reopened.read("key-01"));
+        reopened.clear();
+        assertEquals(0, directory.listFiles().length);
+        assertNull(reopened.read("key-01"));
+    }
+
+    private static void writeEntry(ResponseCacheDiskTier tier, String key) {
+        final HttpRequest request = new HttpRequest(HttpMethod.GET, "http://a.com/" + key);
+        final byte[] body = new byte[100];
+        tier.write(ResponseCacheEntry.create(key, request, new MockHttpResponse(request, 200, body), body, 0));
+    }
+}
@@ -0,0 +1,261 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpHeaders;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ResponseCachePolicyTests {
+    @Test
+    public void freshResponseIsServedWithoutSending() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        assertEquals("body-1", send(pipeline, HttpMethod.GET, "http://a.com/x").getBodyAsString());
+        final HttpResponse cached = send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals(200, cached.getStatusCode());
+        assertEquals("body-1", cached.getBodyAsString());
+        assertEquals(1, client.requests.size());
+
+        // Another URL is not served from the cache.
+        send(pipeline, HttpMethod.GET, "http://a.com/y");
+        assertEquals(2, client.requests.size());
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithETag() throws InterruptedException {
+        final ServerClient client = new ServerClient("no-cache", "\"v1\"");
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        assertEquals("body-1", send(pipeline, HttpMethod.GET, "http://a.com/x").getBodyAsString());
+        assertNull(client.requests.get(0).getHeaders().getValue("If-None-Match"));
+
+        final HttpResponse revalidated = send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals(200, revalidated.getStatusCode());
+        assertEquals("body-1", revalidated.getBodyAsString());
+        assertEquals(2, client.requests.size());
+        assertEquals("\"v1\"", client.ifNoneMatchValues.get(1));
+        // The conditional header does not leak to the caller's request.
+        assertNull(revalidated.getRequest().getHeaders().getValue("If-None-Match"));
+    }
+
+    @Test
+    public void changedResourceReplacesTheCachedResponse() throws InterruptedException {
+        final ServerClient client = new ServerClient("no-cache", "\"v1\"");
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        client.etag = "\"v2\"";
+        assertEquals("body-2", send(pipeline, HttpMethod.GET, "http://a.com/x").getBodyAsString());
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals("\"v2\"", client.ifNoneMatchValues.get(2));
+    }
+
+    @Test
+    public void noStoreResponseIsNotCached() throws InterruptedException {
+        final ServerClient client = new ServerClient("no-store, max-age=60", "\"v1\"");
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals(2, client.requests.size());
+        assertNull(client.ifNoneMatchValues.get(1));
+    }
+
+    @Test
+    public void unsafeRequestInvalidatesTheCachedResponse() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        send(pipeline, HttpMethod.DELETE, "http://a.com/x");
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals(3, client.requests.size());
+    }
+
+    @Test
+    public void leastRecentlyUsedResponseIsEvicted() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        // Room for about two entries.
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(200));
+
+        send(pipeline, HttpMethod.GET, "http://a.com/1");
+        send(pipeline, HttpMethod.GET, "http://a.com/2");
+        // Use 1, so 2 is the least recently used when 3 is stored.
+        send(pipeline, HttpMethod.GET, "http://a.com/1");
+        send(pipeline, HttpMethod.GET, "http://a.com/3");
+        assertEquals(3, client.requests.size());
+
+        send(pipeline, HttpMethod.GET, "http://a.com/1");
+        assertEquals(3, client.requests.size());
+        send(pipeline, HttpMethod.GET, "http://a.com/2");
+        assertEquals(4, client.requests.size());
+    }
+
+    @Test
+    public void diskTierOutlivesThePolicy() throws InterruptedException, IOException {
+        final File directory = Files.createTempDirectory("response-cache").toFile();
+        final ServerClient client = new ServerClient("max-age=60", "\"v1\"");
+
+        send(createPipeline(client, new ResponseCachePolicy(1024, directory, 4096)), HttpMethod.GET,
+            "http://a.com/x");
+        final HttpResponse fromDisk = send(createPipeline(client, new ResponseCachePolicy(1024, directory, 4096)),
+            HttpMethod.GET, "http://a.com/x");
+        assertEquals("body-1", fromDisk.getBodyAsString());
+        assertEquals("\"v1\"", fromDisk.getHeaderValue("ETag"));
+        assertEquals(1, client.requests.size());
+
+        new ResponseCachePolicy(1024, directory, 4096).clear();
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void authorizedRequestIsCachedOnlyIfPublic() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        RecordingHttpCallback.send(pipeline, authorized("http://a.com/x", "Bearer alice"));
+        RecordingHttpCallback.send(pipeline, authorized("http://a.com/x", "Bearer bob"));
+        assertEquals(2, client.requests.size());
+
+        final ServerClient publicClient = new ServerClient("public, max-age=60", null);
+        final HttpPipeline publicPipeline = createPipeline(publicClient, new ResponseCachePolicy(1024));
+        RecordingHttpCallback.send(publicPipeline, authorized("http://a.com/x", "Bearer alice"));
+        RecordingHttpCallback.send(publicPipeline, authorized("http://a.com/x", "Bearer bob"));
+        assertEquals(1, publicClient.requests.size());
+    }
+
+    @Test
+    public void responseIsServedOnlyForMatchingVaryHeaders() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        client.responseHeaders.put("Vary", "Accept-Language");
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        RecordingHttpCallback.send(pipeline, withHeader("http://a.com/x", "Accept-Language", "en"));
+        RecordingHttpCallback.send(pipeline, withHeader("http://a.com/x", "Accept-Language", "en"));
+        assertEquals(1, client.requests.size());
+        RecordingHttpCallback.send(pipeline, withHeader("http://a.com/x", "Accept-Language", "fr"));
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        assertEquals(3, client.requests.size());
+
+        client.responseHeaders.put("Vary", "*");
+        send(pipeline, HttpMethod.GET, "http://a.com/y");
+        send(pipeline, HttpMethod.GET, "http://a.com/y");
+        assertEquals(5, client.requests.size());
+    }
+
+    @Test
+    public void privateResponseIsNotWrittenToDisk() throws InterruptedException, IOException {
+        final File directory = Files.createTempDirectory("response-cache").toFile();
+        final ServerClient client = new ServerClient("private, max-age=60", null);
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024, directory, 4096));
+
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        send(pipeline, HttpMethod.GET, "http://a.com/x");
+        // Served from memory, but never stored on disk.
+        assertEquals(1, client.requests.size());
+        assertEquals(0, directory.listFiles().length);
+    }
+
+    @Test
+    public void responseLargerThanTheCacheIsPassedThrough() throws InterruptedException {
+        final ServerClient client = new ServerClient("max-age=60", null);
+        final StringBuilder largeBody = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            largeBody.append((char) ('a' + i % 26));
+        }
+        // Sent without Content-Length, the size is only known once read.
+        client.body = largeBody.toString();
+        final HttpPipeline pipeline = createPipeline(client, new ResponseCachePolicy(1024));
+
+        assertEquals(client.body, send(pipeline, HttpMethod.GET, "http://a.com/x").getBodyAsString());
+        assertEquals(client.body, send(pipeline, HttpMethod.GET, "http://a.com/x").getBodyAsString());
+        assertEquals(2, client.requests.size());
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCachePolicy(0));
+        assertThrows(IllegalArgumentException.class, () -> new ResponseCachePolicy(1, new File("."), 0));
+        assertThrows(NullPointerException.class, () -> new ResponseCachePolicy(1, null, 1));
+    }
+
+    private static HttpPipeline createPipeline(ServerClient client, ResponseCachePolicy policy) {
+        return new HttpPipelineBuilder().httpClient(client).policies(policy).build();
+    }
+
+    private static HttpRequest authorized(String url, String authorization) {
+        return withHeader(url, "Authorization", authorization);
+    }
+
+    private static HttpRequest withHeader(String url, String name, String value) {
+        final HttpRequest httpRequest = new HttpRequest(HttpMethod.GET, url);
+        httpRequest.setHeader(name, value);
+        return httpRequest;
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, HttpMethod httpMethod, String url)
+        throws InterruptedException {
+        return RecordingHttpCallback.send(pipeline, new HttpRequest(httpMethod, url));
+    }
+
+    /**
+     * An HttpClient serving a resource whose body changes with its ETag, answering 304 to a matching
+     * If-None-Match.
+     */
+    private static final class ServerClient extends NoOpHttpClient {
+        private final List<HttpRequest> requests = new CopyOnWriteArrayList<>();
+        private final List<String> ifNoneMatchValues = new CopyOnWriteArrayList<>();
+        // Added to every response.
+        private final HttpHeaders responseHeaders = new HttpHeaders();
+        private final String cacheControl;
+        private volatile String etag;
+        // The body of the 200 responses, null for a body derived from the ETag.
+        private volatile String body;
+
+        ServerClient(String cacheControl, String etag) {
+            this.cacheControl = cacheControl;
+            this.etag = etag;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            this.requests.add(httpRequest);
+            final String ifNoneMatch = httpRequest.getHeaders().getValue("If-None-Match");
+            this.ifNoneMatchValues.add(ifNoneMatch);
+            final HttpHeaders headers = new HttpHeaders(this.responseHeaders).put("Cache-Control", this.cacheControl);
+            if (this.etag != null) {
+                headers.put("ETag", this.etag);
+            }
+            if (ifNoneMatch != null && ifNoneMatch.equals(this.etag)) {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 304, headers));
+                return;
+            }
+            final String body = this.body != null
+                ? this.body
+                : "body-" + (this.etag == null || this.etag.equals("\"v1\"") ? "1" : "2");
+            httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200, headers,
+                body.getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
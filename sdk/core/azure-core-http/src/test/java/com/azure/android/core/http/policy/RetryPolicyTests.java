@@ -9,6 +9,7 @@ import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpPipeline;
 import com.azure.android.core.http.HttpPipelineBuilder;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.util.CancellationToken;
 import com.azure.android.core.util.RequestContext;
@@ -282,6 +283,52 @@ public class RetryPolicyTests {
     }
 
 
+    @Test
+    public void cancellationDuringBackOffCompletesRightAway() {
+        final CancellationToken cancellationToken = new CancellationToken();
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 500));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.of(1, ChronoUnit.MINUTES))))
+            .build();
+
+        final Throwable[] error = new Throwable[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(new HttpRequest(HttpMethod.GET, "http://localhost/"), RequestContext.NONE, cancellationToken,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable e) {
+                    error[0] = e;
+                    latch.countDown();
+                }
+            });
+
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        final long cancelledAt = System.nanoTime();
+        cancellationToken.cancel();
+        awaitOnLatch(latch, "cancellationDuringBackOffCompletesRightAway");
+
+        // The one minute back-off is cut short by the cancellation.
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cancelledAt) < 5);
+        assertNotNull(error[0]);
+        assertEquals(1, sendCount.get());
+    }
+
     private static byte[] collectBytesInInputStream(InputStream is) {
         ByteArrayOutputStream buffer = new ByteArrayOutputStream();
         int nRead;
@@ -297,6 +344,120 @@ public class RetryPolicyTests {
         return buffer.toByteArray();
     }
 
+    @Test
+    public void retryAfterErrorUsesStrategyDelay() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    if (sendCount.getAndIncrement() == 0) {
+                        httpCallback.onError(new IOException("Connection reset."));
+                    } else {
+                        httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+                    }
+                }
+            })
+            .policies(new RetryPolicy(new DecorrelatedJitter(3, Duration.ofMillis(1), Duration.ofMillis(10))))
+            .build();
+
+        assertEquals(200, send(pipeline, "retryAfterErrorUsesStrategyDelay").getStatusCode());
+        assertEquals(2, sendCount.get());
+    }
+
+    @Test
+    public void spentRetryBudgetStopsRetries() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 500));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(5, Duration.ZERO), new RetryBudget(0, 2)))
+            .build();
+
+        // The first request spends the budget on 2 retries, the second request is not retried.
+        assertEquals(500, send(pipeline, "spentRetryBudgetStopsRetries").getStatusCode());
+        assertEquals(3, sendCount.get());
+        assertEquals(500, send(pipeline, "spentRetryBudgetStopsRetries").getStatusCode());
+        assertEquals(4, sendCount.get());
+    }
+
+    @Test
+    public void successfulRequestsRefillRetryBudget() {
+        final int[] codes = new int[]{500, 200, 200};
+        final AtomicInteger sendCount = new AtomicInteger();
+        final RetryBudget retryBudget = new RetryBudget(50, 1);
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, codes[sendCount.getAndIncrement()]));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.ZERO), retryBudget))
+            .build();
+
+        assertEquals(200, send(pipeline, "successfulRequestsRefillRetryBudget").getStatusCode());
+        assertEquals(0, retryBudget.getAvailableRetries());
+        assertEquals(200, send(pipeline, "successfulRequestsRefillRetryBudget").getStatusCode());
+        assertEquals(1, retryBudget.getAvailableRetries());
+    }
+
+    @Test
+    public void streamedBodyIsNotRetried() {
+        final AtomicInteger sendCount = new AtomicInteger();
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new NoOpHttpClient() {
+                @Override
+                public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+                    sendCount.incrementAndGet();
+                    httpCallback.onSuccess(new MockHttpResponse(httpRequest, 500));
+                }
+            })
+            .policies(new RetryPolicy(new FixedDelay(3, Duration.ZERO)))
+            .build();
+
+        // The first attempt consumed the stream, there is nothing left to resend.
+        final HttpRequest streamed = new HttpRequest(HttpMethod.PUT, "http://localhost/");
+        streamed.setBody(HttpRequestBody.fromStream(new ByteArrayInputStream(new byte[16])));
+        assertEquals(500, send(pipeline, streamed, "streamedBodyIsNotRetried").getStatusCode());
+        assertEquals(1, sendCount.get());
+
+        final HttpRequest buffered = new HttpRequest(HttpMethod.PUT, "http://localhost/");
+        buffered.setBody(new byte[16]);
+        assertEquals(500, send(pipeline, buffered, "streamedBodyIsNotRetried").getStatusCode());
+        assertEquals(5, sendCount.get());
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, String method) {
+        return send(pipeline, new HttpRequest(HttpMethod.GET, "http://localhost/"), method);
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, HttpRequest httpRequest, String method) {
+        final HttpResponse[] httpResponse = new HttpResponse[1];
+        CountDownLatch latch = new CountDownLatch(1);
+        pipeline.send(httpRequest, RequestContext.NONE, CancellationToken.NONE,
+            new HttpCallback() {
+                @Override
+                public void onSuccess(HttpResponse response) {
+                    httpResponse[0] = response;
+                    latch.countDown();
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    latch.countDown();
+                }
+            });
+        awaitOnLatch(latch, method);
+        assertNotNull(httpResponse[0]);
+        return httpResponse[0];
+    }
+
     private static void awaitOnLatch(CountDownLatch latch, String method) {
         try {
             latch.await(30, TimeUnit.SECONDS);
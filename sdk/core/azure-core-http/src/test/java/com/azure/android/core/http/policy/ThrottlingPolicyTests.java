@@ -0,0 +1,112 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.policy;
+
+import com.azure.android.core.http.HttpCallback;
+import com.azure.android.core.http.HttpMethod;
+import com.azure.android.core.http.HttpPipeline;
+import com.azure.android.core.http.HttpPipelineBuilder;
+import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpResponse;
+import com.azure.android.core.util.CancellationToken;
+
+import org.junit.jupiter.api.Test;
+import org.threeten.bp.Duration;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ThrottlingPolicyTests {
+    @Test
+    public void throttledResponsePausesTheHostForAllPipelines() throws InterruptedException {
+        final ThrottlingCoordinator coordinator = new ThrottlingCoordinator();
+        final HttpPipeline throttledPipeline = new HttpPipelineBuilder()
+            .httpClient(new ThrottlingClient("300"))
+            .policies(new ThrottlingPolicy(coordinator))
+            .build();
+        final HttpPipeline otherPipeline = new HttpPipelineBuilder()
+            .httpClient(new ThrottlingClient(null))
+            .policies(new ThrottlingPolicy(coordinator))
+            .build();
+
+        assertEquals(429, send(throttledPipeline, "http://a.com/").getStatusCode());
+        assertTrue(coordinator.getRemainingPause("a.com").toMillis() > 0);
+
+        // Another host is not paused.
+        long start = System.nanoTime();
+        assertEquals(200, send(otherPipeline, "http://b.com/").getStatusCode());
+        assertTrue(elapsedMillis(start) < 250);
+
+        // The throttled host is paused for the pipelines sharing the coordinator.
+        start = System.nanoTime();
+        assertEquals(200, send(otherPipeline, "http://a.com/").getStatusCode());
+        assertTrue(elapsedMillis(start) >= 200);
+        assertEquals(Duration.ZERO, coordinator.getRemainingPause("a.com"));
+    }
+
+    @Test
+    public void shorterPauseDoesNotShortenThePause() {
+        final ThrottlingCoordinator coordinator = new ThrottlingCoordinator();
+        coordinator.pause("a.com", Duration.ofSeconds(10));
+        coordinator.pause("a.com", Duration.ofMillis(10));
+        assertTrue(coordinator.getRemainingPause("a.com").getSeconds() >= 9);
+        assertEquals(Duration.ZERO, coordinator.getRemainingPause("b.com"));
+    }
+
+    @Test
+    public void tokenBucketPacesTheRequests() throws InterruptedException {
+        // 10 requests per second with a burst of 2: the first 2 go at once, the next 2 are 100ms apart.
+        final HttpPipeline pipeline = new HttpPipelineBuilder()
+            .httpClient(new ThrottlingClient(null))
+            .policies(new ThrottlingPolicy(new ThrottlingCoordinator(10, 2)))
+            .build();
+
+        final long start = System.nanoTime();
+        send(pipeline, "http://a.com/");
+        send(pipeline, "http://a.com/");
+        assertTrue(elapsedMillis(start) < 100);
+        send(pipeline, "http://a.com/");
+        send(pipeline, "http://a.com/");
+        assertTrue(elapsedMillis(start) >= 180);
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ThrottlingCoordinator(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ThrottlingCoordinator(1, 0));
+        assertThrows(NullPointerException.class, () -> new ThrottlingPolicy(null));
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    private static HttpResponse send(HttpPipeline pipeline, String url) throws InterruptedException {
+        return RecordingHttpCallback.send(pipeline, new HttpRequest(HttpMethod.GET, url));
+    }
+
+    /**
+     * An HttpClient responding 429 with the given x-ms-retry-after-ms value, or 200 if the value is null.
+     */
+    private static final class ThrottlingClient extends NoOpHttpClient {
+        private final String retryAfterMillis;
+
+        ThrottlingClient(String retryAfterMillis) {
+            this.retryAfterMillis = retryAfterMillis;
+        }
+
+        @Override
+        public void send(HttpRequest httpRequest, CancellationToken cancellationToken, HttpCallback httpCallback) {
+            if (this.retryAfterMillis == null) {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 200));
+            } else {
+                httpCallback.onSuccess(new MockHttpResponse(httpRequest, 429)
+                    .addHeader("x-ms-retry-after-ms", this.retryAfterMillis));
+            }
+        }
+    }
+}
@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ByteArrayPoolTests {
+    @Test
+    public void knownLengthIsReadWithoutSegments() throws IOException {
+        final ByteArrayPool pool = new ByteArrayPool(16, 4);
+        final byte[] content = createContent(100);
+        assertArrayEquals(content, pool.readAll(new TrickleInputStream(content), content.length));
+        // No segment was needed.
+        assertEquals(0, pool.getPooledCount());
+    }
+
+    @Test
+    public void unknownLengthIsReadInPooledSegments() throws IOException {
+        final ByteArrayPool pool = new ByteArrayPool(16, 4);
+        final byte[] content = createContent(100);
+        assertArrayEquals(content, pool.readAll(new TrickleInputStream(content), -1));
+        // 7 segments were used, the pool keeps 4 of them.
+        assertEquals(4, pool.getPooledCount());
+
+        // Exactly filling the last segment.
+        assertArrayEquals(createContent(32), pool.readAll(new TrickleInputStream(createContent(32)), -1));
+        assertArrayEquals(new byte[0], pool.readAll(new ByteArrayInputStream(new byte[0]), -1));
+    }
+
+    @Test
+    public void wrongExpectedLengthDoesNotChangeTheResult() throws IOException {
+        final ByteArrayPool pool = new ByteArrayPool(16, 4);
+        final byte[] content = createContent(100);
+        assertArrayEquals(content, pool.readAll(new TrickleInputStream(content), 40));
+        assertArrayEquals(content, pool.readAll(new TrickleInputStream(content), 150));
+        assertArrayEquals(content, pool.readAll(new TrickleInputStream(content), Long.MAX_VALUE));
+    }
+
+    @Test
+    public void segmentsAreReused() {
+        final ByteArrayPool pool = new ByteArrayPool(16, 1);
+        final byte[] first = pool.acquire();
+        final byte[] second = pool.acquire();
+        pool.release(first);
+        // The pool is full, the second array is dropped.
+        pool.release(second);
+        // An array of another size is not pooled.
+        pool.release(new byte[8]);
+        assertEquals(1, pool.getPooledCount());
+        assertSame(first, pool.acquire());
+        assertNotSame(first, pool.acquire());
+    }
+
+    @Test
+    public void contentLengthIsParsed() {
+        assertEquals(42, ByteArrayPool.parseContentLength(" 42 "));
+        assertEquals(-1, ByteArrayPool.parseContentLength(null));
+        assertEquals(-1, ByteArrayPool.parseContentLength("-5"));
+        assertEquals(-1, ByteArrayPool.parseContentLength("abc"));
+    }
+
+    @Test
+    public void invalidArgumentsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new ByteArrayPool(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new ByteArrayPool(1, -1));
+    }
+
+    private static byte[] createContent(int length) {
+        final byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    /**
+     * A stream returning at most 7 bytes per read, like a socket delivering a body in small packets.
+     */
+    private static final class TrickleInputStream extends FilterInputStream {
+        TrickleInputStream(byte[] content) {
+            super(new ByteArrayInputStream(content));
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return super.read(b, off, Math.min(len, 7));
+        }
+    }
+}
@@ -0,0 +1,118 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.http.util;
+
+import com.azure.android.core.http.HttpHeader;
+import com.azure.android.core.http.HttpHeaders;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class LazyHttpHeadersTests {
+    @Test
+    public void valuesAreReadWithoutCopy() {
+        final NameValueHeaders headers = new NameValueHeaders("Content-Type", "text/plain", "Vary", "a", "vary", "b");
+        assertEquals("text/plain", headers.getValue("content-type"));
+        assertEquals("a,b", headers.getValue("VARY"));
+        assertArrayEquals(new String[] {"a", "b"}, headers.getValues("Vary"));
+        assertNull(headers.getValue("Missing"));
+        assertEquals(0, headers.copyCount);
+    }
+
+    @Test
+    public void headersAreCopiedOnceOnFirstModification() {
+        final NameValueHeaders headers = new NameValueHeaders("Set-Cookie", "a=1", "Set-Cookie", "b=2", "ETag", "1");
+        headers.put("ETag", "2");
+        assertEquals(1, headers.copyCount);
+        assertEquals("2", headers.getValue("etag"));
+        assertEquals(Arrays.asList("a=1", "b=2"), headers.get("set-cookie").getValuesList());
+        assertEquals(2, headers.getSize());
+
+        headers.remove("Set-Cookie");
+        assertNull(headers.getValue("Set-Cookie"));
+        assertEquals(1, headers.copyCount);
+    }
+
+    @Test
+    public void iterationCopiesTheHeaders() {
+        final NameValueHeaders headers = new NameValueHeaders("A", "1", "B", "2");
+        int count = 0;
+        for (HttpHeader header : headers) {
+            count++;
+        }
+        assertEquals(2, count);
+        assertEquals(1, headers.copyCount);
+        assertEquals("A=1, B=2", new HttpHeaders(headers).toString());
+    }
+
+    @Test
+    public void valuesReadDuringTheCopyAreComplete() throws InterruptedException {
+        final String[] namesAndValues = new String[200];
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            namesAndValues[i] = "Header-" + i;
+            namesAndValues[i + 1] = String.valueOf(i);
+        }
+        for (int run = 0; run < 200; run++) {
+            final NameValueHeaders headers = new NameValueHeaders(namesAndValues);
+            final AtomicBoolean missed = new AtomicBoolean();
+            final CountDownLatch start = new CountDownLatch(1);
+            final Thread reader = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                // The last header is the last one copied.
+                if (!"198".equals(headers.getValue("header-198"))) {
+                    missed.set(true);
+                }
+            });
+            reader.start();
+            start.countDown();
+            assertEquals(100, headers.getSize());
+            reader.join();
+            assertFalse(missed.get());
+            assertEquals(1, headers.copyCount);
+        }
+    }
+
+    /**
+     * Headers backed by alternating names and values, like the OkHttp headers.
+     */
+    private static final class NameValueHeaders extends LazyHttpHeaders {
+        private final String[] namesAndValues;
+        private int copyCount;
+
+        NameValueHeaders(String... namesAndValues) {
+            this.namesAndValues = namesAndValues;
+        }
+
+        @Override
+        protected String readValue(String name) {
+            String value = null;
+            for (int i = 0; i < this.namesAndValues.length; i += 2) {
+                if (this.namesAndValues[i].equalsIgnoreCase(name)) {
+                    value = value == null ? this.namesAndValues[i + 1] : value + "," + this.namesAndValues[i + 1];
+                }
+            }
+            return value;
+        }
+
+        @Override
+        protected void copyAll() {
+            this.copyCount++;
+            for (int i = 0; i < this.namesAndValues.length; i += 2) {
+                add(this.namesAndValues[i], this.namesAndValues[i + 1]);
+            }
+        }
+    }
+}
@@ -25,6 +25,9 @@ import java.io.OutputStream;
 import java.lang.reflect.Field;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.charset.Charset;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
@@ -235,6 +238,74 @@ public final class JacksonSerder {
         }
     }
 
+    /**
+     * Deserializes the content of a channel into a {@code T} object.
+     *
+     * <p>
+     * The content is parsed as it is read from the channel, in the parser's own recycled buffers, it is never
+     * held in memory as a whole.
+     * </p>
+     *
+     * @param channel The {@link ReadableByteChannel} producing the serialized object data, closed once read.
+     * @param type The type to deserialize.
+     * @param encoding The encoding used to serialize value.
+     * @param <T> The type of the deserialized object.
+     * @return The deserialized object, or null if it cannot be deserialized.
+     * @throws IOException exception from deserialization
+     * @throws SerdeParseException exception from deserialization
+     */
+    public <T> T deserialize(ReadableByteChannel channel, final Type type, SerdeEncoding encoding)
+        throws IOException {
+        if (channel == null) {
+            return null;
+        }
+        return this.deserialize(Channels.newInputStream(channel), type, encoding);
+    }
+
+    /**
+     * Deserializes the remaining content of a buffer into a {@code T} object.
+     *
+     * <p>
+     * An array-backed buffer is parsed in place, without copying its content. A read-only heap buffer, such as
+     * the body of a cached response, hides its array and is copied once to be parsed the same way; only a direct
+     * buffer is read as a stream.
+     * </p>
+     *
+     * @param buffer The {@link ByteBuffer} containing the serialized object data, its position is not changed.
+     * @param type The type to deserialize.
+     * @param encoding The encoding used to serialize value.
+     * @param <T> The type of the deserialized object.
+     * @return The deserialized object, or null if it cannot be deserialized.
+     * @throws IOException exception from deserialization
+     * @throws SerdeParseException exception from deserialization
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T deserialize(ByteBuffer buffer, final Type type, SerdeEncoding encoding) throws IOException {
+        if (buffer == null || !buffer.hasRemaining()) {
+            return null;
+        }
+        if (!buffer.hasArray()) {
+            if (buffer.isDirect()) {
+                return this.deserialize(new ByteBufferInputStream(buffer.duplicate()), type, encoding);
+            }
+            final byte[] content = new byte[buffer.remaining()];
+            buffer.duplicate().get(content);
+            return this.deserialize(ByteBuffer.wrap(content), type, encoding);
+        }
+
+        final JavaType javaType = createJavaType(type);
+        final int offset = buffer.arrayOffset() + buffer.position();
+        try {
+            if (encoding == SerdeEncoding.XML) {
+                return (T) this.xmlMapper.readValue(buffer.array(), offset, buffer.remaining(), javaType);
+            } else {
+                return (T) this.mapper.readValue(buffer.array(), offset, buffer.remaining(), javaType);
+            }
+        } catch (JsonParseException jpe) {
+            throw logger.logExceptionAsError(new SerdeParseException(jpe.getMessage(), jpe));
+        }
+    }
+
     /**
      * Deserialize the provided headers returned from a REST API to an entity instance declared as the model to hold
      * 'Matching' headers.
@@ -385,4 +456,38 @@ public final class JacksonSerder {
             return javaType;
         }
     }
+
+    /**
+     * An {@link InputStream} reading the remaining content of a buffer that is not array-backed.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return this.buffer.hasRemaining() ? this.buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (len == 0) {
+                return 0;
+            }
+            if (!this.buffer.hasRemaining()) {
+                return -1;
+            }
+            final int count = Math.min(len, this.buffer.remaining());
+            this.buffer.get(b, off, count);
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return this.buffer.remaining();
+        }
+    }
 }
@@ -14,12 +14,17 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.threeten.bp.OffsetDateTime;
 import org.threeten.bp.ZoneOffset;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class JacksonSerderTests {
     @Test
@@ -109,6 +114,39 @@ public class JacksonSerderTests {
         );
     }
 
+    @Test
+    public void deserializeFromByteBufferAndChannel() throws IOException {
+        final JacksonSerder serder = JacksonSerder.createDefault();
+        final byte[] json = "  {\"OffsetDateTime\":\"1970-01-01T00:00:00Z\"}".getBytes(StandardCharsets.UTF_8);
+        final OffsetDateTime expected = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        // An array backed buffer, positioned past the leading spaces.
+        final ByteBuffer heap = ByteBuffer.wrap(json);
+        heap.position(2);
+        DateTimeWrapper wrapper = serder.deserialize(heap, DateTimeWrapper.class, SerdeEncoding.JSON);
+        assertEquals(expected, wrapper.getOffsetDateTime());
+        // The position of the buffer is not moved.
+        assertEquals(2, heap.position());
+
+        // A read-only buffer hides its array.
+        final ByteBuffer readOnly = ByteBuffer.wrap(json).asReadOnlyBuffer();
+        readOnly.position(2);
+        wrapper = serder.deserialize(readOnly, DateTimeWrapper.class, SerdeEncoding.JSON);
+        assertEquals(expected, wrapper.getOffsetDateTime());
+        assertEquals(2, readOnly.position());
+
+        final ByteBuffer direct = ByteBuffer.allocateDirect(json.length);
+        direct.put(json).flip();
+        wrapper = serder.deserialize(direct, DateTimeWrapper.class, SerdeEncoding.JSON);
+        assertEquals(expected, wrapper.getOffsetDateTime());
+
+        wrapper = serder.deserialize(Channels.newChannel(new ByteArrayInputStream(json)), DateTimeWrapper.class,
+            SerdeEncoding.JSON);
+        assertEquals(expected, wrapper.getOffsetDateTime());
+
+        assertNull(serder.deserialize(ByteBuffer.allocate(0), DateTimeWrapper.class, SerdeEncoding.JSON));
+    }
+
     @ParameterizedTest
     @MethodSource("deserializeXmlSupplier")
     public void deserializeXml(String xml, OffsetDateTime expected) throws IOException {
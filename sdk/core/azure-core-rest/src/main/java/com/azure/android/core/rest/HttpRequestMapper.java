@@ -21,6 +21,7 @@ import com.azure.android.core.rest.annotation.Post;
 import com.azure.android.core.rest.annotation.Put;
 import com.azure.android.core.rest.annotation.QueryParam;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.serde.jackson.JacksonSerder;
 import com.azure.android.core.serde.jackson.SerdeEncoding;
 
@@ -28,6 +29,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -178,7 +180,7 @@ final class HttpRequestMapper {
             } else {
                 String contentType = this.contentType;
                 if (contentType == null || contentType.isEmpty()) {
-                    if (content instanceof byte[] || content instanceof String) {
+                    if (content instanceof byte[] || content instanceof String || content instanceof HttpRequestBody) {
                         contentType = "application/octet-stream";
                     } else {
                         contentType = "application/json";
@@ -195,23 +197,24 @@ final class HttpRequestMapper {
                     }
                 }
 
-                if (isJson) {
-                    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                if (content instanceof HttpRequestBody) {
+                    // Already encoded, e.g. a stream or a file sent as it is read.
+                    request.setBody((HttpRequestBody) content);
+                } else if (isJson) {
+                    ContentOutputStream stream = new ContentOutputStream();
                     this.jacksonSerder.serialize(content, SerdeEncoding.JSON, stream);
-                    request.setHeader("Content-Length", String.valueOf(stream.size()));
-                    request.setBody(stream.toByteArray());
+                    request.setBody(stream.toRequestBody());
                 } else if (content instanceof byte[]) {
                     request.setBody((byte[]) content);
                 } else if (content instanceof String) {
                     final String contentString = (String) content;
                     request.setBody(contentString);
                 } else {
-                    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                    ContentOutputStream stream = new ContentOutputStream();
                     this.jacksonSerder.serialize(content,
                         SerdeEncoding.fromHeaders(request.getHeaders().toMap()),
                         stream);
-                    request.setHeader("Content-Length", String.valueOf(stream.size()));
-                    request.setBody(stream.toByteArray());
+                    request.setBody(stream.toRequestBody());
                 }
             }
         }
@@ -412,6 +415,20 @@ final class HttpRequestMapper {
         }
     }
 
+    /**
+     * The stream the body is serialized to, handing its buffer over to the request without the copy
+     * {@link ByteArrayOutputStream#toByteArray()} makes.
+     */
+    private static final class ContentOutputStream extends ByteArrayOutputStream {
+        ContentOutputStream() {
+            super(256);
+        }
+
+        HttpRequestBody toRequestBody() {
+            return HttpRequestBody.fromByteBuffer(ByteBuffer.wrap(this.buf, 0, this.count));
+        }
+    }
+
     /**
      * Describes mapping of a swagger interface method parameter.
      * <p>
@@ -37,6 +37,8 @@ import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
@@ -129,6 +131,20 @@ final class HttpResponseMapper {
                     httpResponse,
                     headerObject,
                     httpResponse.getBody());
+            } else if (TypeUtil.isTypeOrSubTypeOf(this.contentDecodeType, ReadableByteChannel.class)) {
+                return instantiateResponse(this.responseCtr,
+                    this.responseCtrParamCount,
+                    httpResponse.getRequest(),
+                    httpResponse,
+                    headerObject,
+                    httpResponse.getBodyAsChannel());
+            } else if (TypeUtil.isTypeOrSubTypeOf(this.contentDecodeType, ByteBuffer.class)) {
+                return instantiateResponse(this.responseCtr,
+                    this.responseCtrParamCount,
+                    httpResponse.getRequest(),
+                    httpResponse,
+                    headerObject,
+                    httpResponse.getBodyAsByteBuffer());
             } else if (TypeUtil.isTypeOrSubTypeOf(this.contentDecodeType, byte[].class)) {
                 if (this.contentEncodedType == Base64Url.class) {
                     final byte[] encodedContent = httpResponse.getBodyAsByteArray();
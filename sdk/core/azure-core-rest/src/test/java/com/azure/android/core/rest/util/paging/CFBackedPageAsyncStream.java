@@ -42,10 +42,11 @@ final class CFBackedPageAsyncStream<T>
         }
 
         final CompletableFuture<Void> completableFuture = this.enumeratePages(startPageId, token, handler);
-        token.registerOnCancel(() -> {
+        final CancellationToken.Registration onCancelRegistration = token.register(() -> {
             completableFuture.cancel(true);
         });
         completableFuture.whenCompleteAsync((ignored, throwable) -> {
+            onCancelRegistration.close();
             if (throwable != null) {
                 if (throwable instanceof CompletionException && throwable.getCause() != null) {
                     // unwrap CF's CompletionException.
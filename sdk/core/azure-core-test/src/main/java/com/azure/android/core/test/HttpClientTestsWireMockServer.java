@@ -24,6 +24,10 @@ public class HttpClientTestsWireMockServer {
     private static final String UTF_32LE_BOM_RESPONSE = "/utf32LeBomBytes";
     private static final String BOM_WITH_SAME_HEADER = "/bomBytesWithSameHeader";
     private static final String BOM_WITH_DIFFERENT_HEADER = "/bomBytesWithDifferentHeader";
+    private static final String FIXED_LENGTH_BODY = "/fixedLengthBody";
+    private static final String CHUNKED_BODY = "/chunkedBody";
+    private static final String REPEATED_HEADER = "/repeatedHeader";
+    private static final String SLOW_RESPONSE = "/slowResponse";
 
     private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
     private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
@@ -78,6 +82,26 @@ public class HttpClientTestsWireMockServer {
         server.stubFor(WireMock.get(BOM_WITH_DIFFERENT_HEADER).willReturn(WireMock.aResponse()
             .withBody(addBom(UTF_8_BOM)).withHeader("Content-Type", "charset=UTF-16")));
 
+        // Request body sent with a Content-Length, any other request gets a 404.
+        server.stubFor(WireMock.put(FIXED_LENGTH_BODY)
+            .withHeader("Content-Length", WireMock.equalTo(String.valueOf(RETURN_BYTES.length)))
+            .withRequestBody(WireMock.equalTo(new String(RETURN_BYTES, StandardCharsets.UTF_8)))
+            .willReturn(WireMock.aResponse().withBody(RETURN_BYTES)));
+
+        // Request body sent with chunked transfer encoding, any other request gets a 404.
+        server.stubFor(WireMock.put(CHUNKED_BODY)
+            .withHeader("Transfer-Encoding", WireMock.equalTo("chunked"))
+            .withRequestBody(WireMock.equalTo(new String(RETURN_BYTES, StandardCharsets.UTF_8)))
+            .willReturn(WireMock.aResponse().withBody(RETURN_BYTES)));
+
+        // Response with a header repeated on two lines.
+        server.stubFor(WireMock.get(REPEATED_HEADER).willReturn(WireMock.aResponse().withBody(RETURN_BYTES)
+            .withHeader("X-Repeated", "a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT", "b=2")));
+
+        // Response sent after a delay, long enough for the call to be cancelled while in flight.
+        server.stubFor(WireMock.get(SLOW_RESPONSE).willReturn(WireMock.aResponse().withBody(RETURN_BYTES)
+            .withFixedDelay(5000)));
+
         return server;
     }
 
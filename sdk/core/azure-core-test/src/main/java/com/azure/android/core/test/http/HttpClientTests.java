@@ -7,18 +7,26 @@ import com.azure.android.core.http.HttpCallback;
 import com.azure.android.core.http.HttpClient;
 import com.azure.android.core.http.HttpMethod;
 import com.azure.android.core.http.HttpRequest;
+import com.azure.android.core.http.HttpRequestBody;
 import com.azure.android.core.http.HttpResponse;
 import com.azure.android.core.util.CancellationToken;
 
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Generic test suite for {@link HttpClient HttpClients}.
@@ -35,6 +43,10 @@ public abstract class HttpClientTests {
     private static final String UTF_32LE_BOM_RESPONSE = "utf32LeBomBytes";
     private static final String BOM_WITH_SAME_HEADER = "bomBytesWithSameHeader";
     private static final String BOM_WITH_DIFFERENT_HEADER = "bomBytesWithDifferentHeader";
+    private static final String FIXED_LENGTH_BODY = "fixedLengthBody";
+    private static final String CHUNKED_BODY = "chunkedBody";
+    private static final String REPEATED_HEADER = "repeatedHeader";
+    private static final String SLOW_RESPONSE = "slowResponse";
 
     private static final byte[] EXPECTED_RETURN_BYTES = "Hello World!".getBytes(StandardCharsets.UTF_8);
 
@@ -152,6 +164,107 @@ public abstract class HttpClientTests {
         assertEquals(expected, actual);
     }
 
+    /**
+     * Tests that a streamed request body of known length is sent with a 'Content-Length' header.
+     */
+    @Test
+    public void fixedLengthStreamedBody() {
+        HttpRequest request = new HttpRequest(HttpMethod.PUT,
+            REQUEST_HOST + ":" + getWireMockPort() + "/" + FIXED_LENGTH_BODY);
+        request.setBody(HttpRequestBody.fromStream(new ByteArrayInputStream(EXPECTED_RETURN_BYTES),
+            EXPECTED_RETURN_BYTES.length));
+        assertEquals(200, sendRequest(request, "fixedLengthStreamedBody").getStatusCode());
+    }
+
+    /**
+     * Tests that a streamed request body of unknown length is sent with chunked transfer encoding.
+     */
+    @Test
+    public void chunkedStreamedBody() {
+        HttpRequest request = new HttpRequest(HttpMethod.PUT,
+            REQUEST_HOST + ":" + getWireMockPort() + "/" + CHUNKED_BODY);
+        request.setBody(HttpRequestBody.fromStream(new ByteArrayInputStream(EXPECTED_RETURN_BYTES)));
+        assertEquals(200, sendRequest(request, "chunkedStreamedBody").getStatusCode());
+    }
+
+    /**
+     * Tests that each value of a response header repeated on several lines is kept.
+     */
+    @Test
+    public void repeatedResponseHeader() {
+        HttpRequest request = new HttpRequest(HttpMethod.GET,
+            REQUEST_HOST + ":" + getWireMockPort() + "/" + REPEATED_HEADER);
+        HttpResponse response = sendRequest(request, "repeatedResponseHeader");
+        assertEquals(12, Integer.parseInt(response.getHeaderValue("content-length")));
+
+        // The order of the lines is not kept by every platform.
+        List<String> values = new ArrayList<>(response.getHeaders().get("x-repeated").getValuesList());
+        Collections.sort(values);
+        assertEquals(Arrays.asList("a=1; Expires=Wed, 21 Oct 2026 07:28:00 GMT", "b=2"), values);
+    }
+
+    /**
+     * Tests that cancelling a call while it waits for the response fails it right away.
+     */
+    @Test
+    public void cancelInFlight() throws InterruptedException {
+        HttpRequest request = new HttpRequest(HttpMethod.GET,
+            REQUEST_HOST + ":" + getWireMockPort() + "/" + SLOW_RESPONSE);
+        CancellationToken cancellationToken = new CancellationToken();
+        CountDownLatch latch = new CountDownLatch(1);
+        final Throwable[] throwable = new Throwable[1];
+
+        createHttpClient().send(request, cancellationToken, new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse httpResponse) {
+                httpResponse.close();
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                throwable[0] = error;
+                latch.countDown();
+            }
+        });
+
+        Thread.sleep(200);
+        cancellationToken.cancel();
+        // Well before the server sends the response.
+        assertTrue(latch.await(2, TimeUnit.SECONDS), "The cancelled call did not complete.");
+        assertTrue(throwable[0] instanceof IOException, String.valueOf(throwable[0]));
+    }
+
+    private HttpResponse sendRequest(HttpRequest request, String method) {
+        CountDownLatch latch = new CountDownLatch(1);
+
+        final HttpResponse[] response = new HttpResponse[1];
+        final Throwable[] throwable = new Throwable[1];
+
+        createHttpClient().send(request, CancellationToken.NONE, new HttpCallback() {
+            @Override
+            public void onSuccess(HttpResponse httpResponse) {
+                response[0] = httpResponse;
+                httpResponse.close();
+                latch.countDown();
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                throwable[0] = error;
+                latch.countDown();
+            }
+        });
+
+        awaitOnLatch(latch, method);
+
+        if (throwable[0] != null) {
+            throw new RuntimeException(throwable[0]);
+        } else {
+            return response[0];
+        }
+    }
+
     private String sendRequest(String requestPath, String method) {
         CountDownLatch latch = new CountDownLatch(1);
 
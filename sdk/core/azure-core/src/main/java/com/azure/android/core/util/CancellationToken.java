@@ -29,17 +29,35 @@
 package com.azure.android.core.util;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Type representing a token to cancel one or more operations.
  */
 public final class CancellationToken {
+    // The minimum number of closed registrations before they are unlinked from the list.
+    private static final int SWEEP_THRESHOLD = 16;
+    // A registration that does nothing on close, returned by the NONE token.
+    private static final Registration NO_OP_REGISTRATION = () -> { };
+
     // the reference to the head of the OnCancelNode list (each node hold an Runnable to execute on cancel).
     private volatile OnCancelNode onCancelNodes;
     // CAS Updater to update the above OnCancelNode list head field.
     private static final AtomicReferenceFieldUpdater<CancellationToken, OnCancelNode> ON_CANCEL_NODES_UPDATER
         = AtomicReferenceFieldUpdater.newUpdater(CancellationToken.class,  OnCancelNode.class, "onCancelNodes");
+    // The number of nodes added to the list and not yet unlinked.
+    private volatile int nodeCount;
+    private static final AtomicIntegerFieldUpdater<CancellationToken> NODE_COUNT_UPDATER
+        = AtomicIntegerFieldUpdater.newUpdater(CancellationToken.class, "nodeCount");
+    // The number of nodes closed (logically deleted) and not yet unlinked.
+    private volatile int deletedCount;
+    private static final AtomicIntegerFieldUpdater<CancellationToken> DELETED_COUNT_UPDATER
+        = AtomicIntegerFieldUpdater.newUpdater(CancellationToken.class, "deletedCount");
+    // 1 while a thread unlinks the deleted nodes, there is at most one such thread at a time.
+    private volatile int sweeping;
+    private static final AtomicIntegerFieldUpdater<CancellationToken> SWEEPING_UPDATER
+        = AtomicIntegerFieldUpdater.newUpdater(CancellationToken.class, "sweeping");
     // Ensures side-effect of app calling cancel() happens only once.
     private final AtomicBoolean isCancelled = new AtomicBoolean(false);
 
@@ -81,16 +99,34 @@ public final class CancellationToken {
      * @param onCancel The {@link Runnable} to be executed when the CancellationToken is canceled.
      */
     public void registerOnCancel(Runnable onCancel) {
+        this.register(onCancel);
+    }
+
+    /**
+     * Registers a {@link Runnable} that will be called when this CancellationToken is canceled, returning
+     * the registration to close once the {@link Runnable} no longer needs to run.
+     *
+     * This operation of registering the {@link Runnable} is non-blocking and thread-safe. If the token
+     * is already in the cancelled state then the provided Runnable will be immediately executed.
+     *
+     * This is O(1) in best case and O(k) in worst, where k is number of concurrent threads in case
+     * of race.
+     *
+     * @param onCancel The {@link Runnable} to be executed when the CancellationToken is canceled.
+     * @return The registration, to close once the {@link Runnable} no longer needs to run on cancel.
+     */
+    public Registration register(Runnable onCancel) {
         if (this == CancellationToken.NONE) {
-            return;
+            return NO_OP_REGISTRATION;
         }
-        OnCancelNode node = new OnCancelNode(onCancel);
+        OnCancelNode node = new OnCancelNode(this, null, onCancel);
         final boolean added = this.tryAddOnCancelNode(node);
         if (!added) {
             // Couldn't add since the list was frozen as a result of cancellation,
             // invoke this Runnable Callback immediately.
             node.invokeOnCancel();
         }
+        return node;
     }
 
     /**
@@ -104,12 +140,18 @@ public final class CancellationToken {
      *
      * @param id The registration id for the {@link Runnable} to register.
      * @param onCancel The {@link Runnable} to be executed when the CancellationToken is canceled.
+     * @deprecated Use {@link #register(Runnable)} and close the returned {@link Registration}, which
+     * needs no id and is unregistered in O(1).
      */
+    @Deprecated
     public void registerOnCancel(String id, Runnable onCancel) {
         if (this == CancellationToken.NONE) {
             return;
         }
-        OnCancelNode node = new OnCancelNode(id, onCancel);
+        if (id == null) {
+            throw new NullPointerException("'id' is required and cannot be null.");
+        }
+        OnCancelNode node = new OnCancelNode(this, id, onCancel);
         final boolean added = this.tryAddOnCancelNode(node);
         if (!added) {
             // Couldn't add since the list was frozen as a result of cancellation,
@@ -122,36 +164,60 @@ public final class CancellationToken {
      * Unregister the {@link Runnable} that was registered using
      * {@link CancellationToken#registerOnCancel(String, Runnable)}.
      *
-     * This unregister operation is non-blocking and thread-safe.
+     * This unregister operation is non-blocking and thread-safe, it is O(n) as the node is looked up by id.
      *
      * @param id The id of the {@link Runnable} to unregister.
+     * @deprecated Close the {@link Registration} returned by {@link #register(Runnable)} instead.
      */
+    @Deprecated
     public void unregisterOnCancel(String id) {
         if (this == CancellationToken.NONE) {
             return;
         }
         OnCancelNode itr = this.onCancelNodes;
-        // Step_1: Locate the node and mark it as logically deleted.
-        //
-        while (itr != null) {
-            if (this.onCancelNodes == OnCancelNode.FROZEN) {
-                // The token is cancelled, no use in progressing.
-                return;
-            }
+        while (itr != null && itr != OnCancelNode.FROZEN) {
             if (itr.id != null && itr.id.equals(id)) {
-                // Mark the node as logically deleted.
-                itr.markDeleted();
-                break;
+                itr.close();
+                return;
             }
             itr = itr.next;
         }
-        if (itr == null) {
-            // A node with id was not found.
+    }
+
+    /**
+     * Gets the number of registrations held by the token, including the closed ones not yet unlinked.
+     *
+     * @return The number of registrations held.
+     */
+    int getRegistrationCount() {
+        return this.nodeCount;
+    }
+
+    /**
+     * Called when a node is closed: the node is already marked as logically deleted, it is unlinked
+     * from the list along with the other deleted nodes once they make up half of the list. Unlinking
+     * is O(n), done once every n/2 closes, hence closing a node is O(1) amortized.
+     */
+    private void onNodeDeleted() {
+        final int deleted = DELETED_COUNT_UPDATER.incrementAndGet(this);
+        if (deleted < SWEEP_THRESHOLD || deleted * 2 < this.nodeCount) {
+            return;
+        }
+        if (!SWEEPING_UPDATER.compareAndSet(this, 0, 1)) {
+            // Another thread is sweeping.
             return;
         }
+        try {
+            this.sweepDeletedNodes();
+        } finally {
+            this.sweeping = 0;
+        }
+    }
 
-        // Step_2: Sweep to unlink all logically deleted nodes.
-        //
+    /**
+     * Sweep to unlink all logically deleted nodes, called by one thread at a time.
+     */
+    private void sweepDeletedNodes() {
         boolean hadRace;
         do {
             // Outer 'do-while' to retry on any race during sweep.
@@ -172,21 +238,18 @@ public final class CancellationToken {
                         // The 'current' node has no 'predecessor' hence it's head, try CAS head with 'successor'.
                         if (!ON_CANCEL_NODES_UPDATER.compareAndSet(this, current, successor)) {
                             // Raced with
-                            //     1. another thread calling registerOnCancelCallback.
+                            //     1. another thread calling registerOnCancel.
                             //     2. OR the 'cancel()' call.
                             // need to retry.
                             hadRace = true;
                             break;
                         }
                     } else {
-                        // The 'current' node has a 'predecessor'.
+                        // The 'current' node has a 'predecessor', only this thread unlinks nodes.
                         predecessor.next = successor;
-                        if (predecessor.isDeleted()) {
-                            // Raced with another thread that unlinked 'predecessor', need to retry.
-                            hadRace = true;
-                            break;
-                        }
                     }
+                    NODE_COUNT_UPDATER.decrementAndGet(this);
+                    DELETED_COUNT_UPDATER.decrementAndGet(this);
                 } else {
                     // We aren't un-linking 'current' node, update 'predecessor'.
                     predecessor = current;
@@ -223,6 +286,7 @@ public final class CancellationToken {
                 headNode = this.onCancelNodes;
             } else {
                 // able to insert the new node (hence the head update) so return.
+                NODE_COUNT_UPDATER.incrementAndGet(this);
                 return true;
             }
         } while (headNode != OnCancelNode.FROZEN);
@@ -255,6 +319,11 @@ public final class CancellationToken {
      */
     private OnCancelNode freezeAndGetCallbackNodes() {
         OnCancelNode current = this.freezeCallbackNodes();
+        // A sweep started before the freeze may still be unlinking nodes, wait for it before relinking them;
+        // a sweep starting after the freeze sees the frozen list and does nothing.
+        while (this.sweeping != 0) {
+            Thread.yield();
+        }
         // The list has to be reversed since the onCancel callback needs to be
         // called in the order that they were originally added.
         OnCancelNode reversed = null;
@@ -280,40 +349,47 @@ public final class CancellationToken {
     }
 
     /**
-     * Represents a node in the OnCancel Callback list.
+     * The registration of a {@link Runnable} to run on cancel, returned by
+     * {@link CancellationToken#register(Runnable)}.
+     */
+    public interface Registration {
+        /**
+         * Unregisters the {@link Runnable}, so it doesn't run if the token is cancelled afterwards.
+         *
+         * This operation is non-blocking, thread-safe, idempotent and O(1) amortized.
+         */
+        void close();
+    }
+
+    /**
+     * Represents a node in the OnCancel Callback list, it is also the registration of its Callback.
      */
-    private static final class OnCancelNode {
+    private static final class OnCancelNode implements Registration {
         // a node to indicate that the list is frozen hence no more
         // node can be added to the list.
-        static final OnCancelNode FROZEN = new OnCancelNode(null);
+        static final OnCancelNode FROZEN = new OnCancelNode(null, null, null);
+        private static final AtomicIntegerFieldUpdater<OnCancelNode> DELETED_UPDATER
+            = AtomicIntegerFieldUpdater.newUpdater(OnCancelNode.class, "deleted");
+        // the token holding the list.
+        private final CancellationToken token;
+        // the id of a node registered through the deprecated registerOnCancel(String, Runnable).
         private final String id;
         // the reference to the OnCancel Callback.
         private final Runnable onCancel;
-        // indicate whether this node is marked as deleted.
-        private volatile boolean isDeleted = false;
+        // 1 if this node is marked as deleted, 0 otherwise.
+        private volatile int deleted;
         // the next node in the list.
         volatile OnCancelNode next;
 
         /**
          * Creates OnCancelNode.
          *
+         * @param token The token holding the list.
+         * @param id The id for the node, null if the node has no id.
          * @param onCancel The onCancel Callback to wrap.
          */
-        OnCancelNode(Runnable onCancel) {
-            this.id = null;
-            this.onCancel = onCancel;
-        }
-
-        /**
-         * Creates OnCancelNode.
-         *
-         * @param id The id for the node.
-         * @param onCancel The onCancel Callback to wrap.
-         */
-        OnCancelNode(String id, Runnable onCancel) {
-            if (id == null) {
-                throw new NullPointerException("'id' is required and cannot be null.");
-            }
+        OnCancelNode(CancellationToken token, String id, Runnable onCancel) {
+            this.token = token;
             this.id = id;
             this.onCancel = onCancel;
         }
@@ -322,7 +398,7 @@ public final class CancellationToken {
          * Invokes the wrapped onCancel Callback in it's executor.
          */
         void invokeOnCancel() {
-            if (this.isDeleted) {
+            if (this.deleted != 0) {
                 return;
             }
             onCancel.run();
@@ -330,10 +406,13 @@ public final class CancellationToken {
 
         /**
          * Mark the node as deleted hence not a part of the OnCancel Callback list
-         * any more.
+         * any more, it gets unlinked later by the token.
          */
-        void markDeleted() {
-            this.isDeleted = true;
+        @Override
+        public void close() {
+            if (DELETED_UPDATER.compareAndSet(this, 0, 1)) {
+                this.token.onNodeDeleted();
+            }
         }
 
         /**
@@ -342,9 +421,7 @@ public final class CancellationToken {
          * @return true if deleted, false otherwise.
          */
         boolean isDeleted() {
-            return this.isDeleted;
+            return this.deleted != 0;
         }
     }
 }
-
-
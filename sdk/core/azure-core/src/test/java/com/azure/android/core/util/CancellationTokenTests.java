@@ -0,0 +1,102 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.android.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests {@link CancellationToken}
+ */
+public class CancellationTokenTests {
+    @Test
+    public void callbacksRunInRegistrationOrder() {
+        final CancellationToken token = new CancellationToken();
+        final List<Integer> calls = new ArrayList<>();
+        token.registerOnCancel(() -> calls.add(1));
+        final CancellationToken.Registration second = token.register(() -> calls.add(2));
+        token.registerOnCancel(() -> calls.add(3));
+        second.close();
+
+        token.cancel();
+        token.cancel();
+        assertEquals(Arrays.asList(1, 3), calls);
+
+        // Registering on a cancelled token runs the callback right away.
+        token.register(() -> calls.add(4)).close();
+        assertEquals(Arrays.asList(1, 3, 4), calls);
+    }
+
+    @Test
+    public void closedRegistrationsAreUnlinked() {
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger calls = new AtomicInteger();
+        final CancellationToken.Registration kept = token.register(calls::incrementAndGet);
+        for (int i = 0; i < 10_000; i++) {
+            final CancellationToken.Registration registration = token.register(calls::incrementAndGet);
+            registration.close();
+            // Closing twice has no effect.
+            registration.close();
+        }
+        // The closed registrations do not accumulate on a long-lived token.
+        assertTrue(token.getRegistrationCount() <= 32, "Registrations held: " + token.getRegistrationCount());
+
+        token.cancel();
+        assertEquals(1, calls.get());
+        kept.close();
+    }
+
+    @Test
+    public void deprecatedIdRegistrationStillWorks() {
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger calls = new AtomicInteger();
+        token.registerOnCancel("a", calls::incrementAndGet);
+        token.registerOnCancel("b", () -> calls.addAndGet(10));
+        token.unregisterOnCancel("a");
+
+        token.cancel();
+        assertEquals(10, calls.get());
+    }
+
+    @Test
+    public void concurrentRegistrationAndClose() throws InterruptedException {
+        final CancellationToken token = new CancellationToken();
+        final AtomicInteger calls = new AtomicInteger();
+        final int threads = 8;
+        final int perThread = 5_000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    final CancellationToken.Registration registration = token.register(calls::incrementAndGet);
+                    // Keep one registration out of 100 open.
+                    if (i % 100 != 0) {
+                        registration.close();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        token.cancel();
+        assertEquals(threads * perThread / 100, calls.get());
+    }
+
+    @Test
+    public void noneTokenIgnoresRegistrations() {
+        final AtomicInteger calls = new AtomicInteger();
+        CancellationToken.NONE.register(calls::incrementAndGet).close();
+        CancellationToken.NONE.cancel();
+        assertEquals(0, calls.get());
+    }
+}